@@ -38,6 +38,13 @@ android {
     kotlinOptions {
         jvmTarget = "11"
     }
+
+    // Bancs d'essai ignorés par défaut : ./gradlew testDebugUnitTest -Pbenchmarks
+    testOptions {
+        unitTests.all {
+            it.systemProperty("skilllearn.benchmarks", project.hasProperty("benchmarks"))
+        }
+    }
 }
 
 dependencies {
@@ -45,6 +52,8 @@ dependencies {
     implementation("com.google.android.material:material:1.10.0")
     implementation("androidx.activity:activity-ktx:1.8.1")
     implementation("androidx.constraintlayout:constraintlayout:2.1.4")
+    // Passage de l'application en arrière-plan (envoi des écritures différées)
+    implementation("androidx.lifecycle:lifecycle-process:2.6.2")
 
     // Firebase
     implementation(platform("com.google.firebase:firebase-bom:32.6.0"))
@@ -54,22 +63,23 @@ dependencies {
 
     implementation("com.github.bumptech.glide:glide:4.16.0")
     annotationProcessor("com.github.bumptech.glide:compiler:4.16.0")
+    // Préchargement des images des lignes suivantes d'une RecyclerView
+    implementation("com.github.bumptech.glide:recyclerview-integration:4.16.0") {
+        isTransitive = false
+    }
 
     // Tests
     testImplementation("junit:junit:4.13.2")
     androidTestImplementation("androidx.test.ext:junit:1.1.5")
     androidTestImplementation("androidx.test.espresso:espresso-core:3.5.1")
-    // Picasso pour le chargement d'images
-    implementation("com.squareup.picasso:picasso:2.8")
     implementation("de.hdodenhof:circleimageview:3.1.0")
     implementation("com.google.android.exoplayer:exoplayer-core:2.19.1")
     implementation("com.google.android.exoplayer:exoplayer-ui:2.19.1")
 
-    implementation("com.pierfrancescosoffritti.androidyoutubeplayer:core:11.1.0")
+    // Lecteur YouTube (une seule version)
+    implementation("com.pierfrancescosoffritti.androidyoutubeplayer:core:12.1.0")
     // RecyclerView
     implementation("androidx.recyclerview:recyclerview:1.3.0")
-    implementation("com.squareup.picasso:picasso:2.8")
 // CardView
     implementation("androidx.cardview:cardview:1.0.0")
-    implementation("com.pierfrancescosoffritti.androidyoutubeplayer:core:12.1.0")
 }
\ No newline at end of file
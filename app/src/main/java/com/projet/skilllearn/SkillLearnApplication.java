@@ -1,8 +1,36 @@
 package com.projet.skilllearn;
 
 import android.app.Application;
+import android.content.Context;
+import android.net.ConnectivityManager;
+import android.net.Network;
+import android.net.NetworkCapabilities;
+import android.os.Handler;
+import android.os.Looper;
 import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.lifecycle.DefaultLifecycleObserver;
+import androidx.lifecycle.LifecycleOwner;
+import androidx.lifecycle.ProcessLifecycleOwner;
+
 import com.google.firebase.FirebaseApp;
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseError;
+import com.google.firebase.database.FirebaseDatabase;
+import com.google.firebase.database.ValueEventListener;
+import com.projet.skilllearn.repository.CourseBundleLoader;
+import com.projet.skilllearn.repository.CourseCache;
+import com.projet.skilllearn.repository.CourseIndex;
+import com.projet.skilllearn.repository.FirebaseCourseRemote;
+import com.projet.skilllearn.utils.CourseDownloadManager;
+import com.projet.skilllearn.utils.FirebaseMutationBackend;
+import com.projet.skilllearn.utils.MutationJournal;
+import com.projet.skilllearn.utils.SnapshotMapper;
+import com.projet.skilllearn.utils.VideoCache;
+import com.projet.skilllearn.utils.WriteBehindQueue;
+
+import java.io.File;
 
 public class SkillLearnApplication extends Application {
     @Override
@@ -10,9 +38,102 @@ public class SkillLearnApplication extends Application {
         super.onCreate();
         try {
             FirebaseApp.initializeApp(this);
+            // Doit précéder toute autre utilisation de la base : les écouteurs reçoivent d'abord
+            // les données locales. Firebase garde aussi ses écritures hors ligne, en plus du
+            // journal des mutations (voir MutationJournal pour la coexistence des deux files)
+            FirebaseDatabase.getInstance().setPersistenceEnabled(true);
             Log.d("Firebase", "Firebase initialized successfully");
         } catch (Exception e) {
             Log.e("Firebase", "Failed to initialize Firebase", e);
         }
+
+        Handler mainHandler = new Handler(Looper.getMainLooper());
+
+        // Conversion des instantanés Firebase en objets du modèle hors du thread principal
+        SnapshotMapper.initialize(mainHandler::post);
+
+        // Cache disque des cours et des sections, livré sur le thread principal
+        FirebaseCourseRemote remote = new FirebaseCourseRemote();
+        CourseCache.initialize(new File(getFilesDir(), "course_cache"), remote, mainHandler::post);
+        // Catalogue projeté en mémoire : le catalogue affiche sa première page sans tout décoder
+        CourseCache.getInstance().mapCatalog();
+
+        // Ouverture d'un cours dans le lecteur : cours, sections et progression en un chargement
+        CourseBundleLoader.initialize(remote, CourseIndex.getInstance()::get, mainHandler::post);
+
+        // Cache disque des vidéos, rempli par le lecteur et par le préchargement de la section suivante
+        VideoCache.initialize(this);
+
+        // Vidéos des cours téléchargés pour la lecture hors ligne ; les téléchargements interrompus reprennent
+        ConnectivityManager connectivity = (ConnectivityManager) getSystemService(Context.CONNECTIVITY_SERVICE);
+        CourseDownloadManager.initialize(new File(getFilesDir(), "downloads.state"), VideoCache.getInstance(),
+                () -> isUnmetered(connectivity), mainHandler::post);
+        watchNetwork(connectivity);
+
+        // Mutations en attente, rejouées dans l'ordre jusqu'à leur confirmation
+        MutationJournal.initialize(new File(getFilesDir(), "mutations.journal"),
+                new FirebaseMutationBackend(), mainHandler::post);
+        watchConnectivity();
+
+        // Écritures fréquentes (progression, quiz, notes) regroupées puis confiées au journal
+        WriteBehindQueue.initialize(new File(getFilesDir(), "pending_writes.journal"),
+                MutationJournal.getInstance());
+        // Le lot en attente part dès que l'application passe en arrière-plan, sans attendre son délai
+        ProcessLifecycleOwner.get().getLifecycle().addObserver(new DefaultLifecycleObserver() {
+            @Override
+            public void onStop(@NonNull LifecycleOwner owner) {
+                WriteBehindQueue.getInstance().flush();
+            }
+        });
+    }
+
+    @Override
+    public void onTrimMemory(int level) {
+        super.onTrimMemory(level);
+        // Glide vide lui-même ses caches ; on relève l'efficacité du pool avant qu'il soit réduit
+        SkillLearnGlideModule.logBitmapPoolStats();
+    }
+
+    private static boolean isUnmetered(ConnectivityManager connectivity) {
+        NetworkCapabilities capabilities = connectivity.getNetworkCapabilities(connectivity.getActiveNetwork());
+        return capabilities != null
+                && capabilities.hasCapability(NetworkCapabilities.NET_CAPABILITY_NOT_METERED);
+    }
+
+    /**
+     * Reprend les téléchargements en attente du Wi-Fi quand le réseau change
+     */
+    private void watchNetwork(ConnectivityManager connectivity) {
+        connectivity.registerDefaultNetworkCallback(new ConnectivityManager.NetworkCallback() {
+            @Override
+            public void onCapabilitiesChanged(@NonNull Network network, @NonNull NetworkCapabilities capabilities) {
+                CourseDownloadManager.getInstance().onNetworkChanged();
+            }
+
+            @Override
+            public void onLost(@NonNull Network network) {
+                CourseDownloadManager.getInstance().onNetworkChanged();
+            }
+        });
+    }
+
+    /**
+     * Relance le journal des mutations dès que la connexion à Firebase revient
+     */
+    private void watchConnectivity() {
+        FirebaseDatabase.getInstance().getReference(".info/connected")
+                .addValueEventListener(new ValueEventListener() {
+                    @Override
+                    public void onDataChange(@NonNull DataSnapshot snapshot) {
+                        if (Boolean.TRUE.equals(snapshot.getValue(Boolean.class))) {
+                            MutationJournal.getInstance().onConnectivityRestored();
+                        }
+                    }
+
+                    @Override
+                    public void onCancelled(@NonNull DatabaseError error) {
+                        Log.w("Firebase", "Suivi de la connexion interrompu : " + error.getMessage());
+                    }
+                });
     }
-}
\ No newline at end of file
+}
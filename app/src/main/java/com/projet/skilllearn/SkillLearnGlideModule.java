@@ -0,0 +1,71 @@
+package com.projet.skilllearn;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import com.bumptech.glide.GlideBuilder;
+import com.bumptech.glide.annotation.GlideModule;
+import com.bumptech.glide.load.DecodeFormat;
+import com.bumptech.glide.load.engine.bitmap_recycle.LruBitmapPool;
+import com.bumptech.glide.load.engine.cache.InternalCacheDiskCacheFactory;
+import com.bumptech.glide.load.engine.cache.LruResourceCache;
+import com.bumptech.glide.load.engine.cache.MemorySizeCalculator;
+import com.bumptech.glide.module.AppGlideModule;
+import com.bumptech.glide.request.RequestOptions;
+
+/**
+ * Configuration unique du chargement des images de l'application.
+ * Un seul cache mémoire, un seul pool de bitmaps et un seul cache disque, dimensionnés
+ * ici ; les images sont décodées à la taille de leur vue (voir ImageLoader).
+ */
+@GlideModule
+public final class SkillLearnGlideModule extends AppGlideModule {
+    private static final String TAG = "ImageCache";
+
+    // Taille du cache disque des images (miniatures déjà réduites et originaux)
+    static final long DISK_CACHE_BYTES = 100L * 1024 * 1024;
+    // Cache mémoire et pool de bitmaps, en nombre d'écrans pleins d'images
+    private static final float MEMORY_CACHE_SCREENS = 2;
+    private static final float BITMAP_POOL_SCREENS = 3;
+
+    private static volatile LruBitmapPool bitmapPool;
+
+    @Override
+    public void applyOptions(@NonNull Context context, @NonNull GlideBuilder builder) {
+        MemorySizeCalculator sizes = new MemorySizeCalculator.Builder(context)
+                .setMemoryCacheScreens(MEMORY_CACHE_SCREENS)
+                .setBitmapPoolScreens(BITMAP_POOL_SCREENS)
+                .build();
+        bitmapPool = new LruBitmapPool(sizes.getBitmapPoolSize());
+
+        builder.setMemoryCache(new LruResourceCache(sizes.getMemoryCacheSize()))
+                .setBitmapPool(bitmapPool)
+                .setDiskCache(new InternalCacheDiskCacheFactory(context, "images", DISK_CACHE_BYTES))
+                // Deux fois moins de mémoire par miniature ; les images transparentes restent en ARGB_8888
+                .setDefaultRequestOptions(new RequestOptions().format(DecodeFormat.PREFER_RGB_565));
+    }
+
+    @Override
+    public boolean isManifestParsingEnabled() {
+        return false;
+    }
+
+    /**
+     * Journalise le taux de réutilisation du pool de bitmaps : un taux bas indique des
+     * tailles de décodage trop variées ou un pool trop petit
+     */
+    public static void logBitmapPoolStats() {
+        LruBitmapPool pool = bitmapPool;
+        if (pool == null) {
+            return;
+        }
+        long hits = pool.hitCount();
+        long misses = pool.missCount();
+        long requests = hits + misses;
+        Log.i(TAG, String.format("Pool de bitmaps : %d%% réutilisés (%d/%d), %d évincés, %d/%d Ko",
+                requests > 0 ? hits * 100 / requests : 0, hits, requests, pool.evictionCount(),
+                pool.getCurrentSize() / 1024, pool.getMaxSize() / 1024));
+    }
+}
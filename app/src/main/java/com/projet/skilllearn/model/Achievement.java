@@ -33,6 +33,17 @@ public class Achievement {
         this.earnedAt = unlocked ? System.currentTimeMillis() : 0;
     }
 
+    // Constructeur de copie (les listes affichées ne sont jamais modifiées sur place)
+    public Achievement(Achievement other) {
+        this.id = other.id;
+        this.title = other.title;
+        this.iconUrl = other.iconUrl;
+        this.description = other.description;
+        this.type = other.type;
+        this.earnedAt = other.earnedAt;
+        this.unlocked = other.unlocked;
+    }
+
     // Getters et Setters
     public String getId() {
         return id;
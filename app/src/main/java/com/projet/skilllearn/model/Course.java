@@ -2,10 +2,12 @@ package com.projet.skilllearn.model;
 
 import androidx.annotation.NonNull;
 
-
+import com.google.firebase.database.IgnoreExtraProperties;
 
 import java.util.List;
 
+// Les fragments du compteur d'inscrits ("enrolledShards") sont lus à part par le dépôt
+@IgnoreExtraProperties
 public class Course {
     private String courseId;
     private String title;
@@ -15,7 +17,10 @@ public class Course {
     private int durationMinutes;
     private String imageUrl;
     private String author;
+    // Nombre total d'inscrits (socle et fragments agrégés à la lecture)
     private int enrolledCount;
+    // Nombre de fragments du compteur d'inscrits (0 ou 1 : non fragmenté)
+    private int counterShards;
     private List<String> tags;
     private long createdAt;
     private long updatedAt;
@@ -46,6 +51,28 @@ public class Course {
         this.enrolledCount = 0;
     }
 
+    // Constructeur de copie (pour ne pas modifier les cours partagés par l'index)
+    public Course(Course other) {
+        this.courseId = other.courseId;
+        this.title = other.title;
+        this.description = other.description;
+        this.category = other.category;
+        this.level = other.level;
+        this.durationMinutes = other.durationMinutes;
+        this.imageUrl = other.imageUrl;
+        this.author = other.author;
+        this.enrolledCount = other.enrolledCount;
+        this.counterShards = other.counterShards;
+        this.tags = other.tags;
+        this.createdAt = other.createdAt;
+        this.updatedAt = other.updatedAt;
+        this.userProgress = other.userProgress;
+        this.lastStudiedTimestamp = other.lastStudiedTimestamp;
+        this.isEnrolled = other.isEnrolled;
+        this.sections = other.sections;
+        this.authorName = other.authorName;
+    }
+
     // Getters et Setters
     public String getCourseId() {
         return courseId;
@@ -127,6 +154,14 @@ public class Course {
         this.enrolledCount = enrolledCount;
     }
 
+    public int getCounterShards() {
+        return counterShards;
+    }
+
+    public void setCounterShards(int counterShards) {
+        this.counterShards = counterShards;
+    }
+
     public List<String> getTags() {
         return tags;
     }
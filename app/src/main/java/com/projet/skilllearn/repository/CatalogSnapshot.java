@@ -0,0 +1,154 @@
+package com.projet.skilllearn.repository;
+
+import com.projet.skilllearn.model.Course;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Copie locale du catalogue lue directement dans le fichier du cache (projeté en mémoire au
+ * démarrage) : seuls les cours demandés sont décodés. La première page du catalogue peut
+ * ainsi être affichée sans construire les milliers d'objets Course du catalogue entier.
+ * Chaque appel renvoie de nouveaux objets ; les lectures sont sûres depuis plusieurs threads.
+ * Format : voir CourseCacheCodec.
+ */
+public class CatalogSnapshot {
+
+    private final ByteBuffer body;
+    private final String[] strings;
+    private final int size;
+    // Positions des tables (ordre des clés, puis ordre de popularité) et des enregistrements
+    private final int keyTable;
+    private final int popularityTable;
+    private final int records;
+
+    CatalogSnapshot(ByteBuffer body, String[] strings, int size, int tables, int records) {
+        this.body = body;
+        this.strings = strings;
+        this.size = size;
+        this.keyTable = tables;
+        this.popularityTable = tables + size * 4;
+        this.records = records;
+    }
+
+    /**
+     * @return le nombre de cours du catalogue
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Décode un cours
+     * @param position Rang du cours dans l'ordre des clés
+     */
+    public Course get(int position) {
+        return CourseCacheCodec.readCourse(body, recordAt(keyTable, position), strings);
+    }
+
+    /**
+     * Page du catalogue, comme la donnerait l'index une fois chargé
+     * @param cursor Position de départ
+     * @param pageSize Nombre de cours par page
+     */
+    public CoursePage page(CoursePage.Cursor cursor, int pageSize) {
+        List<Course> courses = cursor.getOrder() == CoursePage.Order.POPULARITY
+                ? pageByPopularity(cursor.getAfterEnrolledCount(), cursor.getAfterKey(), pageSize)
+                : pageByKey(cursor.getAfterKey(), pageSize);
+        return CoursePage.of(cursor.getOrder(), courses, pageSize);
+    }
+
+    /**
+     * Décode tout le catalogue, dans l'ordre des clés
+     */
+    public List<Course> toList() {
+        List<Course> courses = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            courses.add(get(i));
+        }
+        return courses;
+    }
+
+    /**
+     * Page par clé : recherche dichotomique du premier ID après afterKey
+     */
+    List<Course> pageByKey(String afterKey, int limit) {
+        int start = 0;
+        if (afterKey != null) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                String id = CourseCacheCodec.readCourseId(body, recordAt(keyTable, middle));
+                if (id.compareTo(afterKey) <= 0) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            start = low;
+        }
+        return decode(keyTable, start, limit);
+    }
+
+    /**
+     * Page par popularité : recherche dichotomique du premier cours après (afterEnrolledCount, afterKey)
+     */
+    List<Course> pageByPopularity(int afterEnrolledCount, String afterKey, int limit) {
+        int start = 0;
+        if (afterKey != null) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                int record = recordAt(popularityTable, middle);
+                int count = CourseCacheCodec.readEnrolledCount(body, record);
+                // Ordre décroissant : le cours est avant le curseur s'il a plus d'inscrits,
+                // ou autant et une clé supérieure ou égale
+                boolean beforeOrAt = count != afterEnrolledCount
+                        ? count > afterEnrolledCount
+                        : CourseCacheCodec.readCourseId(body, record).compareTo(afterKey) >= 0;
+                if (beforeOrAt) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            start = low;
+        }
+        return decode(popularityTable, start, limit);
+    }
+
+    /**
+     * Recopie le corps du fichier (écriture d'une copie gardée en mémoire)
+     */
+    void writeTo(DataOutputStream out) throws IOException {
+        ByteBuffer view = body.duplicate();
+        view.position(0);
+        byte[] chunk = new byte[8192];
+        while (view.hasRemaining()) {
+            int length = Math.min(chunk.length, view.remaining());
+            view.get(chunk, 0, length);
+            out.write(chunk, 0, length);
+        }
+    }
+
+    private List<Course> decode(int table, int start, int limit) {
+        int end = (int) Math.min(size, (long) start + limit);
+        List<Course> courses = new ArrayList<>(Math.max(0, end - start));
+        for (int i = start; i < end; i++) {
+            courses.add(CourseCacheCodec.readCourse(body, recordAt(table, i), strings));
+        }
+        return courses;
+    }
+
+    private int recordAt(int table, int position) {
+        if (position < 0 || position >= size) {
+            throw new IndexOutOfBoundsException("Cours " + position + " sur " + size);
+        }
+        return records + body.getInt(table + position * 4);
+    }
+}
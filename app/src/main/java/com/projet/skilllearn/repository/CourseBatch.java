@@ -0,0 +1,125 @@
+package com.projet.skilllearn.repository;
+
+import com.projet.skilllearn.model.Course;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Résultat d'un chargement groupé de cours (getCoursesByIds) : les cours sont servis par
+ * l'index quand il les connaît, les autres sont lus un à un. Les cours sont livrés dans
+ * l'ordre demandé et les erreurs par ID, en une seule fois quand tous sont réglés.
+ */
+class CourseBatch {
+
+    /**
+     * Lecture d'un cours absent de l'index
+     */
+    interface Fetcher {
+        void fetch(String courseId, CourseRepository.CourseCallback callback);
+    }
+
+    private final List<String> courseIds;
+    private final CourseRepository.CoursesBatchCallback callback;
+    private final Course[] courses;
+    private final String[] errors;
+    private int remaining;
+
+    CourseBatch(List<String> courseIds, CourseRepository.CoursesBatchCallback callback) {
+        this.courseIds = new ArrayList<>(courseIds);
+        this.callback = callback;
+        this.courses = new Course[courseIds.size()];
+        this.errors = new String[courseIds.size()];
+        this.remaining = courseIds.size();
+    }
+
+    /**
+     * Sert les cours connus de l'index
+     * @param index Index du catalogue
+     * @param missingIsError true si l'index est à jour : un cours absent n'existe pas.
+     *                       Sinon (copie disque), il reste à lire.
+     */
+    synchronized void serveFrom(CourseIndex index, boolean missingIsError) {
+        for (int i = 0; i < courseIds.size(); i++) {
+            if (isSettled(i)) {
+                continue;
+            }
+            Course course = index.get(courseIds.get(i));
+            if (course != null) {
+                courses[i] = new Course(course);
+                remaining--;
+            } else if (missingIsError) {
+                errors[i] = "Cours non trouvé";
+                remaining--;
+            }
+        }
+    }
+
+    /**
+     * Lit les cours restants, puis livre le résultat quand le dernier est réglé
+     * (immédiatement s'il n'en reste aucun)
+     * @param fetcher Lecture d'un cours
+     */
+    void fetchMissing(Fetcher fetcher) {
+        List<Integer> missing = new ArrayList<>();
+        synchronized (this) {
+            for (int i = 0; i < courseIds.size(); i++) {
+                if (!isSettled(i)) {
+                    missing.add(i);
+                }
+            }
+        }
+        if (missing.isEmpty()) {
+            deliver();
+            return;
+        }
+        for (int position : missing) {
+            fetcher.fetch(courseIds.get(position), new CourseRepository.CourseCallback() {
+                @Override
+                public void onCourseLoaded(Course course) {
+                    settle(position, course, null);
+                }
+
+                @Override
+                public void onError(String message) {
+                    settle(position, null, message);
+                }
+            });
+        }
+    }
+
+    private boolean isSettled(int position) {
+        return courses[position] != null || errors[position] != null;
+    }
+
+    private void settle(int position, Course course, String error) {
+        synchronized (this) {
+            if (isSettled(position)) {
+                return;
+            }
+            courses[position] = course;
+            errors[position] = course == null ? (error != null ? error : "Cours non trouvé") : null;
+            if (--remaining > 0) {
+                return;
+            }
+        }
+        deliver();
+    }
+
+    private void deliver() {
+        List<Course> found = new ArrayList<>();
+        Map<String, String> failed = new LinkedHashMap<>();
+        synchronized (this) {
+            for (int i = 0; i < courseIds.size(); i++) {
+                if (courses[i] != null) {
+                    found.add(courses[i]);
+                } else {
+                    failed.put(courseIds.get(i), errors[i]);
+                }
+            }
+        }
+        callback.onCoursesLoaded(found, failed);
+    }
+}
@@ -0,0 +1,94 @@
+package com.projet.skilllearn.repository;
+
+import com.projet.skilllearn.model.Course;
+import com.projet.skilllearn.model.CourseSection;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Tout ce qu'il faut au lecteur pour ouvrir un cours : les métadonnées du cours,
+ * ses sections triées par orderIndex (avec leurs quiz) et la progression de l'utilisateur.
+ * Construit par CourseBundleLoader.
+ */
+public class CourseBundle {
+
+    private final Course course;
+    private final List<CourseSection> sections;
+    private final Progress progress;
+
+    /**
+     * Progression d'un utilisateur dans un cours (user_progress/{uid}/{courseId})
+     */
+    public static class Progress {
+        public static final Progress NONE = new Progress(0, Collections.emptySet());
+
+        private final int percentage;
+        private final Set<String> completedSectionIds;
+
+        public Progress(int percentage, Set<String> completedSectionIds) {
+            this.percentage = percentage;
+            this.completedSectionIds = Collections.unmodifiableSet(new HashSet<>(completedSectionIds));
+        }
+
+        public int getPercentage() {
+            return percentage;
+        }
+
+        public boolean isCompleted(String sectionId) {
+            return completedSectionIds.contains(sectionId);
+        }
+
+        public Set<String> getCompletedSectionIds() {
+            return completedSectionIds;
+        }
+    }
+
+    /**
+     * @param course Cours ; reçoit une copie des sections
+     * @param sections Sections du cours, déjà triées
+     * @param progress Progression de l'utilisateur
+     */
+    CourseBundle(Course course, List<CourseSection> sections, Progress progress) {
+        this.course = course;
+        this.sections = Collections.unmodifiableList(new ArrayList<>(sections));
+        this.progress = progress;
+        course.setSections(new ArrayList<>(sections));
+        course.setUserProgress(progress.getPercentage());
+    }
+
+    public Course getCourse() {
+        return course;
+    }
+
+    public List<CourseSection> getSections() {
+        return sections;
+    }
+
+    public Progress getProgress() {
+        return progress;
+    }
+
+    /**
+     * Version du contenu du cours (updatedAt), qui identifie ses sections en cache
+     */
+    public long getVersion() {
+        return course.getUpdatedAt();
+    }
+
+    /**
+     * Index de la première section non terminée, pour reprendre le cours où il a été laissé
+     * @return 0 si aucune section n'est terminée ou si toutes le sont
+     */
+    public int firstIncompleteSectionIndex() {
+        for (int i = 0; i < sections.size(); i++) {
+            if (!progress.isCompleted(sections.get(i).getSectionId())) {
+                return i;
+            }
+        }
+        return 0;
+    }
+}
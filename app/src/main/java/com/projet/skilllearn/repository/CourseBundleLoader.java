@@ -0,0 +1,321 @@
+package com.projet.skilllearn.repository;
+
+import com.projet.skilllearn.model.Course;
+import com.projet.skilllearn.model.CourseSection;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+/**
+ * Charge en une seule opération tout ce qu'il faut pour ouvrir un cours dans le lecteur :
+ * le cours, ses sections (quiz compris) et la progression de l'utilisateur.
+ * Les trois lectures partent en parallèle ; le cours déjà présent dans l'index du catalogue
+ * n'est pas relu, et ses sections sont servies depuis un cache en mémoire indexé par
+ * cours et version (updatedAt) : à l'ouverture d'un cours déjà vu, seule la progression
+ * est lue. Les chargements simultanés d'un même cours pour un même utilisateur partagent
+ * les mêmes lectures. Utilise le pattern Singleton : appeler initialize() au démarrage.
+ */
+public class CourseBundleLoader {
+
+    // Nombre de cours dont les sections sont gardées en mémoire
+    static final int MAX_CACHED_COURSES = 8;
+
+    private static CourseBundleLoader instance;
+
+    private final Source source;
+    private final CourseLookup lookup;
+    private final Executor callbackExecutor;
+
+    // Sections par cours, du moins au plus récemment utilisé
+    private final Map<String, CachedSections> sectionsCache =
+            new LinkedHashMap<String, CachedSections>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, CachedSections> eldest) {
+                    return size() > MAX_CACHED_COURSES;
+                }
+            };
+    // Chargements en cours, par cours et utilisateur, avec les callbacks qui attendent leur résultat
+    private final Map<String, List<Callback>> inFlight = new HashMap<>();
+
+    /**
+     * Source distante des trois parties d'un bundle (Firebase dans l'application)
+     */
+    public interface Source {
+        void fetchCourse(String courseId, CourseCache.RemoteCallback<Course> callback);
+        void fetchSections(String courseId, CourseCache.RemoteCallback<List<CourseSection>> callback);
+        void fetchProgress(String userId, String courseId, CourseCache.RemoteCallback<CourseBundle.Progress> callback);
+    }
+
+    /**
+     * Accès aux cours déjà connus localement (l'index du catalogue dans l'application)
+     */
+    public interface CourseLookup {
+        /**
+         * @return le cours, ou null s'il n'est pas connu
+         */
+        Course get(String courseId);
+    }
+
+    /**
+     * Callback d'un chargement
+     */
+    public interface Callback {
+        void onBundleLoaded(CourseBundle bundle);
+        void onError(String message);
+    }
+
+    /**
+     * Sections d'un cours pour une version donnée
+     */
+    private static class CachedSections {
+        final long version;
+        final List<CourseSection> sections;
+
+        CachedSections(long version, List<CourseSection> sections) {
+            this.version = version;
+            this.sections = sections;
+        }
+    }
+
+    /**
+     * Constructeur (utiliser initialize() et getInstance() dans l'application)
+     * @param source Source distante
+     * @param lookup Cours connus localement
+     * @param callbackExecutor Exécuteur sur lequel les callbacks sont appelés
+     */
+    CourseBundleLoader(Source source, CourseLookup lookup, Executor callbackExecutor) {
+        this.source = source;
+        this.lookup = lookup;
+        this.callbackExecutor = callbackExecutor;
+    }
+
+    /**
+     * Crée l'instance unique
+     * @param source Source distante
+     * @param lookup Cours connus localement
+     * @param callbackExecutor Exécuteur sur lequel les callbacks sont appelés
+     */
+    public static synchronized void initialize(Source source, CourseLookup lookup, Executor callbackExecutor) {
+        if (instance == null) {
+            instance = new CourseBundleLoader(source, lookup, callbackExecutor);
+        }
+    }
+
+    /**
+     * Obtient l'instance unique
+     * @return le chargeur, ou null si initialize() n'a pas été appelé
+     */
+    public static synchronized CourseBundleLoader getInstance() {
+        return instance;
+    }
+
+    /**
+     * Charge le bundle d'un cours
+     * @param courseId ID du cours
+     * @param userId ID de l'utilisateur, ou null (aucune progression)
+     * @param callback Callback du résultat
+     */
+    public void load(String courseId, String userId, Callback callback) {
+        String key = courseId + "/" + (userId != null ? userId : "");
+        synchronized (inFlight) {
+            List<Callback> waiting = inFlight.get(key);
+            if (waiting != null) {
+                waiting.add(callback);
+                return;
+            }
+            waiting = new ArrayList<>();
+            waiting.add(callback);
+            inFlight.put(key, waiting);
+        }
+        new Request(key, courseId, userId).start();
+    }
+
+    /**
+     * Oublie les sections d'un cours (cours modifié ou supprimé)
+     * @param courseId ID du cours
+     */
+    public void invalidate(String courseId) {
+        synchronized (sectionsCache) {
+            sectionsCache.remove(courseId);
+        }
+    }
+
+    private CachedSections cachedSections(String courseId) {
+        synchronized (sectionsCache) {
+            return sectionsCache.get(courseId);
+        }
+    }
+
+    private List<Callback> takeInFlight(String key) {
+        synchronized (inFlight) {
+            List<Callback> waiting = inFlight.remove(key);
+            return waiting != null ? waiting : new ArrayList<>();
+        }
+    }
+
+    /**
+     * Un chargement : lance les lectures nécessaires en parallèle et assemble le bundle
+     * quand la dernière répond
+     */
+    private class Request {
+        private final String key;
+        private final String courseId;
+        private final String userId;
+
+        private Course course;
+        private List<CourseSection> sections;
+        private CourseBundle.Progress progress;
+        private CachedSections fallback;
+        private boolean sectionsFetched;
+        private String error;
+        private int remaining;
+
+        Request(String key, String courseId, String userId) {
+            this.key = key;
+            this.courseId = courseId;
+            this.userId = userId;
+        }
+
+        void start() {
+            Course known = lookup.get(courseId);
+            CachedSections cached = cachedSections(courseId);
+            boolean needCourse = known == null;
+            // Sans le cours, sa version est inconnue : les sections sont lues en même temps
+            boolean needSections = known == null || cached == null || cached.version != known.getUpdatedAt();
+            boolean needProgress = userId != null;
+
+            synchronized (this) {
+                course = known != null ? new Course(known) : null;
+                sections = needSections ? null : cached.sections;
+                fallback = cached;
+                progress = needProgress ? null : CourseBundle.Progress.NONE;
+                remaining = (needCourse ? 1 : 0) + (needSections ? 1 : 0) + (needProgress ? 1 : 0);
+            }
+            if (!needCourse && !needSections && !needProgress) {
+                finish();
+                return;
+            }
+
+            if (needCourse) {
+                source.fetchCourse(courseId, new CourseCache.RemoteCallback<Course>() {
+                    @Override
+                    public void onLoaded(Course loaded) {
+                        synchronized (Request.this) {
+                            course = loaded;
+                        }
+                        partDone();
+                    }
+
+                    @Override
+                    public void onError(String message) {
+                        failed(message);
+                    }
+                });
+            }
+            if (needSections) {
+                source.fetchSections(courseId, new CourseCache.RemoteCallback<List<CourseSection>>() {
+                    @Override
+                    public void onLoaded(List<CourseSection> loaded) {
+                        synchronized (Request.this) {
+                            sections = sorted(loaded);
+                            sectionsFetched = true;
+                        }
+                        partDone();
+                    }
+
+                    @Override
+                    public void onError(String message) {
+                        // Une version précédente des sections vaut mieux qu'un lecteur vide
+                        synchronized (Request.this) {
+                            if (fallback != null) {
+                                sections = fallback.sections;
+                            }
+                        }
+                        if (fallback != null) {
+                            partDone();
+                        } else {
+                            failed(message);
+                        }
+                    }
+                });
+            }
+            if (needProgress) {
+                source.fetchProgress(userId, courseId, new CourseCache.RemoteCallback<CourseBundle.Progress>() {
+                    @Override
+                    public void onLoaded(CourseBundle.Progress loaded) {
+                        synchronized (Request.this) {
+                            progress = loaded != null ? loaded : CourseBundle.Progress.NONE;
+                        }
+                        partDone();
+                    }
+
+                    @Override
+                    public void onError(String message) {
+                        // Le cours reste lisible sans progression
+                        synchronized (Request.this) {
+                            progress = CourseBundle.Progress.NONE;
+                        }
+                        partDone();
+                    }
+                });
+            }
+        }
+
+        private void failed(String message) {
+            synchronized (this) {
+                if (error == null) {
+                    error = message;
+                }
+            }
+            partDone();
+        }
+
+        private void partDone() {
+            synchronized (this) {
+                if (--remaining > 0) {
+                    return;
+                }
+            }
+            finish();
+        }
+
+        private void finish() {
+            String message;
+            Course loadedCourse;
+            List<CourseSection> loadedSections;
+            CourseBundle.Progress loadedProgress;
+            synchronized (this) {
+                message = error;
+                loadedCourse = course;
+                loadedSections = sections;
+                loadedProgress = progress;
+                if (message == null && sectionsFetched) {
+                    synchronized (sectionsCache) {
+                        sectionsCache.put(courseId, new CachedSections(course.getUpdatedAt(), sections));
+                    }
+                }
+            }
+
+            for (Callback waiting : takeInFlight(key)) {
+                if (message != null) {
+                    callbackExecutor.execute(() -> waiting.onError(message));
+                } else {
+                    // Chaque appelant reçoit son propre cours
+                    CourseBundle bundle = new CourseBundle(new Course(loadedCourse), loadedSections, loadedProgress);
+                    callbackExecutor.execute(() -> waiting.onBundleLoaded(bundle));
+                }
+            }
+        }
+    }
+
+    private static List<CourseSection> sorted(List<CourseSection> sections) {
+        List<CourseSection> copy = new ArrayList<>(sections);
+        Collections.sort(copy, (s1, s2) -> Integer.compare(s1.getOrderIndex(), s2.getOrderIndex()));
+        return Collections.unmodifiableList(copy);
+    }
+}
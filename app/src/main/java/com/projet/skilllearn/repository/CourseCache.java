@@ -0,0 +1,455 @@
+package com.projet.skilllearn.repository;
+
+import com.projet.skilllearn.model.Course;
+import com.projet.skilllearn.model.CourseSection;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+/**
+ * Cache persistant des cours et des sections.
+ * Chaque nœud ("courses", "sections/{courseId}") est stocké dans son propre fichier
+ * avec sa date de récupération. Les lectures servent immédiatement la copie locale
+ * puis, si elle est périmée ou absente, la revalident en arrière-plan auprès du serveur
+ * (stale-while-revalidate). Les accès disque ont lieu sur un exécuteur dédié et les
+ * résultats sont livrés sur l'exécuteur de callback (le thread principal dans l'application).
+ * Les fichiers sont projetés en mémoire à la lecture ; le catalogue n'est décodé qu'à la demande
+ * (CatalogSnapshot). Un fichier remplacé par rename() reste lisible par une projection existante.
+ * Utilise le pattern Singleton : appeler initialize() au démarrage de l'application.
+ */
+public class CourseCache {
+
+    // Durée pendant laquelle une copie locale est considérée comme à jour
+    public static final long DEFAULT_MAX_AGE_MS = 15 * 60 * 1000L;
+
+    private static final int MAGIC = 0x534b4c43;
+    // Version 3 : encodage compact (varints, table de chaînes) et catalogue projeté en mémoire
+    private static final int FORMAT_VERSION = 3;
+    // MAGIC, FORMAT_VERSION et date de récupération
+    private static final int HEADER_SIZE = 16;
+    private static final String COURSES_NODE = "courses";
+    private static final String SECTIONS_NODE = "sections/";
+
+    private static CourseCache instance;
+
+    private final File directory;
+    private final Remote remote;
+    private final Executor ioExecutor;
+    private final Executor callbackExecutor;
+    private final Clock clock;
+    private final long maxAgeMs;
+
+    // Copies déjà lues ou écrites, par nœud
+    private final Map<String, Entry<?>> memory = new HashMap<>();
+    // Revalidations en cours, par nœud, avec les écouteurs qui attendent leur résultat
+    private final Map<String, List<CacheListener<List<CourseSection>>>> revalidating = new HashMap<>();
+
+    /**
+     * État d'un nœud du cache
+     */
+    public enum Freshness {
+        FRESH,
+        STALE,
+        MISSING
+    }
+
+    /**
+     * Source distante des données (Firebase dans l'application, fausse source dans les tests)
+     */
+    public interface Remote {
+        void fetchSections(String courseId, RemoteCallback<List<CourseSection>> callback);
+    }
+
+    /**
+     * Callback d'une lecture distante
+     */
+    public interface RemoteCallback<T> {
+        void onLoaded(T data);
+        void onError(String message);
+    }
+
+    /**
+     * Écouteur d'une lecture du cache.
+     * onData peut être appelé deux fois : avec la copie locale (fromCache = true)
+     * puis avec la version revalidée (fromCache = false).
+     */
+    public interface CacheListener<T> {
+        void onData(T data, boolean fromCache);
+        void onError(String message);
+    }
+
+    /**
+     * Horloge injectable pour les tests
+     */
+    public interface Clock {
+        long now();
+    }
+
+    /**
+     * Données d'un nœud et date de leur récupération
+     */
+    private static class Entry<T> {
+        final T data;
+        final long fetchedAt;
+
+        Entry(T data, long fetchedAt) {
+            this.data = data;
+            this.fetchedAt = fetchedAt;
+        }
+    }
+
+    /**
+     * Lecture ou écriture d'un nœud dans un flux
+     */
+    private interface Reader<T> {
+        T read(ByteBuffer body) throws IOException;
+    }
+
+    private interface Writer<T> {
+        void write(DataOutputStream out, T data) throws IOException;
+    }
+
+    /**
+     * Constructeur (utiliser initialize() et getInstance() dans l'application)
+     * @param directory Répertoire des fichiers du cache
+     * @param remote Source distante pour les revalidations
+     * @param ioExecutor Exécuteur des accès disque
+     * @param callbackExecutor Exécuteur sur lequel les écouteurs sont appelés
+     * @param clock Horloge
+     * @param maxAgeMs Âge maximal d'une copie considérée comme à jour
+     */
+    CourseCache(File directory, Remote remote, Executor ioExecutor, Executor callbackExecutor,
+                Clock clock, long maxAgeMs) {
+        this.directory = directory;
+        this.remote = remote;
+        this.ioExecutor = ioExecutor;
+        this.callbackExecutor = callbackExecutor;
+        this.clock = clock;
+        this.maxAgeMs = maxAgeMs;
+    }
+
+    /**
+     * Crée l'instance unique
+     * @param directory Répertoire des fichiers du cache
+     * @param remote Source distante pour les revalidations
+     * @param callbackExecutor Exécuteur sur lequel les écouteurs sont appelés
+     */
+    public static synchronized void initialize(File directory, Remote remote, Executor callbackExecutor) {
+        if (instance == null) {
+            instance = new CourseCache(directory, remote, Executors.newSingleThreadExecutor(),
+                    callbackExecutor, System::currentTimeMillis, DEFAULT_MAX_AGE_MS);
+        }
+    }
+
+    /**
+     * Obtient l'instance unique
+     * @return le cache, ou null si initialize() n'a pas été appelé
+     */
+    public static synchronized CourseCache getInstance() {
+        return instance;
+    }
+
+    /**
+     * Lit le catalogue enregistré sur le disque, sans accès réseau.
+     * Le catalogue est revalidé par l'écouteur permanent de CourseRepository,
+     * qui l'enregistre ensuite avec putCourses().
+     * @param listener Reçoit la copie locale, ou onError si aucune n'existe
+     */
+    public void getCachedCourses(CacheListener<List<Course>> listener) {
+        ioExecutor.execute(() -> {
+            List<Course> courses = null;
+            Entry<CatalogSnapshot> entry = load(COURSES_NODE, CourseCacheCodec::mapCatalog);
+            if (entry != null) {
+                try {
+                    courses = entry.data.toList();
+                } catch (RuntimeException e) {
+                    forget(COURSES_NODE);
+                }
+            }
+            List<Course> cached = courses;
+            callbackExecutor.execute(() -> {
+                if (cached != null) {
+                    listener.onData(cached, true);
+                } else {
+                    listener.onError("Aucun cours en cache");
+                }
+            });
+        });
+    }
+
+    /**
+     * Projette en mémoire le fichier du catalogue, sans décoder les cours (au démarrage),
+     * pour que peekCatalog() puisse servir la première page
+     */
+    public void mapCatalog() {
+        ioExecutor.execute(() -> load(COURSES_NODE, CourseCacheCodec::mapCatalog));
+    }
+
+    /**
+     * Copie locale du catalogue déjà projetée, sans accès disque (utilisable sur le thread principal)
+     * @return le catalogue, ou null s'il n'est pas (encore) projeté
+     */
+    public CatalogSnapshot peekCatalog() {
+        synchronized (memory) {
+            Entry<?> entry = memory.get(COURSES_NODE);
+            return entry != null ? (CatalogSnapshot) entry.data : null;
+        }
+    }
+
+    /**
+     * Enregistre le catalogue complet
+     * @param courses Cours du catalogue
+     */
+    public void putCourses(List<Course> courses) {
+        List<Course> copy = new ArrayList<>(courses);
+        ioExecutor.execute(() -> {
+            CatalogSnapshot catalog;
+            try {
+                catalog = CourseCacheCodec.mapCatalog(ByteBuffer.wrap(CourseCacheCodec.encodeCatalog(copy)));
+            } catch (IOException e) {
+                return;
+            }
+            store(COURSES_NODE, catalog, (out, data) -> data.writeTo(out));
+        });
+    }
+
+    /**
+     * Récupère les sections d'un cours : la copie locale est livrée immédiatement,
+     * puis revalidée auprès du serveur si elle est périmée ou absente.
+     * @param courseId ID du cours
+     * @param listener Écouteur du résultat
+     */
+    public void getSections(String courseId, CacheListener<List<CourseSection>> listener) {
+        String node = SECTIONS_NODE + courseId;
+        ioExecutor.execute(() -> {
+            Entry<List<CourseSection>> entry = load(node, CourseCacheCodec::readSections);
+            boolean served = entry != null;
+            if (served) {
+                List<CourseSection> cached = new ArrayList<>(entry.data);
+                callbackExecutor.execute(() -> listener.onData(cached, true));
+            }
+            if (!served || isStale(entry.fetchedAt)) {
+                revalidateSections(courseId, listener, served);
+            }
+        });
+    }
+
+    /**
+     * Enregistre les sections d'un cours
+     * @param courseId ID du cours
+     * @param sections Sections du cours
+     */
+    public void putSections(String courseId, List<CourseSection> sections) {
+        List<CourseSection> copy = new ArrayList<>(sections);
+        ioExecutor.execute(() -> store(SECTIONS_NODE + courseId, copy, CourseCacheCodec::writeSections));
+    }
+
+    /**
+     * État de la copie locale du catalogue
+     */
+    public Freshness getCoursesFreshness() {
+        return freshnessOf(COURSES_NODE);
+    }
+
+    /**
+     * État de la copie locale des sections d'un cours
+     * @param courseId ID du cours
+     */
+    public Freshness getSectionsFreshness(String courseId) {
+        return freshnessOf(SECTIONS_NODE + courseId);
+    }
+
+    /**
+     * Interroge le serveur ; les demandes simultanées pour un même cours partagent une lecture
+     * @param served true si l'écouteur a déjà reçu une copie locale
+     */
+    private void revalidateSections(String courseId, CacheListener<List<CourseSection>> listener,
+                                    boolean served) {
+        String node = SECTIONS_NODE + courseId;
+        CacheListener<List<CourseSection>> waiting = served ? silentOnError(listener) : listener;
+        synchronized (revalidating) {
+            List<CacheListener<List<CourseSection>>> listeners = revalidating.get(node);
+            if (listeners != null) {
+                listeners.add(waiting);
+                return;
+            }
+            listeners = new ArrayList<>();
+            listeners.add(waiting);
+            revalidating.put(node, listeners);
+        }
+
+        remote.fetchSections(courseId, new RemoteCallback<List<CourseSection>>() {
+            @Override
+            public void onLoaded(List<CourseSection> sections) {
+                List<CourseSection> copy = new ArrayList<>(sections);
+                ioExecutor.execute(() -> {
+                    store(node, copy, CourseCacheCodec::writeSections);
+                    for (CacheListener<List<CourseSection>> waiter : takeRevalidating(node)) {
+                        List<CourseSection> fresh = new ArrayList<>(copy);
+                        callbackExecutor.execute(() -> waiter.onData(fresh, false));
+                    }
+                });
+            }
+
+            @Override
+            public void onError(String message) {
+                for (CacheListener<List<CourseSection>> waiter : takeRevalidating(node)) {
+                    callbackExecutor.execute(() -> waiter.onError(message));
+                }
+            }
+        });
+    }
+
+    private List<CacheListener<List<CourseSection>>> takeRevalidating(String node) {
+        synchronized (revalidating) {
+            List<CacheListener<List<CourseSection>>> listeners = revalidating.remove(node);
+            return listeners != null ? listeners : new ArrayList<>();
+        }
+    }
+
+    /**
+     * Un écouteur qui a déjà reçu la copie locale n'est pas prévenu d'un échec de revalidation
+     */
+    private static <T> CacheListener<T> silentOnError(CacheListener<T> listener) {
+        return new CacheListener<T>() {
+            @Override
+            public void onData(T data, boolean fromCache) {
+                listener.onData(data, fromCache);
+            }
+
+            @Override
+            public void onError(String message) {
+                // La copie locale reste affichée
+            }
+        };
+    }
+
+    private boolean isStale(long fetchedAt) {
+        long age = clock.now() - fetchedAt;
+        return age < 0 || age > maxAgeMs;
+    }
+
+    private Freshness freshnessOf(String node) {
+        Long fetchedAt;
+        synchronized (memory) {
+            Entry<?> entry = memory.get(node);
+            fetchedAt = entry != null ? entry.fetchedAt : null;
+        }
+        if (fetchedAt == null) {
+            fetchedAt = readFetchedAt(fileOf(node));
+        }
+        if (fetchedAt == null) {
+            return Freshness.MISSING;
+        }
+        return isStale(fetchedAt) ? Freshness.STALE : Freshness.FRESH;
+    }
+
+    /**
+     * Lit un nœud depuis la mémoire, sinon depuis le disque (fichier illisible : supprimé)
+     */
+    @SuppressWarnings("unchecked")
+    private <T> Entry<T> load(String node, Reader<T> reader) {
+        synchronized (memory) {
+            Entry<?> entry = memory.get(node);
+            if (entry != null) {
+                return (Entry<T>) entry;
+            }
+        }
+
+        File file = fileOf(node);
+        if (!file.exists()) {
+            return null;
+        }
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r"); FileChannel channel = raf.getChannel()) {
+            // La projection reste valide après la fermeture du fichier
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (mapped.limit() < HEADER_SIZE || mapped.getInt(0) != MAGIC || mapped.getInt(4) != FORMAT_VERSION) {
+                file.delete();
+                return null;
+            }
+            long fetchedAt = mapped.getLong(8);
+            mapped.position(HEADER_SIZE);
+            Entry<T> entry = new Entry<>(reader.read(mapped.slice()), fetchedAt);
+            synchronized (memory) {
+                memory.put(node, entry);
+            }
+            return entry;
+        } catch (IOException | RuntimeException e) {
+            file.delete();
+            return null;
+        }
+    }
+
+    /**
+     * Oublie un nœud dont le contenu s'est révélé illisible au décodage
+     */
+    private void forget(String node) {
+        synchronized (memory) {
+            memory.remove(node);
+        }
+        fileOf(node).delete();
+    }
+
+    /**
+     * Écrit un nœud dans un fichier temporaire puis le renomme, pour ne jamais laisser
+     * de fichier à moitié écrit
+     */
+    private <T> void store(String node, T data, Writer<T> writer) {
+        long fetchedAt = clock.now();
+        synchronized (memory) {
+            memory.put(node, new Entry<>(data, fetchedAt));
+        }
+
+        File file = fileOf(node);
+        File parent = file.getParentFile();
+        if (parent != null && !parent.exists() && !parent.mkdirs()) {
+            return;
+        }
+        File temp = new File(file.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeLong(fetchedAt);
+            writer.write(out, data);
+        } catch (IOException e) {
+            temp.delete();
+            return;
+        }
+        if (!temp.renameTo(file)) {
+            temp.delete();
+        }
+    }
+
+    private static Long readFetchedAt(File file) {
+        if (!file.exists()) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new FileInputStream(file))) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+                return null;
+            }
+            return in.readLong();
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private File fileOf(String node) {
+        return new File(directory, node + ".bin");
+    }
+}
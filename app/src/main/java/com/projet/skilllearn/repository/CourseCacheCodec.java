@@ -0,0 +1,485 @@
+package com.projet.skilllearn.repository;
+
+import com.projet.skilllearn.model.Course;
+import com.projet.skilllearn.model.CourseSection;
+import com.projet.skilllearn.model.Quiz;
+import com.projet.skilllearn.model.QuizQuestion;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Encodage binaire compact des cours et des sections pour le cache disque.
+ * Les entiers sont des varints (zigzag pour les valeurs signées), les chaînes sont préfixées
+ * par leur longueur + 1 (0 : null), et les catégories, niveaux et tags sont écrits une fois
+ * dans une table de chaînes puis désignés par leur numéro.
+ *
+ * Catalogue : table de chaînes, nombre de cours, puis deux tables de positions de taille fixe
+ * (ordre des clés, ordre de popularité) suivies des enregistrements. Les tables permettent
+ * de lire un cours, ou une page, directement dans le fichier projeté en mémoire, sans décoder
+ * le reste (voir CatalogSnapshot). Chaque enregistrement commence par l'ID et le nombre
+ * d'inscrits, seuls champs lus par les recherches dichotomiques des curseurs.
+ *
+ * Sections : nombre de sections puis, pour chacune, sa longueur et son enregistrement.
+ *
+ * Seules les données du catalogue sont écrites : les champs propres à l'utilisateur
+ * (progression, inscription) ne sont jamais mis en cache.
+ */
+final class CourseCacheCodec {
+
+    static final Comparator<Course> KEY_ORDER = (a, b) -> a.getCourseId().compareTo(b.getCourseId());
+    // Même ordre que CourseIndex : inscrits décroissants, puis clé décroissante
+    static final Comparator<Course> POPULARITY_ORDER = (a, b) -> {
+        int byCount = Integer.compare(b.getEnrolledCount(), a.getEnrolledCount());
+        return byCount != 0 ? byCount : b.getCourseId().compareTo(a.getCourseId());
+    };
+
+    private CourseCacheCodec() {
+    }
+
+    /**
+     * Encode le catalogue ; les cours sans ID sont ignorés et, pour un même ID, le dernier l'emporte
+     * @return le corps du fichier, à projeter avec mapCatalog()
+     */
+    static byte[] encodeCatalog(List<Course> courses) throws IOException {
+        Map<String, Course> unique = new HashMap<>();
+        for (Course course : courses) {
+            if (course != null && course.getCourseId() != null) {
+                unique.put(course.getCourseId(), course);
+            }
+        }
+        List<Course> byKey = new ArrayList<>(unique.values());
+        Collections.sort(byKey, KEY_ORDER);
+        List<Course> byPopularity = new ArrayList<>(byKey);
+        Collections.sort(byPopularity, POPULARITY_ORDER);
+
+        StringTable strings = new StringTable();
+        ByteArrayOutputStream recordBytes = new ByteArrayOutputStream(byKey.size() * 128);
+        DataOutputStream records = new DataOutputStream(recordBytes);
+        Map<String, Integer> offsets = new HashMap<>();
+        for (Course course : byKey) {
+            offsets.put(course.getCourseId(), records.size());
+            writeCourse(records, course, strings);
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(recordBytes.size() + byKey.size() * 8 + 256);
+        DataOutputStream out = new DataOutputStream(bytes);
+        writeVarint(out, strings.values.size());
+        for (String value : strings.values) {
+            writeString(out, value);
+        }
+        out.writeInt(byKey.size());
+        for (Course course : byKey) {
+            out.writeInt(offsets.get(course.getCourseId()));
+        }
+        for (Course course : byPopularity) {
+            out.writeInt(offsets.get(course.getCourseId()));
+        }
+        out.writeInt(recordBytes.size());
+        recordBytes.writeTo(out);
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Lit l'en-tête du catalogue (table de chaînes, tables de positions) sans décoder les cours
+     * @param body Corps du fichier, éventuellement projeté en mémoire
+     * @throws RuntimeException si l'en-tête est incohérent (fichier corrompu)
+     */
+    static CatalogSnapshot mapCatalog(ByteBuffer body) {
+        Input in = new Input(body, 0);
+        int stringCount = in.count();
+        String[] strings = new String[stringCount];
+        for (int i = 0; i < stringCount; i++) {
+            strings[i] = in.string();
+        }
+        int count = in.int32();
+        int tables = in.position;
+        if (count < 0 || (long) count * 8 + 4 > body.limit() - tables) {
+            throw new IllegalStateException("Tables du catalogue tronquées");
+        }
+        int recordsLength = body.getInt(tables + count * 8);
+        int records = tables + count * 8 + 4;
+        if (recordsLength < 0 || recordsLength != body.limit() - records) {
+            throw new IllegalStateException("Enregistrements du catalogue tronqués");
+        }
+        for (int i = 0; i < count * 2; i++) {
+            int offset = body.getInt(tables + i * 4);
+            if (offset < 0 || offset >= recordsLength) {
+                throw new IllegalStateException("Position d'enregistrement invalide : " + offset);
+            }
+        }
+        return new CatalogSnapshot(body, strings, count, tables, records);
+    }
+
+    /**
+     * Décode un cours du catalogue
+     * @param position Position absolue de l'enregistrement dans le corps
+     */
+    static Course readCourse(ByteBuffer body, int position, String[] strings) {
+        Input in = new Input(body, position);
+        Course course = new Course();
+        course.setCourseId(in.string());
+        course.setEnrolledCount(in.zigzag());
+        course.setTitle(in.string());
+        course.setDescription(in.string());
+        course.setCategory(in.interned(strings));
+        course.setLevel(in.interned(strings));
+        course.setDurationMinutes(in.zigzag());
+        course.setImageUrl(in.string());
+        course.setAuthor(in.string());
+        course.setAuthorName(in.string());
+        course.setCounterShards(in.zigzag());
+        int tagCount = in.nullableCount();
+        if (tagCount >= 0) {
+            List<String> tags = new ArrayList<>(tagCount);
+            for (int i = 0; i < tagCount; i++) {
+                tags.add(in.interned(strings));
+            }
+            course.setTags(tags);
+        }
+        course.setCreatedAt(in.zigzagLong());
+        course.setUpdatedAt(in.zigzagLong());
+        return course;
+    }
+
+    /**
+     * ID d'un cours, sans décoder le reste de l'enregistrement
+     */
+    static String readCourseId(ByteBuffer body, int position) {
+        return new Input(body, position).string();
+    }
+
+    /**
+     * Nombre d'inscrits d'un cours, sans décoder le reste de l'enregistrement
+     */
+    static int readEnrolledCount(ByteBuffer body, int position) {
+        Input in = new Input(body, position);
+        in.skipString();
+        return in.zigzag();
+    }
+
+    private static void writeCourse(DataOutputStream out, Course course, StringTable strings) throws IOException {
+        writeString(out, course.getCourseId());
+        writeZigzag(out, course.getEnrolledCount());
+        writeString(out, course.getTitle());
+        writeString(out, course.getDescription());
+        writeVarint(out, strings.ref(course.getCategory()));
+        writeVarint(out, strings.ref(course.getLevel()));
+        writeZigzag(out, course.getDurationMinutes());
+        writeString(out, course.getImageUrl());
+        writeString(out, course.getAuthor());
+        writeString(out, course.getAuthorName());
+        writeZigzag(out, course.getCounterShards());
+        List<String> tags = course.getTags();
+        writeVarint(out, tags != null ? tags.size() + 1 : 0);
+        if (tags != null) {
+            for (String tag : tags) {
+                writeVarint(out, strings.ref(tag));
+            }
+        }
+        writeZigzagLong(out, course.getCreatedAt());
+        writeZigzagLong(out, course.getUpdatedAt());
+    }
+
+    static void writeSections(DataOutputStream out, List<CourseSection> sections) throws IOException {
+        writeVarint(out, sections.size());
+        ByteArrayOutputStream record = new ByteArrayOutputStream(256);
+        DataOutputStream recordOut = new DataOutputStream(record);
+        for (CourseSection section : sections) {
+            record.reset();
+            writeSection(recordOut, section);
+            recordOut.flush();
+            writeVarint(out, record.size());
+            record.writeTo(out);
+        }
+    }
+
+    /**
+     * @throws RuntimeException si le contenu est incohérent (fichier corrompu)
+     */
+    static List<CourseSection> readSections(ByteBuffer body) {
+        Input in = new Input(body, 0);
+        int count = in.count();
+        List<CourseSection> sections = new ArrayList<>(Math.min(count, 1024));
+        for (int i = 0; i < count; i++) {
+            int length = in.count();
+            int end = in.position + length;
+            sections.add(readSection(in));
+            if (in.position != end) {
+                throw new IllegalStateException("Section de longueur incohérente");
+            }
+        }
+        return sections;
+    }
+
+    private static void writeSection(DataOutputStream out, CourseSection section) throws IOException {
+        writeString(out, section.getSectionId());
+        writeString(out, section.getCourseId());
+        writeString(out, section.getTitle());
+        writeString(out, section.getDescription());
+        writeString(out, section.getContent());
+        writeString(out, section.getVideoUrl());
+        writeZigzag(out, section.getDurationMinutes());
+        writeZigzag(out, section.getOrderIndex());
+        writeQuiz(out, section.getQuiz());
+    }
+
+    private static CourseSection readSection(Input in) {
+        CourseSection section = new CourseSection();
+        section.setSectionId(in.string());
+        section.setCourseId(in.string());
+        section.setTitle(in.string());
+        section.setDescription(in.string());
+        section.setContent(in.string());
+        section.setVideoUrl(in.string());
+        section.setDurationMinutes(in.zigzag());
+        section.setOrderIndex(in.zigzag());
+        section.setQuiz(readQuiz(in));
+        return section;
+    }
+
+    private static void writeQuiz(DataOutputStream out, Quiz quiz) throws IOException {
+        out.writeBoolean(quiz != null);
+        if (quiz == null) {
+            return;
+        }
+        writeString(out, quiz.getQuizId());
+        writeString(out, quiz.getTitle());
+        writeZigzag(out, quiz.getPassingScore());
+        out.writeBoolean(quiz.isRequired());
+
+        List<QuizQuestion> questions = quiz.getQuestions();
+        writeVarint(out, questions != null ? questions.size() + 1 : 0);
+        if (questions != null) {
+            for (QuizQuestion question : questions) {
+                writeString(out, question.getQuestionId());
+                writeString(out, question.getQuestion());
+                writeStrings(out, question.getOptions());
+                writeZigzag(out, question.getCorrectOptionIndex());
+                writeString(out, question.getExplanation());
+            }
+        }
+    }
+
+    private static Quiz readQuiz(Input in) {
+        if (!in.bool()) {
+            return null;
+        }
+        Quiz quiz = new Quiz();
+        quiz.setQuizId(in.string());
+        quiz.setTitle(in.string());
+        quiz.setPassingScore(in.zigzag());
+        quiz.setRequired(in.bool());
+
+        int count = in.nullableCount();
+        if (count >= 0) {
+            List<QuizQuestion> questions = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                QuizQuestion question = new QuizQuestion();
+                question.setQuestionId(in.string());
+                question.setQuestion(in.string());
+                question.setOptions(in.strings());
+                question.setCorrectOptionIndex(in.zigzag());
+                question.setExplanation(in.string());
+                questions.add(question);
+            }
+            quiz.setQuestions(questions);
+        }
+        return quiz;
+    }
+
+    /**
+     * Entier positif sur 1 à 5 octets, 7 bits par octet, bit de poids fort : octet suivant
+     */
+    static void writeVarint(DataOutputStream out, int value) throws IOException {
+        while ((value & ~0x7f) != 0) {
+            out.writeByte((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private static void writeZigzag(DataOutputStream out, int value) throws IOException {
+        writeVarint(out, (value << 1) ^ (value >> 31));
+    }
+
+    private static void writeZigzagLong(DataOutputStream out, long value) throws IOException {
+        long zigzag = (value << 1) ^ (value >> 63);
+        while ((zigzag & ~0x7fL) != 0) {
+            out.writeByte((int) ((zigzag & 0x7f) | 0x80));
+            zigzag >>>= 7;
+        }
+        out.writeByte((int) zigzag);
+    }
+
+    /**
+     * Chaîne éventuellement nulle : longueur + 1 en varint (0 : null) puis UTF-8
+     */
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            writeVarint(out, 0);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarint(out, bytes.length + 1);
+        out.write(bytes);
+    }
+
+    private static void writeStrings(DataOutputStream out, List<String> values) throws IOException {
+        writeVarint(out, values != null ? values.size() + 1 : 0);
+        if (values != null) {
+            for (String value : values) {
+                writeString(out, value);
+            }
+        }
+    }
+
+    /**
+     * Chaînes répétées du catalogue, numérotées à partir de 1 (0 : null)
+     */
+    private static final class StringTable {
+        final List<String> values = new ArrayList<>();
+        final Map<String, Integer> refs = new HashMap<>();
+
+        int ref(String value) {
+            if (value == null) {
+                return 0;
+            }
+            Integer ref = refs.get(value);
+            if (ref == null) {
+                values.add(value);
+                ref = values.size();
+                refs.put(value, ref);
+            }
+            return ref;
+        }
+    }
+
+    /**
+     * Lecture par positions absolues : plusieurs threads peuvent lire le même tampon projeté
+     */
+    private static final class Input {
+        final ByteBuffer buffer;
+        int position;
+
+        Input(ByteBuffer buffer, int position) {
+            this.buffer = buffer;
+            this.position = position;
+        }
+
+        byte next() {
+            return buffer.get(position++);
+        }
+
+        boolean bool() {
+            return next() != 0;
+        }
+
+        int int32() {
+            int value = buffer.getInt(position);
+            position += 4;
+            return value;
+        }
+
+        int varint() {
+            int value = 0;
+            for (int shift = 0; shift < 35; shift += 7) {
+                byte b = next();
+                value |= (b & 0x7f) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IllegalStateException("Varint trop long");
+        }
+
+        int zigzag() {
+            int value = varint();
+            return (value >>> 1) ^ -(value & 1);
+        }
+
+        long zigzagLong() {
+            long value = 0;
+            for (int shift = 0; shift < 70; shift += 7) {
+                byte b = next();
+                value |= (long) (b & 0x7f) << shift;
+                if ((b & 0x80) == 0) {
+                    return (value >>> 1) ^ -(value & 1);
+                }
+            }
+            throw new IllegalStateException("Varint trop long");
+        }
+
+        /**
+         * Nombre d'éléments ou longueur, borné par la taille restante du tampon
+         */
+        int count() {
+            int count = varint();
+            if (count < 0 || count > buffer.limit() - position) {
+                throw new IllegalStateException("Longueur invalide : " + count);
+            }
+            return count;
+        }
+
+        /**
+         * @return le nombre d'éléments d'une liste, ou -1 pour null
+         */
+        int nullableCount() {
+            int encoded = varint();
+            if (encoded < 0 || encoded - 1 > buffer.limit() - position) {
+                throw new IllegalStateException("Longueur invalide : " + encoded);
+            }
+            return encoded - 1;
+        }
+
+        String string() {
+            int length = nullableCount();
+            if (length < 0) {
+                return null;
+            }
+            byte[] bytes = new byte[length];
+            ByteBuffer view = buffer.duplicate();
+            view.position(position);
+            view.get(bytes);
+            position += length;
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        void skipString() {
+            int length = nullableCount();
+            if (length > 0) {
+                position += length;
+            }
+        }
+
+        /**
+         * Chaîne de la table : la même instance pour tous les cours qui la partagent
+         */
+        String interned(String[] strings) {
+            int ref = varint();
+            return ref == 0 ? null : strings[ref - 1];
+        }
+
+        List<String> strings() {
+            int count = nullableCount();
+            if (count < 0) {
+                return null;
+            }
+            List<String> values = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                values.add(string());
+            }
+            return values;
+        }
+    }
+}
@@ -0,0 +1,392 @@
+package com.projet.skilllearn.repository;
+
+import com.projet.skilllearn.model.Course;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Index en mémoire du catalogue de cours.
+ * Rempli une seule fois depuis le nœud "courses" puis maintenu incrémentalement
+ * par CourseRepository, il répond aux requêtes par catégorie, niveau, durée et texte
+ * sans nouvel accès réseau.
+ * Les listes retournées contiennent des copies : un cours indexé modifié par l'appelant
+ * (nombre d'inscrits notamment) fausserait l'ordre de popularité et les groupes de l'index.
+ * Utilise le pattern Singleton pour être partagé entre tous les repositories
+ */
+public class CourseIndex {
+
+    private static final Comparator<Course> POPULARITY_ORDER = (a, b) -> {
+        int byCount = Integer.compare(b.getEnrolledCount(), a.getEnrolledCount());
+        return byCount != 0 ? byCount : b.getCourseId().compareTo(a.getCourseId());
+    };
+
+    private static CourseIndex instance;
+
+    private final Map<String, Course> coursesById = new LinkedHashMap<>();
+    private final Map<String, Set<String>> idsByCategory = new HashMap<>();
+    private final Map<String, Set<String>> idsByLevel = new HashMap<>();
+    private final TreeMap<Integer, Set<String>> idsByDuration = new TreeMap<>();
+    // Ordres de pagination : par clé, et par popularité décroissante (comme Firebase inversé)
+    private final TreeSet<String> idsByKey = new TreeSet<>();
+    private final TreeSet<Course> byPopularity = new TreeSet<>(POPULARITY_ORDER);
+    private final CourseSearchEngine searchEngine = new CourseSearchEngine();
+    private boolean loaded = false;
+
+    /**
+     * Constructeur (utiliser getInstance() dans l'application)
+     */
+    CourseIndex() {
+    }
+
+    /**
+     * Obtient l'instance unique
+     * @return l'index partagé
+     */
+    public static synchronized CourseIndex getInstance() {
+        if (instance == null) {
+            instance = new CourseIndex();
+        }
+        return instance;
+    }
+
+    /**
+     * Indique si le remplissage initial est terminé
+     */
+    public synchronized boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Marque l'index comme complet après le chargement initial
+     */
+    public synchronized void markLoaded() {
+        loaded = true;
+    }
+
+    /**
+     * Remplace tout le contenu de l'index
+     * @param courses Cours du catalogue
+     */
+    public synchronized void replaceAll(Collection<Course> courses) {
+        coursesById.clear();
+        idsByCategory.clear();
+        idsByLevel.clear();
+        idsByDuration.clear();
+        idsByKey.clear();
+        byPopularity.clear();
+        searchEngine.clear();
+        for (Course course : courses) {
+            upsert(course);
+        }
+        loaded = true;
+    }
+
+    /**
+     * Pré-remplit l'index avec une copie locale du catalogue (cache disque) pour répondre
+     * aux requêtes avant la fin du chargement réseau. Les cours déjà reçus du serveur
+     * ne sont pas remplacés.
+     * @param courses Cours de la copie locale
+     */
+    public synchronized void warmUp(Collection<Course> courses) {
+        for (Course course : courses) {
+            if (course != null && !coursesById.containsKey(course.getCourseId())) {
+                upsert(course);
+            }
+        }
+        loaded = true;
+    }
+
+    /**
+     * Retire les cours absents du serveur (supprimés depuis la dernière copie locale)
+     * @param courseIds IDs des cours présents sur le serveur
+     */
+    public synchronized void retainOnly(Set<String> courseIds) {
+        for (String courseId : new ArrayList<>(coursesById.keySet())) {
+            if (!courseIds.contains(courseId)) {
+                remove(courseId);
+            }
+        }
+    }
+
+    /**
+     * Ajoute ou remplace un cours dans l'index
+     * @param course Cours à indexer (courseId obligatoire)
+     */
+    public synchronized void upsert(Course course) {
+        if (course == null || course.getCourseId() == null) {
+            return;
+        }
+        remove(course.getCourseId());
+
+        String courseId = course.getCourseId();
+        coursesById.put(courseId, course);
+        addToBucket(idsByCategory, course.getCategory(), courseId);
+        addToBucket(idsByLevel, course.getLevel(), courseId);
+        addToBucket(idsByDuration, course.getDurationMinutes(), courseId);
+        idsByKey.add(courseId);
+        byPopularity.add(course);
+        searchEngine.index(course);
+    }
+
+    /**
+     * Retire un cours de l'index
+     * @param courseId ID du cours
+     */
+    public synchronized void remove(String courseId) {
+        Course previous = coursesById.remove(courseId);
+        if (previous == null) {
+            return;
+        }
+        removeFromBucket(idsByCategory, previous.getCategory(), courseId);
+        removeFromBucket(idsByLevel, previous.getLevel(), courseId);
+        removeFromBucket(idsByDuration, previous.getDurationMinutes(), courseId);
+        idsByKey.remove(courseId);
+        byPopularity.remove(previous);
+        searchEngine.remove(courseId);
+    }
+
+    /**
+     * Récupère un cours par son ID
+     * @param courseId ID du cours
+     * @return le cours indexé (à copier avant toute modification) ou null
+     */
+    public synchronized Course get(String courseId) {
+        return coursesById.get(courseId);
+    }
+
+    /**
+     * Nombre de cours indexés
+     */
+    public synchronized int size() {
+        return coursesById.size();
+    }
+
+    /**
+     * Récupère tous les cours du catalogue
+     */
+    public synchronized List<Course> getAll() {
+        return copies(coursesById.values());
+    }
+
+    /**
+     * Récupère les cours d'une catégorie
+     * @param category Catégorie recherchée
+     */
+    public synchronized List<Course> findByCategory(String category) {
+        return resolve(idsByCategory.get(category));
+    }
+
+    /**
+     * Récupère les cours d'un niveau
+     * @param level Niveau recherché
+     */
+    public synchronized List<Course> findByLevel(String level) {
+        return resolve(idsByLevel.get(level));
+    }
+
+    /**
+     * Récupère les cours dont la durée est comprise entre deux bornes (incluses)
+     * @param minMinutes Durée minimale
+     * @param maxMinutes Durée maximale
+     */
+    public synchronized List<Course> findByDurationRange(int minMinutes, int maxMinutes) {
+        List<Course> result = new ArrayList<>();
+        if (minMinutes > maxMinutes) {
+            return result;
+        }
+        for (Set<String> ids : idsByDuration.subMap(minMinutes, true, maxMinutes, true).values()) {
+            result.addAll(resolve(ids));
+        }
+        return result;
+    }
+
+    /**
+     * Page de cours triés par clé, à partir d'un curseur
+     * @param afterKey Clé du dernier cours de la page précédente (null pour la première page)
+     * @param limit Taille de la page
+     */
+    public synchronized List<Course> pageByKey(String afterKey, int limit) {
+        Collection<String> ids = afterKey == null ? idsByKey : idsByKey.tailSet(afterKey, false);
+        List<Course> result = new ArrayList<>();
+        for (String id : ids) {
+            if (result.size() >= limit) {
+                break;
+            }
+            result.add(new Course(coursesById.get(id)));
+        }
+        return result;
+    }
+
+    /**
+     * Page de cours triés par nombre d'inscrits décroissant, à partir d'un curseur
+     * @param afterEnrolledCount Nombre d'inscrits du dernier cours de la page précédente
+     * @param afterKey Clé de ce cours (null pour la première page)
+     * @param limit Taille de la page
+     */
+    public synchronized List<Course> pageByPopularity(int afterEnrolledCount, String afterKey, int limit) {
+        Collection<Course> courses = byPopularity;
+        if (afterKey != null) {
+            Course probe = new Course();
+            probe.setCourseId(afterKey);
+            probe.setEnrolledCount(afterEnrolledCount);
+            courses = byPopularity.tailSet(probe, false);
+        }
+        List<Course> result = new ArrayList<>();
+        for (Course course : courses) {
+            if (result.size() >= limit) {
+                break;
+            }
+            result.add(new Course(course));
+        }
+        return result;
+    }
+
+    /**
+     * Page du catalogue à partir d'un curseur, dans l'ordre du curseur
+     * @param cursor Position de départ
+     * @param pageSize Nombre de cours par page
+     */
+    public CoursePage page(CoursePage.Cursor cursor, int pageSize) {
+        List<Course> courses = cursor.getOrder() == CoursePage.Order.POPULARITY
+                ? pageByPopularity(cursor.getAfterEnrolledCount(), cursor.getAfterKey(), pageSize)
+                : pageByKey(cursor.getAfterKey(), pageSize);
+        return CoursePage.of(cursor.getOrder(), courses, pageSize);
+    }
+
+    /**
+     * Recherche textuelle sur le titre, la description et les tags
+     * @param query Texte à rechercher
+     * @return les cours correspondants, du plus pertinent au moins pertinent
+     */
+    public synchronized List<Course> search(String query) {
+        if (query == null || query.trim().isEmpty()) {
+            return getAll();
+        }
+        return resolve(searchEngine.search(query, 0));
+    }
+
+    /**
+     * Évalue une requête combinée en une seule passe : les candidats viennent de l'ensemble
+     * le plus sélectif (recherche textuelle, sinon le plus petit des groupes catégorie/niveau),
+     * les autres critères sont vérifiés au passage, puis les résultats sont triés.
+     * @param query Critères de la requête
+     * @param limit Nombre maximal de cours retournés
+     * @return les cours correspondants, dans l'ordre demandé
+     */
+    public synchronized List<Course> query(CourseQuery query, int limit) {
+        String category = query.getCategory();
+        String level = query.getLevel();
+
+        Collection<String> candidates;
+        if (query.getText() != null) {
+            // Déjà triés par pertinence
+            candidates = searchEngine.search(query.getText(), 0);
+        } else {
+            Set<String> inCategory = category != null ? bucket(idsByCategory, category) : null;
+            Set<String> inLevel = level != null ? bucket(idsByLevel, level) : null;
+            if (inCategory != null && (inLevel == null || inCategory.size() <= inLevel.size())) {
+                candidates = inCategory;
+            } else if (inLevel != null) {
+                candidates = inLevel;
+            } else {
+                // Ordre du catalogue, stable quand un cours est mis à jour
+                candidates = idsByKey;
+            }
+        }
+
+        List<Course> matches = new ArrayList<>();
+        for (String id : candidates) {
+            Course course = coursesById.get(id);
+            if (course == null
+                    || (category != null && !category.equals(course.getCategory()))
+                    || (level != null && !level.equals(course.getLevel()))) {
+                continue;
+            }
+            matches.add(course);
+        }
+
+        switch (query.getSort()) {
+            case DURATION_ASC:
+                matches.sort((a, b) -> Integer.compare(a.getDurationMinutes(), b.getDurationMinutes()));
+                break;
+            case DURATION_DESC:
+                matches.sort((a, b) -> Integer.compare(b.getDurationMinutes(), a.getDurationMinutes()));
+                break;
+            case POPULARITY:
+                matches.sort(POPULARITY_ORDER);
+                break;
+            default:
+                // Les groupes catégorie/niveau suivent l'ordre d'insertion : revenir à l'ordre
+                // des clés, celui de pageByKey et de la copie locale du catalogue
+                if (query.getText() == null && candidates != idsByKey) {
+                    matches.sort((a, b) -> a.getCourseId().compareTo(b.getCourseId()));
+                }
+                break;
+        }
+
+        return copies(matches.size() > limit ? matches.subList(0, limit) : matches);
+    }
+
+    private static Set<String> bucket(Map<String, Set<String>> buckets, String key) {
+        Set<String> ids = buckets.get(key);
+        return ids != null ? ids : Collections.emptySet();
+    }
+
+    private List<Course> resolve(Collection<String> ids) {
+        List<Course> result = new ArrayList<>();
+        if (ids == null) {
+            return result;
+        }
+        for (String id : ids) {
+            Course course = coursesById.get(id);
+            if (course != null) {
+                result.add(new Course(course));
+            }
+        }
+        return result;
+    }
+
+    private static List<Course> copies(Collection<Course> courses) {
+        List<Course> result = new ArrayList<>(courses.size());
+        for (Course course : courses) {
+            result.add(new Course(course));
+        }
+        return result;
+    }
+
+    private static <K> void addToBucket(Map<K, Set<String>> buckets, K key, String courseId) {
+        if (key == null) {
+            return;
+        }
+        Set<String> ids = buckets.get(key);
+        if (ids == null) {
+            ids = new LinkedHashSet<>();
+            buckets.put(key, ids);
+        }
+        ids.add(courseId);
+    }
+
+    private static <K> void removeFromBucket(Map<K, Set<String>> buckets, K key, String courseId) {
+        if (key == null) {
+            return;
+        }
+        Set<String> ids = buckets.get(key);
+        if (ids != null) {
+            ids.remove(courseId);
+            if (ids.isEmpty()) {
+                buckets.remove(key);
+            }
+        }
+    }
+}
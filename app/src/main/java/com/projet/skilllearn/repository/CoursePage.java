@@ -0,0 +1,112 @@
+package com.projet.skilllearn.repository;
+
+import com.projet.skilllearn.model.Course;
+
+import java.util.List;
+
+/**
+ * Page du catalogue obtenue par pagination par clé (keyset) : chaque page fournit le curseur
+ * de la suivante, construit à partir de son dernier cours, si bien que le coût d'une page ne
+ * dépend pas de sa position dans le catalogue.
+ */
+public class CoursePage {
+
+    /**
+     * Ordre de parcours du catalogue
+     */
+    public enum Order {
+        // Par ID de cours (ordre des clés Firebase)
+        KEY,
+        // Par nombre d'inscrits décroissant, puis par clé décroissante
+        POPULARITY
+    }
+
+    /**
+     * Position dans le catalogue : la page suivante commence juste après ce cours
+     */
+    public static final class Cursor {
+        private final Order order;
+        private final String afterKey;
+        private final int afterEnrolledCount;
+
+        private Cursor(Order order, String afterKey, int afterEnrolledCount) {
+            this.order = order;
+            this.afterKey = afterKey;
+            this.afterEnrolledCount = afterEnrolledCount;
+        }
+
+        /**
+         * Curseur de la première page
+         * @param order Ordre de parcours
+         */
+        public static Cursor first(Order order) {
+            return new Cursor(order, null, 0);
+        }
+
+        /**
+         * Curseur placé après un cours
+         */
+        static Cursor after(Order order, Course last) {
+            return after(order, last.getCourseId(), last.getEnrolledCount());
+        }
+
+        /**
+         * Curseur placé après une clé et une valeur de tri
+         */
+        static Cursor after(Order order, String key, int enrolledCount) {
+            return new Cursor(order, key, enrolledCount);
+        }
+
+        public Order getOrder() {
+            return order;
+        }
+
+        /**
+         * @return la clé du dernier cours de la page précédente, ou null pour la première page
+         */
+        public String getAfterKey() {
+            return afterKey;
+        }
+
+        public int getAfterEnrolledCount() {
+            return afterEnrolledCount;
+        }
+
+        public boolean isFirst() {
+            return afterKey == null;
+        }
+    }
+
+    private final List<Course> courses;
+    private final Cursor next;
+
+    CoursePage(List<Course> courses, Cursor next) {
+        this.courses = courses;
+        this.next = next;
+    }
+
+    /**
+     * Construit une page : s'il y a moins de cours que demandé, c'est la dernière
+     */
+    static CoursePage of(Order order, List<Course> courses, int pageSize) {
+        Cursor next = courses.size() < pageSize || courses.isEmpty()
+                ? null
+                : Cursor.after(order, courses.get(courses.size() - 1));
+        return new CoursePage(courses, next);
+    }
+
+    public List<Course> getCourses() {
+        return courses;
+    }
+
+    /**
+     * @return le curseur de la page suivante, ou null si c'est la dernière page
+     */
+    public Cursor getNext() {
+        return next;
+    }
+
+    public boolean isLast() {
+        return next == null;
+    }
+}
@@ -0,0 +1,153 @@
+package com.projet.skilllearn.repository;
+
+import java.util.Objects;
+
+/**
+ * Requête combinée sur le catalogue : catégorie, niveau, texte, tri et page.
+ * Immuable : chaque modification d'un critère produit une nouvelle requête, évaluée
+ * en une seule passe par CourseIndex.query() sans accès réseau.
+ */
+public final class CourseQuery {
+
+    public static final int DEFAULT_PAGE_SIZE = 20;
+
+    /**
+     * Ordre des résultats
+     */
+    public enum Sort {
+        // Pertinence pour une recherche textuelle, sinon ordre du catalogue
+        DEFAULT,
+        DURATION_ASC,
+        DURATION_DESC,
+        POPULARITY
+    }
+
+    private final String category;
+    private final String level;
+    private final String text;
+    private final Sort sort;
+    private final int page;
+    private final int pageSize;
+
+    private CourseQuery(String category, String level, String text, Sort sort, int page, int pageSize) {
+        this.category = emptyToNull(category);
+        this.level = emptyToNull(level);
+        this.text = text != null && !text.trim().isEmpty() ? text.trim() : null;
+        this.sort = sort != null ? sort : Sort.DEFAULT;
+        this.page = Math.max(0, page);
+        this.pageSize = Math.max(1, pageSize);
+    }
+
+    /**
+     * Requête sans filtre sur tout le catalogue, première page
+     */
+    public static CourseQuery all() {
+        return new CourseQuery(null, null, null, Sort.DEFAULT, 0, DEFAULT_PAGE_SIZE);
+    }
+
+    /**
+     * @param category Catégorie, ou null pour toutes ; revient à la première page
+     */
+    public CourseQuery withCategory(String category) {
+        return new CourseQuery(category, level, text, sort, 0, pageSize);
+    }
+
+    /**
+     * @param level Niveau, ou null pour tous ; revient à la première page
+     */
+    public CourseQuery withLevel(String level) {
+        return new CourseQuery(category, level, text, sort, 0, pageSize);
+    }
+
+    /**
+     * @param text Texte recherché, ou null ; revient à la première page
+     */
+    public CourseQuery withText(String text) {
+        return new CourseQuery(category, level, text, sort, 0, pageSize);
+    }
+
+    /**
+     * @param sort Ordre des résultats ; revient à la première page
+     */
+    public CourseQuery withSort(Sort sort) {
+        return new CourseQuery(category, level, text, sort, 0, pageSize);
+    }
+
+    /**
+     * @param pageSize Nombre de cours par page ; revient à la première page
+     */
+    public CourseQuery withPageSize(int pageSize) {
+        return new CourseQuery(category, level, text, sort, 0, pageSize);
+    }
+
+    /**
+     * @return la même requête étendue à la page suivante
+     */
+    public CourseQuery nextPage() {
+        return new CourseQuery(category, level, text, sort, page + 1, pageSize);
+    }
+
+    public String getCategory() {
+        return category;
+    }
+
+    public String getLevel() {
+        return level;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public Sort getSort() {
+        return sort;
+    }
+
+    public int getPage() {
+        return page;
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    /**
+     * Nombre de cours à retourner : toutes les pages jusqu'à la page courante
+     */
+    public int getLimit() {
+        return (page + 1) * pageSize;
+    }
+
+    /**
+     * Indique si la requête porte sur tout le catalogue (aucun filtre)
+     */
+    public boolean isUnfiltered() {
+        return category == null && level == null && text == null;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof CourseQuery)) {
+            return false;
+        }
+        CourseQuery other = (CourseQuery) o;
+        return page == other.page
+                && pageSize == other.pageSize
+                && sort == other.sort
+                && Objects.equals(category, other.category)
+                && Objects.equals(level, other.level)
+                && Objects.equals(text, other.text);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(category, level, text, sort, page, pageSize);
+    }
+
+    private static String emptyToNull(String value) {
+        return value != null && !value.isEmpty() ? value : null;
+    }
+}
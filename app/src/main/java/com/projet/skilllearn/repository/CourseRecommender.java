@@ -0,0 +1,195 @@
+package com.projet.skilllearn.repository;
+
+import com.projet.skilllearn.model.Course;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * Moteur de recommandation local.
+ * Construit un profil de l'utilisateur (catégories, niveaux et tags pondérés par la
+ * progression dans chaque cours suivi) puis note tout le catalogue en une seule passe,
+ * en ne conservant que les meilleurs résultats dans un tas de taille limitée.
+ * Les cours déjà suivis sont exclus ; sans historique, le classement se fait par popularité.
+ */
+public class CourseRecommender {
+
+    static final double CATEGORY_WEIGHT = 3.0;
+    static final double LEVEL_WEIGHT = 1.0;
+    static final double TAG_WEIGHT = 2.0;
+    static final double POPULARITY_WEIGHT = 0.5;
+
+    // Nombre d'inscrits pour lequel le bonus de popularité atteint la moitié de son maximum
+    private static final double POPULARITY_HALF_POINT = 100.0;
+
+    /**
+     * Profil de l'utilisateur : poids normalisés de ses centres d'intérêt
+     */
+    static class Profile {
+        final Map<String, Double> categories = new HashMap<>();
+        final Map<String, Double> levels = new HashMap<>();
+        final Map<String, Double> tags = new HashMap<>();
+        final Set<String> excludedIds = new HashSet<>();
+
+        boolean isEmpty() {
+            return categories.isEmpty() && levels.isEmpty() && tags.isEmpty();
+        }
+    }
+
+    /**
+     * Cours candidat et sa note
+     */
+    private static class Scored {
+        final Course course;
+        final double score;
+
+        Scored(Course course, double score) {
+            this.course = course;
+            this.score = score;
+        }
+    }
+
+    /**
+     * Calcule les meilleures recommandations pour un utilisateur
+     * @param history Cours suivis par l'utilisateur (userProgress renseigné, 0-100)
+     * @param catalog Catalogue complet
+     * @param limit Nombre maximal de cours retournés
+     * @return les cours recommandés, du plus pertinent au moins pertinent
+     */
+    public List<Course> recommend(Collection<Course> history, Collection<Course> catalog, int limit) {
+        List<Course> result = new ArrayList<>();
+        if (limit <= 0) {
+            return result;
+        }
+
+        Profile profile = buildProfile(history);
+        PriorityQueue<Scored> best = new PriorityQueue<>(limit + 1, CourseRecommender::compare);
+
+        for (Course course : catalog) {
+            if (course == null || profile.excludedIds.contains(course.getCourseId())) {
+                continue;
+            }
+            double score = score(profile, course);
+            if (best.size() == limit && score < best.peek().score) {
+                continue;
+            }
+            best.add(new Scored(course, score));
+            if (best.size() > limit) {
+                best.poll();
+            }
+        }
+
+        while (!best.isEmpty()) {
+            result.add(best.poll().course);
+        }
+        Collections.reverse(result);
+        return result;
+    }
+
+    /**
+     * Construit le profil : chaque cours suivi compte pour 0,5 (inscrit) à 1,5 (terminé)
+     */
+    Profile buildProfile(Collection<Course> history) {
+        Profile profile = new Profile();
+        if (history == null) {
+            return profile;
+        }
+
+        double total = 0;
+        for (Course course : history) {
+            if (course == null) {
+                continue;
+            }
+            profile.excludedIds.add(course.getCourseId());
+            double weight = 0.5 + Math.max(0, Math.min(100, course.getUserProgress())) / 100.0;
+            total += weight;
+
+            addWeight(profile.categories, course.getCategory(), weight);
+            addWeight(profile.levels, course.getLevel(), weight);
+            if (course.getTags() != null) {
+                for (String tag : course.getTags()) {
+                    addWeight(profile.tags, normalizeTag(tag), weight);
+                }
+            }
+        }
+
+        if (total > 0) {
+            normalize(profile.categories, total);
+            normalize(profile.levels, total);
+            normalize(profile.tags, total);
+        }
+        return profile;
+    }
+
+    /**
+     * Note d'un cours candidat pour un profil
+     */
+    double score(Profile profile, Course course) {
+        double score = 0;
+        if (!profile.isEmpty()) {
+            score += CATEGORY_WEIGHT * weightOf(profile.categories, course.getCategory());
+            score += LEVEL_WEIGHT * weightOf(profile.levels, course.getLevel());
+
+            List<String> tags = course.getTags();
+            if (tags != null && !tags.isEmpty()) {
+                double tagScore = 0;
+                for (String tag : tags) {
+                    tagScore += weightOf(profile.tags, normalizeTag(tag));
+                }
+                // Atténuer l'avantage des cours qui accumulent les tags
+                score += TAG_WEIGHT * tagScore / Math.sqrt(tags.size());
+            }
+        }
+
+        int enrolled = Math.max(0, course.getEnrolledCount());
+        score += POPULARITY_WEIGHT * enrolled / (enrolled + POPULARITY_HALF_POINT);
+        return score;
+    }
+
+    /**
+     * Ordre du tas : la plus petite note en tête, puis l'ID pour un résultat déterministe
+     */
+    private static int compare(Scored a, Scored b) {
+        int byScore = Double.compare(a.score, b.score);
+        if (byScore != 0) {
+            return byScore;
+        }
+        String idA = a.course.getCourseId() != null ? a.course.getCourseId() : "";
+        String idB = b.course.getCourseId() != null ? b.course.getCourseId() : "";
+        return idB.compareTo(idA);
+    }
+
+    private static void addWeight(Map<String, Double> weights, String key, double weight) {
+        if (key == null || key.isEmpty()) {
+            return;
+        }
+        Double previous = weights.get(key);
+        weights.put(key, previous != null ? previous + weight : weight);
+    }
+
+    private static void normalize(Map<String, Double> weights, double total) {
+        for (Map.Entry<String, Double> entry : weights.entrySet()) {
+            entry.setValue(entry.getValue() / total);
+        }
+    }
+
+    private static double weightOf(Map<String, Double> weights, String key) {
+        if (key == null) {
+            return 0;
+        }
+        Double weight = weights.get(key);
+        return weight != null ? weight : 0;
+    }
+
+    private static String normalizeTag(String tag) {
+        return tag != null ? tag.trim().toLowerCase(Locale.ROOT) : null;
+    }
+}
@@ -1,87 +1,186 @@
 package com.projet.skilllearn.repository;
 
+import android.util.Log;
+
 import androidx.annotation.NonNull;
 
 import com.google.android.gms.tasks.OnSuccessListener;
+import com.google.firebase.database.ChildEventListener;
 import com.google.firebase.database.DataSnapshot;
 import com.google.firebase.database.DatabaseError;
 import com.google.firebase.database.DatabaseReference;
 import com.google.firebase.database.FirebaseDatabase;
 import com.google.firebase.database.Query;
+import com.google.firebase.database.ServerValue;
 import com.google.firebase.database.ValueEventListener;
 import com.projet.skilllearn.model.Course;
+import com.projet.skilllearn.model.CourseSection;
+import com.projet.skilllearn.utils.ListenerRegistry;
+import com.projet.skilllearn.utils.MutationJournal;
+import com.projet.skilllearn.utils.ShardedCounter;
+import com.projet.skilllearn.utils.SnapshotMapper;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
 
-import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Repository pour accéder et gérer les données des cours dans Firebase
  */
 public class CourseRepository {
+    private static final String TAG = "CourseRepository";
+
+    private static final List<PendingQuery> pendingQueries = new ArrayList<>();
+    // Premières pages servies depuis la copie disque, à redonner une fois l'index synchronisé
+    private static final PageRevalidations pageRevalidations = new PageRevalidations();
+    // Lectures individuelles en cours, par ID de cours
+    private static final Map<String, List<CourseCallback>> inFlightCourses = new HashMap<>();
+    // Écouteur permanent de l'index, partagé par toute l'application
+    private static final ListenerRegistry indexListeners = new ListenerRegistry();
+    private static boolean indexListenerAttached = false;
+    // Flux des conversions de l'index : un par cours, pour que ses événements restent ordonnés
+    private static final String INDEX_STREAM = "courseIndex/";
+
+    private static final int RECOMMENDATION_LIMIT = 10;
+
     private final DatabaseReference coursesRef;
+    private final CourseIndex courseIndex;
+    private final CourseRecommender recommender = new CourseRecommender();
     /**
      * Récupère les cours par niveau de difficulté
      * @param level Niveau de difficulté (débutant, intermédiaire, expert)
      * @param callback Callback pour le résultat
      */
     public void getCoursesByLevel(String level, CoursesCallback callback) {
-        coursesRef.orderByChild("level").equalTo(level)
-                .addListenerForSingleValueEvent(new ValueEventListener() {
-                    @Override
-                    public void onDataChange(@NonNull DataSnapshot snapshot) {
-                        List<Course> courses = new ArrayList<>();
-                        for (DataSnapshot courseSnapshot : snapshot.getChildren()) {
-                            Course course = courseSnapshot.getValue(Course.class);
-                            if (course != null) {
-                                course.setCourseId(courseSnapshot.getKey());
-                                courses.add(course);
-                            }
-                        }
-                        callback.onCoursesLoaded(courses);
-                    }
-
-                    @Override
-                    public void onCancelled(@NonNull DatabaseError error) {
-                        callback.onError(error.getMessage());
-                    }
-                });
+        withIndex(index -> index.findByLevel(level), callback);
     }
 
     /**
-     * Récupère les cours triés par popularité
+     * Récupère une page du catalogue par pagination par clé.
+     * Si l'index local est déjà chargé, la page en est extraite ; sinon elle est décodée dans
+     * la copie locale du catalogue projetée en mémoire (CourseCache.peekCatalog()) pour un
+     * premier affichage : l'index est alors abonné et la première page redonnée une fois
+     * synchronisée avec le serveur. À défaut de copie locale,
+     * seule la page demandée est lue dans Firebase (orderByKey/startAfter, ou enrolledCount puis
+     * clé pour la popularité), sans charger le reste du catalogue. Firebase ne pouvant trier sur
+     * une somme, les cours à compteur fragmenté n'y sont classés que par leur socle, jusqu'à
+     * ce que l'index, qui trie sur le total agrégé, prenne le relais.
+     * @param cursor Position de départ (CoursePage.Cursor.first() pour la première page)
+     * @param pageSize Nombre de cours par page
      * @param callback Callback pour le résultat
      */
-    public void getCoursesByPopularity(CoursesCallback callback) {
-        coursesRef.orderByChild("enrolledCount").limitToLast(20)
-                .addListenerForSingleValueEvent(new ValueEventListener() {
-                    @Override
-                    public void onDataChange(@NonNull DataSnapshot snapshot) {
-                        List<Course> courses = new ArrayList<>();
-                        for (DataSnapshot courseSnapshot : snapshot.getChildren()) {
-                            Course course = courseSnapshot.getValue(Course.class);
-                            if (course != null) {
-                                course.setCourseId(courseSnapshot.getKey());
-                                courses.add(course);
-                            }
-                        }
+    public void getCoursesPage(CoursePage.Cursor cursor, int pageSize, CoursePageCallback callback) {
+        CoursePage.Order order = cursor.getOrder();
+        if (courseIndex.isLoaded()) {
+            // Un index encore rempli par la seule copie disque est, lui aussi, un premier affichage
+            revalidateWhenSynced(cursor, pageSize, callback);
+            callback.onPageLoaded(courseIndex.page(cursor, pageSize));
+            return;
+        }
 
-                        // Inverser pour avoir les plus populaires en premier
-                        Collections.reverse(courses);
-                        callback.onCoursesLoaded(courses);
-                    }
+        CourseCache cache = CourseCache.getInstance();
+        CatalogSnapshot catalog = cache != null ? cache.peekCatalog() : null;
+        CoursePage firstPaint = null;
+        if (catalog != null) {
+            try {
+                firstPaint = catalog.page(cursor, pageSize);
+            } catch (RuntimeException e) {
+                Log.w(TAG, "Copie locale du catalogue illisible, lecture de la page sur le serveur", e);
+            }
+        }
+        if (firstPaint != null) {
+            revalidateWhenSynced(cursor, pageSize, callback);
+            callback.onPageLoaded(firstPaint);
+            return;
+        }
 
-                    @Override
-                    public void onCancelled(@NonNull DatabaseError error) {
-                        callback.onError(error.getMessage());
-                    }
-                });
+        Query query;
+        if (order == CoursePage.Order.POPULARITY) {
+            // Firebase trie par ordre croissant : lire la fin de la plage puis inverser
+            query = coursesRef.orderByChild("enrolledCount");
+            if (!cursor.isFirst()) {
+                query = query.endBefore(cursor.getAfterEnrolledCount(), cursor.getAfterKey());
+            }
+            query = query.limitToLast(pageSize);
+        } else {
+            query = coursesRef.orderByKey();
+            if (!cursor.isFirst()) {
+                query = query.startAfter(cursor.getAfterKey());
+            }
+            query = query.limitToFirst(pageSize);
+        }
+
+        query.addListenerForSingleValueEvent(new ValueEventListener() {
+            @Override
+            public void onDataChange(@NonNull DataSnapshot snapshot) {
+                SnapshotMapper.getInstance().mapOnce(snapshot,
+                        pageSnapshot -> toPage(pageSnapshot, order, pageSize), callback::onPageLoaded);
+            }
+
+            @Override
+            public void onCancelled(@NonNull DatabaseError error) {
+                callback.onError(error.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Abonne l'index si besoin et, tant qu'il n'a pas été synchronisé avec le serveur, planifie
+     * une seconde livraison de la première page : la copie locale n'est qu'un premier affichage
+     */
+    private void revalidateWhenSynced(CoursePage.Cursor cursor, int pageSize, CoursePageCallback callback) {
+        synchronized (pendingQueries) {
+            pageRevalidations.add(cursor, pageSize, callback);
+            attachIndexListener();
+        }
     }
 
     /**
-     * Récupère les cours auxquels un utilisateur est inscrit
+     * Renonce à la seconde livraison d'une première page (voir getCoursesPage), par exemple
+     * quand le ViewModel qui l'attendait est détruit : le callback n'est plus référencé
+     * @param callback Callback passé à getCoursesPage
+     */
+    public void cancelPageRevalidation(CoursePageCallback callback) {
+        pageRevalidations.remove(callback);
+    }
+
+    /**
+     * Convertit une page lue dans Firebase (hors du thread principal)
+     */
+    private static CoursePage toPage(DataSnapshot snapshot, CoursePage.Order order, int pageSize) {
+        List<Course> courses = new ArrayList<>();
+        DataSnapshot last = null;
+        for (DataSnapshot courseSnapshot : snapshot.getChildren()) {
+            Course course = toCourse(courseSnapshot);
+            if (course != null) {
+                courses.add(course);
+            }
+            if (last == null || order == CoursePage.Order.KEY) {
+                // Popularité : la lecture est croissante, le dernier de la page est le premier lu
+                last = courseSnapshot;
+            }
+        }
+        if (order == CoursePage.Order.POPULARITY) {
+            Collections.reverse(courses);
+        }
+
+        // Le serveur trie sur le socle "enrolledCount" : le curseur doit en reprendre la valeur
+        CoursePage.Cursor next = courses.size() < pageSize || last == null
+                ? null
+                : CoursePage.Cursor.after(order, last.getKey(),
+                        (int) longValue(last.child(ShardedCounter.BASE_FIELD)));
+        return new CoursePage(courses, next);
+    }
+
+    /**
+     * Récupère les cours auxquels un utilisateur est inscrit, dans l'ordre d'inscription
      * @param userId ID de l'utilisateur
      * @param callback Callback pour le résultat
      */
@@ -97,41 +196,34 @@ public class CourseRepository {
                     return;
                 }
 
-                List<Course> userCourses = new ArrayList<>();
-                AtomicInteger coursesProcessed = new AtomicInteger(0);
-                int totalCourses = (int) snapshot.getChildrenCount();
-
+                // Trier les inscriptions par date (les plus anciennes d'abord)
+                List<DataSnapshot> enrollments = new ArrayList<>();
                 for (DataSnapshot courseProgress : snapshot.getChildren()) {
-                    String courseId = courseProgress.getKey();
-                    if (courseId != null) {
-                        getCourseById(courseId, new CourseCallback() {
-                            @Override
-                            public void onCourseLoaded(Course course) {
-                                // Ajouter la progression à l'objet cours
-                                if (courseProgress.child("percentage").exists()) {
-                                    Integer percentage = courseProgress.child("percentage").getValue(Integer.class);
-                                    if (percentage != null) {
-                                        course.setUserProgress(percentage);
-                                    }
-                                }
-
-                                userCourses.add(course);
-
-                                // Vérifier si tous les cours ont été traités
-                                if (coursesProcessed.incrementAndGet() == totalCourses) {
-                                    callback.onCoursesLoaded(userCourses);
-                                }
-                            }
-
-                            @Override
-                            public void onError(String message) {
-                                if (coursesProcessed.incrementAndGet() == totalCourses) {
-                                    callback.onCoursesLoaded(userCourses);
-                                }
-                            }
-                        });
+                    if (courseProgress.getKey() != null) {
+                        enrollments.add(courseProgress);
                     }
                 }
+                Collections.sort(enrollments, (a, b) ->
+                        Long.compare(longValue(a.child("enrolledAt")), longValue(b.child("enrolledAt"))));
+
+                List<String> courseIds = new ArrayList<>();
+                Map<String, DataSnapshot> progressById = new HashMap<>();
+                for (DataSnapshot courseProgress : enrollments) {
+                    courseIds.add(courseProgress.getKey());
+                    progressById.put(courseProgress.getKey(), courseProgress);
+                }
+
+                // Un seul chargement groupé au lieu d'une lecture par cours
+                getCoursesByIds(courseIds, (courses, errors) -> {
+                    for (Course course : courses) {
+                        DataSnapshot courseProgress = progressById.get(course.getCourseId());
+                        // Ajouter la progression à l'objet cours
+                        course.setUserProgress((int) longValue(courseProgress.child("percentage")));
+                        course.setLastStudiedTimestamp(longValue(courseProgress.child("lastUpdated")));
+                        course.setEnrolled(true);
+                    }
+                    callback.onCoursesLoaded(courses);
+                });
             }
 
             @Override
@@ -140,6 +232,89 @@ public class CourseRepository {
             }
         });
     }
+
+    /**
+     * Charge un ensemble de cours en une seule opération groupée.
+     * Les cours sont servis par l'index partagé du catalogue. Ceux qu'il ne connaît pas encore
+     * (index servi par la copie disque, pas encore synchronisé avec le serveur), ou tous si
+     * l'index ne peut pas être chargé, sont lus individuellement (les lectures en cours pour
+     * un même ID sont mutualisées). Les cours retournés sont des copies modifiables.
+     * @param courseIds IDs des cours, dans l'ordre souhaité
+     * @param callback Callback recevant les cours trouvés (dans l'ordre de courseIds)
+     *                 et les erreurs par ID
+     */
+    public void getCoursesByIds(List<String> courseIds, CoursesBatchCallback callback) {
+        if (courseIds.isEmpty()) {
+            callback.onCoursesLoaded(new ArrayList<>(), new LinkedHashMap<>());
+            return;
+        }
+
+        CourseBatch batch = new CourseBatch(courseIds, callback);
+        withIndex(index -> {
+            // Synchronisé avec le serveur : un cours absent de l'index n'existe pas
+            batch.serveFrom(index, pageRevalidations.isSynced());
+            return new ArrayList<>();
+        }, new CoursesCallback() {
+            @Override
+            public void onCoursesLoaded(List<Course> courses) {
+                batch.fetchMissing(CourseRepository.this::fetchCourseCoalesced);
+            }
+
+            @Override
+            public void onError(String message) {
+                batch.fetchMissing(CourseRepository.this::fetchCourseCoalesced);
+            }
+        });
+    }
+
+    /**
+     * Lit un cours depuis Firebase ; les demandes simultanées pour le même ID
+     * partagent une seule lecture.
+     */
+    private void fetchCourseCoalesced(String courseId, CourseCallback callback) {
+        synchronized (inFlightCourses) {
+            List<CourseCallback> waiting = inFlightCourses.get(courseId);
+            if (waiting != null) {
+                waiting.add(callback);
+                return;
+            }
+            waiting = new ArrayList<>();
+            waiting.add(callback);
+            inFlightCourses.put(courseId, waiting);
+        }
+
+        getCourseById(courseId, new CourseCallback() {
+            @Override
+            public void onCourseLoaded(Course course) {
+                for (CourseCallback waiting : takeInFlight(courseId)) {
+                    waiting.onCourseLoaded(new Course(course));
+                }
+            }
+
+            @Override
+            public void onError(String message) {
+                for (CourseCallback waiting : takeInFlight(courseId)) {
+                    waiting.onError(message);
+                }
+            }
+        });
+    }
+
+    private static List<CourseCallback> takeInFlight(String courseId) {
+        synchronized (inFlightCourses) {
+            List<CourseCallback> waiting = inFlightCourses.remove(courseId);
+            return waiting != null ? waiting : new ArrayList<>();
+        }
+    }
+
+    /**
+     * Lit une valeur numérique d'un snapshot (0 si absente)
+     */
+    private static long longValue(DataSnapshot snapshot) {
+        Object value = snapshot.getValue();
+        return value instanceof Number ? ((Number) value).longValue() : 0L;
+    }
+
     /**
      * Interface de callback pour récupérer les résultats des opérations
      */
@@ -148,6 +323,23 @@ public class CourseRepository {
         void onError(String message);
     }
 
+    /**
+     * Interface de callback pour la pagination du catalogue.
+     * Une première page lue dans la copie disque est livrée une seconde fois, à jour,
+     * quand l'index a été synchronisé avec le serveur (sauf après cancelPageRevalidation).
+     */
+    public interface CoursePageCallback {
+        void onPageLoaded(CoursePage page);
+        void onError(String message);
+    }
+
+    /**
+     * Interface de callback pour les chargements groupés de cours
+     */
+    public interface CoursesBatchCallback {
+        void onCoursesLoaded(List<Course> courses, Map<String, String> errors);
+    }
+
     /**
      * Interface de callback pour les opérations sur un seul cours
      */
@@ -156,11 +348,20 @@ public class CourseRepository {
         void onError(String message);
     }
 
+    /**
+     * Interface de callback pour la vérification de l'index des sections
+     */
+    public interface SectionIndexCallback {
+        void onChecked(SectionIndex.Report report);
+        void onError(String message);
+    }
+
     /**
      * Constructeur
      */
     public CourseRepository() {
         coursesRef = FirebaseDatabase.getInstance().getReference("courses");
+        courseIndex = CourseIndex.getInstance();
     }
 
     /**
@@ -168,25 +369,7 @@ public class CourseRepository {
      * @param callback Callback pour récupérer les résultats
      */
     public void getAllCourses(CoursesCallback callback) {
-        coursesRef.addValueEventListener(new ValueEventListener() {
-            @Override
-            public void onDataChange(@NonNull DataSnapshot dataSnapshot) {
-                List<Course> courses = new ArrayList<>();
-                for (DataSnapshot snapshot : dataSnapshot.getChildren()) {
-                    Course course = snapshot.getValue(Course.class);
-                    if (course != null) {
-                        course.setCourseId(snapshot.getKey());
-                        courses.add(course);
-                    }
-                }
-                callback.onCoursesLoaded(courses);
-            }
-
-            @Override
-            public void onCancelled(@NonNull DatabaseError databaseError) {
-                callback.onError(databaseError.getMessage());
-            }
-        });
+        withIndex(CourseIndex::getAll, callback);
     }
 
     /**
@@ -195,12 +378,17 @@ public class CourseRepository {
      * @param callback Callback pour récupérer le résultat
      */
     public void getCourseById(String courseId, CourseCallback callback) {
+        Course indexed = courseIndex.get(courseId);
+        if (indexed != null) {
+            callback.onCourseLoaded(new Course(indexed));
+            return;
+        }
+
         coursesRef.child(courseId).addListenerForSingleValueEvent(new ValueEventListener() {
             @Override
             public void onDataChange(@NonNull DataSnapshot snapshot) {
-                Course course = snapshot.getValue(Course.class);
+                Course course = toCourse(snapshot);
                 if (course != null) {
-                    course.setCourseId(snapshot.getKey());
                     callback.onCourseLoaded(course);
                 } else {
                     callback.onError("Cours non trouvé");
@@ -215,7 +403,10 @@ public class CourseRepository {
     }
 
     /**
-     * Récupère les cours recommandés pour un utilisateur
+     * Récupère les cours recommandés pour un utilisateur.
+     * Une seule lecture de "user_progress", puis une notation locale du catalogue indexé
+     * (catégories, niveaux et tags des cours suivis, pondérés par la progression).
+     * Sans historique, les cours les plus populaires sont retournés.
      * @param userId ID de l'utilisateur
      * @param callback Callback pour le résultat
      */
@@ -226,31 +417,26 @@ public class CourseRepository {
         userProgressRef.addListenerForSingleValueEvent(new ValueEventListener() {
             @Override
             public void onDataChange(@NonNull DataSnapshot snapshot) {
-                if (!snapshot.exists()) {
-                    // Pas de progrès, retourner simplement les cours populaires
-                    getPopularCourses(callback);
-                    return;
-                }
-
-                // Collecter les catégories des cours suivis par l'utilisateur
-                List<String> userCategories = new ArrayList<>();
+                Map<String, Integer> progressByCourse = new HashMap<>();
                 for (DataSnapshot courseSnapshot : snapshot.getChildren()) {
-                    String courseId = courseSnapshot.getKey();
-                    if (courseId != null) {
-                        // Obtenir la catégorie du cours
-                        getCourseCategory(courseId, category -> {
-                            if (category != null && !userCategories.contains(category)) {
-                                userCategories.add(category);
-                            }
-
-                            // Quand toutes les catégories sont collectées
-                            if (userCategories.size() == snapshot.getChildrenCount()) {
-                                // Charger les cours des catégories similaires
-                                getCoursesFromCategories(userCategories, callback);
-                            }
-                        });
+                    if (courseSnapshot.getKey() != null) {
+                        progressByCourse.put(courseSnapshot.getKey(),
+                                (int) longValue(courseSnapshot.child("percentage")));
                     }
                 }
+
+                withIndex(index -> {
+                    List<Course> history = new ArrayList<>();
+                    for (Map.Entry<String, Integer> entry : progressByCourse.entrySet()) {
+                        Course course = index.get(entry.getKey());
+                        if (course != null) {
+                            Course followed = new Course(course);
+                            followed.setUserProgress(entry.getValue());
+                            history.add(followed);
+                        }
+                    }
+                    return recommender.recommend(history, index.getAll(), RECOMMENDATION_LIMIT);
+                }, callback);
             }
 
             @Override
@@ -261,219 +447,453 @@ public class CourseRepository {
     }
 
     /**
-     * Récupère les cours populaires
-     * @param callback Callback pour le résultat
+     * Récupère les cours par catégorie
+     * @param category Catégorie des cours
+     * @param callback Callback pour récupérer les résultats
      */
-    private void getPopularCourses(CoursesCallback callback) {
-        coursesRef.orderByChild("enrolledCount").limitToLast(10)
-                .addListenerForSingleValueEvent(new ValueEventListener() {
-                    @Override
-                    public void onDataChange(@NonNull DataSnapshot snapshot) {
-                        List<Course> courses = new ArrayList<>();
-                        for (DataSnapshot courseSnapshot : snapshot.getChildren()) {
-                            Course course = courseSnapshot.getValue(Course.class);
-                            if (course != null) {
-                                course.setCourseId(courseSnapshot.getKey());
-                                courses.add(course);
-                            }
-                        }
+    public void getCoursesByCategory(String category, CoursesCallback callback) {
+        withIndex(index -> index.findByCategory(category), callback);
+    }
 
-                        // Inverser pour avoir les plus populaires en premier
-                        Collections.reverse(courses);
-                        callback.onCoursesLoaded(courses);
-                    }
+    /**
+     * Récupère les cours dont la durée est comprise entre deux bornes
+     * @param minMinutes Durée minimale (incluse)
+     * @param maxMinutes Durée maximale (incluse)
+     * @param callback Callback pour récupérer les résultats
+     */
+    public void getCoursesByDurationRange(int minMinutes, int maxMinutes, CoursesCallback callback) {
+        withIndex(index -> index.findByDurationRange(minMinutes, maxMinutes), callback);
+    }
 
-                    @Override
-                    public void onCancelled(@NonNull DatabaseError error) {
-                        callback.onError(error.getMessage());
-                    }
-                });
+    /**
+     * Ajoute un nouveau cours dans la base de données
+     * @param course Cours à ajouter
+     * @param callback Callback pour confirmer l'ajout
+     */
+    public void addCourse(Course course, OnSuccessListener<Void> callback) {
+        String courseId = coursesRef.push().getKey();
+        if (courseId != null) {
+            course.setCourseId(courseId);
+            Map<String, Object> courseData = catalogFields(course);
+            courseData.put("courseId", courseId);
+            courseData.put(ShardedCounter.BASE_FIELD, course.getEnrolledCount());
+
+            Map<String, Object> updates = new HashMap<>();
+            updates.put("courses/" + courseId, courseData);
+            journal("course/add/" + courseId, updates, callback);
+        }
     }
 
     /**
-     * Récupère la catégorie d'un cours
-     * @param courseId ID du cours
-     * @param listener Listener pour le résultat
+     * Met à jour un cours existant
+     * @param course Cours avec les modifications
+     * @param callback Callback pour confirmer la mise à jour
      */
-    private void getCourseCategory(String courseId, OnCategoryLoadedListener listener) {
-        coursesRef.child(courseId).child("category").addListenerForSingleValueEvent(
-                new ValueEventListener() {
-                    @Override
-                    public void onDataChange(@NonNull DataSnapshot snapshot) {
-                        String category = snapshot.getValue(String.class);
-                        listener.onCategoryLoaded(category);
-                    }
+    public void updateCourse(Course course, OnSuccessListener<Void> callback) {
+        if (course.getCourseId() != null) {
+            // Ne pas réécrire les compteurs : la valeur locale est un total agrégé, pas le socle
+            Map<String, Object> updates = new HashMap<>();
+            for (Map.Entry<String, Object> field : catalogFields(course).entrySet()) {
+                updates.put("courses/" + course.getCourseId() + "/" + field.getKey(), field.getValue());
+            }
+            journal("course/update/" + course.getCourseId() + "/" + UUID.randomUUID(), updates, callback);
+        }
+    }
 
-                    @Override
-                    public void onCancelled(@NonNull DatabaseError error) {
-                        listener.onCategoryLoaded(null);
-                    }
-                });
+    /**
+     * Supprime un cours
+     * @param courseId ID du cours à supprimer
+     * @param callback Callback pour confirmer la suppression
+     */
+    public void deleteCourse(String courseId, OnSuccessListener<Void> callback) {
+        Map<String, Object> updates = new HashMap<>();
+        updates.put("courses/" + courseId, null);
+        journal("course/delete/" + courseId, updates, callback);
     }
 
     /**
-     * Interface pour récupérer les catégories
+     * Ajoute une section à un cours, avec son entrée dans l'index des sections du cours.
+     * L'updatedAt du cours avance dans la même écriture : les copies des sections gardées
+     * par CourseBundleLoader sont ainsi invalidées.
+     * @param section Section à ajouter (courseId renseigné)
+     * @param callback Callback pour confirmer l'ajout
      */
-    interface OnCategoryLoadedListener {
-        void onCategoryLoaded(String category);
+    public void addSection(CourseSection section, OnSuccessListener<Void> callback) {
+        String sectionId = FirebaseDatabase.getInstance().getReference(SectionIndex.SECTIONS).push().getKey();
+        if (sectionId != null) {
+            section.setSectionId(sectionId);
+            journal("section/add/" + sectionId,
+                    SectionIndex.put(section, null, ServerValue.TIMESTAMP), callback);
+        }
     }
 
     /**
-     * Récupère les cours des catégories spécifiées
-     * @param categories Liste des catégories
-     * @param callback Callback pour le résultat
+     * Met à jour une section et son entrée d'index
+     * @param section Section avec les modifications
+     * @param previousCourseId Cours de la section avant la modification (null si inchangé)
+     * @param callback Callback pour confirmer la mise à jour
      */
-    private void getCoursesFromCategories(List<String> categories, CoursesCallback callback) {
-        if (categories.isEmpty()) {
-            // Si aucune catégorie, retourner des cours populaires
-            getPopularCourses(callback);
-            return;
+    public void updateSection(CourseSection section, String previousCourseId, OnSuccessListener<Void> callback) {
+        if (section.getSectionId() != null) {
+            journal("section/update/" + section.getSectionId() + "/" + UUID.randomUUID(),
+                    SectionIndex.put(section, previousCourseId, ServerValue.TIMESTAMP), callback);
         }
+    }
 
-        List<Course> recommendedCourses = new ArrayList<>();
-        AtomicInteger categoriesProcessed = new AtomicInteger(0);
-
-        for (String category : categories) {
-            coursesRef.orderByChild("category").equalTo(category)
-                    .addListenerForSingleValueEvent(new ValueEventListener() {
-                        @Override
-                        public void onDataChange(@NonNull DataSnapshot snapshot) {
-                            for (DataSnapshot courseSnapshot : snapshot.getChildren()) {
-                                Course course = courseSnapshot.getValue(Course.class);
-                                if (course != null) {
-                                    course.setCourseId(courseSnapshot.getKey());
-                                    recommendedCourses.add(course);
-                                }
-                            }
-
-                            // Vérifier si toutes les catégories ont été traitées
-                            if (categoriesProcessed.incrementAndGet() == categories.size()) {
-                                // Limiter à 10 cours recommandés
-                                if (recommendedCourses.size() > 10) {
-                                    recommendedCourses.subList(10, recommendedCourses.size()).clear();
-                                }
-
-                                callback.onCoursesLoaded(recommendedCourses);
-                            }
-                        }
+    /**
+     * Supprime une section et son entrée d'index
+     * @param section Section à supprimer
+     * @param callback Callback pour confirmer la suppression
+     */
+    public void deleteSection(CourseSection section, OnSuccessListener<Void> callback) {
+        journal("section/delete/" + section.getSectionId(),
+                SectionIndex.remove(section.getSectionId(), section.getCourseId(), ServerValue.TIMESTAMP),
+                callback);
+    }
+
+    /**
+     * Compare l'index des sections par cours à toutes les sections (outil d'administration :
+     * lit les deux nœuds en entier)
+     * @param callback Reçoit le rapport des écarts
+     */
+    public void checkSectionIndex(SectionIndexCallback callback) {
+        DatabaseReference root = FirebaseDatabase.getInstance().getReference();
+        root.child(SectionIndex.SECTIONS).addListenerForSingleValueEvent(new ValueEventListener() {
+            @Override
+            public void onDataChange(@NonNull DataSnapshot sectionsSnapshot) {
+                SnapshotMapper.getInstance().mapOnce(sectionsSnapshot, CourseRepository::toSectionMap,
+                        sections -> checkAgainstIndex(root, sections, callback));
+            }
 
-                        @Override
-                        public void onCancelled(@NonNull DatabaseError error) {
-                            if (categoriesProcessed.incrementAndGet() == categories.size()) {
-                                callback.onError(error.getMessage());
-                            }
+            @Override
+            public void onCancelled(@NonNull DatabaseError error) {
+                callback.onError(error.getMessage());
+            }
+        });
+    }
+
+    private void checkAgainstIndex(DatabaseReference root, Map<String, CourseSection> sections,
+                                   SectionIndexCallback callback) {
+        root.child(SectionIndex.INDEX).addListenerForSingleValueEvent(new ValueEventListener() {
+            @Override
+            public void onDataChange(@NonNull DataSnapshot indexSnapshot) {
+                SnapshotMapper.getInstance().mapOnce(indexSnapshot, snapshot -> {
+                    Map<String, Map<String, Long>> index = new HashMap<>();
+                    for (DataSnapshot course : snapshot.getChildren()) {
+                        Map<String, Long> entries = new HashMap<>();
+                        for (DataSnapshot entry : course.getChildren()) {
+                            entries.put(entry.getKey(), longValue(entry));
                         }
-                    });
+                        index.put(course.getKey(), entries);
+                    }
+                    return SectionIndex.check(sections, index);
+                }, callback::onChecked);
+            }
+
+            @Override
+            public void onCancelled(@NonNull DatabaseError error) {
+                callback.onError(error.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Convertit le nœud "sections" entier (hors du thread principal)
+     */
+    private static Map<String, CourseSection> toSectionMap(DataSnapshot sectionsSnapshot) {
+        Map<String, CourseSection> sections = new HashMap<>();
+        for (DataSnapshot sectionSnapshot : sectionsSnapshot.getChildren()) {
+            CourseSection section = ModelCodec.toSection(sectionSnapshot.getValue());
+            if (section != null) {
+                sections.put(sectionSnapshot.getKey(), section);
+            } else {
+                Log.w(TAG, "Section illisible ignorée : " + sectionSnapshot.getKey());
+            }
         }
+        return sections;
     }
 
     /**
-     * Récupère les cours par catégorie
-     * @param category Catégorie des cours
-     * @param callback Callback pour récupérer les résultats
+     * Vérifie l'index des sections puis écrit les corrections nécessaires
+     * (ajoute les entrées manquantes, supprime les orphelines, corrige les orderIndex)
+     * @param callback Reçoit le rapport des écarts corrigés
      */
-    public void getCoursesByCategory(String category, CoursesCallback callback) {
-        Query query = coursesRef.orderByChild("category").equalTo(category);
-        query.addValueEventListener(new ValueEventListener() {
+    public void repairSectionIndex(SectionIndexCallback callback) {
+        checkSectionIndex(new SectionIndexCallback() {
             @Override
-            public void onDataChange(@NonNull DataSnapshot dataSnapshot) {
-                List<Course> courses = new ArrayList<>();
-                for (DataSnapshot snapshot : dataSnapshot.getChildren()) {
-                    Course course = snapshot.getValue(Course.class);
-                    if (course != null) {
-                        course.setCourseId(snapshot.getKey());
-                        courses.add(course);
-                    }
+            public void onChecked(SectionIndex.Report report) {
+                if (report.isConsistent()) {
+                    callback.onChecked(report);
+                    return;
                 }
-                callback.onCoursesLoaded(courses);
+                Log.i(TAG, "Réparation de l'index des sections : " + report);
+                journal("section/repair/" + UUID.randomUUID(), report.getRepairs(),
+                        unused -> callback.onChecked(report));
             }
 
             @Override
-            public void onCancelled(@NonNull DatabaseError databaseError) {
-                callback.onError(databaseError.getMessage());
+            public void onError(String message) {
+                callback.onError(message);
             }
         });
     }
 
     /**
-     * Ajoute un nouveau cours dans la base de données
-     * @param course Cours à ajouter
-     * @param callback Callback pour confirmer l'ajout
+     * Recherche des cours par titre
+     * @param query Texte à rechercher
+     * @param callback Callback pour récupérer les résultats
      */
-    public void addCourse(Course course, OnSuccessListener<Void> callback) {
-        String courseId = coursesRef.push().getKey();
-        if (courseId != null) {
-            course.setCourseId(courseId);
-            coursesRef.child(courseId).setValue(course)
-                    .addOnSuccessListener(callback)
-                    .addOnFailureListener(e -> {
-                        // Gérer l'erreur si nécessaire
-                    });
+    public void searchCourses(String query, CoursesCallback callback) {
+        withIndex(index -> index.search(query), callback);
+    }
+
+    /**
+     * Évalue une requête combinée (catégorie, niveau, texte, tri, page) sur l'index local :
+     * seul le premier appel attend le chargement de l'index, les suivants sont locaux.
+     * Un cours de plus que query.getLimit() est retourné s'il reste des résultats,
+     * pour savoir si une page suivante existe.
+     * @param query Requête à évaluer
+     * @param callback Callback pour récupérer les résultats
+     */
+    public void queryCourses(CourseQuery query, CoursesCallback callback) {
+        withIndex(index -> index.query(query, query.getLimit() + 1), callback);
+    }
+
+    /**
+     * Indique si l'index local du catalogue est disponible (requêtes sans accès réseau)
+     */
+    public boolean isIndexLoaded() {
+        return courseIndex.isLoaded();
+    }
+
+    /**
+     * Requête évaluée sur l'index local des cours
+     */
+    interface IndexQuery {
+        List<Course> run(CourseIndex index);
+    }
+
+    /**
+     * Requête en attente du chargement initial de l'index
+     */
+    private static class PendingQuery {
+        final IndexQuery query;
+        final CoursesCallback callback;
+
+        PendingQuery(IndexQuery query, CoursesCallback callback) {
+            this.query = query;
+            this.callback = callback;
         }
     }
 
     /**
-     * Met à jour un cours existant
-     * @param course Cours avec les modifications
-     * @param callback Callback pour confirmer la mise à jour
+     * Exécute une requête sur l'index local, en attendant si besoin son chargement initial
+     * @param query Requête à évaluer
+     * @param callback Callback pour le résultat
      */
-    public void updateCourse(Course course, OnSuccessListener<Void> callback) {
-        if (course.getCourseId() != null) {
-            coursesRef.child(course.getCourseId()).setValue(course)
-                    .addOnSuccessListener(callback)
-                    .addOnFailureListener(e -> {
-                        // Gérer l'erreur si nécessaire
-                    });
+    private void withIndex(IndexQuery query, CoursesCallback callback) {
+        synchronized (pendingQueries) {
+            if (!courseIndex.isLoaded()) {
+                pendingQueries.add(new PendingQuery(query, callback));
+                attachIndexListener();
+                return;
+            }
+            // Index servi depuis la copie locale mais écouteur annulé : le réabonner
+            // pour que l'index ne reste pas figé le reste de la session
+            attachIndexListener();
         }
+        callback.onCoursesLoaded(query.run(courseIndex));
     }
 
     /**
-     * Supprime un cours
-     * @param courseId ID du cours à supprimer
-     * @param callback Callback pour confirmer la suppression
+     * Abonne l'index au nœud "courses" (une seule fois pour toute l'application).
+     * Les enfants initiaux arrivent par onChildAdded ; l'écouteur ponctuel ajouté ensuite
+     * n'est appelé qu'après eux, ce qui marque la fin du remplissage initial sans second
+     * téléchargement.
      */
-    public void deleteCourse(String courseId, OnSuccessListener<Void> callback) {
-        coursesRef.child(courseId).removeValue()
-                .addOnSuccessListener(callback)
-                .addOnFailureListener(e -> {
-                    // Gérer l'erreur si nécessaire
+    private void attachIndexListener() {
+        if (indexListenerAttached) {
+            return;
+        }
+        indexListenerAttached = true;
+        warmUpIndexFromCache();
+
+        indexListeners.observeChildren("courseIndex", coursesRef, new ChildEventListener() {
+            @Override
+            public void onChildAdded(@NonNull DataSnapshot snapshot, String previousChildName) {
+                indexChild(snapshot, false);
+            }
+
+            @Override
+            public void onChildChanged(@NonNull DataSnapshot snapshot, String previousChildName) {
+                indexChild(snapshot, false);
+            }
+
+            @Override
+            public void onChildRemoved(@NonNull DataSnapshot snapshot) {
+                indexChild(snapshot, true);
+            }
+
+            @Override
+            public void onChildMoved(@NonNull DataSnapshot snapshot, String previousChildName) {
+                // L'ordre n'a pas d'importance pour l'index
+            }
+
+            @Override
+            public void onCancelled(@NonNull DatabaseError error) {
+                // Géré par l'écouteur de fin de chargement
+            }
+        });
+
+        coursesRef.addListenerForSingleValueEvent(new ValueEventListener() {
+            @Override
+            public void onDataChange(@NonNull DataSnapshot snapshot) {
+                // Oublier les cours de la copie locale supprimés depuis
+                Set<String> serverIds = new HashSet<>();
+                for (DataSnapshot courseSnapshot : snapshot.getChildren()) {
+                    serverIds.add(courseSnapshot.getKey());
+                }
+                // Les enfants initiaux sont encore en conversion : l'index est complet une fois tous ajoutés
+                SnapshotMapper.getInstance().whenIdle(() -> {
+                    synchronized (pendingQueries) {
+                        courseIndex.retainOnly(serverIds);
+                        courseIndex.markLoaded();
+                    }
+                    flushPendingQueries();
+                    pageRevalidations.markSynced(courseIndex);
+
+                    CourseCache cache = CourseCache.getInstance();
+                    if (cache != null) {
+                        cache.putCourses(courseIndex.getAll());
+                    }
                 });
+            }
+
+            @Override
+            public void onCancelled(@NonNull DatabaseError error) {
+                List<PendingQuery> failed;
+                synchronized (pendingQueries) {
+                    // Permettre une nouvelle tentative au prochain appel
+                    indexListeners.clear();
+                    indexListenerAttached = false;
+                    failed = new ArrayList<>(pendingQueries);
+                    pendingQueries.clear();
+                    // Les premières pages déjà affichées depuis la copie disque restent en place
+                    pageRevalidations.clear();
+                }
+                for (PendingQuery pending : failed) {
+                    pending.callback.onError(error.getMessage());
+                }
+            }
+        });
     }
 
     /**
-     * Recherche des cours par titre
-     * @param query Texte à rechercher
-     * @param callback Callback pour récupérer les résultats
+     * Met à jour l'index avec un enfant du nœud "courses", converti hors du thread principal.
+     * Les événements d'un même cours partagent un flux : le plus récent l'emporte.
+     * @param snapshot Snapshot du cours
+     * @param removed true si le cours a été supprimé
      */
-    public void searchCourses(String query, CoursesCallback callback) {
-        query = query.toLowerCase();
-        String finalQuery = query;
+    private void indexChild(DataSnapshot snapshot, boolean removed) {
+        String courseId = snapshot.getKey();
+        SnapshotMapper.getInstance().mapAndPost(INDEX_STREAM + courseId, snapshot,
+                courseSnapshot -> removed ? null : toCourse(courseSnapshot),
+                course -> {
+                    if (removed) {
+                        courseIndex.remove(courseId);
+                    } else if (course != null) {
+                        courseIndex.upsert(course);
+                    }
+                });
+    }
 
-        coursesRef.addValueEventListener(new ValueEventListener() {
+    /**
+     * Sert les requêtes en attente depuis la copie disque du catalogue, sans attendre
+     * le réseau ; l'écouteur permanent revalide ensuite l'index
+     */
+    private void warmUpIndexFromCache() {
+        CourseCache cache = CourseCache.getInstance();
+        if (cache == null) {
+            return;
+        }
+        cache.getCachedCourses(new CourseCache.CacheListener<List<Course>>() {
             @Override
-            public void onDataChange(@NonNull DataSnapshot dataSnapshot) {
-                List<Course> courses = new ArrayList<>();
-                for (DataSnapshot snapshot : dataSnapshot.getChildren()) {
-                    Course course = snapshot.getValue(Course.class);
-                    if (course != null) {
-                        if (course.getTitle().toLowerCase().contains(finalQuery) ||
-                                (course.getDescription() != null &&
-                                        course.getDescription().toLowerCase().contains(finalQuery))) {
-                            course.setCourseId(snapshot.getKey());
-                            courses.add(course);
-                        }
+            public void onData(List<Course> courses, boolean fromCache) {
+                synchronized (pendingQueries) {
+                    if (courseIndex.isLoaded()) {
+                        return;
                     }
+                    courseIndex.warmUp(courses);
                 }
-                callback.onCoursesLoaded(courses);
+                flushPendingQueries();
             }
 
             @Override
-            public void onCancelled(@NonNull DatabaseError databaseError) {
-                callback.onError(databaseError.getMessage());
+            public void onError(String message) {
+                // Pas de copie locale : les requêtes attendent le chargement réseau
             }
         });
     }
 
+    /**
+     * Répond aux requêtes en attente une fois l'index disponible
+     */
+    private void flushPendingQueries() {
+        List<PendingQuery> ready;
+        synchronized (pendingQueries) {
+            ready = new ArrayList<>(pendingQueries);
+            pendingQueries.clear();
+        }
+        for (PendingQuery pending : ready) {
+            pending.callback.onCoursesLoaded(pending.query.run(courseIndex));
+        }
+    }
+
+    /**
+     * Convertit un enfant du nœud "courses" en objet Course
+     * @param snapshot Snapshot du cours
+     * @return le cours, ou null si les données sont invalides
+     */
+    static Course toCourse(DataSnapshot snapshot) {
+        Course course = ModelCodec.toCourse(snapshot.getValue());
+        if (course != null) {
+            course.setCourseId(snapshot.getKey());
+            // Agréger une fois les fragments du compteur : le total est ensuite lu depuis l'index
+            DataSnapshot shards = snapshot.child(ShardedCounter.SHARDS_FIELD);
+            if (shards.hasChildren()) {
+                List<Long> counts = new ArrayList<>();
+                for (DataSnapshot shard : shards.getChildren()) {
+                    counts.add(longValue(shard));
+                }
+                course.setEnrolledCount(ShardedCounter.rollup(
+                        longValue(snapshot.child(ShardedCounter.BASE_FIELD)), counts));
+            }
+        }
+        return course;
+    }
+
+    /**
+     * Champs modifiables d'un cours, sans les compteurs d'inscrits
+     * @param course Cours à écrire
+     * @return les valeurs à passer à updateChildren()
+     */
+    private static Map<String, Object> catalogFields(Course course) {
+        Map<String, Object> fields = new HashMap<>();
+        fields.put("title", course.getTitle());
+        fields.put("description", course.getDescription());
+        fields.put("category", course.getCategory());
+        fields.put("level", course.getLevel());
+        fields.put("durationMinutes", course.getDurationMinutes());
+        fields.put("imageUrl", course.getImageUrl());
+        fields.put("author", course.getAuthor());
+        fields.put("authorName", course.getAuthorName());
+        fields.put("tags", course.getTags());
+        fields.put("createdAt", course.getCreatedAt());
+        fields.put("updatedAt", course.getUpdatedAt());
+        fields.put(ShardedCounter.SHARD_COUNT_FIELD, course.getCounterShards());
+        return fields;
+    }
+
     /**
      * Met à jour le pourcentage de progression d'un cours pour un utilisateur
      * @param courseId ID du cours
@@ -483,15 +903,32 @@ public class CourseRepository {
      */
     public void updateCourseProgress(String courseId, String userId, int percentage,
                                      OnSuccessListener<Void> callback) {
-        DatabaseReference progressRef = FirebaseDatabase.getInstance()
-                .getReference("user_progress")
-                .child(userId)
-                .child(courseId);
-
-        progressRef.child("percentage").setValue(percentage)
-                .addOnSuccessListener(callback)
-                .addOnFailureListener(e -> {
-                    // Gérer l'erreur si nécessaire
+        Map<String, Object> updates = new HashMap<>();
+        updates.put("user_progress/" + userId + "/" + courseId + "/percentage", percentage);
+        journal("progress/" + userId + "/" + courseId + "/" + UUID.randomUUID(), updates, callback);
+    }
+
+    /**
+     * Confie une mise à jour multi-chemins au journal des mutations : elle est rejouée
+     * jusqu'à sa confirmation, même après une coupure réseau ou un redémarrage
+     * @param key Clé d'idempotence
+     * @param updates Chemins depuis la racine et leurs valeurs
+     * @param callback Appelé une fois la mise à jour confirmée, ou null
+     */
+    private static void journal(String key, Map<String, Object> updates, OnSuccessListener<Void> callback) {
+        MutationJournal.getInstance().enqueue(MutationJournal.Mutation.update(key, updates, null),
+                new MutationJournal.Callback() {
+                    @Override
+                    public void onApplied(Object value) {
+                        if (callback != null) {
+                            callback.onSuccess(null);
+                        }
+                    }
+
+                    @Override
+                    public void onDropped(String message) {
+                        Log.w(TAG, "Mutation " + key + " abandonnée : " + message);
+                    }
                 });
     }
 }
\ No newline at end of file
@@ -0,0 +1,395 @@
+package com.projet.skilllearn.repository;
+
+import com.projet.skilllearn.model.Course;
+
+import java.text.Normalizer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.PriorityQueue;
+import java.util.TreeSet;
+import java.util.regex.Pattern;
+
+/**
+ * Moteur de recherche plein texte sur les cours (index inversé).
+ * Le titre, la description et les tags sont découpés en tokens en minuscules et sans accents
+ * ("débutant" et "debutant" sont équivalents). Chaque terme de la requête est cherché comme
+ * préfixe pour la saisie au fil de l'eau, et les résultats sont triés par pertinence.
+ * L'index est mis à jour cours par cours avec index() et remove().
+ */
+public class CourseSearchEngine {
+
+    // Poids d'un token selon le champ dans lequel il apparaît
+    static final int TITLE_WEIGHT = 5;
+    static final int TAG_WEIGHT = 3;
+    static final int DESCRIPTION_WEIGHT = 1;
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    // Les cours sont numérotés en interne pour que les postings restent des tableaux d'entiers
+    private final Map<String, Integer> docsByCourseId = new HashMap<>();
+    private final List<String> courseIdsByDoc = new ArrayList<>();
+    private final List<String> sortKeysByDoc = new ArrayList<>();
+    private final List<String[]> tokensByDoc = new ArrayList<>();
+    private final ArrayDeque<Integer> freeDocs = new ArrayDeque<>();
+
+    // token -> cours qui le contiennent, avec le poids cumulé
+    private final Map<String, Posting> postings = new HashMap<>();
+    // Dictionnaire trié pour la recherche par préfixe
+    private final NavigableSet<String> dictionary = new TreeSet<>();
+
+    // Tampons réutilisés d'une requête à l'autre (marqués par un numéro de passe, jamais effacés)
+    private double[] scores = new double[0];
+    private double[] termScores = new double[0];
+    private int[] marks = new int[0];
+    private int stamp = 0;
+
+    /**
+     * Liste des cours contenant un token
+     */
+    private static final class Posting {
+        int[] docs = new int[4];
+        int[] weights = new int[4];
+        int size = 0;
+
+        void add(int doc, int weight) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+                weights = Arrays.copyOf(weights, size * 2);
+            }
+            docs[size] = doc;
+            weights[size] = weight;
+            size++;
+        }
+
+        void remove(int doc) {
+            for (int i = 0; i < size; i++) {
+                if (docs[i] == doc) {
+                    size--;
+                    docs[i] = docs[size];
+                    weights[i] = weights[size];
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Ajoute ou remplace un cours dans l'index
+     * @param course Cours à indexer (courseId obligatoire)
+     */
+    public synchronized void index(Course course) {
+        if (course == null || course.getCourseId() == null) {
+            return;
+        }
+        String courseId = course.getCourseId();
+        remove(courseId);
+
+        Map<String, Integer> weights = new HashMap<>();
+        addTokens(weights, course.getTitle(), TITLE_WEIGHT);
+        addTokens(weights, course.getDescription(), DESCRIPTION_WEIGHT);
+        if (course.getTags() != null) {
+            for (String tag : course.getTags()) {
+                addTokens(weights, tag, TAG_WEIGHT);
+            }
+        }
+
+        int doc = allocateDoc(courseId, normalize(course.getTitle()));
+        for (Map.Entry<String, Integer> entry : weights.entrySet()) {
+            Posting posting = postings.get(entry.getKey());
+            if (posting == null) {
+                posting = new Posting();
+                postings.put(entry.getKey(), posting);
+                dictionary.add(entry.getKey());
+            }
+            posting.add(doc, entry.getValue());
+        }
+        tokensByDoc.set(doc, weights.keySet().toArray(new String[0]));
+    }
+
+    /**
+     * Retire un cours de l'index
+     * @param courseId ID du cours
+     */
+    public synchronized void remove(String courseId) {
+        Integer doc = docsByCourseId.remove(courseId);
+        if (doc == null) {
+            return;
+        }
+        for (String token : tokensByDoc.get(doc)) {
+            Posting posting = postings.get(token);
+            if (posting != null) {
+                posting.remove(doc);
+                if (posting.size == 0) {
+                    postings.remove(token);
+                    dictionary.remove(token);
+                }
+            }
+        }
+        courseIdsByDoc.set(doc, null);
+        sortKeysByDoc.set(doc, null);
+        tokensByDoc.set(doc, null);
+        freeDocs.push(doc);
+    }
+
+    /**
+     * Vide l'index
+     */
+    public synchronized void clear() {
+        docsByCourseId.clear();
+        courseIdsByDoc.clear();
+        sortKeysByDoc.clear();
+        tokensByDoc.clear();
+        freeDocs.clear();
+        postings.clear();
+        dictionary.clear();
+    }
+
+    /**
+     * Nombre de cours indexés
+     */
+    public synchronized int size() {
+        return docsByCourseId.size();
+    }
+
+    /**
+     * Recherche les cours correspondant à tous les termes de la requête
+     * @param query Texte saisi par l'utilisateur
+     * @param limit Nombre maximal de résultats (0 pour aucune limite)
+     * @return les IDs des cours, du plus pertinent au moins pertinent
+     */
+    public synchronized List<String> search(String query, int limit) {
+        List<String> terms = tokenize(query);
+        if (terms.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        // Tokens du dictionnaire correspondant à chaque terme, le terme le plus rare en premier
+        List<List<String>> expansions = new ArrayList<>();
+        for (String term : terms) {
+            List<String> tokens = expand(term);
+            if (tokens.isEmpty()) {
+                return new ArrayList<>();
+            }
+            expansions.add(tokens);
+        }
+        Collections.sort(expansions, (a, b) -> Integer.compare(postingSize(a), postingSize(b)));
+        ensureScratchCapacity(courseIdsByDoc.size());
+        int documentCount = Math.max(1, docsByCourseId.size());
+
+        // Candidats issus du terme le plus rare
+        int survivorMark = nextStamp();
+        // Un cours peut apparaître sous plusieurs tokens du préfixe : au plus un candidat par cours
+        int[] candidates = new int[Math.min(postingSize(expansions.get(0)), courseIdsByDoc.size())];
+        int candidateCount = 0;
+        for (String token : expansions.get(0)) {
+            Posting posting = postings.get(token);
+            double factor = tokenFactor(token, terms, documentCount, posting.size);
+            for (int i = 0; i < posting.size; i++) {
+                int doc = posting.docs[i];
+                double score = posting.weights[i] * factor;
+                if (marks[doc] != survivorMark) {
+                    marks[doc] = survivorMark;
+                    scores[doc] = score;
+                    candidates[candidateCount++] = doc;
+                } else if (scores[doc] < score) {
+                    scores[doc] = score;
+                }
+            }
+        }
+
+        // Chaque terme suivant ne conserve que les candidats qu'il contient aussi
+        for (int t = 1; t < expansions.size() && candidateCount > 0; t++) {
+            int termMark = nextStamp();
+            for (String token : expansions.get(t)) {
+                Posting posting = postings.get(token);
+                double factor = tokenFactor(token, terms, documentCount, posting.size);
+                for (int i = 0; i < posting.size; i++) {
+                    int doc = posting.docs[i];
+                    if (marks[doc] != survivorMark && marks[doc] != termMark) {
+                        continue;
+                    }
+                    double score = posting.weights[i] * factor;
+                    if (marks[doc] != termMark) {
+                        marks[doc] = termMark;
+                        termScores[doc] = score;
+                    } else if (termScores[doc] < score) {
+                        termScores[doc] = score;
+                    }
+                }
+            }
+
+            int kept = 0;
+            for (int i = 0; i < candidateCount; i++) {
+                int doc = candidates[i];
+                if (marks[doc] == termMark) {
+                    scores[doc] += termScores[doc];
+                    candidates[kept++] = doc;
+                }
+            }
+            candidateCount = kept;
+            survivorMark = termMark;
+        }
+
+        return rank(candidates, candidateCount, limit);
+    }
+
+    /**
+     * Trie les candidats par score décroissant puis par titre.
+     * Avec une limite, seul un tas de taille limit est maintenu (pas de tri complet) et les
+     * candidats moins bien notés que le dernier retenu sont écartés sans comparaison de titres.
+     */
+    private List<String> rank(int[] candidates, int count, int limit) {
+        Comparator<Integer> byRelevance = (a, b) -> {
+            int byScore = Double.compare(scores[b], scores[a]);
+            if (byScore != 0) {
+                return byScore;
+            }
+            int byTitle = sortKeysByDoc.get(a).compareTo(sortKeysByDoc.get(b));
+            return byTitle != 0 ? byTitle : courseIdsByDoc.get(a).compareTo(courseIdsByDoc.get(b));
+        };
+
+        List<Integer> selected = new ArrayList<>();
+        if (limit <= 0 || count <= limit) {
+            for (int i = 0; i < count; i++) {
+                selected.add(candidates[i]);
+            }
+        } else {
+            // Tas inversé : la tête est le moins pertinent des résultats retenus
+            PriorityQueue<Integer> top = new PriorityQueue<>(limit + 1, byRelevance.reversed());
+            for (int i = 0; i < count; i++) {
+                int doc = candidates[i];
+                if (top.size() == limit && scores[doc] < scores[top.peek()]) {
+                    continue;
+                }
+                top.add(doc);
+                if (top.size() > limit) {
+                    top.poll();
+                }
+            }
+            selected.addAll(top);
+        }
+
+        Collections.sort(selected, byRelevance);
+        List<String> ranked = new ArrayList<>(selected.size());
+        for (int doc : selected) {
+            ranked.add(courseIdsByDoc.get(doc));
+        }
+        return ranked;
+    }
+
+    /**
+     * Tokens du dictionnaire qui commencent par le terme. Tous sont retenus, même pour un
+     * préfixe d'une lettre : en tronquer la liste écarterait des cours sans que l'appelant
+     * le sache. Les cours étant dédupliqués au fil du parcours, le coût reste borné par les
+     * postings parcourus.
+     */
+    private List<String> expand(String term) {
+        List<String> tokens = new ArrayList<>();
+        for (String token : dictionary.tailSet(term, true)) {
+            if (!token.startsWith(term)) {
+                break;
+            }
+            tokens.add(token);
+        }
+        return tokens;
+    }
+
+    private int postingSize(List<String> tokens) {
+        int size = 0;
+        for (String token : tokens) {
+            size += postings.get(token).size;
+        }
+        return size;
+    }
+
+    /**
+     * Pondération d'un token : sa rareté (idf), divisée par deux s'il ne correspond
+     * à un terme de la requête que par préfixe.
+     */
+    private static double tokenFactor(String token, List<String> terms, int documentCount, int postingSize) {
+        double idf = Math.log(1.0 + (double) documentCount / postingSize);
+        return terms.contains(token) ? idf : idf * 0.5;
+    }
+
+    private int allocateDoc(String courseId, String sortKey) {
+        int doc;
+        if (freeDocs.isEmpty()) {
+            doc = courseIdsByDoc.size();
+            courseIdsByDoc.add(courseId);
+            sortKeysByDoc.add(sortKey);
+            tokensByDoc.add(null);
+        } else {
+            doc = freeDocs.pop();
+            courseIdsByDoc.set(doc, courseId);
+            sortKeysByDoc.set(doc, sortKey);
+        }
+        docsByCourseId.put(courseId, doc);
+        return doc;
+    }
+
+    private void ensureScratchCapacity(int capacity) {
+        if (marks.length < capacity) {
+            int newCapacity = Math.max(capacity, marks.length * 2);
+            scores = new double[newCapacity];
+            termScores = new double[newCapacity];
+            marks = new int[newCapacity];
+            stamp = 0;
+        }
+    }
+
+    private int nextStamp() {
+        if (stamp == Integer.MAX_VALUE) {
+            Arrays.fill(marks, 0);
+            stamp = 0;
+        }
+        return ++stamp;
+    }
+
+    private static void addTokens(Map<String, Integer> weights, String text, int weight) {
+        for (String token : tokenize(text)) {
+            Integer previous = weights.get(token);
+            weights.put(token, previous == null ? weight : previous + weight);
+        }
+    }
+
+    /**
+     * Met un texte en minuscules et retire les accents
+     * @param text Texte à normaliser
+     * @return le texte normalisé (chaîne vide si null)
+     */
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        return DIACRITICS.matcher(decomposed).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Découpe un texte en tokens normalisés
+     * @param text Texte à découper
+     * @return la liste des tokens non vides
+     */
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        String normalized = normalize(text);
+        if (normalized.isEmpty()) {
+            return tokens;
+        }
+        for (String token : SEPARATORS.split(normalized)) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+}
@@ -0,0 +1,208 @@
+package com.projet.skilllearn.repository;
+
+import androidx.annotation.NonNull;
+
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseError;
+import com.google.firebase.database.DatabaseReference;
+import com.google.firebase.database.FirebaseDatabase;
+import com.google.firebase.database.ValueEventListener;
+import com.projet.skilllearn.model.Course;
+import com.projet.skilllearn.model.CourseSection;
+import com.projet.skilllearn.utils.ProgressWrites;
+import com.projet.skilllearn.utils.SnapshotMapper;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Source distante du cache des cours et du chargeur de bundles : lit les nœuds
+ * correspondants dans Firebase
+ */
+public class FirebaseCourseRemote implements CourseCache.Remote, CourseBundleLoader.Source {
+
+    @Override
+    public void fetchCourse(String courseId, CourseCache.RemoteCallback<Course> callback) {
+        FirebaseDatabase.getInstance().getReference("courses").child(courseId)
+                .addListenerForSingleValueEvent(new ValueEventListener() {
+                    @Override
+                    public void onDataChange(@NonNull DataSnapshot snapshot) {
+                        Course course = CourseRepository.toCourse(snapshot);
+                        if (course != null) {
+                            callback.onLoaded(course);
+                        } else {
+                            callback.onError("Cours non trouvé");
+                        }
+                    }
+
+                    @Override
+                    public void onCancelled(@NonNull DatabaseError error) {
+                        callback.onError(error.getMessage());
+                    }
+                });
+    }
+
+    @Override
+    public void fetchProgress(String userId, String courseId,
+                              CourseCache.RemoteCallback<CourseBundle.Progress> callback) {
+        FirebaseDatabase.getInstance().getReference("user_progress").child(userId).child(courseId)
+                .addListenerForSingleValueEvent(new ValueEventListener() {
+                    @Override
+                    public void onDataChange(@NonNull DataSnapshot snapshot) {
+                        Object percentage = snapshot.child(ProgressWrites.PERCENTAGE).getValue();
+                        Set<String> completed = new HashSet<>();
+                        for (DataSnapshot section : snapshot.child(ProgressWrites.SECTIONS).getChildren()) {
+                            if (Boolean.TRUE.equals(section.child("completed").getValue())) {
+                                completed.add(section.getKey());
+                            }
+                        }
+                        callback.onLoaded(new CourseBundle.Progress(
+                                percentage instanceof Number ? ((Number) percentage).intValue() : 0, completed));
+                    }
+
+                    @Override
+                    public void onCancelled(@NonNull DatabaseError error) {
+                        callback.onError(error.getMessage());
+                    }
+                });
+    }
+
+    /**
+     * Lit les sections d'un cours à partir de l'index course_sections/{courseId}, trié par
+     * orderIndex ; un cours encore absent de l'index (pas encore réparé) est lu par la requête
+     * sur le nœud "sections"
+     */
+    @Override
+    public void fetchSections(String courseId, CourseCache.RemoteCallback<List<CourseSection>> callback) {
+        FirebaseDatabase.getInstance().getReference(SectionIndex.INDEX).child(courseId)
+                .addListenerForSingleValueEvent(new ValueEventListener() {
+                    @Override
+                    public void onDataChange(@NonNull DataSnapshot snapshot) {
+                        fetchSectionsFromIndex(courseId, snapshot, callback);
+                    }
+
+                    @Override
+                    public void onCancelled(@NonNull DatabaseError error) {
+                        callback.onError(error.getMessage());
+                    }
+                });
+    }
+
+    /**
+     * Lit les sections listées par un instantané de course_sections/{courseId} (par exemple
+     * celui d'un écouteur permanent), ou par la requête sur "sections" si le cours n'a pas
+     * encore d'entrée dans l'index
+     * @param courseId ID du cours
+     * @param indexSnapshot Instantané de course_sections/{courseId}
+     * @param callback Reçoit les sections triées par orderIndex
+     */
+    public void fetchSectionsFromIndex(String courseId, DataSnapshot indexSnapshot,
+                                       CourseCache.RemoteCallback<List<CourseSection>> callback) {
+        if (!indexSnapshot.exists()) {
+            fetchSectionsByQuery(courseId, callback);
+            return;
+        }
+        fetchSectionsByIds(orderedIds(indexSnapshot), callback);
+    }
+
+    /**
+     * IDs des sections d'un instantané de course_sections/{courseId}, triés par orderIndex
+     */
+    public static List<String> orderedIds(DataSnapshot indexSnapshot) {
+        Map<String, Long> entries = new HashMap<>();
+        for (DataSnapshot entry : indexSnapshot.getChildren()) {
+            Object orderIndex = entry.getValue();
+            entries.put(entry.getKey(), orderIndex instanceof Number ? ((Number) orderIndex).longValue() : 0L);
+        }
+        return SectionIndex.orderedIds(entries);
+    }
+
+    /**
+     * Lit des sections par leurs IDs, en parallèle, et les livre dans l'ordre demandé.
+     * Chaque section est convertie hors du thread principal. Une entrée d'index sans section est ignorée.
+     * @param sectionIds IDs des sections, dans l'ordre voulu
+     * @param callback Reçoit les sections trouvées
+     */
+    public void fetchSectionsByIds(List<String> sectionIds, CourseCache.RemoteCallback<List<CourseSection>> callback) {
+        if (sectionIds.isEmpty()) {
+            callback.onLoaded(new ArrayList<>());
+            return;
+        }
+        CourseSection[] loaded = new CourseSection[sectionIds.size()];
+        AtomicInteger remaining = new AtomicInteger(sectionIds.size());
+        AtomicBoolean failed = new AtomicBoolean(false);
+        DatabaseReference sectionsRef = FirebaseDatabase.getInstance().getReference(SectionIndex.SECTIONS);
+
+        for (int i = 0; i < sectionIds.size(); i++) {
+            int position = i;
+            sectionsRef.child(sectionIds.get(i)).addListenerForSingleValueEvent(new ValueEventListener() {
+                @Override
+                public void onDataChange(@NonNull DataSnapshot snapshot) {
+                    SnapshotMapper.getInstance().mapOnce(snapshot, FirebaseCourseRemote::toSection, section -> {
+                        loaded[position] = section;
+                        if (remaining.decrementAndGet() == 0 && !failed.get()) {
+                            List<CourseSection> sections = new ArrayList<>();
+                            for (CourseSection each : loaded) {
+                                if (each != null) {
+                                    sections.add(each);
+                                }
+                            }
+                            callback.onLoaded(sections);
+                        }
+                    });
+                }
+
+                @Override
+                public void onCancelled(@NonNull DatabaseError error) {
+                    remaining.decrementAndGet();
+                    if (failed.compareAndSet(false, true)) {
+                        callback.onError(error.getMessage());
+                    }
+                }
+            });
+        }
+    }
+
+    private void fetchSectionsByQuery(String courseId, CourseCache.RemoteCallback<List<CourseSection>> callback) {
+        FirebaseDatabase.getInstance().getReference(SectionIndex.SECTIONS)
+                .orderByChild("courseId").equalTo(courseId)
+                .addListenerForSingleValueEvent(new ValueEventListener() {
+                    @Override
+                    public void onDataChange(@NonNull DataSnapshot snapshot) {
+                        SnapshotMapper.getInstance().mapOnce(snapshot, sectionsSnapshot -> {
+                            List<CourseSection> sections = new ArrayList<>();
+                            for (DataSnapshot sectionSnapshot : sectionsSnapshot.getChildren()) {
+                                CourseSection section = toSection(sectionSnapshot);
+                                if (section != null) {
+                                    sections.add(section);
+                                }
+                            }
+                            Collections.sort(sections, (s1, s2) ->
+                                    Integer.compare(s1.getOrderIndex(), s2.getOrderIndex()));
+                            return sections;
+                        }, callback::onLoaded);
+                    }
+
+                    @Override
+                    public void onCancelled(@NonNull DatabaseError error) {
+                        callback.onError(error.getMessage());
+                    }
+                });
+    }
+
+    private static CourseSection toSection(DataSnapshot snapshot) {
+        // Section mal formée : null, ignorée comme dans le chargement direct
+        CourseSection section = ModelCodec.toSection(snapshot.getValue());
+        if (section != null && section.getSectionId() == null) {
+            section.setSectionId(snapshot.getKey());
+        }
+        return section;
+    }
+}
@@ -0,0 +1,317 @@
+package com.projet.skilllearn.repository;
+
+import com.projet.skilllearn.model.Achievement;
+import com.projet.skilllearn.model.Course;
+import com.projet.skilllearn.model.CourseSection;
+import com.projet.skilllearn.model.Note;
+import com.projet.skilllearn.model.Quiz;
+import com.projet.skilllearn.model.QuizQuestion;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Conversion écrite à la main entre les valeurs brutes de Firebase (DataSnapshot.getValue() :
+ * Map, List, String, Long, Double, Boolean) et les objets du modèle, dans les deux sens.
+ * getValue(Course.class) passe par la réflexion sur les getters et setters de chaque classe,
+ * enfant par enfant, ce qui coûte cher sur les listes imbriquées (Quiz.questions).
+ * La lecture est tolérante : un champ absent ou d'un type inattendu garde sa valeur par défaut,
+ * les propriétés inconnues sont ignorées et une valeur qui n'est pas un objet donne null.
+ */
+public final class ModelCodec {
+
+    // Ordre des clés d'un tableau creux renvoyé sous forme de Map ("0", "2", "10"...)
+    private static final Comparator<String> INDEX_ORDER =
+            (k1, k2) -> k1.length() != k2.length() ? Integer.compare(k1.length(), k2.length()) : k1.compareTo(k2);
+
+    private ModelCodec() {
+    }
+
+    /**
+     * @param value Valeur d'un enfant du nœud "courses"
+     * @return le cours (courseId à renseigner depuis la clé), ou null si la valeur n'est pas un objet
+     */
+    public static Course toCourse(Object value) {
+        Map<?, ?> fields = asMap(value);
+        if (fields == null) {
+            return null;
+        }
+        Course course = new Course();
+        course.setCourseId(string(fields.get("courseId")));
+        course.setTitle(string(fields.get("title")));
+        course.setDescription(string(fields.get("description")));
+        course.setCategory(string(fields.get("category")));
+        course.setLevel(string(fields.get("level")));
+        course.setDurationMinutes(intValue(fields.get("durationMinutes")));
+        course.setImageUrl(string(fields.get("imageUrl")));
+        course.setAuthor(string(fields.get("author")));
+        course.setAuthorName(string(fields.get("authorName")));
+        course.setEnrolledCount(intValue(fields.get("enrolledCount")));
+        course.setCounterShards(intValue(fields.get("counterShards")));
+        course.setTags(strings(fields.get("tags")));
+        course.setCreatedAt(longValue(fields.get("createdAt")));
+        course.setUpdatedAt(longValue(fields.get("updatedAt")));
+        course.setUserProgress(intValue(fields.get("userProgress")));
+        course.setLastStudiedTimestamp(longValue(fields.get("lastStudiedTimestamp")));
+        course.setEnrolled(booleanValue(fields.get("enrolled")));
+        Object sections = fields.get("sections");
+        if (sections != null) {
+            List<CourseSection> list = new ArrayList<>();
+            for (Object element : elements(sections)) {
+                CourseSection section = toSection(element);
+                if (section != null) {
+                    list.add(section);
+                }
+            }
+            course.setSections(list);
+        }
+        return course;
+    }
+
+    /**
+     * Toutes les propriétés du cours, comme les écrirait setValue(course)
+     */
+    public static Map<String, Object> fromCourse(Course course) {
+        Map<String, Object> fields = new HashMap<>();
+        fields.put("courseId", course.getCourseId());
+        fields.put("title", course.getTitle());
+        fields.put("description", course.getDescription());
+        fields.put("category", course.getCategory());
+        fields.put("level", course.getLevel());
+        fields.put("durationMinutes", course.getDurationMinutes());
+        fields.put("imageUrl", course.getImageUrl());
+        fields.put("author", course.getAuthor());
+        fields.put("authorName", course.getAuthorName());
+        fields.put("enrolledCount", course.getEnrolledCount());
+        fields.put("counterShards", course.getCounterShards());
+        fields.put("tags", course.getTags() != null ? new ArrayList<Object>(course.getTags()) : null);
+        fields.put("createdAt", course.getCreatedAt());
+        fields.put("updatedAt", course.getUpdatedAt());
+        fields.put("userProgress", course.getUserProgress());
+        fields.put("lastStudiedTimestamp", course.getLastStudiedTimestamp());
+        fields.put("enrolled", course.isEnrolled());
+        if (course.getSections() != null) {
+            List<Object> sections = new ArrayList<>(course.getSections().size());
+            for (CourseSection section : course.getSections()) {
+                sections.add(fromSection(section));
+            }
+            fields.put("sections", sections);
+        }
+        return fields;
+    }
+
+    /**
+     * @param value Valeur d'un enfant du nœud "sections"
+     * @return la section, ou null si la valeur n'est pas un objet
+     */
+    public static CourseSection toSection(Object value) {
+        Map<?, ?> fields = asMap(value);
+        if (fields == null) {
+            return null;
+        }
+        CourseSection section = new CourseSection();
+        section.setSectionId(string(fields.get("sectionId")));
+        section.setCourseId(string(fields.get("courseId")));
+        section.setTitle(string(fields.get("title")));
+        section.setDescription(string(fields.get("description")));
+        section.setContent(string(fields.get("content")));
+        section.setVideoUrl(string(fields.get("videoUrl")));
+        section.setDurationMinutes(intValue(fields.get("durationMinutes")));
+        section.setOrderIndex(intValue(fields.get("orderIndex")));
+        section.setQuiz(toQuiz(fields.get("quiz")));
+        return section;
+    }
+
+    /**
+     * Valeurs d'une section, écrites telles quelles dans "sections/{id}" (sans quiz s'il n'y en a pas)
+     */
+    public static Map<String, Object> fromSection(CourseSection section) {
+        Map<String, Object> fields = new HashMap<>();
+        fields.put("sectionId", section.getSectionId());
+        fields.put("courseId", section.getCourseId());
+        fields.put("title", section.getTitle());
+        fields.put("description", section.getDescription());
+        fields.put("content", section.getContent());
+        fields.put("videoUrl", section.getVideoUrl());
+        fields.put("durationMinutes", section.getDurationMinutes());
+        fields.put("orderIndex", section.getOrderIndex());
+        if (section.getQuiz() != null) {
+            fields.put("quiz", fromQuiz(section.getQuiz()));
+        }
+        return fields;
+    }
+
+    public static Quiz toQuiz(Object value) {
+        Map<?, ?> fields = asMap(value);
+        if (fields == null) {
+            return null;
+        }
+        Quiz quiz = new Quiz();
+        quiz.setQuizId(string(fields.get("quizId")));
+        quiz.setTitle(string(fields.get("title")));
+        quiz.setPassingScore(intValue(fields.get("passingScore")));
+        quiz.setRequired(booleanValue(fields.get("required")));
+        Object questions = fields.get("questions");
+        if (questions != null) {
+            List<QuizQuestion> list = new ArrayList<>();
+            for (Object element : elements(questions)) {
+                QuizQuestion question = toQuestion(element);
+                if (question != null) {
+                    list.add(question);
+                }
+            }
+            quiz.setQuestions(list);
+        }
+        return quiz;
+    }
+
+    public static Map<String, Object> fromQuiz(Quiz quiz) {
+        Map<String, Object> fields = new HashMap<>();
+        fields.put("quizId", quiz.getQuizId());
+        fields.put("title", quiz.getTitle());
+        fields.put("passingScore", quiz.getPassingScore());
+        fields.put("required", quiz.isRequired());
+        if (quiz.getQuestions() != null) {
+            List<Object> questions = new ArrayList<>(quiz.getQuestions().size());
+            for (QuizQuestion question : quiz.getQuestions()) {
+                questions.add(fromQuestion(question));
+            }
+            fields.put("questions", questions);
+        }
+        return fields;
+    }
+
+    public static QuizQuestion toQuestion(Object value) {
+        Map<?, ?> fields = asMap(value);
+        if (fields == null) {
+            return null;
+        }
+        QuizQuestion question = new QuizQuestion();
+        question.setQuestionId(string(fields.get("questionId")));
+        question.setQuestion(string(fields.get("question")));
+        question.setOptions(strings(fields.get("options")));
+        question.setCorrectOptionIndex(intValue(fields.get("correctOptionIndex")));
+        question.setExplanation(string(fields.get("explanation")));
+        return question;
+    }
+
+    public static Map<String, Object> fromQuestion(QuizQuestion question) {
+        Map<String, Object> fields = new HashMap<>();
+        fields.put("questionId", question.getQuestionId());
+        fields.put("question", question.getQuestion());
+        fields.put("options", question.getOptions() != null ? new ArrayList<Object>(question.getOptions()) : null);
+        fields.put("correctOptionIndex", question.getCorrectOptionIndex());
+        fields.put("explanation", question.getExplanation());
+        return fields;
+    }
+
+    /**
+     * @return la note (id à renseigner depuis la clé), ou null si la valeur n'est pas un objet
+     */
+    public static Note toNote(Object value) {
+        Map<?, ?> fields = asMap(value);
+        if (fields == null) {
+            return null;
+        }
+        return new Note(string(fields.get("id")), string(fields.get("text")), longValue(fields.get("timestamp")));
+    }
+
+    /**
+     * Valeurs d'une note ; l'ID n'est pas écrit, c'est la clé du nœud
+     */
+    public static Map<String, Object> fromNote(Note note) {
+        Map<String, Object> fields = new HashMap<>();
+        fields.put("text", note.getText());
+        fields.put("timestamp", note.getTimestamp());
+        return fields;
+    }
+
+    public static Achievement toAchievement(Object value) {
+        Map<?, ?> fields = asMap(value);
+        if (fields == null) {
+            return null;
+        }
+        Achievement achievement = new Achievement();
+        achievement.setId(string(fields.get("id")));
+        achievement.setTitle(string(fields.get("title")));
+        achievement.setIconUrl(string(fields.get("iconUrl")));
+        achievement.setDescription(string(fields.get("description")));
+        achievement.setType(string(fields.get("type")));
+        // La date d'obtention d'abord : setUnlocked() n'en invente une que si elle manque
+        achievement.setEarnedAt(longValue(fields.get("earnedAt")));
+        achievement.setUnlocked(booleanValue(fields.get("unlocked")));
+        return achievement;
+    }
+
+    public static Map<String, Object> fromAchievement(Achievement achievement) {
+        Map<String, Object> fields = new HashMap<>();
+        fields.put("id", achievement.getId());
+        fields.put("title", achievement.getTitle());
+        fields.put("iconUrl", achievement.getIconUrl());
+        fields.put("description", achievement.getDescription());
+        fields.put("type", achievement.getType());
+        fields.put("earnedAt", achievement.getEarnedAt());
+        fields.put("unlocked", achievement.isUnlocked());
+        return fields;
+    }
+
+    private static Map<?, ?> asMap(Object value) {
+        return value instanceof Map ? (Map<?, ?>) value : null;
+    }
+
+    private static String string(Object value) {
+        return value instanceof String ? (String) value : null;
+    }
+
+    private static int intValue(Object value) {
+        return value instanceof Number ? ((Number) value).intValue() : 0;
+    }
+
+    private static long longValue(Object value) {
+        return value instanceof Number ? ((Number) value).longValue() : 0L;
+    }
+
+    private static boolean booleanValue(Object value) {
+        return value instanceof Boolean && (Boolean) value;
+    }
+
+    private static List<String> strings(Object value) {
+        if (value == null) {
+            return null;
+        }
+        List<Object> elements = elements(value);
+        List<String> strings = new ArrayList<>(elements.size());
+        for (Object element : elements) {
+            if (element instanceof String) {
+                strings.add((String) element);
+            }
+        }
+        return strings;
+    }
+
+    /**
+     * Éléments d'un tableau Firebase : une List, ou une Map indexée quand le tableau a des trous.
+     * Les trous (null) sont ignorés par les appelants.
+     */
+    @SuppressWarnings("unchecked")
+    private static List<Object> elements(Object value) {
+        if (value instanceof List) {
+            return (List<Object>) value;
+        }
+        if (value instanceof Map) {
+            Map<String, Object> indexed = (Map<String, Object>) value;
+            List<String> keys = new ArrayList<>(indexed.keySet());
+            Collections.sort(keys, INDEX_ORDER);
+            List<Object> elements = new ArrayList<>(keys.size());
+            for (String key : keys) {
+                elements.add(indexed.get(key));
+            }
+            return elements;
+        }
+        return Collections.emptyList();
+    }
+}
@@ -0,0 +1,81 @@
+package com.projet.skilllearn.repository;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Premières pages du catalogue servies avant que l'index ne soit synchronisé avec le serveur
+ * (copie disque) : elles sont redonnées, à jour, une fois la synchronisation terminée.
+ * Un callback peut être retiré avant (ViewModel détruit, nouvelle requête) pour ne pas rester
+ * référencé jusqu'à la synchronisation.
+ */
+class PageRevalidations {
+
+    private final List<Entry> entries = new ArrayList<>();
+    private boolean synced = false;
+
+    private static final class Entry {
+        final CoursePage.Cursor cursor;
+        final int pageSize;
+        final CourseRepository.CoursePageCallback callback;
+
+        Entry(CoursePage.Cursor cursor, int pageSize, CourseRepository.CoursePageCallback callback) {
+            this.cursor = cursor;
+            this.pageSize = pageSize;
+            this.callback = callback;
+        }
+    }
+
+    /**
+     * Planifie une seconde livraison de la page si c'est une première page et que l'index
+     * n'est pas encore synchronisé
+     * @return true si la page sera redonnée
+     */
+    synchronized boolean add(CoursePage.Cursor cursor, int pageSize, CourseRepository.CoursePageCallback callback) {
+        if (synced || !cursor.isFirst()) {
+            return false;
+        }
+        entries.add(new Entry(cursor, pageSize, callback));
+        return true;
+    }
+
+    /**
+     * Oublie les livraisons planifiées pour un callback
+     */
+    synchronized void remove(CourseRepository.CoursePageCallback callback) {
+        Iterator<Entry> iterator = entries.iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().callback == callback) {
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Oublie toutes les livraisons planifiées (synchronisation abandonnée : la copie locale reste affichée)
+     */
+    synchronized void clear() {
+        entries.clear();
+    }
+
+    synchronized boolean isSynced() {
+        return synced;
+    }
+
+    /**
+     * Marque l'index comme synchronisé et redonne les pages planifiées, extraites de l'index
+     * @param index Index à jour
+     */
+    void markSynced(CourseIndex index) {
+        List<Entry> due;
+        synchronized (this) {
+            synced = true;
+            due = new ArrayList<>(entries);
+            entries.clear();
+        }
+        for (Entry entry : due) {
+            entry.callback.onPageLoaded(index.page(entry.cursor, entry.pageSize));
+        }
+    }
+}
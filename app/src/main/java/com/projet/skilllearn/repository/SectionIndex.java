@@ -0,0 +1,182 @@
+package com.projet.skilllearn.repository;
+
+import com.projet.skilllearn.model.CourseSection;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Index secondaire des sections par cours : course_sections/{courseId}/{sectionId} = orderIndex.
+ * Chaque écriture de section met à jour la section et son entrée d'index dans le même
+ * updateChildren() à la racine, de façon atomique. La lecture des sections d'un cours part
+ * de l'index (déjà trié par orderIndex) au lieu d'interroger tout le nœud "sections".
+ * check() compare l'index aux sections et produit les écritures qui le réparent.
+ * Les écritures de section avancent aussi courses/{courseId}/updatedAt, la version sur
+ * laquelle les sections d'un cours sont mises en cache ; l'horodatage est fourni par l'appelant
+ * (ServerValue.TIMESTAMP dans l'application), pour garder cette classe indépendante de Firebase.
+ */
+public final class SectionIndex {
+
+    public static final String SECTIONS = "sections";
+    public static final String INDEX = "course_sections";
+    static final String COURSES = "courses";
+    static final String UPDATED_AT = "updatedAt";
+
+    /**
+     * Écart entre l'index et les sections
+     */
+    public static class Report {
+        // Sections absentes de l'index de leur cours : "courseId/sectionId"
+        private final List<String> missing = new ArrayList<>();
+        // Entrées d'index sans section, ou sous un autre cours que celui de la section
+        private final List<String> orphaned = new ArrayList<>();
+        // Entrées dont l'orderIndex diffère de celui de la section
+        private final List<String> misordered = new ArrayList<>();
+        private final Map<String, Object> repairs = new LinkedHashMap<>();
+
+        public List<String> getMissing() {
+            return missing;
+        }
+
+        public List<String> getOrphaned() {
+            return orphaned;
+        }
+
+        public List<String> getMisordered() {
+            return misordered;
+        }
+
+        /**
+         * @return true si l'index correspond exactement aux sections
+         */
+        public boolean isConsistent() {
+            return repairs.isEmpty();
+        }
+
+        /**
+         * @return les chemins à écrire depuis la racine pour réparer l'index
+         */
+        public Map<String, Object> getRepairs() {
+            return repairs;
+        }
+
+        @Override
+        public String toString() {
+            return missing.size() + " manquante(s), " + orphaned.size() + " orpheline(s), "
+                    + misordered.size() + " mal ordonnée(s)";
+        }
+    }
+
+    private SectionIndex() {
+    }
+
+    /**
+     * Ajout ou mise à jour d'une section
+     * @param section Section à écrire (sectionId et courseId renseignés)
+     * @param previousCourseId Cours auquel la section appartenait, ou null
+     * @param timestamp Horodatage écrit dans updatedAt du ou des cours concernés
+     * @return les chemins à écrire depuis la racine de la base
+     */
+    public static Map<String, Object> put(CourseSection section, String previousCourseId, Object timestamp) {
+        Map<String, Object> updates = new HashMap<>();
+        updates.put(SECTIONS + "/" + section.getSectionId(), fields(section));
+        updates.put(entryPath(section.getCourseId(), section.getSectionId()), section.getOrderIndex());
+        updates.put(versionPath(section.getCourseId()), timestamp);
+        if (previousCourseId != null && !previousCourseId.equals(section.getCourseId())) {
+            updates.put(entryPath(previousCourseId, section.getSectionId()), null);
+            updates.put(versionPath(previousCourseId), timestamp);
+        }
+        return updates;
+    }
+
+    /**
+     * Suppression d'une section
+     * @param sectionId ID de la section
+     * @param courseId Cours de la section (encore existant : updatedAt y est réécrit)
+     * @param timestamp Horodatage écrit dans updatedAt du cours
+     * @return les chemins à écrire depuis la racine de la base
+     */
+    public static Map<String, Object> remove(String sectionId, String courseId, Object timestamp) {
+        Map<String, Object> updates = new HashMap<>();
+        updates.put(SECTIONS + "/" + sectionId, null);
+        updates.put(entryPath(courseId, sectionId), null);
+        updates.put(versionPath(courseId), timestamp);
+        return updates;
+    }
+
+    public static String entryPath(String courseId, String sectionId) {
+        return INDEX + "/" + courseId + "/" + sectionId;
+    }
+
+    static String versionPath(String courseId) {
+        return COURSES + "/" + courseId + "/" + UPDATED_AT;
+    }
+
+    /**
+     * IDs des sections d'un cours dans l'ordre de l'index (orderIndex, puis ID)
+     * @param entries Entrées de course_sections/{courseId}
+     */
+    public static List<String> orderedIds(Map<String, ? extends Number> entries) {
+        List<Map.Entry<String, ? extends Number>> sorted = new ArrayList<>(entries.entrySet());
+        Collections.sort(sorted, (a, b) -> {
+            int byOrder = Long.compare(a.getValue().longValue(), b.getValue().longValue());
+            return byOrder != 0 ? byOrder : a.getKey().compareTo(b.getKey());
+        });
+        List<String> ids = new ArrayList<>(sorted.size());
+        for (Map.Entry<String, ? extends Number> entry : sorted) {
+            ids.add(entry.getKey());
+        }
+        return ids;
+    }
+
+    /**
+     * Compare l'index aux sections
+     * @param sections Toutes les sections, par ID
+     * @param index Contenu de course_sections : courseId -> (sectionId -> orderIndex)
+     * @return les écarts et les écritures qui les corrigent
+     */
+    public static Report check(Map<String, CourseSection> sections,
+                               Map<String, ? extends Map<String, ? extends Number>> index) {
+        Report report = new Report();
+
+        for (Map.Entry<String, ? extends Map<String, ? extends Number>> course : index.entrySet()) {
+            String courseId = course.getKey();
+            for (Map.Entry<String, ? extends Number> entry : course.getValue().entrySet()) {
+                String sectionId = entry.getKey();
+                CourseSection section = sections.get(sectionId);
+                String path = entryPath(courseId, sectionId);
+                if (section == null || !courseId.equals(section.getCourseId())) {
+                    report.orphaned.add(courseId + "/" + sectionId);
+                    report.repairs.put(path, null);
+                } else if (entry.getValue() == null || entry.getValue().longValue() != section.getOrderIndex()) {
+                    report.misordered.add(courseId + "/" + sectionId);
+                    report.repairs.put(path, section.getOrderIndex());
+                }
+            }
+        }
+
+        for (Map.Entry<String, CourseSection> entry : sections.entrySet()) {
+            CourseSection section = entry.getValue();
+            if (section.getCourseId() == null) {
+                continue;
+            }
+            Map<String, ? extends Number> courseEntries = index.get(section.getCourseId());
+            if (courseEntries == null || !courseEntries.containsKey(entry.getKey())) {
+                report.missing.add(section.getCourseId() + "/" + entry.getKey());
+                report.repairs.put(entryPath(section.getCourseId(), entry.getKey()), section.getOrderIndex());
+            }
+        }
+        return report;
+    }
+
+    /**
+     * Valeurs d'une section sous forme de Map, écrites telles quelles dans "sections/{id}"
+     */
+    static Map<String, Object> fields(CourseSection section) {
+        return ModelCodec.fromSection(section);
+    }
+}
@@ -0,0 +1,749 @@
+package com.projet.skilllearn.utils;
+
+import com.projet.skilllearn.model.CourseSection;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+/**
+ * Téléchargement des vidéos d'un cours entier pour le lire hors ligne.
+ * Chaque section a son propre état (en file, en attente du Wi-Fi, en cours, terminée, en échec).
+ * Les vidéos sont téléchargées une à une dans le cache des téléchargements, que le lecteur
+ * consulte avant le réseau. Un cours demandé en Wi-Fi uniquement attend un réseau non
+ * facturé à l'usage. Une erreur réseau remet la section en file et suspend les téléchargements
+ * jusqu'au prochain changement de réseau ; seules les erreurs définitives (PermanentFailure)
+ * laissent la section en échec. L'état est enregistré sur le disque : les téléchargements
+ * interrompus reprennent au démarrage suivant. Le fichier d'état n'est lu et écrit que sur
+ * l'exécuteur des téléchargements, jamais sur le thread appelant (thread principal).
+ * Utilise le pattern Singleton : appeler initialize() au démarrage.
+ */
+public class CourseDownloadManager {
+
+    // Écart minimal entre deux notifications de progression d'une même section
+    static final long PROGRESS_STEP_BYTES = 256 * 1024L;
+
+    private static final int MAGIC = 0x534b444c;
+    private static final int FORMAT_VERSION = 1;
+
+    private static CourseDownloadManager instance;
+
+    private final File stateFile;
+    private final Fetcher fetcher;
+    private final NetworkPolicy network;
+    private final Executor downloadExecutor;
+    private final Executor callbackExecutor;
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    // Cours demandés, dans l'ordre des demandes
+    private final Map<String, CourseDownload> courses = new LinkedHashMap<>();
+    // Section en cours de téléchargement, ou null
+    private SectionDownload active;
+    // Vrai après une erreur réseau : rien n'est lancé avant un changement de réseau ou une nouvelle demande
+    private boolean suspended;
+    // Vrai si l'état a changé depuis le dernier enregistrement planifié ou écrit
+    private boolean saveRequested;
+
+    /**
+     * État du téléchargement d'une section
+     */
+    public enum State {
+        QUEUED,
+        WAITING_FOR_WIFI,
+        DOWNLOADING,
+        COMPLETED,
+        FAILED
+    }
+
+    /**
+     * Stockage des vidéos (cache des téléchargements d'ExoPlayer dans l'application)
+     */
+    public interface Fetcher {
+        /**
+         * @return false si la vidéo ne peut pas être téléchargée (vidéo YouTube)
+         */
+        boolean canDownload(String videoUrl);
+
+        /**
+         * Télécharge entièrement une vidéo ; bloquant, appelé sur l'exécuteur des téléchargements
+         * @throws PermanentFailure si une nouvelle tentative échouerait aussi (vidéo introuvable...)
+         * @throws IOException en cas d'erreur réseau ou d'annulation
+         */
+        void download(String videoUrl, ProgressListener listener) throws IOException;
+
+        /**
+         * Interrompt le téléchargement en cours de cette vidéo
+         */
+        void cancel(String videoUrl);
+
+        /**
+         * @return true si la vidéo est entièrement présente (ses fichiers ont pu être supprimés)
+         */
+        boolean isStored(String videoUrl);
+
+        void remove(String videoUrl);
+    }
+
+    /**
+     * Échec qu'une nouvelle tentative ne corrigerait pas : la section reste en échec
+     * jusqu'à une nouvelle demande du cours
+     */
+    public static class PermanentFailure extends IOException {
+        public PermanentFailure(String message) {
+            super(message);
+        }
+
+        public PermanentFailure(String message, Throwable cause) {
+            super(message, cause);
+        }
+    }
+
+    /**
+     * Progression d'un téléchargement
+     */
+    public interface ProgressListener {
+        void onProgress(long bytesDownloaded);
+    }
+
+    /**
+     * État du réseau
+     */
+    public interface NetworkPolicy {
+        /**
+         * @return true sur un réseau non facturé à l'usage (Wi-Fi)
+         */
+        boolean isUnmetered();
+    }
+
+    /**
+     * Écouteur des changements d'état, appelé sur l'exécuteur de callback
+     */
+    public interface Listener {
+        void onDownloadChanged(SectionDownload download);
+    }
+
+    /**
+     * Téléchargement d'une section
+     */
+    public static final class SectionDownload {
+        private final String courseId;
+        private final String sectionId;
+        private final String videoUrl;
+        private State state;
+        private long bytes;
+        private String error;
+
+        SectionDownload(String courseId, String sectionId, String videoUrl, State state) {
+            this.courseId = courseId;
+            this.sectionId = sectionId;
+            this.videoUrl = videoUrl;
+            this.state = state;
+        }
+
+        private SectionDownload copy() {
+            SectionDownload copy = new SectionDownload(courseId, sectionId, videoUrl, state);
+            copy.bytes = bytes;
+            copy.error = error;
+            return copy;
+        }
+
+        public String getCourseId() {
+            return courseId;
+        }
+
+        public String getSectionId() {
+            return sectionId;
+        }
+
+        public String getVideoUrl() {
+            return videoUrl;
+        }
+
+        public State getState() {
+            return state;
+        }
+
+        /**
+         * Octets téléchargés (taille de la vidéo une fois terminée)
+         */
+        public long getBytes() {
+            return bytes;
+        }
+
+        public String getError() {
+            return error;
+        }
+    }
+
+    /**
+     * Avancement du téléchargement d'un cours
+     */
+    public static final class CourseStatus {
+        private final int total;
+        private final int completed;
+        private final int failed;
+        private final long bytes;
+
+        CourseStatus(int total, int completed, int failed, long bytes) {
+            this.total = total;
+            this.completed = completed;
+            this.failed = failed;
+            this.bytes = bytes;
+        }
+
+        public int getTotal() {
+            return total;
+        }
+
+        public int getCompleted() {
+            return completed;
+        }
+
+        public int getFailed() {
+            return failed;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+
+        /**
+         * @return true si toutes les vidéos du cours sont disponibles hors ligne
+         */
+        public boolean isComplete() {
+            return total > 0 && completed == total;
+        }
+    }
+
+    /**
+     * Sections demandées pour un cours
+     */
+    private static final class CourseDownload {
+        final boolean wifiOnly;
+        final Map<String, SectionDownload> sections = new LinkedHashMap<>();
+
+        CourseDownload(boolean wifiOnly) {
+            this.wifiOnly = wifiOnly;
+        }
+    }
+
+    /**
+     * Constructeur (utiliser initialize() et getInstance() dans l'application)
+     * @param stateFile Fichier de l'état des téléchargements
+     * @param fetcher Stockage des vidéos
+     * @param network État du réseau
+     * @param downloadExecutor Exécuteur des téléchargements (un seul à la fois)
+     * @param callbackExecutor Exécuteur sur lequel les écouteurs sont appelés
+     */
+    CourseDownloadManager(File stateFile, Fetcher fetcher, NetworkPolicy network,
+                          Executor downloadExecutor, Executor callbackExecutor) {
+        this.stateFile = stateFile;
+        this.fetcher = fetcher;
+        this.network = network;
+        this.downloadExecutor = downloadExecutor;
+        this.callbackExecutor = callbackExecutor;
+        // Relu et vérifié sur l'exécuteur des téléchargements, avant toute reprise : l'accès au
+        // disque et au cache peut bloquer
+        downloadExecutor.execute(this::start);
+    }
+
+    /**
+     * Crée l'instance unique ; les téléchargements interrompus reprennent
+     * @param stateFile Fichier de l'état des téléchargements
+     * @param fetcher Stockage des vidéos
+     * @param network État du réseau
+     * @param callbackExecutor Exécuteur sur lequel les écouteurs sont appelés
+     */
+    public static synchronized void initialize(File stateFile, Fetcher fetcher, NetworkPolicy network,
+                                               Executor callbackExecutor) {
+        if (instance == null) {
+            instance = new CourseDownloadManager(stateFile, fetcher, network,
+                    Executors.newSingleThreadExecutor(), callbackExecutor);
+        }
+    }
+
+    /**
+     * Obtient l'instance unique
+     * @return le gestionnaire, ou null si initialize() n'a pas été appelé
+     */
+    public static synchronized CourseDownloadManager getInstance() {
+        return instance;
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Demande le téléchargement des vidéos d'un cours. Les sections déjà téléchargées
+     * sont conservées ; celles en échec sont relancées. Les vidéos des sections retirées du
+     * cours, ou dont la vidéo a changé, sont supprimées : le cache des téléchargements ne les
+     * évincerait jamais.
+     * @param courseId ID du cours
+     * @param sections Sections du cours
+     * @param wifiOnly true pour n'utiliser qu'un réseau non facturé à l'usage
+     */
+    public void downloadCourse(String courseId, List<CourseSection> sections, boolean wifiOnly) {
+        List<SectionDownload> changed = new ArrayList<>();
+        Set<String> orphaned;
+        String activeUrl = null;
+        synchronized (this) {
+            CourseDownload previous = courses.get(courseId);
+            CourseDownload course = new CourseDownload(wifiOnly);
+            for (CourseSection section : sections) {
+                String videoUrl = section.getVideoUrl();
+                if (videoUrl == null || videoUrl.isEmpty() || !fetcher.canDownload(videoUrl)) {
+                    continue;
+                }
+                SectionDownload existing = previous != null ? previous.sections.get(section.getSectionId()) : null;
+                if (existing != null && existing.videoUrl.equals(videoUrl) && existing.state != State.FAILED) {
+                    course.sections.put(section.getSectionId(), existing);
+                    continue;
+                }
+                SectionDownload download = new SectionDownload(courseId, section.getSectionId(), videoUrl, State.QUEUED);
+                course.sections.put(section.getSectionId(), download);
+                changed.add(download.copy());
+            }
+            courses.put(courseId, course);
+            orphaned = unreferencedVideos(previous);
+            if (active != null && orphaned.contains(active.videoUrl)) {
+                activeUrl = active.videoUrl;
+            }
+            suspended = false;
+            requestSave();
+        }
+        if (activeUrl != null) {
+            fetcher.cancel(activeUrl);
+        }
+        removeVideos(orphaned);
+        notifyChanged(changed);
+        pump();
+    }
+
+    /**
+     * Supprime les vidéos téléchargées d'un cours et annule ses téléchargements
+     * @param courseId ID du cours
+     */
+    public void removeCourse(String courseId) {
+        Set<String> orphaned;
+        String activeUrl = null;
+        synchronized (this) {
+            CourseDownload course = courses.remove(courseId);
+            if (course == null) {
+                return;
+            }
+            if (active != null && courseId.equals(active.courseId)) {
+                activeUrl = active.videoUrl;
+            }
+            orphaned = unreferencedVideos(course);
+            requestSave();
+        }
+        if (activeUrl != null) {
+            fetcher.cancel(activeUrl);
+        }
+        removeVideos(orphaned);
+    }
+
+    /**
+     * Vidéos d'un ancien état du cours qu'aucune section suivie n'utilise plus (appelé sous le verrou).
+     * Une même vidéo peut servir à plusieurs sections ou plusieurs cours : elle est alors gardée.
+     * @param previous Ancien état du cours, ou null
+     */
+    private Set<String> unreferencedVideos(CourseDownload previous) {
+        Set<String> orphaned = new LinkedHashSet<>();
+        if (previous == null) {
+            return orphaned;
+        }
+        for (SectionDownload download : previous.sections.values()) {
+            orphaned.add(download.videoUrl);
+        }
+        for (CourseDownload course : courses.values()) {
+            for (SectionDownload download : course.sections.values()) {
+                orphaned.remove(download.videoUrl);
+            }
+        }
+        return orphaned;
+    }
+
+    /**
+     * Supprime des vidéos du cache, sur l'exécuteur des téléchargements (après l'éventuel
+     * téléchargement annulé de l'une d'elles)
+     */
+    private void removeVideos(Collection<String> videoUrls) {
+        if (videoUrls.isEmpty()) {
+            return;
+        }
+        downloadExecutor.execute(() -> {
+            for (String videoUrl : videoUrls) {
+                fetcher.remove(videoUrl);
+            }
+        });
+    }
+
+    /**
+     * État du téléchargement d'une section
+     * @param sectionId ID de la section
+     * @return une copie de l'état, ou null si la section n'a pas été demandée
+     */
+    public synchronized SectionDownload getDownload(String sectionId) {
+        for (CourseDownload course : courses.values()) {
+            SectionDownload download = course.sections.get(sectionId);
+            if (download != null) {
+                return download.copy();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return true si la vidéo de la section est disponible hors ligne
+     */
+    public synchronized boolean isDownloaded(String sectionId) {
+        SectionDownload download = getDownload(sectionId);
+        return download != null && download.state == State.COMPLETED;
+    }
+
+    /**
+     * Avancement du téléchargement d'un cours
+     * @param courseId ID du cours
+     */
+    public synchronized CourseStatus getCourseStatus(String courseId) {
+        CourseDownload course = courses.get(courseId);
+        if (course == null) {
+            return new CourseStatus(0, 0, 0, 0);
+        }
+        int completed = 0;
+        int failed = 0;
+        long bytes = 0;
+        for (SectionDownload download : course.sections.values()) {
+            if (download.state == State.COMPLETED) {
+                completed++;
+            } else if (download.state == State.FAILED) {
+                failed++;
+            }
+            bytes += download.bytes;
+        }
+        return new CourseStatus(course.sections.size(), completed, failed, bytes);
+    }
+
+    /**
+     * À appeler quand le réseau change : les téléchargements suspendus par une erreur réseau
+     * et les cours en attente du Wi-Fi peuvent reprendre, et le téléchargement d'un cours
+     * Wi-Fi uniquement est interrompu sur un réseau facturé
+     */
+    public void onNetworkChanged() {
+        synchronized (this) {
+            suspended = false;
+        }
+        pump();
+    }
+
+    /**
+     * Lance le prochain téléchargement si aucun n'est en cours. Un téléchargement en cours
+     * d'un cours Wi-Fi uniquement est annulé si le réseau est devenu facturé : il reprendra
+     * (à partir des octets déjà en cache) au retour du Wi-Fi.
+     */
+    private void pump() {
+        SectionDownload next = null;
+        String interrupted = null;
+        List<SectionDownload> changed = new ArrayList<>();
+        synchronized (this) {
+            boolean unmetered = network.isUnmetered();
+            if (active != null) {
+                CourseDownload course = courses.get(active.courseId);
+                if (!unmetered && course != null && course.wifiOnly && active.state == State.DOWNLOADING) {
+                    active.state = State.WAITING_FOR_WIFI;
+                    changed.add(active.copy());
+                    interrupted = active.videoUrl;
+                }
+            } else if (!suspended) {
+                for (CourseDownload course : courses.values()) {
+                    for (SectionDownload download : course.sections.values()) {
+                        if (download.state != State.QUEUED && download.state != State.WAITING_FOR_WIFI) {
+                            continue;
+                        }
+                        if (course.wifiOnly && !unmetered) {
+                            if (download.state != State.WAITING_FOR_WIFI) {
+                                download.state = State.WAITING_FOR_WIFI;
+                                changed.add(download.copy());
+                            }
+                        } else if (next == null) {
+                            next = download;
+                        }
+                    }
+                }
+                if (next != null) {
+                    next.state = State.DOWNLOADING;
+                    next.bytes = 0;
+                    changed.add(next.copy());
+                    active = next;
+                }
+            }
+        }
+        notifyChanged(changed);
+        if (interrupted != null) {
+            fetcher.cancel(interrupted);
+        }
+        if (next != null) {
+            SectionDownload download = next;
+            downloadExecutor.execute(() -> run(download));
+        }
+    }
+
+    private void run(SectionDownload download) {
+        String error = null;
+        boolean permanent = false;
+        try {
+            long[] notified = {0};
+            fetcher.download(download.videoUrl, bytes -> {
+                SectionDownload progress = null;
+                synchronized (this) {
+                    download.bytes = bytes;
+                    if (bytes - notified[0] >= PROGRESS_STEP_BYTES) {
+                        notified[0] = bytes;
+                        progress = download.copy();
+                    }
+                }
+                if (progress != null) {
+                    notifyChanged(progress);
+                }
+                // L'enregistrement planifié attend la fin du téléchargement : l'écrire dès maintenant
+                saveIfRequested();
+            });
+        } catch (IOException e) {
+            error = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+            permanent = e instanceof PermanentFailure;
+        }
+
+        SectionDownload finished = null;
+        synchronized (this) {
+            active = null;
+            // Une section retirée entre-temps (cours supprimé) n'est plus suivie
+            if (isTracked(download)) {
+                // Interrompue par pump() sur un réseau facturé, la section reste en attente du Wi-Fi
+                if (error == null) {
+                    download.state = State.COMPLETED;
+                } else if (permanent) {
+                    download.state = State.FAILED;
+                } else if (download.state != State.WAITING_FOR_WIFI) {
+                    // Erreur réseau : les sections suivantes échoueraient aussi, attendre le réseau
+                    download.state = State.QUEUED;
+                    suspended = true;
+                }
+                download.error = error;
+                finished = download.copy();
+                requestSave();
+            }
+        }
+        if (finished != null) {
+            notifyChanged(finished);
+        }
+        pump();
+    }
+
+    private boolean isTracked(SectionDownload download) {
+        CourseDownload course = courses.get(download.courseId);
+        return course != null && course.sections.get(download.sectionId) == download;
+    }
+
+    private void notifyChanged(SectionDownload download) {
+        for (Listener listener : listeners) {
+            callbackExecutor.execute(() -> listener.onDownloadChanged(download));
+        }
+    }
+
+    private void notifyChanged(List<SectionDownload> downloads) {
+        for (SectionDownload download : downloads) {
+            notifyChanged(download);
+        }
+    }
+
+    /**
+     * Marque en échec les vidéos disparues du cache (fichiers supprimés) depuis leur téléchargement
+     */
+    private void checkStored() {
+        List<SectionDownload> completed = new ArrayList<>();
+        synchronized (this) {
+            for (CourseDownload course : courses.values()) {
+                for (SectionDownload download : course.sections.values()) {
+                    if (download.state == State.COMPLETED) {
+                        completed.add(download);
+                    }
+                }
+            }
+        }
+
+        List<SectionDownload> evicted = new ArrayList<>();
+        for (SectionDownload download : completed) {
+            if (!fetcher.isStored(download.videoUrl)) {
+                evicted.add(download);
+            }
+        }
+        if (evicted.isEmpty()) {
+            return;
+        }
+
+        List<SectionDownload> changed = new ArrayList<>();
+        synchronized (this) {
+            for (SectionDownload download : evicted) {
+                if (isTracked(download) && download.state == State.COMPLETED) {
+                    download.state = State.FAILED;
+                    download.error = "Vidéo retirée du cache";
+                    changed.add(download.copy());
+                }
+            }
+            requestSave();
+        }
+        notifyChanged(changed);
+    }
+
+    /**
+     * Démarrage, sur l'exécuteur des téléchargements : relit l'état enregistré, vérifie les
+     * vidéos stockées puis reprend les téléchargements interrompus
+     */
+    private void start() {
+        Map<String, CourseDownload> restored = restore();
+        List<SectionDownload> changed = new ArrayList<>();
+        synchronized (this) {
+            // Un cours demandé ou retiré avant la fin de la relecture l'emporte sur l'état enregistré
+            for (Map.Entry<String, CourseDownload> entry : restored.entrySet()) {
+                if (!courses.containsKey(entry.getKey())) {
+                    courses.put(entry.getKey(), entry.getValue());
+                    for (SectionDownload download : entry.getValue().sections.values()) {
+                        changed.add(download.copy());
+                    }
+                }
+            }
+        }
+        notifyChanged(changed);
+        checkStored();
+        pump();
+    }
+
+    /**
+     * Relit l'état enregistré : les téléchargements interrompus sont remis en file
+     * @return les cours enregistrés, dans l'ordre des demandes
+     */
+    private Map<String, CourseDownload> restore() {
+        Map<String, CourseDownload> restored = new LinkedHashMap<>();
+        if (!stateFile.exists()) {
+            return restored;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(stateFile)))) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+                return restored;
+            }
+            int courseCount = in.readInt();
+            for (int i = 0; i < courseCount; i++) {
+                String courseId = JournalCodec.readString(in);
+                CourseDownload course = new CourseDownload(in.readBoolean());
+                int sectionCount = in.readInt();
+                for (int j = 0; j < sectionCount; j++) {
+                    String sectionId = JournalCodec.readString(in);
+                    String videoUrl = JournalCodec.readString(in);
+                    State state = State.values()[in.readByte()];
+                    long bytes = in.readLong();
+
+                    SectionDownload download = new SectionDownload(courseId, sectionId, videoUrl, State.QUEUED);
+                    if (state == State.COMPLETED || state == State.FAILED) {
+                        download.state = state;
+                        download.bytes = state == State.COMPLETED ? bytes : 0;
+                    }
+                    course.sections.put(sectionId, download);
+                }
+                restored.put(courseId, course);
+            }
+        } catch (IOException | RuntimeException e) {
+            // État illisible : les cours lus jusque-là sont conservés
+        }
+        return restored;
+    }
+
+    /**
+     * Planifie l'enregistrement de l'état sur l'exécuteur des téléchargements (appelé sous le verrou).
+     * Plusieurs demandes avant l'écriture n'en font qu'une.
+     */
+    private void requestSave() {
+        if (saveRequested) {
+            return;
+        }
+        saveRequested = true;
+        downloadExecutor.execute(this::saveIfRequested);
+    }
+
+    /**
+     * Enregistre l'état s'il a changé : copié sous le verrou, écrit en dehors. Appelé uniquement
+     * sur l'exécuteur des téléchargements, les écritures ne se croisent pas et restent dans l'ordre.
+     */
+    private void saveIfRequested() {
+        byte[] state;
+        synchronized (this) {
+            if (!saveRequested) {
+                return;
+            }
+            saveRequested = false;
+            state = encodeState();
+        }
+        File parent = stateFile.getParentFile();
+        if (parent != null && !parent.exists()) {
+            parent.mkdirs();
+        }
+        File temp = new File(stateFile.getPath() + ".tmp");
+        try (BufferedOutputStream out = new BufferedOutputStream(new FileOutputStream(temp))) {
+            out.write(state);
+        } catch (IOException e) {
+            temp.delete();
+            return;
+        }
+        if (!temp.renameTo(stateFile)) {
+            temp.delete();
+        }
+    }
+
+    /**
+     * Encode l'état des téléchargements (appelé sous le verrou)
+     */
+    private byte[] encodeState() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeInt(courses.size());
+            for (Map.Entry<String, CourseDownload> entry : courses.entrySet()) {
+                JournalCodec.writeString(out, entry.getKey());
+                out.writeBoolean(entry.getValue().wifiOnly);
+                out.writeInt(entry.getValue().sections.size());
+                for (SectionDownload download : entry.getValue().sections.values()) {
+                    JournalCodec.writeString(out, download.sectionId);
+                    JournalCodec.writeString(out, download.videoUrl);
+                    out.writeByte(download.state.ordinal());
+                    out.writeLong(download.bytes);
+                }
+            }
+        } catch (IOException e) {
+            // Impossible en mémoire
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,171 @@
+package com.projet.skilllearn.utils;
+
+import androidx.annotation.NonNull;
+
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseError;
+import com.google.firebase.database.DatabaseReference;
+import com.google.firebase.database.FirebaseDatabase;
+import com.google.firebase.database.MutableData;
+import com.google.firebase.database.Transaction;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Destination du journal des mutations : applique chaque mutation dans Firebase
+ */
+public class FirebaseMutationBackend implements MutationJournal.Backend {
+
+    @Override
+    public void apply(MutationJournal.Mutation mutation, MutationJournal.Result result) {
+        DatabaseReference root = FirebaseDatabase.getInstance().getReference();
+        switch (mutation.getType()) {
+            case UPDATE:
+                applyUpdate(root, mutation, result);
+                break;
+            case SECTION_COMPLETED:
+                completeSection(root.child(mutation.getPath()), mutation, result);
+                break;
+            case SET_IF_ABSENT:
+                setIfAbsent(root.child(mutation.getPath()), mutation, result);
+                break;
+        }
+    }
+
+    /**
+     * Mise à jour multi-chemins. Une mutation rejouée dont le chemin témoin existe déjà
+     * a été appliquée lors d'une tentative précédente : elle n'est pas renvoyée, pour ne
+     * pas compter deux fois ses incréments.
+     */
+    private static void applyUpdate(DatabaseReference root, MutationJournal.Mutation mutation,
+                                    MutationJournal.Result result) {
+        if (mutation.isReplay() && mutation.getGuardPath() != null) {
+            root.child(mutation.getGuardPath()).get().addOnCompleteListener(task -> {
+                if (!task.isSuccessful()) {
+                    result.onFailed(messageOf(task.getException()), true);
+                } else if (task.getResult() != null && task.getResult().exists()) {
+                    result.onApplied(null);
+                } else {
+                    writeUpdate(root, mutation, result);
+                }
+            });
+            return;
+        }
+        writeUpdate(root, mutation, result);
+    }
+
+    private static void writeUpdate(DatabaseReference root, MutationJournal.Mutation mutation,
+                                    MutationJournal.Result result) {
+        root.updateChildren(mutation.getData(), (error, ref) -> {
+            if (error == null) {
+                result.onApplied(null);
+            } else {
+                result.onFailed(error.getMessage(), isRetryable(error));
+            }
+        });
+    }
+
+    /**
+     * Fin de section : transaction sur le nœud de progression (voir ProgressWrites.completeSection).
+     * Le résultat est le nouveau pourcentage, ou null si la section était déjà terminée.
+     */
+    private static void completeSection(DatabaseReference progressRef, MutationJournal.Mutation mutation,
+                                        MutationJournal.Result result) {
+        progressRef.runTransaction(new Transaction.Handler() {
+            @NonNull
+            @Override
+            public Transaction.Result doTransaction(@NonNull MutableData currentData) {
+                boolean changed = ProgressWrites.completeSection(new MutableProgressNode(currentData),
+                        mutation.getSectionId(), mutation.getTotalSections(), mutation.getCompletedAt());
+                return changed ? Transaction.success(currentData) : Transaction.abort();
+            }
+
+            @Override
+            public void onComplete(DatabaseError error, boolean committed, DataSnapshot snapshot) {
+                if (error != null) {
+                    result.onFailed(error.getMessage(), isRetryable(error));
+                } else if (committed && snapshot != null) {
+                    result.onApplied(snapshot.child(ProgressWrites.PERCENTAGE).getValue(Integer.class));
+                } else {
+                    result.onApplied(null);
+                }
+            }
+        });
+    }
+
+    /**
+     * Écriture conditionnelle : rien n'est écrit si une valeur existe déjà
+     */
+    private static void setIfAbsent(DatabaseReference ref, MutationJournal.Mutation mutation,
+                                    MutationJournal.Result result) {
+        ref.runTransaction(new Transaction.Handler() {
+            @NonNull
+            @Override
+            public Transaction.Result doTransaction(@NonNull MutableData currentData) {
+                if (currentData.getValue() != null) {
+                    return Transaction.abort();
+                }
+                currentData.setValue(mutation.getValue());
+                return Transaction.success(currentData);
+            }
+
+            @Override
+            public void onComplete(DatabaseError error, boolean committed, DataSnapshot snapshot) {
+                if (error != null) {
+                    result.onFailed(error.getMessage(), isRetryable(error));
+                } else {
+                    result.onApplied(committed);
+                }
+            }
+        });
+    }
+
+    /**
+     * Un accès refusé ou des données invalides ne passeront jamais : la mutation est abandonnée
+     */
+    private static boolean isRetryable(DatabaseError error) {
+        switch (error.getCode()) {
+            case DatabaseError.PERMISSION_DENIED:
+            case DatabaseError.INVALID_TOKEN:
+            case DatabaseError.EXPIRED_TOKEN:
+                return false;
+            default:
+                return true;
+        }
+    }
+
+    private static String messageOf(Exception e) {
+        return e != null ? e.getMessage() : "Erreur inconnue";
+    }
+
+    /**
+     * Adapte le MutableData d'une transaction au nœud de progression de ProgressWrites
+     */
+    static class MutableProgressNode implements ProgressWrites.ProgressNode {
+        private final MutableData data;
+
+        MutableProgressNode(MutableData data) {
+            this.data = data;
+        }
+
+        @Override
+        public Object get(String path) {
+            return data.child(path).getValue();
+        }
+
+        @Override
+        public void set(String path, Object value) {
+            data.child(path).setValue(value);
+        }
+
+        @Override
+        public Iterable<String> childKeys(String path) {
+            List<String> keys = new ArrayList<>();
+            for (MutableData child : data.child(path).getChildren()) {
+                keys.add(child.getKey());
+            }
+            return keys;
+        }
+    }
+}
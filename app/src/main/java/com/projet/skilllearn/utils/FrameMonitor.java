@@ -0,0 +1,76 @@
+package com.projet.skilllearn.utils;
+
+import android.content.Context;
+import android.content.pm.ApplicationInfo;
+import android.util.Log;
+import android.view.Choreographer;
+import android.view.Display;
+import android.view.WindowManager;
+
+/**
+ * Mesure des images d'un écran pendant qu'il est visible, dans les versions de débogage.
+ * À l'arrêt, journalise les saccades observées avec les conversions d'instantanés faites
+ * hors du thread principal sur la même période : un chargement de gros catalogue ne doit
+ * plus produire d'image saccadée.
+ */
+public class FrameMonitor implements Choreographer.FrameCallback {
+    private static final String TAG = "FrameMonitor";
+
+    private final String screen;
+    private final boolean enabled;
+    private final FrameStats stats;
+    private boolean running;
+
+    /**
+     * @param context Contexte de l'écran
+     * @param screen Nom de l'écran dans le journal
+     */
+    public FrameMonitor(Context context, String screen) {
+        this.screen = screen;
+        this.enabled = (context.getApplicationInfo().flags & ApplicationInfo.FLAG_DEBUGGABLE) != 0;
+        this.stats = new FrameStats((long) (1e9 / refreshRate(context)));
+    }
+
+    /**
+     * Commence la mesure (onResume)
+     */
+    public void start() {
+        if (!enabled || running) {
+            return;
+        }
+        running = true;
+        stats.reset();
+        Choreographer.getInstance().postFrameCallback(this);
+    }
+
+    /**
+     * Arrête la mesure et journalise le bilan (onPause)
+     */
+    public void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        Choreographer.getInstance().removeFrameCallback(this);
+
+        SnapshotMapper mapper = SnapshotMapper.getInstance();
+        Log.d(TAG, screen + " : " + stats
+                + (mapper != null ? " ; " + mapper.describeStats() : ""));
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        if (!running) {
+            return;
+        }
+        stats.onFrame(frameTimeNanos);
+        Choreographer.getInstance().postFrameCallback(this);
+    }
+
+    private static float refreshRate(Context context) {
+        WindowManager windowManager = (WindowManager) context.getSystemService(Context.WINDOW_SERVICE);
+        Display display = windowManager != null ? windowManager.getDefaultDisplay() : null;
+        float rate = display != null ? display.getRefreshRate() : 0;
+        return rate >= 30 ? rate : 60;
+    }
+}
@@ -0,0 +1,77 @@
+package com.projet.skilllearn.utils;
+
+/**
+ * Statistiques des images affichées : intervalle entre deux images successives comparé
+ * au budget d'une image (16,7 ms à 60 Hz). Une image qui dépasse une fois et demie le
+ * budget a manqué au moins une synchronisation verticale : elle compte comme saccadée.
+ */
+public class FrameStats {
+
+    private final long budgetNanos;
+
+    private long lastFrameNanos = -1;
+    private int frames;
+    private int jankyFrames;
+    private long droppedFrames;
+    private long worstFrameNanos;
+
+    /**
+     * @param budgetNanos Durée d'une image à la fréquence de l'écran
+     */
+    public FrameStats(long budgetNanos) {
+        this.budgetNanos = budgetNanos;
+    }
+
+    /**
+     * Enregistre une image
+     * @param frameTimeNanos Horodatage de l'image (Choreographer)
+     */
+    public synchronized void onFrame(long frameTimeNanos) {
+        if (lastFrameNanos >= 0) {
+            long interval = frameTimeNanos - lastFrameNanos;
+            frames++;
+            worstFrameNanos = Math.max(worstFrameNanos, interval);
+            if (interval * 2 > budgetNanos * 3) {
+                jankyFrames++;
+                droppedFrames += Math.round((double) interval / budgetNanos) - 1;
+            }
+        }
+        lastFrameNanos = frameTimeNanos;
+    }
+
+    /**
+     * Repart de zéro ; la prochaine image sert de référence
+     */
+    public synchronized void reset() {
+        lastFrameNanos = -1;
+        frames = 0;
+        jankyFrames = 0;
+        droppedFrames = 0;
+        worstFrameNanos = 0;
+    }
+
+    public synchronized int getFrames() {
+        return frames;
+    }
+
+    public synchronized int getJankyFrames() {
+        return jankyFrames;
+    }
+
+    /**
+     * @return le nombre de synchronisations verticales manquées
+     */
+    public synchronized long getDroppedFrames() {
+        return droppedFrames;
+    }
+
+    public synchronized long getWorstFrameNanos() {
+        return worstFrameNanos;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("%d images, %d saccadées (%d manquées), pire image %.1f ms (budget %.1f ms)",
+                frames, jankyFrames, droppedFrames, worstFrameNanos / 1e6, budgetNanos / 1e6);
+    }
+}
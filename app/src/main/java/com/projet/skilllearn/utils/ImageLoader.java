@@ -0,0 +1,114 @@
+package com.projet.skilllearn.utils;
+
+import android.content.Context;
+import android.graphics.drawable.Drawable;
+import android.net.Uri;
+import android.widget.ImageView;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.bumptech.glide.Glide;
+import com.bumptech.glide.ListPreloader;
+import com.bumptech.glide.RequestBuilder;
+import com.bumptech.glide.integration.recyclerview.RecyclerViewPreloader;
+import com.bumptech.glide.util.ViewPreloadSizeProvider;
+import com.projet.skilllearn.R;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Point d'entrée unique du chargement des images de l'application (un seul cache et un seul
+ * groupe de threads, configurés dans SkillLearnGlideModule).
+ * Requêtes d'images partagées par les écrans et les listes.
+ * Chaque image est décodée à la taille de sa vue, pas à sa résolution d'origine.
+ * Une requête préchargée et la requête affichée doivent être identiques (mêmes options,
+ * même taille) pour que la seconde trouve l'image dans le cache mémoire : les deux
+ * passent donc par les méthodes ci-dessous.
+ */
+public final class ImageLoader {
+
+    // Nombre de lignes dont les images sont préchargées au-delà de l'écran
+    public static final int PRELOAD_ROWS = 6;
+
+    private ImageLoader() {
+    }
+
+    /**
+     * Image d'un cours, recadrée pour remplir la vue
+     * @param context Contexte (activité ou fragment de préférence)
+     * @param imageUrl URL de l'image
+     */
+    public static RequestBuilder<Drawable> courseImage(@NonNull Context context, String imageUrl) {
+        return Glide.with(context)
+                .load(imageUrl)
+                .placeholder(R.drawable.placeholder_course)
+                .error(R.drawable.error_course)
+                .centerCrop();
+    }
+
+    /**
+     * Icône d'un badge, entière dans la vue
+     * @param context Contexte (activité ou fragment de préférence)
+     * @param iconUrl URL de l'icône
+     */
+    public static RequestBuilder<Drawable> badge(@NonNull Context context, String iconUrl) {
+        return Glide.with(context)
+                .load(iconUrl)
+                .placeholder(R.drawable.placeholder_badge)
+                .error(R.drawable.default_badge)
+                .fitCenter();
+    }
+
+    /**
+     * Charge l'image d'un cours, ou l'image par défaut s'il n'en a pas
+     */
+    public static void loadCourseImage(@NonNull ImageView view, @Nullable String imageUrl) {
+        if (imageUrl != null && !imageUrl.isEmpty()) {
+            courseImage(view.getContext(), imageUrl).into(view);
+        } else {
+            Glide.with(view.getContext()).clear(view);
+            view.setImageResource(R.drawable.placeholder_course);
+        }
+    }
+
+    /**
+     * Charge la photo de profil de l'utilisateur
+     * @param view Vue de la photo, qui garde son image actuelle si l'utilisateur n'a pas de photo
+     * @param photoUrl URL de la photo (compte Firebase)
+     */
+    public static void loadProfilePhoto(@NonNull ImageView view, @Nullable Uri photoUrl) {
+        if (photoUrl == null) {
+            return;
+        }
+        Glide.with(view.getContext())
+                .load(photoUrl)
+                .placeholder(R.drawable.ic_launcher_foreground)
+                .error(R.drawable.ic_launcher_foreground)
+                .centerCrop()
+                .into(view);
+    }
+
+    /**
+     * Précharge les images des lignes suivantes pendant le défilement
+     * @param recyclerView Liste à suivre
+     * @param provider Requêtes d'images des éléments (l'adaptateur)
+     * @param sizeProvider Taille des images, lue sur la première vue affichée
+     */
+    public static <T> void attachPreloader(@NonNull RecyclerView recyclerView,
+                                           @NonNull ListPreloader.PreloadModelProvider<T> provider,
+                                           @NonNull ViewPreloadSizeProvider<T> sizeProvider) {
+        recyclerView.addOnScrollListener(new RecyclerViewPreloader<>(
+                Glide.with(recyclerView.getContext()), provider, sizeProvider, PRELOAD_ROWS));
+    }
+
+    /**
+     * Élément à précharger, s'il a une image
+     */
+    public static <T> List<T> preloadItem(T item, @Nullable String imageUrl) {
+        return imageUrl != null && !imageUrl.isEmpty()
+                ? Collections.singletonList(item) : Collections.emptyList();
+    }
+}
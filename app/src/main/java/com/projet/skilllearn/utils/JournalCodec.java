@@ -0,0 +1,158 @@
+package com.projet.skilllearn.utils;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Encodage binaire des valeurs Firebase dans les journaux locaux
+ * (file d'écritures différées, journal des mutations).
+ * Types pris en charge : null, Boolean, Integer, Long, Double, String, List et Map à clés textuelles.
+ */
+final class JournalCodec {
+
+    private static final byte TYPE_NULL = 0;
+    private static final byte TYPE_BOOLEAN = 1;
+    private static final byte TYPE_INT = 2;
+    private static final byte TYPE_LONG = 3;
+    private static final byte TYPE_DOUBLE = 4;
+    private static final byte TYPE_STRING = 5;
+    private static final byte TYPE_MAP = 6;
+    private static final byte TYPE_LIST = 7;
+
+    private JournalCodec() {
+    }
+
+    /**
+     * Vérifie qu'une valeur peut être journalisée
+     * @throws IllegalArgumentException si un type n'est pas pris en charge
+     */
+    static void checkValue(Object value) {
+        if (value == null || value instanceof Boolean || value instanceof Integer
+                || value instanceof Long || value instanceof Double || value instanceof String) {
+            return;
+        }
+        if (value instanceof Map) {
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                if (!(entry.getKey() instanceof String)) {
+                    throw new IllegalArgumentException("Clé non textuelle : " + entry.getKey());
+                }
+                checkValue(entry.getValue());
+            }
+            return;
+        }
+        if (value instanceof List) {
+            for (Object item : (List<?>) value) {
+                checkValue(item);
+            }
+            return;
+        }
+        throw new IllegalArgumentException("Type non pris en charge : " + value.getClass().getName());
+    }
+
+    static void writeEntries(DataOutputStream out, Map<String, Object> entries) throws IOException {
+        out.writeInt(entries.size());
+        for (Map.Entry<String, Object> entry : entries.entrySet()) {
+            writeString(out, entry.getKey());
+            writeValue(out, entry.getValue());
+        }
+    }
+
+    static Map<String, Object> readEntries(DataInputStream in) throws IOException {
+        int count = in.readInt();
+        if (count < 0) {
+            throw new IOException("Taille invalide dans le journal : " + count);
+        }
+        Map<String, Object> entries = new LinkedHashMap<>();
+        for (int i = 0; i < count; i++) {
+            String key = readString(in);
+            entries.put(key, readValue(in));
+        }
+        return entries;
+    }
+
+    @SuppressWarnings("unchecked")
+    static void writeValue(DataOutputStream out, Object value) throws IOException {
+        if (value == null) {
+            out.writeByte(TYPE_NULL);
+        } else if (value instanceof Boolean) {
+            out.writeByte(TYPE_BOOLEAN);
+            out.writeBoolean((Boolean) value);
+        } else if (value instanceof Integer) {
+            out.writeByte(TYPE_INT);
+            out.writeInt((Integer) value);
+        } else if (value instanceof Long) {
+            out.writeByte(TYPE_LONG);
+            out.writeLong((Long) value);
+        } else if (value instanceof Double) {
+            out.writeByte(TYPE_DOUBLE);
+            out.writeDouble((Double) value);
+        } else if (value instanceof String) {
+            out.writeByte(TYPE_STRING);
+            writeString(out, (String) value);
+        } else if (value instanceof List) {
+            List<Object> list = (List<Object>) value;
+            out.writeByte(TYPE_LIST);
+            out.writeInt(list.size());
+            for (Object item : list) {
+                writeValue(out, item);
+            }
+        } else {
+            out.writeByte(TYPE_MAP);
+            writeEntries(out, (Map<String, Object>) value);
+        }
+    }
+
+    static Object readValue(DataInputStream in) throws IOException {
+        byte type = in.readByte();
+        switch (type) {
+            case TYPE_NULL:
+                return null;
+            case TYPE_BOOLEAN:
+                return in.readBoolean();
+            case TYPE_INT:
+                return in.readInt();
+            case TYPE_LONG:
+                return in.readLong();
+            case TYPE_DOUBLE:
+                return in.readDouble();
+            case TYPE_STRING:
+                return readString(in);
+            case TYPE_MAP:
+                return readEntries(in);
+            case TYPE_LIST:
+                int count = in.readInt();
+                if (count < 0) {
+                    throw new IOException("Taille invalide dans le journal : " + count);
+                }
+                List<Object> list = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    list.add(readValue(in));
+                }
+                return list;
+            default:
+                throw new IOException("Type inconnu dans le journal : " + type);
+        }
+    }
+
+    static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            throw new IOException("Longueur invalide dans le journal : " + length);
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
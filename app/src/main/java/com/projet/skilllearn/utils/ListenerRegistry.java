@@ -0,0 +1,179 @@
+package com.projet.skilllearn.utils;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.lifecycle.DefaultLifecycleObserver;
+import androidx.lifecycle.LifecycleOwner;
+
+import com.google.firebase.database.ChildEventListener;
+import com.google.firebase.database.DatabaseReference;
+import com.google.firebase.database.Query;
+import com.google.firebase.database.ValueEventListener;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Registre des écouteurs Firebase permanents (addValueEventListener / addChildEventListener).
+ * Chaque abonnement est identifié par une clé : un nouvel abonnement avec la même clé remplace
+ * le précédent au lieu de s'y ajouter. Le registre est lié à la durée de vie d'un ViewModel
+ * (appeler clear() dans onCleared) ou d'un LifecycleOwner (bindTo), et détache alors tous
+ * ses écouteurs. Le nombre d'écouteurs actifs par chemin est suivi pour toute l'application
+ * afin de repérer les fuites.
+ */
+public class ListenerRegistry implements DefaultLifecycleObserver {
+
+    private static final String TAG = "ListenerRegistry";
+
+    // Chemin Firebase -> nombre d'écouteurs actifs (tous registres confondus)
+    private static final Map<String, Integer> activeCounts = new HashMap<>();
+
+    private final Map<String, Registration> registrations = new LinkedHashMap<>();
+
+    /**
+     * Abonnement actif : sait se détacher de Firebase
+     */
+    private static class Registration {
+        final String path;
+        final Runnable detach;
+
+        Registration(String path, Runnable detach) {
+            this.path = path;
+            this.detach = detach;
+        }
+    }
+
+    /**
+     * Crée un registre vidé automatiquement à la destruction du LifecycleOwner
+     * @param owner Activité, fragment ou getViewLifecycleOwner()
+     * @return le registre lié
+     */
+    public static ListenerRegistry bindTo(LifecycleOwner owner) {
+        ListenerRegistry registry = new ListenerRegistry();
+        owner.getLifecycle().addObserver(registry);
+        return registry;
+    }
+
+    /**
+     * Abonne un ValueEventListener, en remplaçant l'abonnement existant de même clé
+     * @param key Clé de l'abonnement dans ce registre
+     * @param query Requête ou référence Firebase
+     * @param listener Écouteur à attacher
+     */
+    public synchronized void observe(String key, Query query, ValueEventListener listener) {
+        remove(key);
+        query.addValueEventListener(listener);
+        register(key, new Registration(pathOf(query.getRef()), () -> query.removeEventListener(listener)));
+    }
+
+    /**
+     * Abonne un ChildEventListener, en remplaçant l'abonnement existant de même clé
+     * @param key Clé de l'abonnement dans ce registre
+     * @param query Requête ou référence Firebase
+     * @param listener Écouteur à attacher
+     */
+    public synchronized void observeChildren(String key, Query query, ChildEventListener listener) {
+        remove(key);
+        query.addChildEventListener(listener);
+        register(key, new Registration(pathOf(query.getRef()), () -> query.removeEventListener(listener)));
+    }
+
+    /**
+     * Indique si un abonnement existe pour cette clé
+     */
+    public synchronized boolean contains(String key) {
+        return registrations.containsKey(key);
+    }
+
+    /**
+     * Détache l'abonnement associé à une clé
+     * @param key Clé de l'abonnement
+     */
+    public synchronized void remove(String key) {
+        Registration registration = registrations.remove(key);
+        if (registration != null) {
+            registration.detach.run();
+            updateCount(registration.path, -1);
+        }
+    }
+
+    /**
+     * Détache tous les abonnements de ce registre
+     */
+    public synchronized void clear() {
+        List<String> keys = new ArrayList<>(registrations.keySet());
+        for (String key : keys) {
+            remove(key);
+        }
+    }
+
+    /**
+     * Nombre d'abonnements actifs dans ce registre
+     */
+    public synchronized int size() {
+        return registrations.size();
+    }
+
+    @Override
+    public void onDestroy(@NonNull LifecycleOwner owner) {
+        clear();
+        owner.getLifecycle().removeObserver(this);
+    }
+
+    /**
+     * Nombre d'écouteurs actifs par chemin Firebase, pour toute l'application
+     * @return une copie des compteurs
+     */
+    public static Map<String, Integer> getActiveListenerCounts() {
+        synchronized (activeCounts) {
+            return new HashMap<>(activeCounts);
+        }
+    }
+
+    /**
+     * Nombre d'écouteurs actifs sur un chemin Firebase
+     * @param path Chemin, par exemple "/courses"
+     */
+    public static int getActiveListenerCount(String path) {
+        synchronized (activeCounts) {
+            Integer count = activeCounts.get(path);
+            return count != null ? count : 0;
+        }
+    }
+
+    private void register(String key, Registration registration) {
+        registrations.put(key, registration);
+        updateCount(registration.path, 1);
+    }
+
+    private static void updateCount(String path, int delta) {
+        int count;
+        synchronized (activeCounts) {
+            Integer previous = activeCounts.get(path);
+            count = (previous != null ? previous : 0) + delta;
+            if (count <= 0) {
+                activeCounts.remove(path);
+            } else {
+                activeCounts.put(path, count);
+            }
+        }
+        Log.d(TAG, "Écouteurs actifs sur " + path + " : " + Math.max(count, 0));
+    }
+
+    /**
+     * Construit le chemin d'une référence ("/notes/uid/courseId/...")
+     */
+    private static String pathOf(DatabaseReference ref) {
+        StringBuilder path = new StringBuilder();
+        DatabaseReference current = ref;
+        while (current != null && current.getKey() != null) {
+            path.insert(0, current.getKey()).insert(0, '/');
+            current = current.getParent();
+        }
+        return path.length() == 0 ? "/" : path.toString();
+    }
+}
@@ -0,0 +1,698 @@
+package com.projet.skilllearn.utils;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Journal durable des mutations en attente, pour les apprenants dont le réseau est instable.
+ * Chaque mutation est ajoutée à un fichier local (ajout seul) avant d'être envoyée, puis
+ * marquée comme appliquée une fois confirmée. Les mutations sont rejouées une à une, dans
+ * l'ordre, y compris après un redémarrage ; un échec temporaire suspend la file avec une
+ * attente exponentielle, écourtée au retour de la connexion. La clé d'idempotence d'une
+ * mutation évite de la mettre deux fois en file, et la destination est prévenue qu'une
+ * mutation rejouée a peut-être déjà été appliquée.
+ * Les écritures sur le disque se font sur l'exécuteur du journal, jamais sur le thread appelant.
+ * La persistance hors ligne de Firebase reste activée (SkillLearnApplication) : elle sert de cache
+ * de lecture et garde sa propre file d'écritures, que le journal complète sans la remplacer.
+ * Firebase ne conserve pas les transactions (fin de section, badges) après un redémarrage, ne
+ * rappelle plus les écouteurs d'une écriture faite lors d'une exécution précédente et n'expose ni
+ * la profondeur ni l'âge de sa file. Une mise à jour présente dans les deux files peut être envoyée
+ * deux fois sans effet : les valeurs sont absolues, les incréments sont protégés par leur chemin
+ * témoin (lu en tenant compte des écritures locales en attente) et le reste passe par des transactions.
+ * Utilise le pattern Singleton : appeler initialize() au démarrage de l'application.
+ */
+public class MutationJournal implements WriteBehindQueue.Sink {
+
+    static final long INITIAL_BACKOFF_MS = 1000L;
+    static final long MAX_BACKOFF_MS = 5 * 60 * 1000L;
+
+    private static final int MAGIC = 0x534b4d4a;
+    private static final int FORMAT_VERSION = 1;
+    private static final byte RECORD_ADD = 1;
+    private static final byte RECORD_APPLIED = 2;
+    // Nombre d'enregistrements "appliquée" au-delà duquel le journal est compacté
+    private static final int COMPACTION_THRESHOLD = 64;
+
+    private static MutationJournal instance;
+
+    private final File file;
+    private final Backend backend;
+    private final WriteBehindQueue.Scheduler scheduler;
+    private final Executor callbackExecutor;
+    private final Clock clock;
+
+    // Mutations en attente, par clé d'idempotence, dans l'ordre d'ajout
+    private final Map<String, Mutation> pending = new LinkedHashMap<>();
+    // Écouteurs des mutations en attente (non journalisés)
+    private final Map<String, List<Callback>> callbacks = new HashMap<>();
+    private DataOutputStream out;
+    private boolean delivering;
+    private boolean waitingForRetry;
+    // Incrémenté à chaque nouvelle planification, pour ignorer les tentatives devenues inutiles
+    private int retryGeneration;
+    private long backoffMs = INITIAL_BACKOFF_MS;
+    private int appliedSinceCompaction;
+    private long retries;
+    private long dropped;
+    private String lastError;
+
+    /**
+     * Mutation journalisée
+     */
+    public static final class Mutation {
+
+        /**
+         * Nature de la mutation, qui détermine comment la destination l'applique
+         */
+        public enum Type {
+            // Mise à jour multi-chemins depuis la racine (data : chemin -> valeur)
+            UPDATE,
+            // Fin d'une section (path : nœud de progression du cours), voir ProgressWrites.completeSection
+            SECTION_COMPLETED,
+            // Écriture de data.value à path, seulement si rien n'y existe encore
+            SET_IF_ABSENT
+        }
+
+        static final String SECTION_ID = "sectionId";
+        static final String TOTAL_SECTIONS = "totalSections";
+        static final String COMPLETED_AT = "completedAt";
+        static final String VALUE = "value";
+
+        private final String key;
+        private final Type type;
+        private final String path;
+        private final String guardPath;
+        private final Map<String, Object> data;
+        private final long createdAt;
+        private boolean replayed;
+        // Enregistrement d'ajout écrit (ou tentative échouée) : la mutation peut être envoyée
+        private boolean journaled;
+        // false pour un lot de la file d'écritures différées, déjà journalisé par celle-ci
+        private boolean durable = true;
+
+        Mutation(String key, Type type, String path, String guardPath, Map<String, Object> data, long createdAt) {
+            this.key = key;
+            this.type = type;
+            this.path = path;
+            this.guardPath = guardPath;
+            this.data = Collections.unmodifiableMap(new LinkedHashMap<>(data));
+            this.createdAt = createdAt;
+        }
+
+        /**
+         * Mise à jour multi-chemins
+         * @param key Clé d'idempotence
+         * @param updates Chemins depuis la racine et leurs valeurs
+         * @param guardPath Chemin écrit par la mise à jour dont la présence prouve qu'elle a
+         *                  déjà été appliquée (nécessaire si elle contient des incréments), ou null
+         */
+        public static Mutation update(String key, Map<String, Object> updates, String guardPath) {
+            return new Mutation(key, Type.UPDATE, null, guardPath, updates, 0L);
+        }
+
+        /**
+         * Fin d'une section d'un cours
+         * @param key Clé d'idempotence
+         * @param progressPath Nœud de progression du cours (user_progress/uid/courseId)
+         */
+        public static Mutation sectionCompleted(String key, String progressPath, String sectionId,
+                                                int totalSections, long completedAt) {
+            Map<String, Object> data = new LinkedHashMap<>();
+            data.put(SECTION_ID, sectionId);
+            data.put(TOTAL_SECTIONS, totalSections);
+            data.put(COMPLETED_AT, completedAt);
+            return new Mutation(key, Type.SECTION_COMPLETED, progressPath, null, data, 0L);
+        }
+
+        /**
+         * Écriture d'une valeur si le chemin est encore vide
+         * @param key Clé d'idempotence
+         * @param path Chemin depuis la racine
+         * @param value Valeur à écrire
+         */
+        public static Mutation setIfAbsent(String key, String path, Object value) {
+            Map<String, Object> data = new LinkedHashMap<>();
+            data.put(VALUE, value);
+            return new Mutation(key, Type.SET_IF_ABSENT, path, null, data, 0L);
+        }
+
+        Mutation createdAt(long timestamp) {
+            return new Mutation(key, type, path, guardPath, data, timestamp);
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public Type getType() {
+            return type;
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        public String getGuardPath() {
+            return guardPath;
+        }
+
+        public Map<String, Object> getData() {
+            return data;
+        }
+
+        public String getSectionId() {
+            return (String) data.get(SECTION_ID);
+        }
+
+        public int getTotalSections() {
+            Object total = data.get(TOTAL_SECTIONS);
+            return total instanceof Number ? ((Number) total).intValue() : 0;
+        }
+
+        public long getCompletedAt() {
+            Object completedAt = data.get(COMPLETED_AT);
+            return completedAt instanceof Number ? ((Number) completedAt).longValue() : createdAt;
+        }
+
+        public Object getValue() {
+            return data.get(VALUE);
+        }
+
+        public long getCreatedAt() {
+            return createdAt;
+        }
+
+        /**
+         * Indique si la mutation a déjà été envoyée (tentative échouée ou exécution précédente) :
+         * elle a alors pu être appliquée sans que la confirmation ne soit reçue
+         */
+        public boolean isReplay() {
+            return replayed;
+        }
+    }
+
+    /**
+     * Destination des mutations (Firebase dans l'application, fausse base dans les tests)
+     */
+    public interface Backend {
+        void apply(Mutation mutation, Result result);
+    }
+
+    /**
+     * Résultat de l'application d'une mutation par la destination
+     */
+    public interface Result {
+        /**
+         * @param value Résultat éventuel (par exemple le nouveau pourcentage), ou null
+         */
+        void onApplied(Object value);
+
+        /**
+         * @param retryable false si la mutation ne pourra jamais être appliquée (accès refusé) :
+         *                  elle est alors abandonnée au lieu de bloquer la file
+         */
+        void onFailed(String message, boolean retryable);
+    }
+
+    /**
+     * Écouteur d'une mutation, appelé sur l'exécuteur de callback ; il n'est pas conservé
+     * après un redémarrage
+     */
+    public interface Callback {
+        void onApplied(Object value);
+        void onDropped(String message);
+    }
+
+    /**
+     * Horloge injectable pour les tests
+     */
+    public interface Clock {
+        long now();
+    }
+
+    /**
+     * État de la file à un instant donné
+     */
+    public static final class Metrics {
+        private final int depth;
+        private final long oldestAgeMs;
+        private final long retries;
+        private final long dropped;
+        private final String lastError;
+
+        Metrics(int depth, long oldestAgeMs, long retries, long dropped, String lastError) {
+            this.depth = depth;
+            this.oldestAgeMs = oldestAgeMs;
+            this.retries = retries;
+            this.dropped = dropped;
+            this.lastError = lastError;
+        }
+
+        /**
+         * Nombre de mutations en attente
+         */
+        public int getDepth() {
+            return depth;
+        }
+
+        /**
+         * Âge de la plus ancienne mutation en attente (0 si la file est vide)
+         */
+        public long getOldestAgeMs() {
+            return oldestAgeMs;
+        }
+
+        /**
+         * Nombre total de nouvelles tentatives depuis le démarrage
+         */
+        public long getRetries() {
+            return retries;
+        }
+
+        /**
+         * Nombre de mutations abandonnées (erreur définitive)
+         */
+        public long getDropped() {
+            return dropped;
+        }
+
+        /**
+         * Dernière erreur rencontrée, ou null
+         */
+        public String getLastError() {
+            return lastError;
+        }
+    }
+
+    /**
+     * Constructeur (utiliser initialize() et getInstance() dans l'application)
+     * @param file Fichier du journal
+     * @param backend Destination des mutations
+     * @param scheduler Exécuteur des envois et des attentes
+     * @param callbackExecutor Exécuteur sur lequel les écouteurs sont appelés
+     * @param clock Horloge
+     */
+    MutationJournal(File file, Backend backend, WriteBehindQueue.Scheduler scheduler,
+                    Executor callbackExecutor, Clock clock) {
+        this.file = file;
+        this.backend = backend;
+        this.scheduler = scheduler;
+        this.callbackExecutor = callbackExecutor;
+        this.clock = clock;
+        synchronized (this) {
+            replay();
+        }
+        scheduler.execute(this::deliverNext);
+    }
+
+    /**
+     * Crée l'instance unique ; les mutations en attente lors d'une exécution précédente
+     * sont rejouées
+     * @param file Fichier du journal
+     * @param backend Destination des mutations
+     * @param callbackExecutor Exécuteur sur lequel les écouteurs sont appelés
+     */
+    public static synchronized void initialize(File file, Backend backend, Executor callbackExecutor) {
+        if (instance == null) {
+            ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+            instance = new MutationJournal(file, backend, new WriteBehindQueue.Scheduler() {
+                @Override
+                public void execute(Runnable task) {
+                    executor.execute(task);
+                }
+
+                @Override
+                public void schedule(Runnable task, long delayMs) {
+                    executor.schedule(task, delayMs, TimeUnit.MILLISECONDS);
+                }
+            }, callbackExecutor, System::currentTimeMillis);
+        }
+    }
+
+    /**
+     * Obtient l'instance unique
+     * @return le journal, ou null si initialize() n'a pas été appelé
+     */
+    public static synchronized MutationJournal getInstance() {
+        return instance;
+    }
+
+    /**
+     * Ajoute une mutation à la file d'envoi ; elle est écrite dans le journal sur l'exécuteur
+     * du journal, puis envoyée. Une mutation dont la clé est déjà en attente n'est pas ajoutée
+     * une seconde fois : l'écouteur est rattaché à la mutation existante. Si le journal ne peut
+     * pas être écrit, la mutation reste en mémoire et l'erreur est visible dans getMetrics().
+     * @param mutation Mutation à appliquer
+     * @param callback Écouteur du résultat, ou null
+     */
+    public void enqueue(Mutation mutation, Callback callback) {
+        enqueue(mutation, callback, true);
+    }
+
+    private void enqueue(Mutation mutation, Callback callback, boolean durable) {
+        JournalCodec.checkValue(mutation.getData());
+        synchronized (this) {
+            if (callback != null) {
+                List<Callback> waiting = callbacks.get(mutation.getKey());
+                if (waiting == null) {
+                    waiting = new ArrayList<>();
+                    callbacks.put(mutation.getKey(), waiting);
+                }
+                waiting.add(callback);
+            }
+            if (pending.containsKey(mutation.getKey())) {
+                return;
+            }
+            Mutation stamped = mutation.createdAt(clock.now());
+            pending.put(stamped.getKey(), stamped);
+            if (durable) {
+                // Planifié sous le verrou : les ajouts sont écrits dans l'ordre de la file
+                scheduler.execute(() -> persist(stamped));
+            } else {
+                stamped.durable = false;
+                stamped.journaled = true;
+                scheduler.execute(this::deliverNext);
+            }
+        }
+    }
+
+    /**
+     * Lot de la file d'écritures différées : il prend sa place dans l'ordre d'envoi du journal,
+     * mais n'y est pas écrit. La file le garde dans son propre journal jusqu'à la confirmation
+     * et le renvoie après un redémarrage ; entre-temps, les nouvelles écritures d'un même chemin
+     * continuent d'y être fusionnées au lieu de s'accumuler ici.
+     */
+    @Override
+    public void write(Map<String, Object> updates, WriteBehindQueue.SinkCallback callback) {
+        enqueue(Mutation.update("batch/" + UUID.randomUUID(), updates, null), new Callback() {
+            @Override
+            public void onApplied(Object value) {
+                callback.onSuccess();
+            }
+
+            @Override
+            public void onDropped(String message) {
+                callback.onRejected(message);
+            }
+        }, false);
+    }
+
+    /**
+     * À appeler au retour de la connexion : la mutation en attente est retentée immédiatement
+     */
+    public void onConnectivityRestored() {
+        synchronized (this) {
+            backoffMs = INITIAL_BACKOFF_MS;
+            if (!waitingForRetry) {
+                return;
+            }
+            waitingForRetry = false;
+            retryGeneration++;
+        }
+        scheduler.execute(this::deliverNext);
+    }
+
+    /**
+     * Nombre de mutations en attente
+     */
+    public synchronized int getDepth() {
+        return pending.size();
+    }
+
+    /**
+     * État de la file : profondeur, âge de la plus ancienne mutation, tentatives et abandons
+     */
+    public synchronized Metrics getMetrics() {
+        long oldestAge = 0;
+        if (!pending.isEmpty()) {
+            oldestAge = Math.max(0, clock.now() - pending.values().iterator().next().getCreatedAt());
+        }
+        return new Metrics(pending.size(), oldestAge, retries, dropped, lastError);
+    }
+
+    /**
+     * Écrit l'enregistrement d'ajout d'une mutation (sauf si un compactage l'a déjà fait), puis relance l'envoi
+     */
+    private void persist(Mutation mutation) {
+        synchronized (this) {
+            if (!mutation.journaled && pending.get(mutation.getKey()) == mutation) {
+                if (!append(mutation)) {
+                    lastError = "Journal indisponible";
+                }
+                mutation.journaled = true;
+            }
+        }
+        deliverNext();
+    }
+
+    /**
+     * Envoie la mutation en tête de file, si aucune n'est déjà en cours ou en attente de nouvelle tentative.
+     * Une mutation n'est envoyée qu'une fois journalisée, pour que sa confirmation ne précède pas son ajout.
+     */
+    private void deliverNext() {
+        Mutation head;
+        synchronized (this) {
+            if (delivering || waitingForRetry || pending.isEmpty()) {
+                return;
+            }
+            head = pending.values().iterator().next();
+            if (!head.journaled) {
+                return;
+            }
+            delivering = true;
+        }
+
+        try {
+            backend.apply(head, new Result() {
+                @Override
+                public void onApplied(Object value) {
+                    scheduler.execute(() -> complete(head, value, null));
+                }
+
+                @Override
+                public void onFailed(String message, boolean retryable) {
+                    scheduler.execute(() -> {
+                        if (retryable) {
+                            retryLater(head, message);
+                        } else {
+                            complete(head, null, message);
+                        }
+                    });
+                }
+            });
+        } catch (RuntimeException e) {
+            // Mutation refusée avant tout envoi (clé ou valeur invalide) : elle ne passera jamais,
+            // et l'exécuteur avalerait l'exception en laissant la file bloquée
+            String message = e.getMessage() != null ? e.getMessage() : e.toString();
+            scheduler.execute(() -> complete(head, null, message));
+        }
+    }
+
+    /**
+     * Retire une mutation appliquée (ou abandonnée si error n'est pas null) et passe à la suivante
+     */
+    private void complete(Mutation mutation, Object value, String error) {
+        List<Callback> waiting;
+        synchronized (this) {
+            delivering = false;
+            backoffMs = INITIAL_BACKOFF_MS;
+            pending.remove(mutation.getKey());
+            waiting = callbacks.remove(mutation.getKey());
+            if (error != null) {
+                dropped++;
+                lastError = error;
+            }
+            if (mutation.durable) {
+                appendApplied(mutation.getKey());
+            }
+        }
+
+        if (waiting != null) {
+            for (Callback callback : waiting) {
+                callbackExecutor.execute(() -> {
+                    if (error == null) {
+                        callback.onApplied(value);
+                    } else {
+                        callback.onDropped(error);
+                    }
+                });
+            }
+        }
+        deliverNext();
+    }
+
+    private void retryLater(Mutation mutation, String message) {
+        long delay;
+        int generation;
+        synchronized (this) {
+            delivering = false;
+            mutation.replayed = true;
+            retries++;
+            lastError = message;
+            waitingForRetry = true;
+            delay = backoffMs;
+            backoffMs = Math.min(MAX_BACKOFF_MS, backoffMs * 2);
+            generation = ++retryGeneration;
+        }
+        scheduler.schedule(() -> {
+            synchronized (this) {
+                if (generation != retryGeneration) {
+                    return;
+                }
+                waitingForRetry = false;
+            }
+            deliverNext();
+        }, delay);
+    }
+
+    /**
+     * Relit le journal : les mutations ajoutées et non marquées comme appliquées sont remises
+     * en file, dans l'ordre. Un enregistrement incomplet termine la lecture.
+     */
+    private void replay() {
+        if (file.exists()) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+                if (in.readInt() == MAGIC && in.readInt() == FORMAT_VERSION) {
+                    while (true) {
+                        byte record = in.readByte();
+                        if (record == RECORD_ADD) {
+                            Mutation mutation = readMutation(in);
+                            mutation.replayed = true;
+                            pending.put(mutation.getKey(), mutation);
+                        } else if (record == RECORD_APPLIED) {
+                            pending.remove(JournalCodec.readString(in));
+                        } else {
+                            break;
+                        }
+                    }
+                }
+            } catch (EOFException e) {
+                // Fin du journal
+            } catch (IOException | RuntimeException e) {
+                // Fin corrompue : les mutations lues jusque-là sont conservées
+            }
+        }
+        compact();
+    }
+
+    private boolean append(Mutation mutation) {
+        try {
+            DataOutputStream stream = openForAppend();
+            stream.writeByte(RECORD_ADD);
+            writeMutation(stream, mutation);
+            stream.flush();
+            return true;
+        } catch (IOException e) {
+            closeJournal();
+            return false;
+        }
+    }
+
+    private void appendApplied(String key) {
+        if (pending.isEmpty() || ++appliedSinceCompaction >= COMPACTION_THRESHOLD) {
+            compact();
+            return;
+        }
+        try {
+            DataOutputStream stream = openForAppend();
+            stream.writeByte(RECORD_APPLIED);
+            JournalCodec.writeString(stream, key);
+            stream.flush();
+        } catch (IOException e) {
+            // La mutation sera rejouée au prochain démarrage : la destination la reconnaîtra
+            closeJournal();
+        }
+    }
+
+    /**
+     * Réécrit le journal avec les seules mutations en attente
+     */
+    private void compact() {
+        closeJournal();
+        appliedSinceCompaction = 0;
+        // Même si la réécriture échoue, les ajouts encore planifiés n'ont plus à être écrits
+        for (Mutation mutation : pending.values()) {
+            mutation.journaled = true;
+        }
+        File parent = file.getParentFile();
+        if (parent != null && !parent.exists()) {
+            parent.mkdirs();
+        }
+        File temp = new File(file.getPath() + ".tmp");
+        try (DataOutputStream stream = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+            stream.writeInt(MAGIC);
+            stream.writeInt(FORMAT_VERSION);
+            for (Mutation mutation : pending.values()) {
+                if (mutation.durable) {
+                    stream.writeByte(RECORD_ADD);
+                    writeMutation(stream, mutation);
+                }
+            }
+        } catch (IOException e) {
+            temp.delete();
+            return;
+        }
+        if (!temp.renameTo(file)) {
+            temp.delete();
+        }
+    }
+
+    private DataOutputStream openForAppend() throws IOException {
+        if (out == null) {
+            out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file, true)));
+        }
+        return out;
+    }
+
+    private void closeJournal() {
+        if (out != null) {
+            try {
+                out.close();
+            } catch (IOException e) {
+                // Ignoré : le journal sera réécrit
+            }
+            out = null;
+        }
+    }
+
+    private static void writeMutation(DataOutputStream stream, Mutation mutation) throws IOException {
+        JournalCodec.writeString(stream, mutation.getKey());
+        stream.writeByte(mutation.getType().ordinal());
+        JournalCodec.writeValue(stream, mutation.getPath());
+        JournalCodec.writeValue(stream, mutation.getGuardPath());
+        stream.writeLong(mutation.getCreatedAt());
+        JournalCodec.writeEntries(stream, mutation.getData());
+    }
+
+    private static Mutation readMutation(DataInputStream stream) throws IOException {
+        String key = JournalCodec.readString(stream);
+        int type = stream.readByte();
+        Mutation.Type[] types = Mutation.Type.values();
+        if (type < 0 || type >= types.length) {
+            throw new IOException("Type de mutation inconnu : " + type);
+        }
+        String path = (String) JournalCodec.readValue(stream);
+        String guardPath = (String) JournalCodec.readValue(stream);
+        long createdAt = stream.readLong();
+        Map<String, Object> data = JournalCodec.readEntries(stream);
+        return new Mutation(key, types[type], path, guardPath, data, createdAt);
+    }
+}
@@ -0,0 +1,117 @@
+package com.projet.skilllearn.utils;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Écritures multi-chemins sur la progression des utilisateurs.
+ * Les inscriptions construisent la table chemin -> valeur d'un seul updateChildren() à la racine :
+ * Firebase applique l'ensemble de façon atomique, sans lecture préalable. Les fins de section
+ * sont appliquées dans une transaction sur le nœud de progression du cours.
+ * Les compteurs reçoivent une valeur d'incrément fournie par l'appelant
+ * (ServerValue.increment() dans l'application), pour garder cette classe indépendante de Firebase.
+ */
+public final class ProgressWrites {
+
+    static final String USER_PROGRESS = "user_progress";
+    static final String COURSES = "courses";
+
+    public static final String PERCENTAGE = "percentage";
+    public static final String COMPLETED_SECTIONS = "completedSections";
+    public static final String SECTIONS = "sections";
+
+    /**
+     * Vue modifiable du nœud de progression d'un cours (user_progress/{uid}/{courseId}),
+     * par exemple le MutableData d'une transaction Firebase
+     */
+    public interface ProgressNode {
+        /**
+         * @param path Chemin relatif au nœud ("sections/s1/completed")
+         * @return la valeur, ou null si elle est absente
+         */
+        Object get(String path);
+
+        void set(String path, Object value);
+
+        /**
+         * @return les clés des enfants du chemin relatif
+         */
+        Iterable<String> childKeys(String path);
+    }
+
+    private ProgressWrites() {
+    }
+
+    /**
+     * Inscription à un cours : nœud de progression initial et incrément du nombre d'inscrits
+     * @param userId ID de l'utilisateur
+     * @param courseId ID du cours
+     * @param shard Fragment du compteur à incrémenter (ShardedCounter.pickShard())
+     * @param enrolledAt Date d'inscription (ms)
+     * @param enrolledCountIncrement Incrément atomique appliqué au compteur
+     * @return les chemins à écrire depuis la racine de la base
+     */
+    public static Map<String, Object> enrollment(String userId, String courseId, int shard,
+                                                 long enrolledAt, Object enrolledCountIncrement) {
+        String progressPath = USER_PROGRESS + "/" + userId + "/" + courseId;
+
+        Map<String, Object> updates = new HashMap<>();
+        updates.put(progressPath + "/percentage", 0);
+        updates.put(progressPath + "/enrolledAt", enrolledAt);
+        updates.put(ShardedCounter.incrementPath(courseId, shard), enrolledCountIncrement);
+        return updates;
+    }
+
+    /**
+     * Marque une section comme terminée et met à jour le compteur de sections terminées
+     * et le pourcentage, dans le même nœud. Destinée à une transaction sur le nœud de
+     * progression du cours : une section déjà terminée n'est jamais comptée deux fois.
+     * Si le compteur n'existe pas encore (progression antérieure), il est initialisé une
+     * fois à partir des sections déjà terminées.
+     * @param node Nœud de progression du cours
+     * @param sectionId ID de la section terminée
+     * @param totalSections Nombre total de sections du cours
+     * @param completedAt Date de fin de la section (ms)
+     * @return false si la section était déjà terminée (rien n'est modifié)
+     */
+    public static boolean completeSection(ProgressNode node, String sectionId, int totalSections,
+                                          long completedAt) {
+        String sectionPath = SECTIONS + "/" + sectionId;
+        if (Boolean.TRUE.equals(node.get(sectionPath + "/completed"))) {
+            return false;
+        }
+
+        Object counter = node.get(COMPLETED_SECTIONS);
+        long completed = counter instanceof Number
+                ? ((Number) counter).longValue()
+                : countCompletedSections(node);
+        completed++;
+
+        node.set(sectionPath + "/completed", true);
+        node.set(sectionPath + "/completedAt", completedAt);
+        node.set(COMPLETED_SECTIONS, completed);
+        node.set(PERCENTAGE, percentage(completed, totalSections));
+        node.set("lastUpdated", completedAt);
+        return true;
+    }
+
+    /**
+     * Pourcentage de progression (0-100) dérivé du nombre de sections terminées
+     */
+    public static int percentage(long completedSections, int totalSections) {
+        if (totalSections <= 0) {
+            return 0;
+        }
+        return (int) Math.min(100, completedSections * 100 / totalSections);
+    }
+
+    private static long countCompletedSections(ProgressNode node) {
+        long completed = 0;
+        for (String key : node.childKeys(SECTIONS)) {
+            if (Boolean.TRUE.equals(node.get(SECTIONS + "/" + key + "/completed"))) {
+                completed++;
+            }
+        }
+        return completed;
+    }
+}
@@ -0,0 +1,170 @@
+package com.projet.skilllearn.utils;
+
+import com.projet.skilllearn.model.CourseSection;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+/**
+ * Préchargement de la section suivante du lecteur de cours.
+ * Pendant que la section i est affichée, le début de la vidéo de la section i+1 est mis en
+ * cache disque et son contenu HTML est mis en forme en arrière-plan : passer à la section
+ * suivante ne repart pas de zéro. Un seul préchargement vidéo est actif à la fois ; il est
+ * annulé si l'utilisateur change de section avant sa fin.
+ * @param <T> Contenu mis en forme (Spanned dans l'application)
+ */
+public class SectionPrefetcher<T> {
+
+    // Nombre de contenus mis en forme gardés en mémoire
+    static final int MAX_PREPARED_CONTENTS = 4;
+    // Nombre de vidéos dont le début est connu comme déjà en cache
+    static final int MAX_WARMED_VIDEOS = 32;
+
+    private final VideoWarmer warmer;
+    private final ContentRenderer<T> renderer;
+    private final Executor background;
+
+    // Contenus mis en forme, par texte HTML source
+    private final Map<String, T> prepared = lruMap(MAX_PREPARED_CONTENTS);
+    private final Map<String, Boolean> warmed = lruMap(MAX_WARMED_VIDEOS);
+    private String rendering;
+    private String warmingUrl;
+    private Cancellable warming;
+
+    /**
+     * Mise en cache du début d'une vidéo (cache disque d'ExoPlayer dans l'application)
+     */
+    public interface VideoWarmer {
+        /**
+         * @param videoUrl URL de la vidéo
+         * @param onDone Appelé une fois le début de la vidéo en cache
+         * @return la tâche en cours, ou null si cette vidéo ne peut pas être préchargée
+         */
+        Cancellable warm(String videoUrl, Runnable onDone);
+    }
+
+    /**
+     * Tâche de préchargement annulable
+     */
+    public interface Cancellable {
+        void cancel();
+    }
+
+    /**
+     * Mise en forme d'un contenu HTML, appelée hors du thread principal
+     */
+    public interface ContentRenderer<T> {
+        T render(String html);
+    }
+
+    /**
+     * @param warmer Mise en cache des vidéos
+     * @param renderer Mise en forme des contenus
+     * @param background Exécuteur des mises en forme
+     */
+    public SectionPrefetcher(VideoWarmer warmer, ContentRenderer<T> renderer, Executor background) {
+        this.warmer = warmer;
+        this.renderer = renderer;
+        this.background = background;
+    }
+
+    /**
+     * Précharge la section qui suit la section affichée
+     * @param sections Sections du cours, dans l'ordre
+     * @param index Index de la section affichée
+     */
+    public void onSectionShown(List<CourseSection> sections, int index) {
+        if (sections == null || index + 1 >= sections.size()) {
+            cancel();
+            return;
+        }
+        CourseSection next = sections.get(index + 1);
+        warmVideo(next.getVideoUrl());
+        renderContent(next.getContent());
+    }
+
+    /**
+     * Contenu déjà mis en forme pour un texte HTML
+     * @param html Contenu de la section
+     * @return le contenu mis en forme, ou null s'il n'a pas été préparé
+     */
+    public synchronized T getPreparedContent(String html) {
+        return html != null ? prepared.get(html) : null;
+    }
+
+    /**
+     * Annule le préchargement vidéo en cours (fermeture du lecteur)
+     */
+    public void cancel() {
+        Cancellable current;
+        synchronized (this) {
+            current = warming;
+            warming = null;
+            warmingUrl = null;
+        }
+        if (current != null) {
+            current.cancel();
+        }
+    }
+
+    private void warmVideo(String videoUrl) {
+        if (videoUrl == null || videoUrl.isEmpty()) {
+            return;
+        }
+        synchronized (this) {
+            if (videoUrl.equals(warmingUrl) || warmed.containsKey(videoUrl)) {
+                return;
+            }
+        }
+        cancel();
+
+        Cancellable task = warmer.warm(videoUrl, () -> {
+            synchronized (SectionPrefetcher.this) {
+                warmed.put(videoUrl, Boolean.TRUE);
+                if (videoUrl.equals(warmingUrl)) {
+                    warming = null;
+                    warmingUrl = null;
+                }
+            }
+        });
+        synchronized (this) {
+            // La tâche a pu se terminer pendant l'appel
+            if (task != null && !warmed.containsKey(videoUrl)) {
+                warming = task;
+                warmingUrl = videoUrl;
+            }
+        }
+    }
+
+    private void renderContent(String html) {
+        if (html == null || html.isEmpty()) {
+            return;
+        }
+        synchronized (this) {
+            if (prepared.containsKey(html) || html.equals(rendering)) {
+                return;
+            }
+            rendering = html;
+        }
+        background.execute(() -> {
+            T result = renderer.render(html);
+            synchronized (SectionPrefetcher.this) {
+                prepared.put(html, result);
+                if (html.equals(rendering)) {
+                    rendering = null;
+                }
+            }
+        });
+    }
+
+    private static <K, V> Map<K, V> lruMap(int capacity) {
+        return new LinkedHashMap<K, V>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+}
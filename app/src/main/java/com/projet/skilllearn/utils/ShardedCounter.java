@@ -0,0 +1,67 @@
+package com.projet.skilllearn.utils;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Compteur d'inscrits réparti en fragments pour les cours très suivis.
+ * Un cours non fragmenté incrémente directement "enrolledCount" ; un cours dont
+ * "counterShards" vaut N > 1 incrémente un fragment tiré au hasard parmi
+ * "enrolledShards/0" à "enrolledShards/N-1", ce qui répartit les écritures concurrentes.
+ * "enrolledCount" conserve alors les inscriptions antérieures à la fragmentation :
+ * le total est la somme de ce socle et des fragments, calculée à la lecture.
+ */
+public final class ShardedCounter {
+
+    public static final String BASE_FIELD = "enrolledCount";
+    public static final String SHARDS_FIELD = "enrolledShards";
+    public static final String SHARD_COUNT_FIELD = "counterShards";
+
+    // Au-delà, la lecture du total coûterait plus que la contention évitée
+    public static final int MAX_SHARDS = 64;
+
+    // Fragment désignant le compteur non fragmenté
+    public static final int NO_SHARD = -1;
+
+    private ShardedCounter() {
+    }
+
+    /**
+     * Tire le fragment à incrémenter
+     * @param shardCount Nombre de fragments configuré pour le cours (0 ou 1 : non fragmenté)
+     * @return l'index du fragment, ou NO_SHARD
+     */
+    public static int pickShard(int shardCount) {
+        int shards = Math.min(shardCount, MAX_SHARDS);
+        return shards > 1 ? ThreadLocalRandom.current().nextInt(shards) : NO_SHARD;
+    }
+
+    /**
+     * Chemin du compteur à incrémenter, depuis la racine de la base
+     * @param courseId ID du cours
+     * @param shard Index du fragment, ou NO_SHARD
+     */
+    public static String incrementPath(String courseId, int shard) {
+        String coursePath = ProgressWrites.COURSES + "/" + courseId + "/";
+        return shard == NO_SHARD
+                ? coursePath + BASE_FIELD
+                : coursePath + SHARDS_FIELD + "/" + shard;
+    }
+
+    /**
+     * Total des inscrits : socle et somme des fragments
+     * @param base Valeur de "enrolledCount"
+     * @param shards Valeurs des fragments (les valeurs nulles sont ignorées)
+     * @return le total, plafonné à Integer.MAX_VALUE
+     */
+    public static int rollup(long base, Iterable<? extends Number> shards) {
+        long total = Math.max(0, base);
+        if (shards != null) {
+            for (Number shard : shards) {
+                if (shard != null) {
+                    total += Math.max(0, shard.longValue());
+                }
+            }
+        }
+        return (int) Math.min(total, Integer.MAX_VALUE);
+    }
+}
@@ -0,0 +1,254 @@
+package com.projet.skilllearn.utils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Conversion des instantanés Firebase en objets du modèle hors du thread principal.
+ * Firebase appelle onDataChange sur le thread principal ; la conversion par réflexion
+ * (getValue(Course.class)...) d'un gros nœud y provoquait des saccades. Les instantanés
+ * sont confiés à un petit groupe de threads, et seul le résultat final revient.
+ * Chaque flux (un écouteur, voir stream()) est identifié par une clé : un instantané plus
+ * récent remplace celui qui attend encore, et le résultat d'un instantané dépassé n'est
+ * jamais livré. La file est ainsi bornée par le nombre de flux actifs.
+ * Utilise le pattern Singleton : appeler initialize() au démarrage.
+ */
+public class SnapshotMapper {
+
+    // Threads de conversion
+    static final int THREADS = 2;
+
+    private static SnapshotMapper instance;
+
+    private final Executor background;
+    private final Executor main;
+
+    // Dernier instantané reçu par flux tant qu'il n'est pas livré, et conversion en attente d'un thread
+    private final Map<String, Long> latest = new HashMap<>();
+    private final Map<String, Job<?, ?>> pending = new HashMap<>();
+    // Conversions planifiées et pas encore livrées, et actions qui attendent qu'il n'y en ait plus
+    private int inFlight;
+    private long sequence;
+    private long streams;
+    private final List<Runnable> idleActions = new ArrayList<>();
+    private long mappedCount;
+    private long mappingNanos;
+    private long worstMappingNanos;
+
+    /**
+     * Conversion d'un instantané, appelée hors du thread principal
+     */
+    public interface Mapper<S, T> {
+        T map(S snapshot);
+    }
+
+    /**
+     * Réception du résultat
+     */
+    public interface Callback<T> {
+        void onMapped(T result);
+    }
+
+    private static final class Job<S, T> {
+        final long sequence;
+        final S snapshot;
+        final Mapper<S, T> mapper;
+        final Callback<T> callback;
+        final boolean onMain;
+
+        Job(long sequence, S snapshot, Mapper<S, T> mapper, Callback<T> callback, boolean onMain) {
+            this.sequence = sequence;
+            this.snapshot = snapshot;
+            this.mapper = mapper;
+            this.callback = callback;
+            this.onMain = onMain;
+        }
+    }
+
+    /**
+     * Constructeur (utiliser initialize() et getInstance() dans l'application)
+     * @param background Exécuteur des conversions
+     * @param main Exécuteur du thread principal
+     */
+    SnapshotMapper(Executor background, Executor main) {
+        this.background = background;
+        this.main = main;
+    }
+
+    /**
+     * Crée l'instance unique
+     * @param main Exécuteur du thread principal
+     */
+    public static synchronized void initialize(Executor main) {
+        if (instance == null) {
+            ThreadFactory threads = runnable -> {
+                Thread thread = new Thread(runnable, "snapshot-mapper");
+                // Priorité Java 4 : niveau "arrière-plan" d'Android, sous le thread principal
+                thread.setPriority(Thread.NORM_PRIORITY - 1);
+                thread.setDaemon(true);
+                return thread;
+            };
+            instance = new SnapshotMapper(Executors.newFixedThreadPool(THREADS, threads), main);
+        }
+    }
+
+    /**
+     * Obtient l'instance unique
+     * @return le convertisseur, ou null si initialize() n'a pas été appelé
+     */
+    public static synchronized SnapshotMapper getInstance() {
+        return instance;
+    }
+
+    /**
+     * Crée la clé d'un flux propre à son propriétaire : deux écrans qui écoutent le même nœud
+     * ne se remplacent pas l'un l'autre
+     * @param name Nom du flux, pour le débogage
+     */
+    public synchronized String stream(String name) {
+        return name + "#" + (++streams);
+    }
+
+    /**
+     * Convertit un instantané hors du thread principal et livre le résultat sur le thread principal
+     * @param key Flux auquel appartient l'instantané (un écouteur, une requête)
+     * @param snapshot Instantané reçu
+     * @param mapper Conversion
+     * @param callback Reçoit le résultat, sauf si un instantané plus récent du même flux est arrivé
+     */
+    public <S, T> void map(String key, S snapshot, Mapper<S, T> mapper, Callback<T> callback) {
+        submit(key, snapshot, mapper, callback, true);
+    }
+
+    /**
+     * Conversion d'une lecture ponctuelle, jamais remplacée par une autre
+     */
+    public <S, T> void mapOnce(S snapshot, Mapper<S, T> mapper, Callback<T> callback) {
+        map(stream("once"), snapshot, mapper, callback);
+    }
+
+    /**
+     * Comme map(), mais le résultat est livré sur le thread de conversion : à réserver à
+     * LiveData.postValue() et aux autres réceptions sûres depuis n'importe quel thread
+     */
+    public <S, T> void mapAndPost(String key, S snapshot, Mapper<S, T> mapper, Callback<T> callback) {
+        submit(key, snapshot, mapper, callback, false);
+    }
+
+    /**
+     * Exécute une action sur le thread principal une fois livrées toutes les conversions
+     * déjà demandées (fin d'un chargement initial reçu enfant par enfant)
+     */
+    public void whenIdle(Runnable action) {
+        synchronized (this) {
+            if (inFlight > 0) {
+                idleActions.add(action);
+                return;
+            }
+        }
+        main.execute(action);
+    }
+
+    /**
+     * @return le nombre de conversions faites hors du thread principal et leur durée
+     */
+    public synchronized String describeStats() {
+        return String.format("%d instantanés convertis hors du thread principal, %.1f ms au total, %.1f ms au pire",
+                mappedCount, mappingNanos / 1e6, worstMappingNanos / 1e6);
+    }
+
+    synchronized long getMappedCount() {
+        return mappedCount;
+    }
+
+    private <S, T> void submit(String key, S snapshot, Mapper<S, T> mapper, Callback<T> callback, boolean onMain) {
+        boolean scheduled;
+        synchronized (this) {
+            latest.put(key, ++sequence);
+            // Un instantané en attente est remplacé : sa conversion n'est pas planifiée une seconde fois
+            scheduled = pending.put(key, new Job<>(sequence, snapshot, mapper, callback, onMain)) != null;
+            if (!scheduled) {
+                inFlight++;
+            }
+        }
+        if (!scheduled) {
+            background.execute(() -> run(key));
+        }
+    }
+
+    private void run(String key) {
+        Job<?, ?> job;
+        synchronized (this) {
+            job = pending.remove(key);
+        }
+        try {
+            if (job != null) {
+                run(key, job);
+            }
+        } finally {
+            onJobDone();
+        }
+    }
+
+    private void onJobDone() {
+        List<Runnable> ready = null;
+        synchronized (this) {
+            inFlight--;
+            if (inFlight == 0 && !idleActions.isEmpty()) {
+                ready = new ArrayList<>(idleActions);
+                idleActions.clear();
+            }
+        }
+        if (ready != null) {
+            // Postées après les livraisons sur le thread principal : elles passent après elles
+            for (Runnable action : ready) {
+                main.execute(action);
+            }
+        }
+    }
+
+    private <S, T> void run(String key, Job<S, T> job) {
+        long start = System.nanoTime();
+        T result = job.mapper.map(job.snapshot);
+        long elapsed = System.nanoTime() - start;
+        synchronized (this) {
+            mappedCount++;
+            mappingNanos += elapsed;
+            worstMappingNanos = Math.max(worstMappingNanos, elapsed);
+        }
+
+        if (job.onMain) {
+            main.execute(() -> {
+                if (takeLatest(key, job.sequence)) {
+                    job.callback.onMapped(result);
+                }
+            });
+        } else {
+            // Sous le verrou : deux résultats du même flux ne peuvent pas être livrés dans le désordre
+            synchronized (this) {
+                if (takeLatest(key, job.sequence)) {
+                    job.callback.onMapped(result);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return true si l'instantané est le dernier reçu pour ce flux ; le flux est alors oublié
+     * jusqu'au prochain instantané (les numéros sont uniques : un résultat plus ancien encore
+     * en cours de conversion ne peut pas être pris pour le dernier)
+     */
+    private synchronized boolean takeLatest(String key, long sequence) {
+        Long current = latest.get(key);
+        if (current == null || current != sequence) {
+            return false;
+        }
+        latest.remove(key);
+        return true;
+    }
+}
@@ -1,17 +1,24 @@
 package com.projet.skilllearn.utils;
 
+import android.util.Log;
+
 import androidx.annotation.NonNull;
 
 import com.google.android.gms.tasks.OnCompleteListener;
 import com.google.android.gms.tasks.OnSuccessListener;
 import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.TaskCompletionSource;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.database.DataSnapshot;
 import com.google.firebase.database.DatabaseError;
 import com.google.firebase.database.DatabaseReference;
 import com.google.firebase.database.FirebaseDatabase;
+import com.google.firebase.database.ServerValue;
 import com.google.firebase.database.ValueEventListener;
 import com.projet.skilllearn.model.Achievement;
+import com.projet.skilllearn.model.Course;
+import com.projet.skilllearn.repository.CourseIndex;
+import com.projet.skilllearn.repository.ModelCodec;
 
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -24,6 +31,8 @@ import java.util.Map;
  */
 public class UserProgressManager {
 
+    private static final String TAG = "UserProgressManager";
+
     private static UserProgressManager instance;
     private final FirebaseDatabase database;
     private final FirebaseAuth auth;
@@ -129,6 +138,8 @@ public class UserProgressManager {
 
     /**
      * Met à jour la progression d'un cours
+     * L'écriture passe par la file d'écritures différées : les mises à jour rapprochées
+     * d'un même cours sont fusionnées (la dernière valeur l'emporte) et envoyées par lots.
      * @param courseId ID du cours
      * @param percentage pourcentage de progression (0-100)
      */
@@ -139,28 +150,31 @@ public class UserProgressManager {
         }
 
         String userId = auth.getCurrentUser().getUid();
-        DatabaseReference progressRef = database.getReference("user_progress")
-                .child(userId).child(courseId);
+        String progressPath = "user_progress/" + userId + "/" + courseId + "/";
 
         Map<String, Object> progressData = new HashMap<>();
-        progressData.put("percentage", percentage);
-        progressData.put("lastUpdated", System.currentTimeMillis());
+        progressData.put(progressPath + ProgressWrites.PERCENTAGE, percentage);
+        progressData.put(progressPath + "lastUpdated", System.currentTimeMillis());
+        WriteBehindQueue.getInstance().setAll(progressData);
 
-        progressRef.updateChildren(progressData).addOnSuccessListener(unused -> {
-            // Notifier les écouteurs
-            if (progressUpdateListener != null) {
-                progressUpdateListener.onProgressUpdated(courseId, percentage);
-            }
+        // Notifier les écouteurs sans attendre l'envoi du lot
+        if (progressUpdateListener != null) {
+            progressUpdateListener.onProgressUpdated(courseId, percentage);
+        }
 
-            // Vérifier si le cours est complété
-            if (percentage >= 100) {
-                checkCourseCompletion(courseId);
-            }
-        });
+        // Vérifier si le cours est complété
+        if (percentage >= 100) {
+            checkCourseCompletion(courseId);
+        }
     }
 
     /**
      * Marque une section d'un cours comme complétée
+     * Le drapeau de la section, le compteur de sections terminées et le pourcentage sont
+     * écrits ensemble dans une transaction sur le nœud de progression du cours : le
+     * pourcentage est dérivé du compteur sans relire les sections, et une section déjà
+     * terminée (double événement, autre appareil) n'est pas comptée deux fois.
+     * La mutation passe par le journal : hors ligne, elle est rejouée au retour du réseau.
      * @param courseId ID du cours
      * @param sectionId ID de la section
      * @param totalSections nombre total de sections dans le cours
@@ -171,16 +185,35 @@ public class UserProgressManager {
         }
 
         String userId = auth.getCurrentUser().getUid();
-        DatabaseReference sectionRef = database.getReference("user_progress")
-                .child(userId).child(courseId).child("sections").child(sectionId);
+        MutationJournal.Mutation mutation = MutationJournal.Mutation.sectionCompleted(
+                "section/" + userId + "/" + courseId + "/" + sectionId,
+                "user_progress/" + userId + "/" + courseId,
+                sectionId, totalSections, System.currentTimeMillis());
+
+        MutationJournal.getInstance().enqueue(mutation, new MutationJournal.Callback() {
+            @Override
+            public void onApplied(Object value) {
+                // null : la section était déjà terminée
+                if (!(value instanceof Integer)) {
+                    return;
+                }
+                int percentage = (Integer) value;
 
-        Map<String, Object> sectionData = new HashMap<>();
-        sectionData.put("completed", true);
-        sectionData.put("completedAt", System.currentTimeMillis());
+                // Notifier les écouteurs
+                if (progressUpdateListener != null) {
+                    progressUpdateListener.onProgressUpdated(courseId, percentage);
+                }
+
+                // Vérifier si le cours est complété
+                if (percentage >= 100) {
+                    checkCourseCompletion(courseId);
+                }
+            }
 
-        sectionRef.setValue(sectionData).addOnSuccessListener(unused -> {
-            // Mettre à jour la progression globale
-            updateSectionProgress(courseId, totalSections);
+            @Override
+            public void onDropped(String message) {
+                Log.w(TAG, "Fin de section abandonnée : " + message);
+            }
         });
     }
 
@@ -269,7 +302,7 @@ public class UserProgressManager {
             public void onDataChange(@NonNull DataSnapshot snapshot) {
                 List<Achievement> achievements = new ArrayList<>();
                 for (DataSnapshot achievementSnapshot : snapshot.getChildren()) {
-                    Achievement achievement = achievementSnapshot.getValue(Achievement.class);
+                    Achievement achievement = ModelCodec.toAchievement(achievementSnapshot.getValue());
                     if (achievement != null) {
                         achievement.setId(achievementSnapshot.getKey());
                         achievements.add(achievement);
@@ -287,7 +320,14 @@ public class UserProgressManager {
 
     /**
      * Inscrit un utilisateur à un cours
+     * Le nœud de progression et le nombre d'inscrits (ou l'un de ses fragments) sont écrits
+     * en un seul updateChildren() multi-chemins : l'incrément est appliqué par le serveur,
+     * aucune inscription concurrente n'est perdue et l'opération ne coûte qu'un aller-retour.
+     * La mutation passe par le journal ; rejouée après une confirmation perdue, elle n'est pas
+     * renvoyée si la date d'inscription existe déjà, pour ne pas compter l'inscrit deux fois.
      * @param courseId ID du cours
+     * @return une tâche terminée une fois l'inscription confirmée par le serveur (hors ligne,
+     *         au retour du réseau), ou en échec si elle est abandonnée (accès refusé)
      */
     public Task<Void> enrollInCourse(String courseId) {
         if (auth.getCurrentUser() == null) {
@@ -296,67 +336,32 @@ public class UserProgressManager {
 
         String userId = auth.getCurrentUser().getUid();
 
-        // Mettre à jour le progrès utilisateur
-        DatabaseReference userProgressRef = database.getReference("user_progress")
-                .child(userId).child(courseId);
-
-        Map<String, Object> initialData = new HashMap<>();
-        initialData.put("percentage", 0);
-        initialData.put("enrolledAt", System.currentTimeMillis());
-
-        // Mettre à jour le nombre d'inscrits au cours
-        DatabaseReference courseRef = database.getReference("courses")
-                .child(courseId).child("enrolledCount");
-
-        courseRef.get().addOnSuccessListener(dataSnapshot -> {
-            Long currentCount = dataSnapshot.getValue(Long.class);
-            if (currentCount == null) {
-                currentCount = 0L;
-            }
-            courseRef.setValue(currentCount + 1);
-        });
-
-        // Vérifier si c'est le premier cours
-        checkFirstCourseAchievement();
-
-        return userProgressRef.setValue(initialData);
-    }
-
-    /**
-     * Met à jour la progression après avoir complété une section
-     * @param courseId ID du cours
-     * @param totalSections nombre total de sections
-     */
-    private void updateSectionProgress(String courseId, int totalSections) {
-        if (auth.getCurrentUser() == null) {
-            return;
-        }
-
-        String userId = auth.getCurrentUser().getUid();
-        DatabaseReference sectionsRef = database.getReference("user_progress")
-                .child(userId).child(courseId).child("sections");
-
-        sectionsRef.addListenerForSingleValueEvent(new ValueEventListener() {
-            @Override
-            public void onDataChange(@NonNull DataSnapshot snapshot) {
-                int completedSections = 0;
-
-                for (DataSnapshot sectionSnapshot : snapshot.getChildren()) {
-                    Boolean completed = sectionSnapshot.child("completed").getValue(Boolean.class);
-                    if (completed != null && completed) {
-                        completedSections++;
+        // Les cours très suivis répartissent leur compteur sur plusieurs fragments
+        Course course = CourseIndex.getInstance().get(courseId);
+        int shard = ShardedCounter.pickShard(course != null ? course.getCounterShards() : 0);
+
+        Map<String, Object> updates = ProgressWrites.enrollment(
+                userId, courseId, shard, System.currentTimeMillis(), ServerValue.increment(1));
+        String guardPath = "user_progress/" + userId + "/" + courseId + "/enrolledAt";
+
+        TaskCompletionSource<Void> completion = new TaskCompletionSource<>();
+        MutationJournal.getInstance().enqueue(
+                MutationJournal.Mutation.update("enroll/" + userId + "/" + courseId, updates, guardPath),
+                new MutationJournal.Callback() {
+                    @Override
+                    public void onApplied(Object value) {
+                        // Vérifier si c'est le premier cours, une fois l'inscription enregistrée
+                        checkFirstCourseAchievement();
+                        completion.trySetResult(null);
                     }
-                }
 
-                int percentage = (int) ((float) completedSections / totalSections * 100);
-                updateCourseProgress(courseId, percentage);
-            }
-
-            @Override
-            public void onCancelled(@NonNull DatabaseError error) {
-                // Gérer l'erreur
-            }
-        });
+                    @Override
+                    public void onDropped(String message) {
+                        Log.w(TAG, "Inscription abandonnée : " + message);
+                        completion.trySetException(new Exception(message));
+                    }
+                });
+        return completion.getTask();
     }
 
     /**
@@ -435,6 +440,8 @@ public class UserProgressManager {
 
     /**
      * Ajoute un badge de réussite
+     * L'écriture n'a lieu que si le badge n'existe pas encore ; elle passe par le journal
+     * des mutations et survit donc à une coupure réseau.
      * @param achievement le succès à ajouter
      */
     public void addAchievement(Achievement achievement) {
@@ -443,23 +450,13 @@ public class UserProgressManager {
         }
 
         String userId = auth.getCurrentUser().getUid();
-        DatabaseReference achievementRef = database.getReference("user_achievements")
-                .child(userId).child(achievement.getId());
+        String path = "user_achievements/" + userId + "/" + achievement.getId();
 
-        // Vérifier si le succès existe déjà
-        achievementRef.addListenerForSingleValueEvent(new ValueEventListener() {
-            @Override
-            public void onDataChange(@NonNull DataSnapshot snapshot) {
-                if (!snapshot.exists()) {
-                    // Ajouter le succès s'il n'existe pas
-                    achievementRef.setValue(achievement);
-                }
-            }
+        Map<String, Object> achievementData = ModelCodec.fromAchievement(achievement);
 
-            @Override
-            public void onCancelled(@NonNull DatabaseError error) {
-                // Gérer l'erreur
-            }
-        });
+        MutationJournal.getInstance().enqueue(
+                MutationJournal.Mutation.setIfAbsent("achievement/" + userId + "/" + achievement.getId(),
+                        path, achievementData),
+                null);
     }
-}
\ No newline at end of file
+}
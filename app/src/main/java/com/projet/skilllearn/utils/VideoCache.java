@@ -0,0 +1,208 @@
+package com.projet.skilllearn.utils;
+
+import android.content.Context;
+import android.net.Uri;
+import android.util.Log;
+
+import com.google.android.exoplayer2.C;
+import com.google.android.exoplayer2.database.StandaloneDatabaseProvider;
+import com.google.android.exoplayer2.upstream.DataSpec;
+import com.google.android.exoplayer2.upstream.DefaultDataSource;
+import com.google.android.exoplayer2.upstream.HttpDataSource;
+import com.google.android.exoplayer2.upstream.cache.Cache;
+import com.google.android.exoplayer2.upstream.cache.CacheDataSource;
+import com.google.android.exoplayer2.upstream.cache.CacheWriter;
+import com.google.android.exoplayer2.upstream.cache.ContentMetadata;
+import com.google.android.exoplayer2.upstream.cache.LeastRecentlyUsedCacheEvictor;
+import com.google.android.exoplayer2.upstream.cache.NoOpCacheEvictor;
+import com.google.android.exoplayer2.upstream.cache.SimpleCache;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Caches disque bornés des vidéos des cours.
+ * Le cache de lecture reçoit ce que le lecteur lit et le début des vidéos préchargées (warm()).
+ * Le cache des téléchargements garde les vidéos des cours téléchargés pour une lecture hors
+ * ligne (CourseDownloadManager). Le lecteur consulte d'abord les téléchargements, puis le cache
+ * de lecture, puis le réseau. Dans le cache de lecture, les vidéos les moins récemment lues sont
+ * évincées au-delà de la taille maximale. Les téléchargements, choisis par l'utilisateur, ne
+ * sont jamais évincés : au-delà de MAX_DOWNLOAD_BYTES, un nouveau téléchargement est refusé.
+ * Utilise le pattern Singleton : appeler initialize() au démarrage de l'application.
+ */
+public class VideoCache implements SectionPrefetcher.VideoWarmer, CourseDownloadManager.Fetcher {
+    private static final String TAG = "VideoCache";
+
+    // Taille maximale du cache de lecture sur le disque
+    public static final long MAX_CACHE_BYTES = 200L * 1024 * 1024;
+    // Taille maximale des vidéos téléchargées pour une lecture hors ligne
+    public static final long MAX_DOWNLOAD_BYTES = 2L * 1024 * 1024 * 1024;
+    // Volume préchargé au début d'une vidéo (quelques secondes à débit courant)
+    public static final long PREFETCH_BYTES = 2L * 1024 * 1024;
+
+    private static final String FULL = "Espace réservé aux téléchargements plein";
+
+    private static VideoCache instance;
+
+    private final SimpleCache downloadCache;
+    private final CacheDataSource.Factory streamingFactory;
+    private final CacheDataSource.Factory downloadFactory;
+    private final CacheDataSource.Factory playbackFactory;
+    // Un seul préchargement à la fois, pour ne pas concurrencer la lecture en cours
+    private final ExecutorService prefetchExecutor = Executors.newSingleThreadExecutor();
+    // Téléchargements en cours, par URL, pour pouvoir les annuler
+    private final Map<String, CacheWriter> downloads = new ConcurrentHashMap<>();
+
+    private VideoCache(Context context) {
+        StandaloneDatabaseProvider databaseProvider = new StandaloneDatabaseProvider(context);
+        DefaultDataSource.Factory network = new DefaultDataSource.Factory(context);
+
+        SimpleCache streamingCache = new SimpleCache(new File(context.getCacheDir(), "video"),
+                new LeastRecentlyUsedCacheEvictor(MAX_CACHE_BYTES), databaseProvider);
+        streamingFactory = new CacheDataSource.Factory()
+                .setCache(streamingCache)
+                .setUpstreamDataSourceFactory(network)
+                .setFlags(CacheDataSource.FLAG_IGNORE_CACHE_ON_ERROR);
+
+        // Les téléchargements ne sont pas dans le répertoire cache : Android ne les purge pas.
+        // Sans éviction : la limite est appliquée par download()
+        downloadCache = new SimpleCache(new File(context.getFilesDir(), "video_downloads"),
+                new NoOpCacheEvictor(), databaseProvider);
+        downloadFactory = new CacheDataSource.Factory()
+                .setCache(downloadCache)
+                .setUpstreamDataSourceFactory(network);
+        // En lecture seule : ce que le lecteur lit ne remplit pas les téléchargements
+        playbackFactory = new CacheDataSource.Factory()
+                .setCache(downloadCache)
+                .setUpstreamDataSourceFactory(streamingFactory)
+                .setCacheWriteDataSinkFactory(null)
+                .setFlags(CacheDataSource.FLAG_IGNORE_CACHE_ON_ERROR);
+    }
+
+    /**
+     * Crée l'instance unique
+     * @param context Contexte de l'application
+     */
+    public static synchronized void initialize(Context context) {
+        if (instance == null) {
+            instance = new VideoCache(context.getApplicationContext());
+        }
+    }
+
+    /**
+     * Obtient l'instance unique
+     * @return le cache, ou null si initialize() n'a pas été appelé
+     */
+    public static synchronized VideoCache getInstance() {
+        return instance;
+    }
+
+    /**
+     * Source de données du lecteur : téléchargements, puis cache de lecture, puis réseau
+     */
+    public CacheDataSource.Factory getDataSourceFactory() {
+        return playbackFactory;
+    }
+
+    @Override
+    public SectionPrefetcher.Cancellable warm(String videoUrl, Runnable onDone) {
+        DataSpec dataSpec = new DataSpec.Builder()
+                .setUri(Uri.parse(videoUrl))
+                .setLength(PREFETCH_BYTES)
+                .build();
+        CacheWriter writer = new CacheWriter(streamingFactory.createDataSource(), dataSpec, null, null);
+
+        prefetchExecutor.execute(() -> {
+            try {
+                writer.cache();
+                onDone.run();
+            } catch (InterruptedIOException e) {
+                // Préchargement annulé
+            } catch (IOException e) {
+                Log.w(TAG, "Préchargement impossible pour " + videoUrl + " : " + e.getMessage());
+            }
+        });
+        return writer::cancel;
+    }
+
+    @Override
+    public boolean canDownload(String videoUrl) {
+        String host = Uri.parse(videoUrl).getHost();
+        // Les vidéos YouTube sont lues dans une vue web, hors d'ExoPlayer
+        return host != null && !host.contains("youtube.com") && !host.contains("youtu.be");
+    }
+
+    /**
+     * Télécharge une vidéo dans le cache des téléchargements. Refusé (PermanentFailure) si
+     * l'espace réservé est plein ; une vidéo qui le dépasserait est interrompue et retirée.
+     */
+    @Override
+    public void download(String videoUrl, CourseDownloadManager.ProgressListener listener) throws IOException {
+        if (downloadCache.getCacheSpace() >= MAX_DOWNLOAD_BYTES) {
+            throw new CourseDownloadManager.PermanentFailure(FULL);
+        }
+        AtomicBoolean full = new AtomicBoolean(false);
+        CacheWriter[] writer = new CacheWriter[1];
+        writer[0] = new CacheWriter(downloadFactory.createDataSource(),
+                new DataSpec(Uri.parse(videoUrl)), null,
+                (requestLength, bytesCached, newBytesCached) -> {
+                    if (downloadCache.getCacheSpace() > MAX_DOWNLOAD_BYTES && full.compareAndSet(false, true)) {
+                        writer[0].cancel();
+                    }
+                    listener.onProgress(bytesCached);
+                });
+        downloads.put(videoUrl, writer[0]);
+        try {
+            writer[0].cache();
+        } catch (InterruptedIOException e) {
+            if (full.get()) {
+                remove(videoUrl);
+                throw new CourseDownloadManager.PermanentFailure(FULL, e);
+            }
+            throw e;
+        } catch (HttpDataSource.InvalidResponseCodeException e) {
+            // Vidéo absente ou refusée : réessayer au retour du réseau n'y changerait rien
+            if (e.responseCode >= 400 && e.responseCode < 500 && e.responseCode != 408 && e.responseCode != 429) {
+                throw new CourseDownloadManager.PermanentFailure("Vidéo indisponible (HTTP " + e.responseCode + ")", e);
+            }
+            throw e;
+        } catch (Cache.CacheException e) {
+            throw new CourseDownloadManager.PermanentFailure("Écriture impossible dans les téléchargements", e);
+        } finally {
+            downloads.remove(videoUrl);
+        }
+    }
+
+    @Override
+    public void cancel(String videoUrl) {
+        CacheWriter writer = downloads.get(videoUrl);
+        if (writer != null) {
+            writer.cancel();
+        }
+    }
+
+    @Override
+    public boolean isStored(String videoUrl) {
+        String key = keyOf(videoUrl);
+        long length = ContentMetadata.getContentLength(downloadCache.getContentMetadata(key));
+        return length != C.LENGTH_UNSET && downloadCache.isCached(key, 0, length);
+    }
+
+    @Override
+    public void remove(String videoUrl) {
+        downloadCache.removeResource(keyOf(videoUrl));
+    }
+
+    /**
+     * Clé d'une vidéo dans les caches (clé par défaut d'ExoPlayer : l'URI)
+     */
+    private static String keyOf(String videoUrl) {
+        return Uri.parse(videoUrl).toString();
+    }
+}
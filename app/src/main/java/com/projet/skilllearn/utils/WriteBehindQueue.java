@@ -0,0 +1,397 @@
+package com.projet.skilllearn.utils;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * File d'écritures différées (write-behind) pour les petites écritures fréquentes :
+ * progression, résultats de quiz, notes.
+ * Les écritures sont regroupées par chemin (la dernière valeur l'emporte) puis envoyées
+ * ensemble dans une seule mise à jour multi-chemins, après un court délai ou dès que le
+ * lot atteint sa taille maximale. Chaque écriture est ajoutée à un journal local, relu au
+ * démarrage : une écriture acceptée n'est pas perdue si le processus est tué avant l'envoi.
+ * L'ajout au journal se fait sur l'exécuteur de la file, jamais sur le thread appelant.
+ * Un lot envoyé reste dans ce journal jusqu'à sa confirmation par la destination, qui n'a donc
+ * pas à le journaliser à nouveau (voir MutationJournal.write).
+ * Utilise le pattern Singleton : appeler initialize() au démarrage.
+ */
+public class WriteBehindQueue {
+
+    // Délai entre la première écriture d'un lot et son envoi
+    public static final long DEFAULT_FLUSH_DELAY_MS = 2000L;
+    // Nombre de chemins au-delà duquel le lot est envoyé sans attendre
+    public static final int DEFAULT_MAX_BATCH_SIZE = 25;
+    // Délai maximal entre deux tentatives après un échec
+    static final long MAX_RETRY_DELAY_MS = 60_000L;
+
+    private static final int MAGIC = 0x534b5751;
+    private static final int FORMAT_VERSION = 1;
+
+
+    private static WriteBehindQueue instance;
+
+    private final File journal;
+    private final Sink sink;
+    private final Scheduler scheduler;
+    private final long flushDelayMs;
+    private final int maxBatchSize;
+
+    // Écritures en attente, par chemin, dans l'ordre de leur première écriture
+    private final Map<String, Object> pending = new LinkedHashMap<>();
+    // Lot en cours d'envoi, ou null
+    private Map<String, Object> inFlight;
+    private boolean flushScheduled;
+    private int failures;
+    private DataOutputStream journalOut;
+
+    /**
+     * Destination des lots (le journal des mutations dans l'application)
+     */
+    public interface Sink {
+        /**
+         * Applique un lot en une seule mise à jour multi-chemins
+         * @param updates Chemins depuis la racine et leurs valeurs
+         * @param callback À appeler une fois l'écriture confirmée ou refusée
+         */
+        void write(Map<String, Object> updates, SinkCallback callback);
+    }
+
+    /**
+     * Résultat de l'envoi d'un lot
+     */
+    public interface SinkCallback {
+        void onSuccess();
+
+        /**
+         * Échec temporaire : le lot est renvoyé plus tard
+         */
+        void onError(String message);
+
+        /**
+         * Le lot ne pourra jamais être appliqué (accès refusé, valeur invalide) : il est abandonné
+         */
+        void onRejected(String message);
+    }
+
+    /**
+     * Planification des envois, injectable pour les tests
+     */
+    public interface Scheduler {
+        void execute(Runnable task);
+        void schedule(Runnable task, long delayMs);
+    }
+
+    /**
+     * Constructeur (utiliser initialize() et getInstance() dans l'application)
+     * @param journal Fichier du journal des écritures en attente
+     * @param sink Destination des lots
+     * @param scheduler Exécuteur des envois
+     * @param flushDelayMs Délai avant l'envoi d'un lot
+     * @param maxBatchSize Taille de lot déclenchant un envoi immédiat
+     */
+    WriteBehindQueue(File journal, Sink sink, Scheduler scheduler, long flushDelayMs, int maxBatchSize) {
+        this.journal = journal;
+        this.sink = sink;
+        this.scheduler = scheduler;
+        this.flushDelayMs = flushDelayMs;
+        this.maxBatchSize = maxBatchSize;
+        replayJournal();
+    }
+
+    /**
+     * Crée l'instance unique ; les écritures journalisées lors d'une exécution précédente
+     * sont rechargées puis envoyées
+     * @param journal Fichier du journal
+     * @param sink Destination des lots
+     */
+    public static synchronized void initialize(File journal, Sink sink) {
+        if (instance == null) {
+            ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+            instance = new WriteBehindQueue(journal, sink, new Scheduler() {
+                @Override
+                public void execute(Runnable task) {
+                    executor.execute(task);
+                }
+
+                @Override
+                public void schedule(Runnable task, long delayMs) {
+                    executor.schedule(task, delayMs, TimeUnit.MILLISECONDS);
+                }
+            }, DEFAULT_FLUSH_DELAY_MS, DEFAULT_MAX_BATCH_SIZE);
+        }
+    }
+
+    /**
+     * Obtient l'instance unique
+     * @return la file, ou null si initialize() n'a pas été appelé
+     */
+    public static synchronized WriteBehindQueue getInstance() {
+        return instance;
+    }
+
+    /**
+     * Ajoute une écriture à la file
+     * @param path Chemin depuis la racine ("user_progress/uid/courseId/percentage")
+     * @param value Valeur : null, Boolean, Integer, Long, Double, String, List ou Map de ces types
+     */
+    public void set(String path, Object value) {
+        setAll(Collections.singletonMap(path, value));
+    }
+
+    /**
+     * Ajoute plusieurs écritures à la file, en une fois : elles partent toujours dans le
+     * même lot, même si elles lui font dépasser sa taille maximale
+     * @param updates Chemins depuis la racine et leurs valeurs
+     */
+    public void setAll(Map<String, Object> updates) {
+        for (Object value : updates.values()) {
+            JournalCodec.checkValue(value);
+        }
+        Map<String, Object> entries = new LinkedHashMap<>(updates);
+        boolean flushNow;
+        synchronized (this) {
+            for (Map.Entry<String, Object> entry : entries.entrySet()) {
+                merge(pending, entry.getKey(), entry.getValue());
+            }
+            // Planifié sous le verrou : les enregistrements suivent l'ordre des écritures, et un
+            // lot n'est confirmé (journal réécrit) qu'après l'ajout de ses écritures
+            scheduler.execute(() -> appendToJournal(entries));
+            flushNow = pending.size() >= maxBatchSize;
+            // Pendant un envoi, la suite est planifiée à sa fin (délai normal ou attente après échec)
+            if (!flushNow && !flushScheduled && inFlight == null) {
+                flushScheduled = true;
+                scheduler.schedule(this::flush, flushDelayMs);
+            }
+        }
+        if (flushNow) {
+            scheduler.execute(this::flush);
+        }
+    }
+
+    /**
+     * Envoie immédiatement le lot en attente ; appelé quand l'application passe en arrière-plan
+     * (voir SkillLearnApplication)
+     */
+    public void flush() {
+        Map<String, Object> batch;
+        synchronized (this) {
+            flushScheduled = false;
+            if (inFlight != null || pending.isEmpty()) {
+                return;
+            }
+            batch = new LinkedHashMap<>(pending);
+            pending.clear();
+            inFlight = batch;
+        }
+
+        sink.write(batch, new SinkCallback() {
+            @Override
+            public void onSuccess() {
+                // Le callback peut arriver sur le thread principal : le journal est réécrit ailleurs
+                scheduler.execute(WriteBehindQueue.this::onBatchWritten);
+            }
+
+            @Override
+            public void onError(String message) {
+                scheduler.execute(WriteBehindQueue.this::onBatchFailed);
+            }
+
+            @Override
+            public void onRejected(String message) {
+                // Le journal des mutations compte déjà l'abandon dans ses métriques
+                scheduler.execute(WriteBehindQueue.this::onBatchWritten);
+            }
+        });
+    }
+
+    /**
+     * Nombre de chemins en attente d'envoi (lot en cours compris)
+     */
+    public synchronized int size() {
+        return pending.size() + (inFlight != null ? inFlight.size() : 0);
+    }
+
+    private void onBatchWritten() {
+        boolean more;
+        synchronized (this) {
+            inFlight = null;
+            failures = 0;
+            // Le journal ne garde que ce qui n'a pas encore été envoyé
+            rewriteJournal();
+            more = !pending.isEmpty();
+        }
+        if (more) {
+            scheduleFlush(flushDelayMs);
+        }
+    }
+
+    private void onBatchFailed() {
+        long delay;
+        synchronized (this) {
+            // Remettre le lot en tête, sans écraser les valeurs plus récentes
+            Map<String, Object> retry = new LinkedHashMap<>();
+            for (Map.Entry<String, Object> entry : inFlight.entrySet()) {
+                merge(retry, entry.getKey(), entry.getValue());
+            }
+            for (Map.Entry<String, Object> entry : pending.entrySet()) {
+                merge(retry, entry.getKey(), entry.getValue());
+            }
+            pending.clear();
+            pending.putAll(retry);
+            inFlight = null;
+            failures++;
+            delay = Math.min(MAX_RETRY_DELAY_MS, flushDelayMs << Math.min(failures, 16));
+        }
+        scheduleFlush(delay);
+    }
+
+    private void scheduleFlush(long delayMs) {
+        synchronized (this) {
+            if (flushScheduled) {
+                return;
+            }
+            flushScheduled = true;
+        }
+        scheduler.schedule(this::flush, delayMs);
+    }
+
+    /**
+     * Ajoute une écriture à un lot : elle remplace la valeur du même chemin et celles des
+     * chemins descendants ; sous un chemin ancêtre déjà présent, elle est fusionnée dans sa
+     * valeur, car une mise à jour multi-chemins refuse un chemin et l'un de ses descendants.
+     */
+    static void merge(Map<String, Object> batch, String path, Object value) {
+        String prefix = path + "/";
+        Iterator<String> keys = batch.keySet().iterator();
+        while (keys.hasNext()) {
+            String key = keys.next();
+            if (key.startsWith(prefix)) {
+                keys.remove();
+            }
+        }
+
+        for (Map.Entry<String, Object> entry : batch.entrySet()) {
+            String ancestor = entry.getKey() + "/";
+            if (path.startsWith(ancestor)) {
+                entry.setValue(withChild(entry.getValue(), path.substring(ancestor.length()), value));
+                return;
+            }
+        }
+        batch.remove(path);
+        batch.put(path, value);
+    }
+
+    /**
+     * Copie d'une valeur dans laquelle un chemin relatif est remplacé
+     */
+    @SuppressWarnings("unchecked")
+    private static Object withChild(Object parent, String relativePath, Object value) {
+        Map<String, Object> copy = parent instanceof Map
+                ? new LinkedHashMap<>((Map<String, Object>) parent)
+                : new LinkedHashMap<>();
+        int slash = relativePath.indexOf('/');
+        if (slash < 0) {
+            copy.put(relativePath, value);
+        } else {
+            String key = relativePath.substring(0, slash);
+            copy.put(key, withChild(copy.get(key), relativePath.substring(slash + 1), value));
+        }
+        return copy;
+    }
+
+    /**
+     * Recharge les écritures du journal ; un enregistrement incomplet (processus tué
+     * pendant l'écriture) termine la lecture
+     */
+    private void replayJournal() {
+        if (journal.exists()) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(journal)))) {
+                if (in.readInt() == MAGIC && in.readInt() == FORMAT_VERSION) {
+                    while (true) {
+                        String path = JournalCodec.readString(in);
+                        merge(pending, path, JournalCodec.readValue(in));
+                    }
+                }
+            } catch (EOFException e) {
+                // Fin du journal
+            } catch (IOException | RuntimeException e) {
+                // Fin corrompue : les écritures lues jusque-là sont conservées
+            }
+        }
+        rewriteJournal();
+        if (!pending.isEmpty()) {
+            scheduleFlush(flushDelayMs);
+        }
+    }
+
+    /**
+     * Réécrit le journal avec les seules écritures non confirmées, puis le rouvre en ajout
+     */
+    private void rewriteJournal() {
+        closeJournal();
+        File parent = journal.getParentFile();
+        if (parent != null && !parent.exists()) {
+            parent.mkdirs();
+        }
+        File temp = new File(journal.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            if (inFlight != null) {
+                writeRecords(out, inFlight);
+            }
+            writeRecords(out, pending);
+        } catch (IOException e) {
+            temp.delete();
+            return;
+        }
+        if (!temp.renameTo(journal)) {
+            temp.delete();
+        }
+    }
+
+    private synchronized void appendToJournal(Map<String, Object> entries) {
+        try {
+            if (journalOut == null) {
+                journalOut = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(journal, true)));
+            }
+            writeRecords(journalOut, entries);
+            journalOut.flush();
+        } catch (IOException e) {
+            // Journal indisponible : l'écriture reste en mémoire
+            closeJournal();
+        }
+    }
+
+    private void closeJournal() {
+        if (journalOut != null) {
+            try {
+                journalOut.close();
+            } catch (IOException e) {
+                // Ignoré : le journal sera réécrit
+            }
+            journalOut = null;
+        }
+    }
+
+    private static void writeRecords(DataOutputStream out, Map<String, Object> entries) throws IOException {
+        for (Map.Entry<String, Object> entry : entries.entrySet()) {
+            JournalCodec.writeString(out, entry.getKey());
+            JournalCodec.writeValue(out, entry.getValue());
+        }
+    }
+}
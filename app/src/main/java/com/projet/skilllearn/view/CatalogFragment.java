@@ -22,6 +22,8 @@ import androidx.recyclerview.widget.RecyclerView;
 
 import com.projet.skilllearn.R;
 import com.projet.skilllearn.model.Course;
+import com.projet.skilllearn.repository.CourseQuery;
+import com.projet.skilllearn.utils.FrameMonitor;
 import com.projet.skilllearn.view.adapters.CourseAdapter;
 import com.projet.skilllearn.viewmodel.CourseViewModel;
 
@@ -29,6 +31,9 @@ import java.util.ArrayList;
 
 public class CatalogFragment extends Fragment implements CourseAdapter.OnCourseClickListener {
 
+    // Nombre de lignes restantes avant la fin de la liste à partir duquel la page suivante est demandée
+    private static final int PREFETCH_DISTANCE = 5;
+
     private RecyclerView rvCourses;
     private ProgressBar progressBar;
     private TextView tvEmptyView;
@@ -38,6 +43,7 @@ public class CatalogFragment extends Fragment implements CourseAdapter.OnCourseC
     private Spinner spinnerCategory;
     private Spinner spinnerLevel;
     private Spinner spinnerSort;
+    private FrameMonitor frameMonitor;
 
     @Override
     public View onCreateView(LayoutInflater inflater, ViewGroup container, Bundle savedInstanceState) {
@@ -56,6 +62,7 @@ public class CatalogFragment extends Fragment implements CourseAdapter.OnCourseC
         spinnerCategory = view.findViewById(R.id.spinner_category);
         spinnerLevel = view.findViewById(R.id.spinner_level);
         spinnerSort = view.findViewById(R.id.spinner_sort);
+        frameMonitor = new FrameMonitor(requireContext(), "Catalogue");
 
         // Initialiser le ViewModel
         viewModel = new ViewModelProvider(this).get(CourseViewModel.class);
@@ -63,7 +70,16 @@ public class CatalogFragment extends Fragment implements CourseAdapter.OnCourseC
         // Initialiser l'adaptateur
         adapter = new CourseAdapter(requireContext(), new ArrayList<>(), this);
         rvCourses.setAdapter(adapter);
+        adapter.attachPreloader(rvCourses);
         rvCourses.setLayoutManager(new LinearLayoutManager(requireContext()));
+        rvCourses.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+                if (dy > 0) {
+                    loadNextPageIfNeeded();
+                }
+            }
+        });
 
         // Configurer la barre de recherche
         setupSearchView();
@@ -74,24 +90,25 @@ public class CatalogFragment extends Fragment implements CourseAdapter.OnCourseC
         // Observer les données du ViewModel
         observeViewModel();
 
-        // Charger les cours
-        viewModel.loadAllCourses();
+        // Charger la première page du catalogue (les suivantes au défilement)
+        viewModel.loadCatalog();
     }
 
     private void setupSearchView() {
         searchView.setOnQueryTextListener(new SearchView.OnQueryTextListener() {
             @Override
             public boolean onQueryTextSubmit(String query) {
-                viewModel.searchCourses(query);
+                viewModel.setSearchText(query);
                 return true;
             }
 
             @Override
             public boolean onQueryTextChange(String newText) {
                 // Recherche au fur et à mesure de la saisie, mais seulement si le texte
-                // est vide ou assez long pour éviter des recherches inutiles
+                // est vide ou assez long pour éviter des recherches inutiles ;
+                // le ViewModel attend la fin de la frappe avant de lancer la recherche
                 if (newText.isEmpty() || newText.length() >= 3) {
-                    viewModel.searchCourses(newText);
+                    viewModel.onSearchQueryChanged(newText);
                 }
                 return true;
             }
@@ -111,12 +128,8 @@ public class CatalogFragment extends Fragment implements CourseAdapter.OnCourseC
             @Override
             public void onItemSelected(AdapterView<?> parent, View view, int position, long id) {
                 String category = parent.getItemAtPosition(position).toString();
-                if (position == 0) {
-                    // "Toutes les catégories" est sélectionné
-                    viewModel.loadAllCourses();
-                } else {
-                    viewModel.loadCoursesByCategory(category);
-                }
+                // "Toutes les catégories" (position 0) retire seulement ce filtre
+                viewModel.setCategoryFilter(position == 0 ? null : category);
             }
 
             @Override
@@ -137,12 +150,8 @@ public class CatalogFragment extends Fragment implements CourseAdapter.OnCourseC
             @Override
             public void onItemSelected(AdapterView<?> parent, View view, int position, long id) {
                 String level = parent.getItemAtPosition(position).toString();
-                if (position == 0) {
-                    // "Tous les niveaux" est sélectionné
-                    viewModel.loadAllCourses();
-                } else {
-                    viewModel.filterCoursesByLevel(level);
-                }
+                // "Tous les niveaux" (position 0) retire seulement ce filtre
+                viewModel.setLevelFilter(position == 0 ? null : level);
             }
 
             @Override
@@ -164,16 +173,17 @@ public class CatalogFragment extends Fragment implements CourseAdapter.OnCourseC
             public void onItemSelected(AdapterView<?> parent, View view, int position, long id) {
                 switch (position) {
                     case 1: // "Durée (croissant)"
-                        viewModel.sortCoursesByDuration(true);
+                        viewModel.setSortOrder(CourseQuery.Sort.DURATION_ASC);
                         break;
                     case 2: // "Durée (décroissant)"
-                        viewModel.sortCoursesByDuration(false);
+                        viewModel.setSortOrder(CourseQuery.Sort.DURATION_DESC);
                         break;
                     case 3: // "Popularité"
-                        viewModel.sortCoursesByPopularity();
+                        viewModel.setSortOrder(CourseQuery.Sort.POPULARITY);
                         break;
                     default:
-                        // Ne rien faire, garder l'ordre actuel
+                        // Ordre par défaut (pertinence pour une recherche)
+                        viewModel.setSortOrder(CourseQuery.Sort.DEFAULT);
                         break;
                 }
             }
@@ -188,11 +198,13 @@ public class CatalogFragment extends Fragment implements CourseAdapter.OnCourseC
     private void observeViewModel() {
         viewModel.getCourses().observe(getViewLifecycleOwner(), courses -> {
             if (courses != null && !courses.isEmpty()) {
-                adapter = new CourseAdapter(requireContext(), courses, this);
-                rvCourses.setAdapter(adapter);
+                // Seules les lignes modifiées sont reliées (comparaison hors du thread principal)
+                // Page suivante si la liste ne remplit pas encore l'écran
+                adapter.submitList(courses, this::loadNextPageIfNeeded);
                 rvCourses.setVisibility(View.VISIBLE);
                 tvEmptyView.setVisibility(View.GONE);
             } else {
+                adapter.submitList(null);
                 rvCourses.setVisibility(View.GONE);
                 tvEmptyView.setVisibility(View.VISIBLE);
                 tvEmptyView.setText("Aucun cours disponible");
@@ -211,6 +223,37 @@ public class CatalogFragment extends Fragment implements CourseAdapter.OnCourseC
         });
     }
 
+    @Override
+    public void onResume() {
+        super.onResume();
+        // Mesure des saccades pendant le chargement et le défilement (versions de débogage)
+        frameMonitor.start();
+    }
+
+    @Override
+    public void onPause() {
+        frameMonitor.stop();
+        super.onPause();
+    }
+
+    /**
+     * Demande la page suivante quand le dernier cours visible est à moins de
+     * PREFETCH_DISTANCE lignes de la fin de la liste
+     */
+    private void loadNextPageIfNeeded() {
+        if (rvCourses == null || !viewModel.hasMorePages()) {
+            return;
+        }
+        LinearLayoutManager layoutManager = (LinearLayoutManager) rvCourses.getLayoutManager();
+        if (layoutManager == null) {
+            return;
+        }
+        int lastVisible = layoutManager.findLastVisibleItemPosition();
+        if (lastVisible >= adapter.getItemCount() - 1 - PREFETCH_DISTANCE) {
+            viewModel.loadNextPage();
+        }
+    }
+
     @Override
     public void onCourseClick(Course course) {
         // Naviguer vers l'écran de détail du cours
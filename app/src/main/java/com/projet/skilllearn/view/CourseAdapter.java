@@ -8,22 +8,28 @@ import android.widget.ImageView;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.projet.skilllearn.R;
 import com.projet.skilllearn.model.Course;
-import com.squareup.picasso.Picasso;
+import com.projet.skilllearn.utils.ImageLoader;
+import com.projet.skilllearn.view.adapters.CourseDiffCallback;
 
 import java.util.List;
 
-public class CourseAdapter extends RecyclerView.Adapter<CourseAdapter.CourseViewHolder> {
+/**
+ * Adaptateur simple de la liste des cours ; les listes soumises sont comparées
+ * hors du thread principal (voir CourseDiffCallback)
+ */
+public class CourseAdapter extends ListAdapter<Course, CourseAdapter.CourseViewHolder> {
 
     private final Context context;
-    private final List<Course> courses;
 
     public CourseAdapter(Context context, List<Course> courses) {
+        super(CourseDiffCallback.INSTANCE);
         this.context = context;
-        this.courses = courses;
+        submitList(courses);
     }
 
     @NonNull
@@ -34,11 +40,6 @@ public class CourseAdapter extends RecyclerView.Adapter<CourseAdapter.CourseView
     }
 
 
-    @Override
-    public int getItemCount() {
-        return courses.size();
-    }
-
     static class CourseViewHolder extends RecyclerView.ViewHolder {
         ImageView ivThumbnail;
         TextView tvTitle, tvDescription, tvDuration;
@@ -52,9 +53,18 @@ public class CourseAdapter extends RecyclerView.Adapter<CourseAdapter.CourseView
         }
     }
 
+    @Override
+    public void onBindViewHolder(@NonNull CourseViewHolder holder, int position, @NonNull List<Object> payloads) {
+        // Les payloads ne concernent que le nombre d'inscrits et la progression,
+        // qui ne sont pas affichés ici : rien à relier
+        if (CourseDiffCallback.mergePayloads(payloads) == 0) {
+            onBindViewHolder(holder, position);
+        }
+    }
+
     @Override
     public void onBindViewHolder(@NonNull CourseViewHolder holder, int position) {
-        Course course = courses.get(position);
+        Course course = getItem(position);
 
         holder.tvTitle.setText(course.getTitle());
         holder.tvDescription.setText(course.getDescription());
@@ -63,13 +73,6 @@ public class CourseAdapter extends RecyclerView.Adapter<CourseAdapter.CourseView
         holder.tvDuration.setText(String.format(context.getString(R.string.duration_format), course.getDurationMinutes()));
 
         // Utiliser getImageUrl()
-        if (course.getImageUrl() != null && !course.getImageUrl().isEmpty()) {
-            Picasso.get().load(course.getImageUrl())
-                    .placeholder(R.drawable.placeholder_course)
-                    .error(R.drawable.error_course)
-                    .into(holder.ivThumbnail);
-        } else {
-            holder.ivThumbnail.setImageResource(R.drawable.placeholder_course);
-        }
+        ImageLoader.loadCourseImage(holder.ivThumbnail, course.getImageUrl());
     }
 }
\ No newline at end of file
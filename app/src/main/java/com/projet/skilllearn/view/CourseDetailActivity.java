@@ -22,8 +22,14 @@ import com.google.firebase.database.FirebaseDatabase;
 import com.google.firebase.database.ValueEventListener;
 import com.projet.skilllearn.R;
 import com.projet.skilllearn.model.Course;
+import com.projet.skilllearn.model.CourseSection;
+import com.projet.skilllearn.repository.CourseCache;
 import com.projet.skilllearn.repository.CourseRepository;
-import com.squareup.picasso.Picasso;
+import com.projet.skilllearn.repository.FirebaseCourseRemote;
+import com.projet.skilllearn.repository.SectionIndex;
+import com.projet.skilllearn.utils.CourseDownloadManager;
+import com.projet.skilllearn.utils.ImageLoader;
+import com.projet.skilllearn.utils.ListenerRegistry;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -34,10 +40,19 @@ public class CourseDetailActivity extends AppCompatActivity {
     private TextView tvCourseTitle, tvCourseInstructor, tvCourseDuration, tvCourseDescription;
     private RecyclerView rvTopics;
     private Button btnStartCourse;
+    private Button btnDownloadCourse;
     private ProgressBar progressBar;
 
     private CourseRepository repository;
+    private ListenerRegistry listeners;
     private String courseId;
+    private List<CourseSection> loadedSections;
+    private CourseDownloadManager downloads;
+    private final CourseDownloadManager.Listener downloadListener = download -> {
+        if (download.getCourseId().equals(courseId)) {
+            updateDownloadButton();
+        }
+    };
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -60,6 +75,7 @@ public class CourseDetailActivity extends AppCompatActivity {
         tvCourseDescription = findViewById(R.id.tv_course_description);
         rvTopics = findViewById(R.id.rv_topics);
         btnStartCourse = findViewById(R.id.btn_start_course);
+        btnDownloadCourse = findViewById(R.id.btn_download_course);
         progressBar = findViewById(R.id.progress_bar);
 
         // Configurer le RecyclerView
@@ -68,11 +84,32 @@ public class CourseDetailActivity extends AppCompatActivity {
         // Initialiser le repository
         repository = new CourseRepository();
 
+        // Écouteurs Firebase détachés automatiquement à la destruction de l'activité
+        listeners = ListenerRegistry.bindTo(this);
+
         // Charger les détails du cours
         loadCourseDetails();
 
         // Configurer le bouton de démarrage
         btnStartCourse.setOnClickListener(v -> startCourse());
+
+        // Téléchargement des vidéos du cours pour la lecture hors ligne
+        downloads = CourseDownloadManager.getInstance();
+        if (downloads != null) {
+            downloads.addListener(downloadListener);
+            btnDownloadCourse.setOnClickListener(v -> toggleDownload());
+            updateDownloadButton();
+        } else {
+            btnDownloadCourse.setVisibility(View.GONE);
+        }
+    }
+
+    @Override
+    protected void onDestroy() {
+        if (downloads != null) {
+            downloads.removeListener(downloadListener);
+        }
+        super.onDestroy();
     }
 
     private void loadCourseDetails() {
@@ -90,7 +127,7 @@ public class CourseDetailActivity extends AppCompatActivity {
         // Référence au cours dans Firebase
         DatabaseReference courseRef = FirebaseDatabase.getInstance().getReference("courses").child(courseId);
 
-        courseRef.addValueEventListener(new ValueEventListener() {
+        listeners.observe("course", courseRef, new ValueEventListener() {
             @Override
             public void onDataChange(@NonNull DataSnapshot snapshot) {
                 if (snapshot.exists()) {
@@ -117,18 +154,8 @@ public class CourseDetailActivity extends AppCompatActivity {
                     tvCourseDuration.setText("Durée: " + (durationMinutes != null ? durationMinutes : 0) + " minutes");
                     tvCourseDescription.setText(description != null ? description : "Description non disponible");
 
-                    // Charger l'image du cours si disponible
-                    if (imageUrl != null && !imageUrl.isEmpty()) {
-                        // Utiliser Picasso ou Glide pour charger l'image
-                        Picasso.get()
-                                .load(imageUrl)
-                                .placeholder(R.drawable.placeholder_course)
-                                .error(R.drawable.error_course)
-                                .into(ivCourseImage);
-                    } else {
-                        // Utiliser une image par défaut
-                        ivCourseImage.setImageResource(R.drawable.placeholder_course);
-                    }
+                    // Charger l'image du cours, ou l'image par défaut
+                    ImageLoader.loadCourseImage(ivCourseImage, imageUrl);
 
                     // Si nécessaire, chargez également les sujets du cours (sections)
                     loadCourseSections(courseId);
@@ -158,36 +185,30 @@ public class CourseDetailActivity extends AppCompatActivity {
 
     // Méthode pour charger les sections du cours
     private void loadCourseSections(String courseId) {
-        DatabaseReference sectionsRef = FirebaseDatabase.getInstance().getReference("sections");
+        DatabaseReference indexRef = FirebaseDatabase.getInstance()
+                .getReference(SectionIndex.INDEX).child(courseId);
 
-        sectionsRef.orderByChild("courseId").equalTo(courseId).addValueEventListener(new ValueEventListener() {
+        // Un seul écouteur, sur l'index du cours : ses sections sont ensuite lues par leur ID,
+        // ou par la requête sur "sections" tant que le cours n'a pas d'entrée dans l'index
+        listeners.observe("sections", indexRef, new ValueEventListener() {
             @Override
             public void onDataChange(@NonNull DataSnapshot snapshot) {
-                List<String> sectionTitles = new ArrayList<>();
-
-                if (snapshot.exists()) {
-                    // Parcourir toutes les sections
-                    for (DataSnapshot sectionSnapshot : snapshot.getChildren()) {
-                        String title = sectionSnapshot.child("title").getValue(String.class);
-                        if (title != null) {
-                            sectionTitles.add(title);
-                        }
-                    }
-
-                    // Mettre à jour l'interface utilisateur avec les sections
-                    if (!sectionTitles.isEmpty()) {
-                        // Exemple : afficher dans un TextView
-                        // tvTopics.setText(TextUtils.join("\n• ", sectionTitles));
-
-                        // Ou configurer un RecyclerView avec un adaptateur
-                        // SectionsAdapter adapter = new SectionsAdapter(sectionTitles);
-                        // rvTopics.setAdapter(adapter);
-                    } else {
-                        // tvTopics.setText("Aucun sujet disponible");
-                    }
-                } else {
-                    // tvTopics.setText("Aucun sujet disponible");
-                }
+                new FirebaseCourseRemote().fetchSectionsFromIndex(courseId, snapshot,
+                        new CourseCache.RemoteCallback<List<CourseSection>>() {
+                            @Override
+                            public void onLoaded(List<CourseSection> sections) {
+                                if (!isDestroyed()) {
+                                    loadedSections = sections;
+                                    showSectionTitles(sections);
+                                    updateDownloadButton();
+                                }
+                            }
+
+                            @Override
+                            public void onError(String message) {
+                                Log.e("CourseDetail", "Erreur lors du chargement des sections: " + message);
+                            }
+                        });
             }
 
             @Override
@@ -197,6 +218,59 @@ public class CourseDetailActivity extends AppCompatActivity {
         });
     }
 
+    private void showSectionTitles(List<CourseSection> sections) {
+        List<String> sectionTitles = new ArrayList<>();
+        for (CourseSection section : sections) {
+            if (section.getTitle() != null) {
+                sectionTitles.add(section.getTitle());
+            }
+        }
+
+        // Mettre à jour l'interface utilisateur avec les sections
+        if (!sectionTitles.isEmpty()) {
+            // Exemple : afficher dans un TextView
+            // tvTopics.setText(TextUtils.join("\n• ", sectionTitles));
+
+            // Ou configurer un RecyclerView avec un adaptateur
+            // SectionsAdapter adapter = new SectionsAdapter(sectionTitles);
+            // rvTopics.setAdapter(adapter);
+        } else {
+            // tvTopics.setText("Aucun sujet disponible");
+        }
+    }
+
+    /**
+     * Télécharge le cours (Wi-Fi uniquement), ou supprime ses vidéos s'il est déjà téléchargé
+     */
+    private void toggleDownload() {
+        CourseDownloadManager.CourseStatus status = downloads.getCourseStatus(courseId);
+        if (status.isComplete()) {
+            downloads.removeCourse(courseId);
+            Toast.makeText(this, "Vidéos du cours supprimées", Toast.LENGTH_SHORT).show();
+        } else if (loadedSections != null) {
+            downloads.downloadCourse(courseId, loadedSections, true);
+        }
+        updateDownloadButton();
+    }
+
+    private void updateDownloadButton() {
+        if (downloads == null || isDestroyed()) {
+            return;
+        }
+        CourseDownloadManager.CourseStatus status = downloads.getCourseStatus(courseId);
+        if (status.isComplete()) {
+            btnDownloadCourse.setText("Disponible hors ligne · Supprimer");
+        } else if (status.getTotal() > 0 && status.getCompleted() + status.getFailed() < status.getTotal()) {
+            btnDownloadCourse.setText(String.format("Téléchargement… %d/%d (%d Mo)",
+                    status.getCompleted(), status.getTotal(), status.getBytes() / (1024 * 1024)));
+        } else if (status.getFailed() > 0) {
+            btnDownloadCourse.setText("Reprendre le téléchargement");
+        } else {
+            btnDownloadCourse.setText("Télécharger le cours");
+        }
+        btnDownloadCourse.setEnabled(loadedSections != null || status.getTotal() > 0);
+    }
+
     // Méthode pour démarrer le cours
     private void startCourse() {
         Log.d("CourseDetail", "Méthode startCourse() appelée");
@@ -25,6 +25,7 @@ import androidx.viewpager2.widget.ViewPager2;
 import com.google.android.exoplayer2.ExoPlayer;
 import com.google.android.exoplayer2.MediaItem;
 import com.google.android.exoplayer2.Player;
+import com.google.android.exoplayer2.source.DefaultMediaSourceFactory;
 import com.google.android.exoplayer2.ui.PlayerView;
 import com.google.android.material.tabs.TabLayout;
 import com.google.android.material.tabs.TabLayoutMediator;
@@ -36,7 +37,10 @@ import com.pierfrancescosoffritti.androidyoutubeplayer.core.player.views.YouTube
 import com.projet.skilllearn.R;
 import com.projet.skilllearn.model.Course;
 import com.projet.skilllearn.model.CourseSection;
+import com.projet.skilllearn.repository.CourseBundle;
+import com.projet.skilllearn.utils.SectionPrefetcher;
 import com.projet.skilllearn.utils.UserProgressManager;
+import com.projet.skilllearn.utils.VideoCache;
 import com.projet.skilllearn.view.adapters.CoursePagerAdapter;
 import com.projet.skilllearn.view.adapters.CourseSectionAdapter;
 import com.projet.skilllearn.view.fragments.ContentFragment;
@@ -45,6 +49,8 @@ import com.projet.skilllearn.viewmodel.CourseViewModel;
 
 
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import com.pierfrancescosoffritti.androidyoutubeplayer.core.player.listeners.AbstractYouTubePlayerListener;
@@ -78,6 +84,14 @@ public class CoursePlayerActivity extends AppCompatActivity implements
     private List<CourseSection> sections;
     private int currentSectionIndex = 0;
     private boolean videoCompleted = false;
+    // La reprise à la première section non terminée n'a lieu qu'au premier chargement
+    private boolean resumePositionApplied = false;
+
+    // Préchargement de la section suivante (début de la vidéo, contenu mis en forme)
+    private SectionPrefetcher<CharSequence> prefetcher;
+    private final ExecutorService renderExecutor = Executors.newSingleThreadExecutor();
+    // La section suivante est préchargée une fois la vidéo courante prête, pour ne pas la ralentir
+    private boolean prefetchPending = false;
     private YouTubePlayer youTubePlayer;
 
 
@@ -155,9 +169,22 @@ public class CoursePlayerActivity extends AppCompatActivity implements
 
 
     private void initializePlayer() {
-        player = new ExoPlayer.Builder(this).build();
+        VideoCache videoCache = VideoCache.getInstance();
+        ExoPlayer.Builder builder = new ExoPlayer.Builder(this);
+        if (videoCache != null) {
+            // Lecture à travers le cache disque, où la section suivante est préchargée
+            builder.setMediaSourceFactory(new DefaultMediaSourceFactory(videoCache.getDataSourceFactory()));
+        }
+        player = builder.build();
         playerView.setPlayer(player);
         player.addListener(this);
+
+        // Les vidéos YouTube sont lues dans une vue web : seules les vidéos standard sont préchargées
+        prefetcher = new SectionPrefetcher<>(
+                (videoUrl, onDone) -> videoCache != null && !isYouTubeUrl(videoUrl)
+                        ? videoCache.warm(videoUrl, onDone) : null,
+                ContentFragment::render,
+                renderExecutor);
     }
 
 
@@ -289,9 +316,15 @@ public class CoursePlayerActivity extends AppCompatActivity implements
             if (!sectionFound) {
                 Log.w("CoursePlayerActivity", "Section avec ID " + sectionId + " non trouvée, utilisation de l'index 0");
             }
-        } else {
-            Log.d("CoursePlayerActivity", "Aucun ID de section spécifié, utilisation de l'index 0");
+        } else if (!resumePositionApplied) {
+            // Reprendre à la première section non terminée, d'après la progression chargée avec le cours
+            CourseBundle bundle = viewModel.getSelectedBundle().getValue();
+            if (bundle != null && course.getCourseId().equals(bundle.getCourse().getCourseId())) {
+                currentSectionIndex = bundle.firstIncompleteSectionIndex();
+            }
+            Log.d("CoursePlayerActivity", "Aucun ID de section spécifié, reprise à l'index " + currentSectionIndex);
         }
+        resumePositionApplied = true;
 
         // Charger la section initiale
         Log.d("CoursePlayerActivity", "Chargement de la section à l'index: " + currentSectionIndex);
@@ -339,6 +372,12 @@ public class CoursePlayerActivity extends AppCompatActivity implements
         // Mettre à jour l'état des boutons de navigation
         updateNavigationButtons();
 
+        // Précharger la section suivante, après le démarrage de la vidéo standard s'il y en a une
+        prefetchPending = videoUrl != null && !videoUrl.isEmpty() && !isYouTubeUrl(videoUrl);
+        if (!prefetchPending) {
+            prefetcher.onSectionShown(sections, currentSectionIndex);
+        }
+
 
         // Réinitialiser l'état de complétion
         videoCompleted = false;
@@ -460,7 +499,8 @@ public class CoursePlayerActivity extends AppCompatActivity implements
         // Mettre à jour le fragment de contenu
         ContentFragment contentFragment = ContentFragment.getInstance();
         if (contentFragment != null) {
-            contentFragment.updateContent(section.getContent());
+            contentFragment.updateContent(section.getContent(),
+                    prefetcher.getPreparedContent(section.getContent()));
         }
 
 
@@ -562,6 +602,10 @@ public class CoursePlayerActivity extends AppCompatActivity implements
 
     @Override
     public void onPlaybackStateChanged(int playbackState) {
+        if (playbackState == Player.STATE_READY && prefetchPending) {
+            prefetchPending = false;
+            prefetcher.onSectionShown(sections, currentSectionIndex);
+        }
         if (playbackState == Player.STATE_ENDED) {
             videoCompleted = true;
             updateCompleteButtonState();
@@ -599,6 +643,12 @@ public class CoursePlayerActivity extends AppCompatActivity implements
     @Override
     protected void onDestroy() {
         super.onDestroy();
+        // Arrêter le préchargement de la section suivante
+        if (prefetcher != null) {
+            prefetcher.cancel();
+        }
+        renderExecutor.shutdown();
+
         // Libérer les ressources du lecteur
         if (player != null) {
             player.release();
@@ -22,9 +22,9 @@ import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
 import com.projet.skilllearn.R;
 import com.projet.skilllearn.model.Achievement;
+import com.projet.skilllearn.utils.ImageLoader;
 import com.projet.skilllearn.view.adapters.AchievementAdapter;
 import com.projet.skilllearn.viewmodel.ProfileViewModel;
-import com.squareup.picasso.Picasso;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -64,6 +64,7 @@ public class ProfileFragment extends Fragment {
         // Configurer le RecyclerView pour les réalisations
         adapter = new AchievementAdapter(requireContext(), new ArrayList<>());
         rvAchievements.setAdapter(adapter);
+        adapter.attachPreloader(rvAchievements);
         rvAchievements.setLayoutManager(new GridLayoutManager(requireContext(), 3));
 
         // Observer les données du ViewModel
@@ -122,13 +123,7 @@ public class ProfileFragment extends Fragment {
             tvEmail.setText(currentUser.getEmail());
 
             // Charger la photo de profil
-            if (currentUser.getPhotoUrl() != null) {
-                Picasso.get()
-                        .load(currentUser.getPhotoUrl())
-                        .placeholder(R.drawable.ic_launcher_foreground)
-                        .error(R.drawable.ic_launcher_foreground)
-                        .into(ivProfile);
-            }
+            ImageLoader.loadProfilePhoto(ivProfile, currentUser.getPhotoUrl());
 
             // Charger la progression et les réalisations
             viewModel.loadUserData(currentUser.getUid());
@@ -52,6 +52,7 @@ public class UserAchievementsFragment extends Fragment {
         adapter = new AchievementAdapter(requireContext(), new ArrayList<>());
         rvAchievements.setLayoutManager(new GridLayoutManager(requireContext(), 2));
         rvAchievements.setAdapter(adapter);
+        adapter.attachPreloader(rvAchievements);
 
         // Charger les données
         loadAchievements();
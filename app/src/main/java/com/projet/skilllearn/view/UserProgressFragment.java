@@ -10,6 +10,7 @@ import android.widget.Toast;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.fragment.app.Fragment;
+import androidx.lifecycle.ViewModelProvider;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
@@ -63,12 +64,15 @@ public class UserProgressFragment extends Fragment {
         // Configurer les RecyclerViews
         rvCourseProgress.setLayoutManager(new LinearLayoutManager(requireContext()));
         rvCourseProgress.setAdapter(courseAdapter);
+        courseAdapter.attachPreloader(rvCourseProgress);
 
         rvAchievements.setLayoutManager(new LinearLayoutManager(requireContext(), RecyclerView.HORIZONTAL, false));
         rvAchievements.setAdapter(achievementAdapter);
+        achievementAdapter.attachPreloader(rvAchievements);
 
-        // Initialiser le gestionnaire de progrès
+        // Initialiser le gestionnaire de progrès et le ViewModel des cours
         progressManager = UserProgressManager.getInstance();
+        courseViewModel = new ViewModelProvider(this).get(CourseViewModel.class);
 
         // Afficher le nom de l'utilisateur
         if (FirebaseAuth.getInstance().getCurrentUser() != null) {
@@ -87,53 +91,35 @@ public class UserProgressFragment extends Fragment {
 
     /**
      * Charge les cours de l'utilisateur avec leur progression
+     * (un seul chargement groupé, dans l'ordre d'inscription)
      */
     private void loadUserCourses() {
-        progressManager.getUserCourses(new UserProgressManager.UserCoursesCallback() {
-            @Override
-            public void onCoursesLoaded(List<String> courseIds) {
-                if (courseIds.isEmpty()) {
-                    rvCourseProgress.setVisibility(View.GONE);
-                    tvNoCourses.setVisibility(View.VISIBLE);
-                } else {
-                    rvCourseProgress.setVisibility(View.VISIBLE);
-                    tvNoCourses.setVisibility(View.GONE);
-
-                    // Charger les détails des cours
-                    List<Course> userCourses = new ArrayList<>();
-                    for (String courseId : courseIds) {
-                        // Utiliser le repository pour obtenir les détails du cours
-                        courseViewModel.selectCourse(courseId);
-                        courseViewModel.getSelectedCourse().observe(getViewLifecycleOwner(), course -> {
-                            if (course != null) {
-                                // Obtenir la progression
-                                progressManager.getCourseProgress(courseId, new UserProgressManager.CourseProgressCallback() {
-                                    @Override
-                                    public void onProgressLoaded(int percentage) {
-                                        course.setUserProgress(percentage);
-                                        userCourses.add(course);
-
-                                        // Mettre à jour l'adaptateur
-                                        courseAdapter.updateCourses(userCourses);
-                                        calculateTotalProgress(userCourses);
-                                    }
-
-                                    @Override
-                                    public void onError(String errorMessage) {
-                                        Toast.makeText(requireContext(), errorMessage, Toast.LENGTH_SHORT).show();
-                                    }
-                                });
-                            }
-                        });
-                    }
-                }
+        if (FirebaseAuth.getInstance().getCurrentUser() == null) {
+            rvCourseProgress.setVisibility(View.GONE);
+            tvNoCourses.setVisibility(View.VISIBLE);
+            return;
+        }
+
+        courseViewModel.getCourses().observe(getViewLifecycleOwner(), courses -> {
+            if (courses == null || courses.isEmpty()) {
+                rvCourseProgress.setVisibility(View.GONE);
+                tvNoCourses.setVisibility(View.VISIBLE);
+            } else {
+                rvCourseProgress.setVisibility(View.VISIBLE);
+                tvNoCourses.setVisibility(View.GONE);
+                courseAdapter.updateCourses(courses);
+                calculateTotalProgress(courses);
             }
+        });
 
-            @Override
-            public void onError(String errorMessage) {
+        courseViewModel.getErrorMessage().observe(getViewLifecycleOwner(), errorMessage -> {
+            if (errorMessage != null && !errorMessage.isEmpty()) {
                 Toast.makeText(requireContext(), errorMessage, Toast.LENGTH_SHORT).show();
+                courseViewModel.clearError();
             }
         });
+
+        courseViewModel.getUserCourses(FirebaseAuth.getInstance().getCurrentUser().getUid());
     }
 
     /**
@@ -8,30 +8,99 @@ import android.widget.ImageView;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.bumptech.glide.Glide;
+import com.bumptech.glide.ListPreloader;
+import com.bumptech.glide.RequestBuilder;
+import com.bumptech.glide.util.ViewPreloadSizeProvider;
 import com.projet.skilllearn.R;
 import com.projet.skilllearn.model.Achievement;
+import com.projet.skilllearn.utils.ImageLoader;
 
 import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.List;
 import java.util.Locale;
+import java.util.Objects;
+
+/**
+ * Adaptateur des succès de l'utilisateur.
+ * Chaque nouvelle liste est comparée à la précédente hors du thread principal
+ * (par Achievement.id) ; un succès dont seule la date d'obtention change n'est pas
+ * entièrement relié (l'icône n'est pas rechargée). Les icônes suivantes sont préchargées.
+ */
+public class AchievementAdapter extends ListAdapter<Achievement, AchievementAdapter.ViewHolder>
+        implements ListPreloader.PreloadModelProvider<Achievement> {
+
+    // Payload : seule la date d'obtention a changé
+    private static final String PAYLOAD_EARNED_DATE = "earnedDate";
+
+    private static final DiffUtil.ItemCallback<Achievement> DIFF_CALLBACK = new DiffUtil.ItemCallback<Achievement>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull Achievement oldItem, @NonNull Achievement newItem) {
+            return Objects.equals(oldItem.getId(), newItem.getId());
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull Achievement oldItem, @NonNull Achievement newItem) {
+            return sameAppearance(oldItem, newItem)
+                    && oldItem.getEarnedAt() == newItem.getEarnedAt()
+                    && oldItem.isUnlocked() == newItem.isUnlocked();
+        }
 
-public class AchievementAdapter extends RecyclerView.Adapter<AchievementAdapter.ViewHolder> {
+        @Nullable
+        @Override
+        public Object getChangePayload(@NonNull Achievement oldItem, @NonNull Achievement newItem) {
+            return sameAppearance(oldItem, newItem) ? PAYLOAD_EARNED_DATE : null;
+        }
+
+        private boolean sameAppearance(Achievement oldItem, Achievement newItem) {
+            return Objects.equals(oldItem.getTitle(), newItem.getTitle())
+                    && Objects.equals(oldItem.getDescription(), newItem.getDescription())
+                    && Objects.equals(oldItem.getType(), newItem.getType())
+                    && Objects.equals(oldItem.getIconUrl(), newItem.getIconUrl());
+        }
+    };
 
     private final Context context;
-    private List<Achievement> achievements;
+    private final ViewPreloadSizeProvider<Achievement> sizeProvider = new ViewPreloadSizeProvider<>();
 
     public AchievementAdapter(Context context, List<Achievement> achievements) {
+        super(DIFF_CALLBACK);
         this.context = context;
-        this.achievements = achievements;
+        submitList(achievements);
+    }
+
+    /**
+     * Précharge les icônes des succès suivants pendant le défilement de la liste
+     */
+    public void attachPreloader(@NonNull RecyclerView recyclerView) {
+        ImageLoader.attachPreloader(recyclerView, this, sizeProvider);
     }
 
+    @NonNull
+    @Override
+    public List<Achievement> getPreloadItems(int position) {
+        Achievement achievement = getItem(position);
+        return ImageLoader.preloadItem(achievement, achievement.getIconUrl());
+    }
+
+    @Nullable
+    @Override
+    public RequestBuilder<?> getPreloadRequestBuilder(@NonNull Achievement achievement) {
+        return ImageLoader.badge(context, achievement.getIconUrl());
+    }
+
+    /**
+     * Affiche une nouvelle liste de succès (ne plus la modifier ensuite)
+     * @param newAchievements Succès à afficher
+     */
     public void updateAchievements(List<Achievement> newAchievements) {
-        this.achievements = newAchievements;
-        notifyDataSetChanged();
+        submitList(newAchievements);
     }
 
     @NonNull
@@ -44,13 +113,17 @@ public class AchievementAdapter extends RecyclerView.Adapter<AchievementAdapter.
 
     @Override
     public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
-        Achievement achievement = achievements.get(position);
+        Achievement achievement = getItem(position);
         holder.bind(achievement);
     }
 
     @Override
-    public int getItemCount() {
-        return achievements.size();
+    public void onBindViewHolder(@NonNull ViewHolder holder, int position, @NonNull List<Object> payloads) {
+        if (payloads.contains(PAYLOAD_EARNED_DATE)) {
+            holder.bindEarnedDate(getItem(position));
+        } else {
+            onBindViewHolder(holder, position);
+        }
     }
 
     class ViewHolder extends RecyclerView.ViewHolder {
@@ -65,24 +138,17 @@ public class AchievementAdapter extends RecyclerView.Adapter<AchievementAdapter.
             tvTitle = itemView.findViewById(R.id.tv_title);
             tvDescription = itemView.findViewById(R.id.tv_description);
             tvEarnedDate = itemView.findViewById(R.id.tv_earned_date);
+            sizeProvider.setView(ivBadge);
         }
 
         public void bind(Achievement achievement) {
             tvTitle.setText(achievement.getTitle());
             tvDescription.setText(achievement.getDescription());
-
-            // Formater la date
-            SimpleDateFormat dateFormat = new SimpleDateFormat("dd/MM/yyyy", Locale.getDefault());
-            String formattedDate = dateFormat.format(new Date(achievement.getEarnedAt()));
-            tvEarnedDate.setText("Obtenu le " + formattedDate);
+            bindEarnedDate(achievement);
 
             // Charger l'icône du badge
             if (achievement.getIconUrl() != null && !achievement.getIconUrl().isEmpty()) {
-                Glide.with(context)
-                        .load(achievement.getIconUrl())
-                        .placeholder(R.drawable.placeholder_badge)
-                        .error(R.drawable.default_badge)
-                        .into(ivBadge);
+                ImageLoader.badge(context, achievement.getIconUrl()).into(ivBadge);
             } else {
                 // Utiliser une icône par défaut en fonction du type de succès
                 int badgeResId;
@@ -100,8 +166,17 @@ public class AchievementAdapter extends RecyclerView.Adapter<AchievementAdapter.
                         badgeResId = R.drawable.default_badge;
                         break;
                 }
+                // Une vue recyclée ne doit pas recevoir l'icône d'un autre succès encore en chargement
+                Glide.with(context).clear(ivBadge);
                 ivBadge.setImageResource(badgeResId);
             }
         }
+
+        void bindEarnedDate(Achievement achievement) {
+            // Formater la date
+            SimpleDateFormat dateFormat = new SimpleDateFormat("dd/MM/yyyy", Locale.getDefault());
+            String formattedDate = dateFormat.format(new Date(achievement.getEarnedAt()));
+            tvEarnedDate.setText("Obtenu le " + formattedDate);
+        }
     }
 }
\ No newline at end of file
@@ -9,29 +9,62 @@ import android.widget.ProgressBar;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.cardview.widget.CardView;
+import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 
-import com.bumptech.glide.Glide;
+import com.bumptech.glide.ListPreloader;
+import com.bumptech.glide.RequestBuilder;
+import com.bumptech.glide.util.ViewPreloadSizeProvider;
 import com.projet.skilllearn.R;
 import com.projet.skilllearn.model.Course;
+import com.projet.skilllearn.utils.ImageLoader;
 
 import java.util.List;
 
-public class CourseAdapter extends RecyclerView.Adapter<CourseAdapter.CourseViewHolder> {
+/**
+ * Adaptateur de la liste des cours.
+ * Les nouvelles listes sont transmises par submitList() et comparées hors du thread principal :
+ * seules les lignes modifiées sont reliées. Les images des lignes suivantes sont préchargées
+ * à la taille de la vignette (voir attachPreloader()).
+ */
+public class CourseAdapter extends ListAdapter<Course, CourseAdapter.CourseViewHolder>
+        implements ListPreloader.PreloadModelProvider<Course> {
 
     private final Context context;
-    private final List<Course> courses;
     private final OnCourseClickListener listener;
+    private final ViewPreloadSizeProvider<Course> sizeProvider = new ViewPreloadSizeProvider<>();
 
     public interface OnCourseClickListener {
         void onCourseClick(Course course);
     }
 
     public CourseAdapter(Context context, List<Course> courses, OnCourseClickListener listener) {
+        super(CourseDiffCallback.INSTANCE);
         this.context = context;
-        this.courses = courses;
         this.listener = listener;
+        submitList(courses);
+    }
+
+    /**
+     * Précharge les images des cours suivants pendant le défilement de la liste
+     */
+    public void attachPreloader(@NonNull RecyclerView recyclerView) {
+        ImageLoader.attachPreloader(recyclerView, this, sizeProvider);
+    }
+
+    @NonNull
+    @Override
+    public List<Course> getPreloadItems(int position) {
+        Course course = getItem(position);
+        return ImageLoader.preloadItem(course, course.getImageUrl());
+    }
+
+    @Nullable
+    @Override
+    public RequestBuilder<?> getPreloadRequestBuilder(@NonNull Course course) {
+        return ImageLoader.courseImage(context, course.getImageUrl());
     }
 
     @NonNull
@@ -44,13 +77,26 @@ public class CourseAdapter extends RecyclerView.Adapter<CourseAdapter.CourseView
 
     @Override
     public void onBindViewHolder(@NonNull CourseViewHolder holder, int position) {
-        Course course = courses.get(position);
+        Course course = getItem(position);
         holder.bind(course);
     }
 
     @Override
-    public int getItemCount() {
-        return courses.size();
+    public void onBindViewHolder(@NonNull CourseViewHolder holder, int position, @NonNull List<Object> payloads) {
+        int changes = CourseDiffCallback.mergePayloads(payloads);
+        if (changes == 0) {
+            onBindViewHolder(holder, position);
+            return;
+        }
+
+        // Mise à jour partielle : l'image et les textes fixes ne sont pas retouchés
+        Course course = getItem(position);
+        if ((changes & CourseDiffCallback.PAYLOAD_ENROLLED_COUNT) != 0) {
+            holder.bindEnrolledCount(course);
+        }
+        if ((changes & CourseDiffCallback.PAYLOAD_PROGRESS) != 0) {
+            holder.bindProgress(course);
+        }
     }
 
     class CourseViewHolder extends RecyclerView.ViewHolder {
@@ -79,12 +125,13 @@ public class CourseAdapter extends RecyclerView.Adapter<CourseAdapter.CourseView
             tvProgressPercentage = itemView.findViewById(R.id.tv_progress_percentage);
             tvCourseAuthor = itemView.findViewById(R.id.tv_course_author);
             tvEnrolledCount = itemView.findViewById(R.id.tv_enrolled_count);
+            sizeProvider.setView(ivCourseImage);
 
             // Définir le gestionnaire de clics
             cardView.setOnClickListener(v -> {
                 int position = getAdapterPosition();
                 if (position != RecyclerView.NO_POSITION && listener != null) {
-                    listener.onCourseClick(courses.get(position));
+                    listener.onCourseClick(getItem(position));
                 }
             });
         }
@@ -115,14 +162,25 @@ public class CourseAdapter extends RecyclerView.Adapter<CourseAdapter.CourseView
                 tvCourseAuthor.setVisibility(View.GONE);
             }
 
+            bindEnrolledCount(course);
+
+            // Afficher la progression si disponible
+            bindProgress(course);
+
+            // Charger l'image du cours, décodée à la taille de la vignette
+            ImageLoader.loadCourseImage(ivCourseImage, course.getImageUrl());
+        }
+
+        void bindEnrolledCount(Course course) {
             if (course.getEnrolledCount() > 0) {
                 tvEnrolledCount.setText(String.format("%d inscrits", course.getEnrolledCount()));
                 tvEnrolledCount.setVisibility(View.VISIBLE);
             } else {
                 tvEnrolledCount.setVisibility(View.GONE);
             }
+        }
 
-            // Afficher la progression si disponible
+        void bindProgress(Course course) {
             int progress = course.getUserProgress();
             if (progress > 0) {
                 progressBar.setProgress(progress);
@@ -133,19 +191,6 @@ public class CourseAdapter extends RecyclerView.Adapter<CourseAdapter.CourseView
                 progressBar.setVisibility(View.GONE);
                 tvProgressPercentage.setVisibility(View.GONE);
             }
-
-            // Charger l'image du cours avec Glide
-            if (course.getImageUrl() != null && !course.getImageUrl().isEmpty()) {
-                Glide.with(context)
-                        .load(course.getImageUrl())
-                        .placeholder(R.drawable.placeholder_course)
-                        .error(R.drawable.error_course)
-                        .centerCrop()
-                        .into(ivCourseImage);
-            } else {
-                // Image par défaut si aucune URL d'image n'est disponible
-                ivCourseImage.setImageResource(R.drawable.placeholder_course);
-            }
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,80 @@
+package com.projet.skilllearn.view.adapters;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.recyclerview.widget.DiffUtil;
+
+import com.projet.skilllearn.model.Course;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Comparaison de deux listes de cours pour les adaptateurs (calculée hors du thread principal
+ * par ListAdapter). Les cours sont identifiés par leur courseId ; quand seuls le nombre
+ * d'inscrits ou la progression changent, un payload permet de ne remettre à jour que
+ * ces vues, sans recharger l'image.
+ */
+public class CourseDiffCallback extends DiffUtil.ItemCallback<Course> {
+
+    // Bits du payload : champs modifiés
+    public static final int PAYLOAD_ENROLLED_COUNT = 1;
+    public static final int PAYLOAD_PROGRESS = 1 << 1;
+
+    public static final CourseDiffCallback INSTANCE = new CourseDiffCallback();
+
+    @Override
+    public boolean areItemsTheSame(@NonNull Course oldItem, @NonNull Course newItem) {
+        return Objects.equals(oldItem.getCourseId(), newItem.getCourseId());
+    }
+
+    @Override
+    public boolean areContentsTheSame(@NonNull Course oldItem, @NonNull Course newItem) {
+        return sameStaticContent(oldItem, newItem)
+                && oldItem.getEnrolledCount() == newItem.getEnrolledCount()
+                && oldItem.getUserProgress() == newItem.getUserProgress();
+    }
+
+    /**
+     * @return les champs modifiés (PAYLOAD_*), ou null si la ligne doit être entièrement liée
+     */
+    @Nullable
+    @Override
+    public Object getChangePayload(@NonNull Course oldItem, @NonNull Course newItem) {
+        if (!sameStaticContent(oldItem, newItem)) {
+            return null;
+        }
+        int changes = 0;
+        if (oldItem.getEnrolledCount() != newItem.getEnrolledCount()) {
+            changes |= PAYLOAD_ENROLLED_COUNT;
+        }
+        if (oldItem.getUserProgress() != newItem.getUserProgress()) {
+            changes |= PAYLOAD_PROGRESS;
+        }
+        return changes != 0 ? changes : null;
+    }
+
+    /**
+     * Cumule les payloads reçus par onBindViewHolder
+     * @return les bits des champs à remettre à jour
+     */
+    public static int mergePayloads(@NonNull List<Object> payloads) {
+        int changes = 0;
+        for (Object payload : payloads) {
+            if (payload instanceof Integer) {
+                changes |= (Integer) payload;
+            }
+        }
+        return changes;
+    }
+
+    private static boolean sameStaticContent(Course oldItem, Course newItem) {
+        return Objects.equals(oldItem.getTitle(), newItem.getTitle())
+                && Objects.equals(oldItem.getDescription(), newItem.getDescription())
+                && Objects.equals(oldItem.getCategory(), newItem.getCategory())
+                && Objects.equals(oldItem.getLevel(), newItem.getLevel())
+                && oldItem.getDurationMinutes() == newItem.getDurationMinutes()
+                && Objects.equals(oldItem.getImageUrl(), newItem.getImageUrl())
+                && Objects.equals(oldItem.getAuthor(), newItem.getAuthor());
+    }
+}
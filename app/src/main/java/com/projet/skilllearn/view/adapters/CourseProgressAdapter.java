@@ -10,29 +10,95 @@ import android.widget.ProgressBar;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.cardview.widget.CardView;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 
-import com.bumptech.glide.Glide;
+import com.bumptech.glide.ListPreloader;
+import com.bumptech.glide.RequestBuilder;
+import com.bumptech.glide.util.ViewPreloadSizeProvider;
 import com.projet.skilllearn.R;
 import com.projet.skilllearn.model.Course;
+import com.projet.skilllearn.utils.ImageLoader;
 import com.projet.skilllearn.view.CourseDetailActivity;
 
 import java.util.List;
+import java.util.Objects;
+
+/**
+ * Adaptateur de la progression de l'utilisateur dans ses cours.
+ * Chaque nouvelle liste est comparée à la précédente hors du thread principal
+ * (par Course.courseId) ; un changement de progression ne relie que la barre et les textes
+ * associés, sans recharger l'image. Les images des lignes suivantes sont préchargées.
+ */
+public class CourseProgressAdapter extends ListAdapter<Course, CourseProgressAdapter.ViewHolder>
+        implements ListPreloader.PreloadModelProvider<Course> {
+
+    // Payload : seules la progression ou la date de dernière étude ont changé
+    private static final String PAYLOAD_PROGRESS = "progress";
+
+    private static final DiffUtil.ItemCallback<Course> DIFF_CALLBACK = new DiffUtil.ItemCallback<Course>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull Course oldItem, @NonNull Course newItem) {
+            return Objects.equals(oldItem.getCourseId(), newItem.getCourseId());
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull Course oldItem, @NonNull Course newItem) {
+            return sameAppearance(oldItem, newItem)
+                    && oldItem.getUserProgress() == newItem.getUserProgress()
+                    && oldItem.getLastStudiedTimestamp() == newItem.getLastStudiedTimestamp();
+        }
 
-public class CourseProgressAdapter extends RecyclerView.Adapter<CourseProgressAdapter.ViewHolder> {
+        @Nullable
+        @Override
+        public Object getChangePayload(@NonNull Course oldItem, @NonNull Course newItem) {
+            return sameAppearance(oldItem, newItem) ? PAYLOAD_PROGRESS : null;
+        }
+
+        private boolean sameAppearance(Course oldItem, Course newItem) {
+            return Objects.equals(oldItem.getTitle(), newItem.getTitle())
+                    && Objects.equals(oldItem.getImageUrl(), newItem.getImageUrl());
+        }
+    };
 
     private final Context context;
-    private List<Course> courses;
+    private final ViewPreloadSizeProvider<Course> sizeProvider = new ViewPreloadSizeProvider<>();
 
     public CourseProgressAdapter(Context context, List<Course> courses) {
+        super(DIFF_CALLBACK);
         this.context = context;
-        this.courses = courses;
+        submitList(courses);
     }
 
+    /**
+     * Affiche une nouvelle liste de cours (ne plus la modifier ensuite)
+     * @param newCourses Cours suivis avec leur progression
+     */
     public void updateCourses(List<Course> newCourses) {
-        this.courses = newCourses;
-        notifyDataSetChanged();
+        submitList(newCourses);
+    }
+
+    /**
+     * Précharge les images des cours suivants pendant le défilement de la liste
+     */
+    public void attachPreloader(@NonNull RecyclerView recyclerView) {
+        ImageLoader.attachPreloader(recyclerView, this, sizeProvider);
+    }
+
+    @NonNull
+    @Override
+    public List<Course> getPreloadItems(int position) {
+        Course course = getItem(position);
+        return ImageLoader.preloadItem(course, course.getImageUrl());
+    }
+
+    @Nullable
+    @Override
+    public RequestBuilder<?> getPreloadRequestBuilder(@NonNull Course course) {
+        return ImageLoader.courseImage(context, course.getImageUrl());
     }
 
     @NonNull
@@ -45,13 +111,17 @@ public class CourseProgressAdapter extends RecyclerView.Adapter<CourseProgressAd
 
     @Override
     public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
-        Course course = courses.get(position);
+        Course course = getItem(position);
         holder.bind(course);
     }
 
     @Override
-    public int getItemCount() {
-        return courses.size();
+    public void onBindViewHolder(@NonNull ViewHolder holder, int position, @NonNull List<Object> payloads) {
+        if (payloads.contains(PAYLOAD_PROGRESS)) {
+            holder.bindProgress(getItem(position));
+        } else {
+            onBindViewHolder(holder, position);
+        }
     }
 
     class ViewHolder extends RecyclerView.ViewHolder {
@@ -70,11 +140,12 @@ public class CourseProgressAdapter extends RecyclerView.Adapter<CourseProgressAd
             progressBar = itemView.findViewById(R.id.progress_bar);
             tvProgressPercentage = itemView.findViewById(R.id.tv_progress_percentage);
             tvLastStudied = itemView.findViewById(R.id.tv_last_studied);
+            sizeProvider.setView(ivCourseImage);
 
             cardView.setOnClickListener(v -> {
                 int position = getAdapterPosition();
                 if (position != RecyclerView.NO_POSITION) {
-                    Course course = courses.get(position);
+                    Course course = getItem(position);
                     Intent intent = new Intent(context, CourseDetailActivity.class);
                     intent.putExtra("courseId", course.getCourseId());
                     context.startActivity(intent);
@@ -84,6 +155,12 @@ public class CourseProgressAdapter extends RecyclerView.Adapter<CourseProgressAd
 
         public void bind(Course course) {
             tvCourseTitle.setText(course.getTitle());
+            bindProgress(course);
+
+            ImageLoader.loadCourseImage(ivCourseImage, course.getImageUrl());
+        }
+
+        void bindProgress(Course course) {
             progressBar.setProgress(course.getUserProgress());
             tvProgressPercentage.setText(course.getUserProgress() + "%");
 
@@ -93,17 +170,6 @@ public class CourseProgressAdapter extends RecyclerView.Adapter<CourseProgressAd
             } else {
                 tvLastStudied.setVisibility(View.GONE);
             }
-
-            if (course.getImageUrl() != null && !course.getImageUrl().isEmpty()) {
-                Glide.with(context)
-                        .load(course.getImageUrl())
-                        .placeholder(R.drawable.placeholder_course)
-                        .error(R.drawable.error_course)
-                        .centerCrop()
-                        .into(ivCourseImage);
-            } else {
-                ivCourseImage.setImageResource(R.drawable.placeholder_course);
-            }
         }
 
         private String formatLastStudiedDate(long timestamp) {
@@ -12,6 +12,7 @@ import androidx.recyclerview.widget.RecyclerView;
 
 import com.projet.skilllearn.R;
 import com.projet.skilllearn.model.CourseSection;
+import com.projet.skilllearn.utils.CourseDownloadManager;
 
 import java.util.List;
 
@@ -82,8 +83,16 @@ public class CourseSectionAdapter extends RecyclerView.Adapter<CourseSectionAdap
         public void bind(CourseSection section, boolean isSelected) {
             tvTitle.setText(section.getTitle());
 
+            // Vidéo disponible hors ligne
+            CourseDownloadManager downloads = CourseDownloadManager.getInstance();
+            boolean offline = downloads != null && downloads.isDownloaded(section.getSectionId());
+
             if (section.getDurationMinutes() > 0) {
-                tvDuration.setText(String.format("%d min", section.getDurationMinutes()));
+                tvDuration.setText(String.format("%d min", section.getDurationMinutes())
+                        + (offline ? " · hors ligne" : ""));
+                tvDuration.setVisibility(View.VISIBLE);
+            } else if (offline) {
+                tvDuration.setText("Hors ligne");
                 tvDuration.setVisibility(View.VISIBLE);
             } else {
                 tvDuration.setVisibility(View.GONE);
@@ -7,6 +7,9 @@ import android.view.ViewGroup;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.projet.skilllearn.R;
@@ -16,20 +19,59 @@ import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.List;
 import java.util.Locale;
+import java.util.Objects;
 
-public class NoteAdapter extends RecyclerView.Adapter<NoteAdapter.ViewHolder> {
+/**
+ * Adaptateur des notes d'une section.
+ * Chaque nouvelle liste est comparée à la précédente hors du thread principal (par Note.id) :
+ * seules les notes ajoutées, supprimées ou modifiées sont animées.
+ */
+public class NoteAdapter extends ListAdapter<Note, NoteAdapter.ViewHolder> {
+
+    // Payloads : seul le texte ou seule la date a changé
+    private static final int PAYLOAD_TEXT = 1;
+    private static final int PAYLOAD_DATE = 1 << 1;
+
+    private static final DiffUtil.ItemCallback<Note> DIFF_CALLBACK = new DiffUtil.ItemCallback<Note>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull Note oldItem, @NonNull Note newItem) {
+            return Objects.equals(oldItem.getId(), newItem.getId());
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull Note oldItem, @NonNull Note newItem) {
+            return Objects.equals(oldItem.getText(), newItem.getText())
+                    && oldItem.getTimestamp() == newItem.getTimestamp();
+        }
+
+        @Nullable
+        @Override
+        public Object getChangePayload(@NonNull Note oldItem, @NonNull Note newItem) {
+            int changes = 0;
+            if (!Objects.equals(oldItem.getText(), newItem.getText())) {
+                changes |= PAYLOAD_TEXT;
+            }
+            if (oldItem.getTimestamp() != newItem.getTimestamp()) {
+                changes |= PAYLOAD_DATE;
+            }
+            return changes;
+        }
+    };
 
     private final Context context;
-    private List<Note> notes;
 
     public NoteAdapter(Context context, List<Note> notes) {
+        super(DIFF_CALLBACK);
         this.context = context;
-        this.notes = notes;
+        submitList(notes);
     }
 
+    /**
+     * Affiche une nouvelle liste de notes (ne plus la modifier ensuite)
+     * @param newNotes Notes à afficher
+     */
     public void updateNotes(List<Note> newNotes) {
-        this.notes = newNotes;
-        notifyDataSetChanged();
+        submitList(newNotes);
     }
 
     @NonNull
@@ -41,13 +83,30 @@ public class NoteAdapter extends RecyclerView.Adapter<NoteAdapter.ViewHolder> {
 
     @Override
     public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
-        Note note = notes.get(position);
+        Note note = getItem(position);
         holder.bind(note);
     }
 
     @Override
-    public int getItemCount() {
-        return notes.size();
+    public void onBindViewHolder(@NonNull ViewHolder holder, int position, @NonNull List<Object> payloads) {
+        int changes = 0;
+        for (Object payload : payloads) {
+            if (payload instanceof Integer) {
+                changes |= (Integer) payload;
+            }
+        }
+        if (changes == 0) {
+            onBindViewHolder(holder, position);
+            return;
+        }
+
+        Note note = getItem(position);
+        if ((changes & PAYLOAD_TEXT) != 0) {
+            holder.bindText(note);
+        }
+        if ((changes & PAYLOAD_DATE) != 0) {
+            holder.bindDate(note);
+        }
     }
 
     class ViewHolder extends RecyclerView.ViewHolder {
@@ -61,8 +120,15 @@ public class NoteAdapter extends RecyclerView.Adapter<NoteAdapter.ViewHolder> {
         }
 
         public void bind(Note note) {
+            bindText(note);
+            bindDate(note);
+        }
+
+        void bindText(Note note) {
             tvNoteText.setText(note.getText());
+        }
 
+        void bindDate(Note note) {
             // Formater la date
             SimpleDateFormat dateFormat = new SimpleDateFormat("dd/MM/yyyy HH:mm", Locale.getDefault());
             String formattedDate = dateFormat.format(new Date(note.getTimestamp()));
@@ -41,9 +41,25 @@ public class ContentFragment extends Fragment {
     }
 
     public void updateContent(String content) {
+        updateContent(content, null);
+    }
+
+    /**
+     * Affiche un contenu déjà mis en forme (préchargé pendant la section précédente)
+     * @param content Contenu HTML de la section
+     * @param rendered Contenu mis en forme, ou null pour le mettre en forme maintenant
+     */
+    public void updateContent(String content, @Nullable CharSequence rendered) {
         this.content = content;
         if (tvContent != null && content != null) {
-            tvContent.setText(Html.fromHtml(content, Html.FROM_HTML_MODE_COMPACT));
+            tvContent.setText(rendered != null ? rendered : render(content));
         }
     }
+
+    /**
+     * Mise en forme d'un contenu HTML, utilisable hors du thread principal
+     */
+    public static CharSequence render(String content) {
+        return Html.fromHtml(content, Html.FROM_HTML_MODE_COMPACT);
+    }
 }
\ No newline at end of file
@@ -22,18 +22,26 @@ import com.google.firebase.database.FirebaseDatabase;
 import com.google.firebase.database.ValueEventListener;
 import com.projet.skilllearn.R;
 import com.projet.skilllearn.model.Note;
+import com.projet.skilllearn.repository.ModelCodec;
+import com.projet.skilllearn.utils.ListenerRegistry;
+import com.projet.skilllearn.utils.SnapshotMapper;
+import com.projet.skilllearn.utils.WriteBehindQueue;
 import com.projet.skilllearn.view.adapters.NoteAdapter;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 public class NotesFragment extends Fragment {
     private static NotesFragment instance;
     private RecyclerView rvNotes;
     private EditText etNewNote;
     private Button btnAddNote;
-    private List<Note> notes = new ArrayList<>();
     private NoteAdapter adapter;
+    private ListenerRegistry listeners;
+    // Notes converties hors du thread principal ; une section plus récente remplace la précédente
+    private final String notesStream = SnapshotMapper.getInstance().stream("notes");
     private String courseId;
     private String sectionId;
 
@@ -57,8 +65,11 @@ public class NotesFragment extends Fragment {
         etNewNote = view.findViewById(R.id.et_new_note);
         btnAddNote = view.findViewById(R.id.btn_add_note);
 
+        // Écouteurs Firebase détachés automatiquement à la destruction de la vue
+        listeners = ListenerRegistry.bindTo(getViewLifecycleOwner());
+
         // Configurer RecyclerView
-        adapter = new NoteAdapter(requireContext(), notes);
+        adapter = new NoteAdapter(requireContext(), new ArrayList<>());
         rvNotes.setLayoutManager(new LinearLayoutManager(requireContext()));
         rvNotes.setAdapter(adapter);
 
@@ -77,6 +88,13 @@ public class NotesFragment extends Fragment {
         }
     }
 
+    @Override
+    public void onDestroyView() {
+        super.onDestroyView();
+        // Le registre a déjà détaché ses écouteurs avec le cycle de vie de la vue
+        listeners = null;
+    }
+
     public void updateSection(String courseId, String sectionId) {
         this.courseId = courseId;
         this.sectionId = sectionId;
@@ -84,6 +102,11 @@ public class NotesFragment extends Fragment {
     }
 
     private void loadNotes() {
+        if (listeners == null) {
+            // La vue n'est pas encore créée : les notes seront chargées dans onViewCreated
+            return;
+        }
+
         if (FirebaseAuth.getInstance().getCurrentUser() == null) {
             Toast.makeText(requireContext(), "Connectez-vous pour voir vos notes", Toast.LENGTH_SHORT).show();
             return;
@@ -93,18 +116,16 @@ public class NotesFragment extends Fragment {
         DatabaseReference notesRef = FirebaseDatabase.getInstance().getReference("notes")
                 .child(userId).child(courseId).child(sectionId);
 
-        notesRef.addValueEventListener(new ValueEventListener() {
+        // Remplace l'écouteur de la section précédente au lieu de s'y ajouter
+        listeners.observe("notes", notesRef, new ValueEventListener() {
             @Override
             public void onDataChange(@NonNull DataSnapshot snapshot) {
-                notes.clear();
-                for (DataSnapshot noteSnapshot : snapshot.getChildren()) {
-                    Note note = noteSnapshot.getValue(Note.class);
-                    if (note != null) {
-                        note.setId(noteSnapshot.getKey());
-                        notes.add(note);
+                SnapshotMapper.getInstance().map(notesStream, snapshot, NotesFragment::toNotes, notes -> {
+                    // La vue a pu être détruite pendant la conversion
+                    if (listeners != null) {
+                        adapter.updateNotes(notes);
                     }
-                }
-                adapter.updateNotes(notes);
+                });
             }
 
             @Override
@@ -114,6 +135,22 @@ public class NotesFragment extends Fragment {
         });
     }
 
+    /**
+     * Convertit les notes d'une section (hors du thread principal). Nouvelle liste à chaque
+     * mise à jour : l'adaptateur la compare à la précédente.
+     */
+    private static List<Note> toNotes(DataSnapshot snapshot) {
+        List<Note> notes = new ArrayList<>();
+        for (DataSnapshot noteSnapshot : snapshot.getChildren()) {
+            Note note = ModelCodec.toNote(noteSnapshot.getValue());
+            if (note != null) {
+                note.setId(noteSnapshot.getKey());
+                notes.add(note);
+            }
+        }
+        return Collections.unmodifiableList(notes);
+    }
+
     private void addNewNote() {
         String noteText = etNewNote.getText().toString().trim();
         if (noteText.isEmpty()) {
@@ -135,16 +172,17 @@ public class NotesFragment extends Fragment {
         DatabaseReference notesRef = FirebaseDatabase.getInstance().getReference("notes")
                 .child(userId).child(courseId).child(sectionId);
 
-        // Créer une nouvelle note
-        Note newNote = new Note(null, noteText, System.currentTimeMillis());
+        // Créer une nouvelle note (la clé push() est générée localement)
+        String noteId = notesRef.push().getKey();
+        if (noteId == null) {
+            return;
+        }
+        Map<String, Object> noteData = ModelCodec.fromNote(new Note(noteId, noteText, System.currentTimeMillis()));
 
-        // Ajouter à Firebase
-        DatabaseReference newNoteRef = notesRef.push();
-        newNoteRef.setValue(newNote).addOnSuccessListener(unused -> {
-            etNewNote.setText("");
-            Toast.makeText(requireContext(), "Note ajoutée", Toast.LENGTH_SHORT).show();
-        }).addOnFailureListener(e -> {
-            Toast.makeText(requireContext(), "Erreur: " + e.getMessage(), Toast.LENGTH_SHORT).show();
-        });
+        // Envoyée avec le prochain lot ; la note est journalisée et ne peut plus être perdue
+        WriteBehindQueue.getInstance().set(
+                "notes/" + userId + "/" + courseId + "/" + sectionId + "/" + noteId, noteData);
+        etNewNote.setText("");
+        Toast.makeText(requireContext(), "Note ajoutée", Toast.LENGTH_SHORT).show();
     }
 }
\ No newline at end of file
@@ -15,13 +15,12 @@ import androidx.annotation.Nullable;
 import androidx.fragment.app.Fragment;
 
 import com.google.firebase.auth.FirebaseAuth;
-import com.google.firebase.database.DatabaseReference;
-import com.google.firebase.database.FirebaseDatabase;
 import com.projet.skilllearn.R;
 import com.projet.skilllearn.model.Achievement;
 import com.projet.skilllearn.model.Quiz;
 import com.projet.skilllearn.model.QuizQuestion;
 import com.projet.skilllearn.utils.UserProgressManager;
+import com.projet.skilllearn.utils.WriteBehindQueue;
 
 import java.util.HashMap;
 import java.util.List;
@@ -226,8 +225,7 @@ public class QuizFragment extends Fragment {
     }
 
     private void saveQuizResult(String userId, String courseId, String quizId, double percentage) {
-        DatabaseReference resultRef = FirebaseDatabase.getInstance().getReference("quiz_results")
-                .child(userId).child(courseId).child(quizId);
+        String resultPath = "quiz_results/" + userId + "/" + courseId + "/" + quizId;
 
         Map<String, Object> resultData = new HashMap<>();
         resultData.put("score", score);
@@ -235,6 +233,7 @@ public class QuizFragment extends Fragment {
         resultData.put("percentage", percentage);
         resultData.put("completedAt", System.currentTimeMillis());
 
-        resultRef.setValue(resultData);
+        // Envoyé avec le prochain lot ; une nouvelle tentative remplace le résultat en attente
+        WriteBehindQueue.getInstance().set(resultPath, resultData);
     }
 }
\ No newline at end of file
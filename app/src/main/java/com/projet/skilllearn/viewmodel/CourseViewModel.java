@@ -1,5 +1,7 @@
 package com.projet.skilllearn.viewmodel;
 
+import android.os.Handler;
+import android.os.Looper;
 import android.util.Log;
 
 import androidx.annotation.NonNull;
@@ -8,14 +10,17 @@ import androidx.lifecycle.MutableLiveData;
 import androidx.lifecycle.ViewModel;
 
 import com.google.android.gms.tasks.OnSuccessListener;
-import com.google.firebase.database.DataSnapshot;
-import com.google.firebase.database.DatabaseError;
-import com.google.firebase.database.DatabaseReference;
-import com.google.firebase.database.FirebaseDatabase;
-import com.google.firebase.database.ValueEventListener;
+import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.auth.FirebaseUser;
 import com.projet.skilllearn.model.Course;
 import com.projet.skilllearn.model.CourseSection;
+import com.projet.skilllearn.repository.CourseBundle;
+import com.projet.skilllearn.repository.CourseBundleLoader;
+import com.projet.skilllearn.repository.CourseCache;
+import com.projet.skilllearn.repository.CoursePage;
+import com.projet.skilllearn.repository.CourseQuery;
 import com.projet.skilllearn.repository.CourseRepository;
+import com.projet.skilllearn.repository.FirebaseCourseRemote;
 import com.projet.skilllearn.utils.UserProgressManager;
 
 import java.util.ArrayList;
@@ -26,14 +31,41 @@ import java.util.List;
  * ViewModel pour gérer les opérations liées aux cours
  */
 public class CourseViewModel extends ViewModel {
+    // Délai d'attente après la dernière frappe avant de lancer une recherche
+    private static final long SEARCH_DEBOUNCE_MS = 300;
+    // Nombre de cours par page du catalogue
+    private static final int PAGE_SIZE = CourseQuery.DEFAULT_PAGE_SIZE;
+
     private final CourseRepository repository;
 
+    // Recherche différée en attente de la fin de la saisie
+    private final Handler searchHandler = new Handler(Looper.getMainLooper());
+    private Runnable pendingSearch;
+
+    // Numéro de la dernière requête de liste de cours ; les réponses plus anciennes sont ignorées
+    private int latestCoursesRequest = 0;
+
+    // Requête combinée appliquée au catalogue et texte de recherche en attente
+    private CourseQuery catalogQuery = CourseQuery.all();
+    private String pendingSearchText;
+
+    // Pagination du catalogue : curseur de la page suivante côté serveur (null si aucune),
+    // ou pages restantes de la requête locale
+    private CoursePage.Cursor nextPageCursor;
+    private boolean queryHasMore = false;
+    private boolean pageLoading = false;
+    // Callback de la dernière première page demandée au serveur, qui peut être redonnée à jour
+    private CourseRepository.CoursePageCallback firstPageRequest;
+
     // LiveData pour les cours
     private final MutableLiveData<List<Course>> courses = new MutableLiveData<>();
 
     // LiveData pour le cours sélectionné
     private final MutableLiveData<Course> selectedCourse = new MutableLiveData<>();
 
+    // LiveData pour le cours ouvert dans le lecteur, avec la progression de l'utilisateur
+    private final MutableLiveData<CourseBundle> selectedBundle = new MutableLiveData<>();
+
     // LiveData pour l'état de chargement
     private final MutableLiveData<Boolean> isLoading = new MutableLiveData<>(false);
 
@@ -63,6 +95,14 @@ public class CourseViewModel extends ViewModel {
         return selectedCourse;
     }
 
+    /**
+     * Obtient le cours sélectionné avec ses sections et la progression de l'utilisateur
+     * @return LiveData contenant le bundle du cours sélectionné
+     */
+    public LiveData<CourseBundle> getSelectedBundle() {
+        return selectedBundle;
+    }
+
     /**
      * Indique si une opération de chargement est en cours
      * @return LiveData contenant l'état de chargement
@@ -87,36 +127,50 @@ public class CourseViewModel extends ViewModel {
         Log.d("CourseViewModel", "Sélection du cours avec ID: " + courseId);
         isLoading.setValue(true);
 
-        // Référence au cours dans la base de données
-        DatabaseReference courseRef = FirebaseDatabase.getInstance().getReference("courses").child(courseId);
+        CourseBundleLoader loader = CourseBundleLoader.getInstance();
+        if (loader == null) {
+            loadCourseThenSections(courseId);
+            return;
+        }
 
-        courseRef.addListenerForSingleValueEvent(new ValueEventListener() {
+        // Cours, sections et progression lus en parallèle (sections en cache si le cours n'a pas changé)
+        FirebaseUser user = FirebaseAuth.getInstance().getCurrentUser();
+        loader.load(courseId, user != null ? user.getUid() : null, new CourseBundleLoader.Callback() {
             @Override
-            public void onDataChange(@NonNull DataSnapshot snapshot) {
-                try {
-                    Course course = snapshot.getValue(Course.class);
-                    if (course != null) {
-                        Log.d("CourseViewModel", "Cours chargé: " + course.getTitle());
-                        course.setCourseId(courseId);
-
-                        // Maintenant, charge les sections séparément
-                        loadSectionsForCourse(course);
-                    } else {
-                        Log.e("CourseViewModel", "Cours non trouvé pour l'ID: " + courseId);
-                        errorMessage.setValue("Cours non trouvé");
-                        isLoading.setValue(false);
-                    }
-                } catch (Exception e) {
-                    Log.e("CourseViewModel", "Erreur lors du chargement du cours", e);
-                    errorMessage.setValue("Erreur: " + e.getMessage());
-                    isLoading.setValue(false);
-                }
+            public void onBundleLoaded(CourseBundle bundle) {
+                Log.d("CourseViewModel", "Cours chargé: " + bundle.getCourse().getTitle()
+                        + " (" + bundle.getSections().size() + " sections)");
+                bundle.getCourse().setCourseId(courseId);
+                selectedBundle.setValue(bundle);
+                selectedCourse.setValue(bundle.getCourse());
+                isLoading.setValue(false);
             }
 
             @Override
-            public void onCancelled(@NonNull DatabaseError error) {
-                Log.e("CourseViewModel", "Chargement du cours annulé: " + error.getMessage());
-                errorMessage.setValue(error.getMessage());
+            public void onError(String message) {
+                Log.e("CourseViewModel", "Chargement du cours impossible pour l'ID " + courseId + ": " + message);
+                errorMessage.setValue(message);
+                isLoading.setValue(false);
+            }
+        });
+    }
+
+    private void loadCourseThenSections(String courseId) {
+        // Le cours est servi par l'index du catalogue (pré-rempli depuis le disque)
+        repository.getCourseById(courseId, new CourseRepository.CourseCallback() {
+            @Override
+            public void onCourseLoaded(Course course) {
+                Log.d("CourseViewModel", "Cours chargé: " + course.getTitle());
+                course.setCourseId(courseId);
+
+                // Maintenant, charge les sections séparément
+                loadSectionsForCourse(course);
+            }
+
+            @Override
+            public void onError(String message) {
+                Log.e("CourseViewModel", "Chargement du cours impossible pour l'ID " + courseId + ": " + message);
+                errorMessage.setValue(message);
                 isLoading.setValue(false);
             }
         });
@@ -125,86 +179,207 @@ public class CourseViewModel extends ViewModel {
     private void loadSectionsForCourse(@NonNull Course course) {
         Log.d("CourseViewModel", "Chargement des sections pour le cours: " + course.getTitle());
 
-        // Requête pour obtenir les sections où courseId = course.getCourseId()
-        DatabaseReference sectionsRef = FirebaseDatabase.getInstance().getReference("sections");
-        sectionsRef.orderByChild("courseId").equalTo(course.getCourseId())
-                .addListenerForSingleValueEvent(new ValueEventListener() {
+        CourseCache cache = CourseCache.getInstance();
+        if (cache == null) {
+            loadSectionsFromNetwork(course);
+            return;
+        }
+
+        // Copie locale d'abord, puis version revalidée si elle était périmée
+        cache.getSections(course.getCourseId(), new CourseCache.CacheListener<List<CourseSection>>() {
+            @Override
+            public void onData(List<CourseSection> sections, boolean fromCache) {
+                Log.d("CourseViewModel", "Sections chargées (" + (fromCache ? "cache" : "réseau") + "): "
+                        + sections.size());
+                publishSections(course, sections);
+            }
+
+            @Override
+            public void onError(String message) {
+                Log.e("CourseViewModel", "Chargement des sections annulé: " + message);
+                errorMessage.setValue("Erreur lors du chargement des sections: " + message);
+                isLoading.setValue(false);
+            }
+        });
+    }
+
+    private void loadSectionsFromNetwork(@NonNull Course course) {
+        new FirebaseCourseRemote().fetchSections(course.getCourseId(),
+                new CourseCache.RemoteCallback<List<CourseSection>>() {
                     @Override
-                    public void onDataChange(@NonNull DataSnapshot snapshot) {
-                        List<CourseSection> sections = new ArrayList<>();
-
-                        for (DataSnapshot sectionSnapshot : snapshot.getChildren()) {
-                            try {
-                                Log.d("CourseViewModel", "Section trouvée: " + sectionSnapshot.getKey());
-                                CourseSection section = sectionSnapshot.getValue(CourseSection.class);
-                                if (section != null) {
-                                    sections.add(section);
-                                }
-                            } catch (Exception e) {
-                                Log.e("CourseViewModel", "Erreur lors du chargement d'une section", e);
-                            }
-                        }
-
-                        Log.d("CourseViewModel", "Nombre de sections chargées: " + sections.size());
-
-                        // Tri par orderIndex
-                        Collections.sort(sections, (s1, s2) ->
-                                Integer.compare(s1.getOrderIndex(), s2.getOrderIndex()));
-
-                        // Ajoute les sections au cours
-                        course.setSections(sections);
-
-                        // Mettre à jour le LiveData
-                        selectedCourse.setValue(course);
-                        isLoading.setValue(false);
+                    public void onLoaded(List<CourseSection> sections) {
+                        publishSections(course, sections);
                     }
 
                     @Override
-                    public void onCancelled(@NonNull DatabaseError error) {
-                        Log.e("CourseViewModel", "Chargement des sections annulé: " + error.getMessage());
-                        errorMessage.setValue("Erreur lors du chargement des sections: " + error.getMessage());
+                    public void onError(String message) {
+                        Log.e("CourseViewModel", "Chargement des sections annulé: " + message);
+                        errorMessage.setValue("Erreur lors du chargement des sections: " + message);
                         isLoading.setValue(false);
                     }
                 });
     }
 
+    private void publishSections(@NonNull Course course, List<CourseSection> sections) {
+        // Tri par orderIndex
+        Collections.sort(sections, (s1, s2) ->
+                Integer.compare(s1.getOrderIndex(), s2.getOrderIndex()));
+
+        // Ajoute les sections au cours
+        course.setSections(sections);
+
+        // Mettre à jour le LiveData
+        selectedCourse.setValue(course);
+        isLoading.setValue(false);
+    }
+
     /**
      * Charge tous les cours depuis le repository
      */
     public void loadAllCourses() {
         isLoading.setValue(true);
 
-        repository.getAllCourses(new CourseRepository.CoursesCallback() {
-            @Override
-            public void onCoursesLoaded(List<Course> courseList) {
-                courses.setValue(courseList);
-                isLoading.setValue(false);
-            }
+        repository.getAllCourses(newCoursesRequest());
+    }
 
-            @Override
-            public void onError(String message) {
-                errorMessage.setValue(message);
-                isLoading.setValue(false);
-            }
-        });
+    /**
+     * Obtient la requête combinée actuellement appliquée au catalogue
+     */
+    public CourseQuery getCatalogQuery() {
+        return catalogQuery;
     }
 
     /**
-     * Charge les cours d'une catégorie spécifique
-     * @param category Catégorie des cours à charger
+     * Applique la requête courante du catalogue (au premier affichage)
      */
-    public void loadCoursesByCategory(String category) {
-        isLoading.setValue(true);
+    public void loadCatalog() {
+        applyQuery(currentCriteria());
+    }
+
+    /**
+     * Filtre le catalogue par catégorie, en conservant les autres critères
+     * @param category Catégorie, ou null pour toutes
+     */
+    public void setCategoryFilter(String category) {
+        updateCriteria(currentCriteria().withCategory(category));
+    }
+
+    /**
+     * Filtre le catalogue par niveau, en conservant les autres critères
+     * @param level Niveau, ou null pour tous
+     */
+    public void setLevelFilter(String level) {
+        updateCriteria(currentCriteria().withLevel(level));
+    }
+
+    /**
+     * Change l'ordre du catalogue, en conservant les filtres
+     * @param sort Ordre des résultats
+     */
+    public void setSortOrder(CourseQuery.Sort sort) {
+        updateCriteria(currentCriteria().withSort(sort));
+    }
+
+    /**
+     * Recherche textuelle dans le catalogue (immédiatement), combinée aux autres critères
+     * @param text Texte recherché, vide pour tout afficher
+     */
+    public void setSearchText(String text) {
+        updateCriteria(currentCriteria().withText(text));
+    }
+
+    /**
+     * À appeler à chaque modification du texte de recherche.
+     * La recherche n'est lancée qu'après SEARCH_DEBOUNCE_MS sans nouvelle frappe.
+     * @param query Texte saisi
+     */
+    public void onSearchQueryChanged(String query) {
+        cancelPendingSearch();
+        pendingSearchText = query;
+        pendingSearch = () -> {
+            pendingSearch = null;
+            setSearchText(query);
+        };
+        searchHandler.postDelayed(pendingSearch, SEARCH_DEBOUNCE_MS);
+    }
+
+    /**
+     * Critères courants, y compris un texte encore en attente de la fin de la frappe
+     * (pour qu'un changement de filtre ne l'annule pas)
+     */
+    private CourseQuery currentCriteria() {
+        return pendingSearch != null ? catalogQuery.withText(pendingSearchText) : catalogQuery;
+    }
+
+    /**
+     * Applique de nouveaux critères, sauf s'ils sont identiques aux critères courants
+     * (les spinners notifient leur sélection initiale)
+     */
+    private void updateCriteria(CourseQuery query) {
+        if (pendingSearch == null && query.equals(catalogQuery)) {
+            return;
+        }
+        applyQuery(query);
+    }
+
+    /**
+     * Évalue une requête du catalogue. Sans filtre et tant que l'index local n'est pas chargé,
+     * le catalogue est lu page par page depuis le serveur ; sinon la requête est évaluée
+     * localement, sans accès réseau.
+     */
+    private void applyQuery(CourseQuery query) {
+        catalogQuery = query;
+        CoursePage.Order order = pagedOrderFor(query);
+        if (order != null && !repository.isIndexLoaded()) {
+            loadFirstPage(order);
+        } else {
+            runCatalogQuery(query);
+        }
+    }
+
+    /**
+     * Ordre de pagination serveur équivalent à une requête, ou null s'il n'y en a pas
+     */
+    private static CoursePage.Order pagedOrderFor(CourseQuery query) {
+        if (!query.isUnfiltered()) {
+            return null;
+        }
+        switch (query.getSort()) {
+            case DEFAULT:
+                return CoursePage.Order.KEY;
+            case POPULARITY:
+                return CoursePage.Order.POPULARITY;
+            default:
+                return null;
+        }
+    }
 
-        repository.getCoursesByCategory(category, new CourseRepository.CoursesCallback() {
+    private void runCatalogQuery(CourseQuery query) {
+        isLoading.setValue(true);
+        final int requestId = startCoursesRequest();
+        catalogQuery = query;
+        pageLoading = true;
+        repository.queryCourses(query, new CourseRepository.CoursesCallback() {
             @Override
             public void onCoursesLoaded(List<Course> courseList) {
-                courses.setValue(courseList);
+                if (requestId != latestCoursesRequest) {
+                    return;
+                }
+                pageLoading = false;
+                // Le repository retourne un cours de plus que la limite s'il reste des pages
+                queryHasMore = courseList.size() > query.getLimit();
+                courses.setValue(queryHasMore
+                        ? new ArrayList<>(courseList.subList(0, query.getLimit()))
+                        : courseList);
                 isLoading.setValue(false);
             }
 
             @Override
             public void onError(String message) {
+                if (requestId != latestCoursesRequest) {
+                    return;
+                }
+                pageLoading = false;
                 errorMessage.setValue(message);
                 isLoading.setValue(false);
             }
@@ -212,7 +387,7 @@ public class CourseViewModel extends ViewModel {
     }
 
     /**
-     * Recherche des cours par titre ou description
+     * Recherche des cours par titre ou description (immédiatement)
      * @param query Texte à rechercher
      */
     public void searchCourses(String query) {
@@ -223,19 +398,180 @@ public class CourseViewModel extends ViewModel {
 
         isLoading.setValue(true);
 
-        repository.searchCourses(query, new CourseRepository.CoursesCallback() {
+        repository.searchCourses(query, newCoursesRequest());
+    }
+
+    /**
+     * Annule la recherche différée en attente, s'il y en a une
+     */
+    private void cancelPendingSearch() {
+        if (pendingSearch != null) {
+            searchHandler.removeCallbacks(pendingSearch);
+            pendingSearch = null;
+        }
+    }
+
+    /**
+     * Démarre une nouvelle requête de liste de cours : annule la recherche différée
+     * et la pagination en cours, dont les réponses seront ignorées
+     * @return le numéro de la requête
+     */
+    private int startCoursesRequest() {
+        cancelPendingSearch();
+        cancelFirstPageRevalidation();
+        nextPageCursor = null;
+        queryHasMore = false;
+        pageLoading = false;
+        return ++latestCoursesRequest;
+    }
+
+    /**
+     * Charge la première page du catalogue depuis le serveur (les suivantes avec loadNextPage)
+     * @param order Ordre de parcours du catalogue
+     */
+    private void loadFirstPage(CoursePage.Order order) {
+        isLoading.setValue(true);
+        final int requestId = startCoursesRequest();
+        pageLoading = true;
+        requestFirstPage(requestId, order, PAGE_SIZE);
+    }
+
+    /**
+     * Demande une première page ; la précédente n'a plus à être redonnée
+     */
+    private void requestFirstPage(int requestId, CoursePage.Order order, int pageSize) {
+        cancelFirstPageRevalidation();
+        firstPageRequest = newPageRequest(requestId, order, true);
+        repository.getCoursesPage(CoursePage.Cursor.first(order), pageSize, firstPageRequest);
+    }
+
+    private void cancelFirstPageRevalidation() {
+        if (firstPageRequest != null) {
+            repository.cancelPageRevalidation(firstPageRequest);
+            firstPageRequest = null;
+        }
+    }
+
+    /**
+     * Première page redonnée à jour une fois l'index synchronisé (elle venait de la copie disque).
+     * Si la liste n'a pas défilé au-delà, la page la remplace ; sinon toutes les lignes chargées
+     * sont relues dans l'index en une page, à leur place, et la page suivante éventuellement en
+     * cours de chargement est abandonnée pour ne pas être ajoutée à la suite.
+     */
+    private void onFirstPageRevalidated(CoursePage.Order order, CoursePage page) {
+        List<Course> current = courses.getValue();
+        int loaded = current != null ? current.size() : 0;
+        if (loaded <= PAGE_SIZE && !pageLoading) {
+            nextPageCursor = page.getNext();
+            courses.setValue(new ArrayList<>(page.getCourses()));
+            return;
+        }
+        // Pas startCoursesRequest() : une recherche différée en attente doit rester planifiée
+        final int requestId = ++latestCoursesRequest;
+        nextPageCursor = null;
+        pageLoading = true;
+        // L'index est synchronisé : la page en est extraite immédiatement
+        requestFirstPage(requestId, order, Math.max(loaded, PAGE_SIZE));
+    }
+
+    /**
+     * Charge la page suivante du catalogue, si elle existe et n'est pas déjà en cours de chargement
+     */
+    public void loadNextPage() {
+        if (pageLoading) {
+            return;
+        }
+        if (nextPageCursor != null) {
+            pageLoading = true;
+            repository.getCoursesPage(nextPageCursor, PAGE_SIZE,
+                    newPageRequest(latestCoursesRequest, nextPageCursor.getOrder(), false));
+        } else if (queryHasMore) {
+            // Évaluation locale : la requête est simplement étendue d'une page
+            runCatalogQuery(catalogQuery.nextPage());
+        }
+    }
+
+    /**
+     * Indique si d'autres pages peuvent être chargées
+     */
+    public boolean hasMorePages() {
+        return nextPageCursor != null || queryHasMore;
+    }
+
+    /**
+     * Callback d'une page : ignorée si une autre requête a été lancée entre-temps
+     * @param requestId Numéro de la requête à laquelle appartient la page
+     * @param order Ordre de parcours du catalogue
+     * @param firstPage true pour remplacer la liste, false pour la compléter
+     */
+    private CourseRepository.CoursePageCallback newPageRequest(int requestId, CoursePage.Order order,
+                                                               boolean firstPage) {
+        return new CourseRepository.CoursePageCallback() {
+            private boolean delivered = false;
+
+            @Override
+            public void onPageLoaded(CoursePage page) {
+                if (requestId != latestCoursesRequest) {
+                    return;
+                }
+                if (firstPage && delivered) {
+                    onFirstPageRevalidated(order, page);
+                    return;
+                }
+                delivered = true;
+                pageLoading = false;
+                nextPageCursor = page.getNext();
+
+                // Nouvelle liste : l'adaptateur compare et n'ajoute que les nouvelles lignes
+                List<Course> current = courses.getValue();
+                List<Course> merged = firstPage || current == null
+                        ? new ArrayList<>()
+                        : new ArrayList<>(current);
+                merged.addAll(page.getCourses());
+                courses.setValue(merged);
+                isLoading.setValue(false);
+            }
+
+            @Override
+            public void onError(String message) {
+                if (requestId != latestCoursesRequest) {
+                    return;
+                }
+                pageLoading = false;
+                errorMessage.setValue(message);
+                isLoading.setValue(false);
+            }
+        };
+    }
+
+    /**
+     * Crée le callback d'une nouvelle requête de liste de cours.
+     * Toute requête plus récente remplace celle-ci : sa réponse sera alors ignorée,
+     * afin que seuls les résultats de la dernière requête soient affichés.
+     * Une recherche différée encore en attente est également abandonnée.
+     * @return le callback à passer au repository
+     */
+    private CourseRepository.CoursesCallback newCoursesRequest() {
+        final int requestId = startCoursesRequest();
+        return new CourseRepository.CoursesCallback() {
             @Override
             public void onCoursesLoaded(List<Course> courseList) {
+                if (requestId != latestCoursesRequest) {
+                    return;
+                }
                 courses.setValue(courseList);
                 isLoading.setValue(false);
             }
 
             @Override
             public void onError(String message) {
+                if (requestId != latestCoursesRequest) {
+                    return;
+                }
                 errorMessage.setValue(message);
                 isLoading.setValue(false);
             }
-        });
+        };
     }
 
     /**
@@ -244,6 +580,7 @@ public class CourseViewModel extends ViewModel {
      */
     public void updateCourse(Course course) {
         isLoading.setValue(true);
+        invalidateBundle(course.getCourseId());
 
         repository.updateCourse(course, unused -> {
             if (selectedCourse.getValue() != null &&
@@ -261,6 +598,7 @@ public class CourseViewModel extends ViewModel {
      */
     public void deleteCourse(String courseId) {
         isLoading.setValue(true);
+        invalidateBundle(courseId);
 
         repository.deleteCourse(courseId, unused -> {
             if (selectedCourse.getValue() != null &&
@@ -288,6 +626,13 @@ public class CourseViewModel extends ViewModel {
         });
     }
 
+    private static void invalidateBundle(String courseId) {
+        CourseBundleLoader loader = CourseBundleLoader.getInstance();
+        if (loader != null) {
+            loader.invalidate(courseId);
+        }
+    }
+
     /**
      * Réinitialise les erreurs
      */
@@ -310,78 +655,7 @@ public class CourseViewModel extends ViewModel {
     public void loadRecommendedCourses(String userId) {
         isLoading.setValue(true);
 
-        repository.getRecommendedCourses(userId, new CourseRepository.CoursesCallback() {
-            @Override
-            public void onCoursesLoaded(List<Course> courseList) {
-                courses.setValue(courseList);
-                isLoading.setValue(false);
-            }
-
-            @Override
-            public void onError(String message) {
-                errorMessage.setValue(message);
-                isLoading.setValue(false);
-            }
-        });
-    }
-
-    /**
-     * Filtre les cours par niveau de difficulté
-     * @param level Niveau de difficulté ("débutant", "intermédiaire", "expert")
-     */
-    public void filterCoursesByLevel(String level) {
-        isLoading.setValue(true);
-
-        repository.getCoursesByLevel(level, new CourseRepository.CoursesCallback() {
-            @Override
-            public void onCoursesLoaded(List<Course> courseList) {
-                courses.setValue(courseList);
-                isLoading.setValue(false);
-            }
-
-            @Override
-            public void onError(String message) {
-                errorMessage.setValue(message);
-                isLoading.setValue(false);
-            }
-        });
-    }
-
-    /**
-     * Trie les cours par durée
-     * @param ascending Si vrai, tri en ordre croissant; sinon, décroissant
-     */
-    public void sortCoursesByDuration(boolean ascending) {
-        List<Course> currentCourses = courses.getValue();
-        if (currentCourses != null) {
-            if (ascending) {
-                currentCourses.sort((c1, c2) -> Integer.compare(c1.getDurationMinutes(), c2.getDurationMinutes()));
-            } else {
-                currentCourses.sort((c1, c2) -> Integer.compare(c2.getDurationMinutes(), c1.getDurationMinutes()));
-            }
-            courses.setValue(currentCourses);
-        }
-    }
-
-    /**
-     * Trie les cours par popularité (basé sur le nombre d'inscrits)
-     */
-    public void sortCoursesByPopularity() {
-        isLoading.setValue(true);
-
-        repository.getCoursesByPopularity(new CourseRepository.CoursesCallback() {
-            @Override
-            public void onCoursesLoaded(List<Course> courseList) {
-                courses.setValue(courseList);
-                isLoading.setValue(false);
-            }
-
-            @Override
-            public void onError(String message) {
-                errorMessage.setValue(message);
-                isLoading.setValue(false);
-            }
-        });
+        repository.getRecommendedCourses(userId, newCoursesRequest());
     }
 
     /**
@@ -391,18 +665,14 @@ public class CourseViewModel extends ViewModel {
     public void getUserCourses(String userId) {
         isLoading.setValue(true);
 
-        repository.getUserCourses(userId, new CourseRepository.CoursesCallback() {
-            @Override
-            public void onCoursesLoaded(List<Course> courseList) {
-                courses.setValue(courseList);
-                isLoading.setValue(false);
-            }
+        repository.getUserCourses(userId, newCoursesRequest());
+    }
 
-            @Override
-            public void onError(String message) {
-                errorMessage.setValue(message);
-                isLoading.setValue(false);
-            }
-        });
+    @Override
+    protected void onCleared() {
+        super.onCleared();
+        cancelPendingSearch();
+        // Le repository garde ses callbacks dans une liste statique jusqu'à la synchronisation
+        cancelFirstPageRevalidation();
     }
-}
\ No newline at end of file
+}
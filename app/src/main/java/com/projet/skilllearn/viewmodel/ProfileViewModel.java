@@ -10,8 +10,12 @@ import com.google.firebase.database.DatabaseReference;
 import com.google.firebase.database.FirebaseDatabase;
 import com.google.firebase.database.ValueEventListener;
 import com.projet.skilllearn.model.Achievement;
+import com.projet.skilllearn.repository.ModelCodec;
+import com.projet.skilllearn.utils.ListenerRegistry;
+import com.projet.skilllearn.utils.SnapshotMapper;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 public class ProfileViewModel extends ViewModel {
@@ -20,6 +24,13 @@ public class ProfileViewModel extends ViewModel {
     private final MutableLiveData<List<Achievement>> achievements = new MutableLiveData<>(new ArrayList<>());
     private final MutableLiveData<String> errorMessage = new MutableLiveData<>();
 
+    // Écouteurs Firebase détachés dans onCleared()
+    private final ListenerRegistry listeners = new ListenerRegistry();
+    // Conversions des instantanés, hors du thread principal
+    private final SnapshotMapper mapper = SnapshotMapper.getInstance();
+    private final String progressStream = mapper.stream("profile/progress");
+    private final String achievementsStream = mapper.stream("profile/achievements");
+
     public ProfileViewModel() {
         // Initialiser avec des données par défaut
         initDefaultAchievements();
@@ -47,29 +58,11 @@ public class ProfileViewModel extends ViewModel {
                 .getReference("user_progress")
                 .child(userId);
 
-        progressRef.addValueEventListener(new ValueEventListener() {
+        listeners.observe("progress", progressRef, new ValueEventListener() {
             @Override
             public void onDataChange(DataSnapshot dataSnapshot) {
-                int totalCourses = 0;
-                int completedCourses = 0;
-
-                for (DataSnapshot courseSnapshot : dataSnapshot.getChildren()) {
-                    totalCourses++;
-                    Integer percentage = courseSnapshot.child("percentage").getValue(Integer.class);
-                    if (percentage != null && percentage == 100) {
-                        completedCourses++;
-                    }
-                }
-
-                if (totalCourses > 0) {
-                    int progress = (completedCourses * 100) / totalCourses;
-                    learningProgress.setValue(progress);
-                } else {
-                    learningProgress.setValue(0);
-                }
-
-                // Mise à jour des achievements basés sur le progrès
-                updateProgressAchievements(completedCourses);
+                mapper.map(progressStream, dataSnapshot, ProfileViewModel::countCourses,
+                        counts -> publishProgress(counts[0], counts[1]));
             }
 
             @Override
@@ -79,26 +72,56 @@ public class ProfileViewModel extends ViewModel {
         });
     }
 
+    /**
+     * Compte les cours suivis et terminés (hors du thread principal)
+     * @return { cours suivis, cours terminés }
+     */
+    private static int[] countCourses(DataSnapshot progressSnapshot) {
+        int totalCourses = 0;
+        int completedCourses = 0;
+        for (DataSnapshot courseSnapshot : progressSnapshot.getChildren()) {
+            totalCourses++;
+            Integer percentage = courseSnapshot.child("percentage").getValue(Integer.class);
+            if (percentage != null && percentage == 100) {
+                completedCourses++;
+            }
+        }
+        return new int[]{totalCourses, completedCourses};
+    }
+
+    private void publishProgress(int totalCourses, int completedCourses) {
+        if (totalCourses > 0) {
+            int progress = (completedCourses * 100) / totalCourses;
+            learningProgress.setValue(progress);
+        } else {
+            learningProgress.setValue(0);
+        }
+
+        // Mise à jour des achievements basés sur le progrès
+        updateProgressAchievements(completedCourses);
+    }
+
     private void loadUserAchievements(String userId) {
         DatabaseReference achievementsRef = FirebaseDatabase.getInstance()
                 .getReference("user_achievements")
                 .child(userId);
 
-        achievementsRef.addValueEventListener(new ValueEventListener() {
+        listeners.observe("achievements", achievementsRef, new ValueEventListener() {
             @Override
             public void onDataChange(DataSnapshot dataSnapshot) {
                 // Si l'utilisateur a des données d'achievements, les charger
                 if (dataSnapshot.exists()) {
-                    List<Achievement> userAchievements = new ArrayList<>();
-
-                    for (DataSnapshot achievementSnapshot : dataSnapshot.getChildren()) {
-                        Achievement achievement = achievementSnapshot.getValue(Achievement.class);
-                        if (achievement != null) {
-                            userAchievements.add(achievement);
+                    // Liste finale, non modifiable, publiée depuis le thread de conversion
+                    mapper.mapAndPost(achievementsStream, dataSnapshot, snapshot -> {
+                        List<Achievement> userAchievements = new ArrayList<>();
+                        for (DataSnapshot achievementSnapshot : snapshot.getChildren()) {
+                            Achievement achievement = ModelCodec.toAchievement(achievementSnapshot.getValue());
+                            if (achievement != null) {
+                                userAchievements.add(achievement);
+                            }
                         }
-                    }
-
-                    achievements.setValue(userAchievements);
+                        return Collections.unmodifiableList(userAchievements);
+                    }, achievements::postValue);
                 }
             }
 
@@ -147,21 +170,39 @@ public class ProfileViewModel extends ViewModel {
 
         boolean updated = false;
 
-        for (Achievement achievement : currentAchievements) {
-            if (achievement.getId().equals("achievement1") && completedCourses >= 1 && !achievement.isUnlocked()) {
-                achievement.setUnlocked(true);
-                updated = true;
-            } else if (achievement.getId().equals("achievement2") && completedCourses >= 5 && !achievement.isUnlocked()) {
-                achievement.setUnlocked(true);
-                updated = true;
-            } else if (achievement.getId().equals("achievement3") && completedCourses >= 10 && !achievement.isUnlocked()) {
+        // Copier les succès au lieu de les modifier : la liste affichée est comparée à la nouvelle
+        List<Achievement> updatedAchievements = new ArrayList<>();
+        for (Achievement current : currentAchievements) {
+            Achievement achievement = current;
+            if (!current.isUnlocked() && shouldUnlock(current.getId(), completedCourses)) {
+                achievement = new Achievement(current);
                 achievement.setUnlocked(true);
                 updated = true;
             }
+            updatedAchievements.add(achievement);
         }
 
         if (updated) {
-            achievements.setValue(currentAchievements);
+            achievements.setValue(updatedAchievements);
+        }
+    }
+
+    private static boolean shouldUnlock(String achievementId, int completedCourses) {
+        switch (achievementId) {
+            case "achievement1":
+                return completedCourses >= 1;
+            case "achievement2":
+                return completedCourses >= 5;
+            case "achievement3":
+                return completedCourses >= 10;
+            default:
+                return false;
         }
     }
-}
\ No newline at end of file
+
+    @Override
+    protected void onCleared() {
+        super.onCleared();
+        listeners.clear();
+    }
+}
@@ -0,0 +1,23 @@
+package com.projet.skilllearn.repository;
+
+import org.junit.Assume;
+
+/**
+ * Bancs d'essai (mesures de temps et d'allocations) : ignorés dans la suite habituelle, où
+ * leurs seuils dépendraient de la charge de la machine. Pour les lancer :
+ * ./gradlew testDebugUnitTest -Pbenchmarks
+ */
+final class Benchmarks {
+
+    static final String PROPERTY = "skilllearn.benchmarks";
+
+    private Benchmarks() {
+    }
+
+    /**
+     * Ignore le test appelant si les bancs d'essai n'ont pas été demandés
+     */
+    static void assumeEnabled() {
+        Assume.assumeTrue("Banc d'essai : lancer avec -Pbenchmarks", Boolean.getBoolean(PROPERTY));
+    }
+}
@@ -0,0 +1,114 @@
+package com.projet.skilllearn.repository;
+
+import com.projet.skilllearn.model.Course;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests du chargement groupé de cours : ordre demandé, erreurs par ID et lecture des cours
+ * absents d'un index pas encore synchronisé
+ */
+public class CourseBatchTest {
+
+    private CourseIndex index;
+    private Map<String, CourseRepository.CourseCallback> fetches;
+    private List<Course> delivered;
+    private Map<String, String> errors;
+    private int deliveries;
+
+    @Before
+    public void setUp() {
+        index = new CourseIndex();
+        index.upsert(course("c1"));
+        index.upsert(course("c3"));
+        fetches = new LinkedHashMap<>();
+        deliveries = 0;
+    }
+
+    @Test
+    public void syncedIndexReportsMissingCoursesWithoutReading() {
+        CourseBatch batch = newBatch("c3", "absent", "c1");
+
+        batch.serveFrom(index, true);
+        batch.fetchMissing(fetches::put);
+
+        assertTrue(fetches.isEmpty());
+        assertEquals(1, deliveries);
+        assertEquals(Arrays.asList("c3", "c1"), ids(delivered));
+        assertEquals("Cours non trouvé", errors.get("absent"));
+        assertEquals(1, errors.size());
+    }
+
+    @Test
+    public void coursesMissingFromDiskCopyAreReadInRequestedOrder() {
+        CourseBatch batch = newBatch("c2", "c3", "c4", "c1");
+
+        batch.serveFrom(index, false);
+        batch.fetchMissing(fetches::put);
+        assertEquals(Arrays.asList("c2", "c4"), new ArrayList<>(fetches.keySet()));
+        assertEquals(0, deliveries);
+
+        // Réponses dans le désordre
+        fetches.get("c4").onError("Permission refusée");
+        assertEquals(0, deliveries);
+        fetches.get("c2").onCourseLoaded(course("c2"));
+
+        assertEquals(1, deliveries);
+        assertEquals(Arrays.asList("c2", "c3", "c1"), ids(delivered));
+        assertEquals(1, errors.size());
+        assertEquals("Permission refusée", errors.get("c4"));
+    }
+
+    @Test
+    public void everyCourseIsReadWhenIndexIsUnavailable() {
+        CourseBatch batch = newBatch("c1", "c2");
+
+        batch.fetchMissing(fetches::put);
+        fetches.get("c2").onCourseLoaded(course("c2"));
+        fetches.get("c1").onCourseLoaded(course("c1"));
+
+        assertEquals(1, deliveries);
+        assertEquals(Arrays.asList("c1", "c2"), ids(delivered));
+        assertTrue(errors.isEmpty());
+    }
+
+    @Test
+    public void servedCoursesAreCopies() {
+        CourseBatch batch = newBatch("c1");
+
+        batch.serveFrom(index, true);
+        batch.fetchMissing(fetches::put);
+        delivered.get(0).setEnrolledCount(99);
+
+        assertEquals(0, index.get("c1").getEnrolledCount());
+    }
+
+    private CourseBatch newBatch(String... courseIds) {
+        return new CourseBatch(Arrays.asList(courseIds), (courses, courseErrors) -> {
+            deliveries++;
+            delivered = courses;
+            errors = courseErrors;
+        });
+    }
+
+    private static Course course(String courseId) {
+        return new Course(courseId, "Cours " + courseId, "", "Informatique", "débutant", 30, null, null);
+    }
+
+    private static List<String> ids(List<Course> courses) {
+        List<String> result = new ArrayList<>();
+        for (Course course : courses) {
+            result.add(course.getCourseId());
+        }
+        return result;
+    }
+}
@@ -0,0 +1,293 @@
+package com.projet.skilllearn.repository;
+
+import com.projet.skilllearn.model.Course;
+import com.projet.skilllearn.model.CourseSection;
+import com.projet.skilllearn.model.Quiz;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests du chargeur de bundles, avec une fausse source qui peut garder ses réponses en attente
+ */
+public class CourseBundleLoaderTest {
+
+    private static final Executor DIRECT = Runnable::run;
+
+    private FakeSource source;
+    private Map<String, Course> index;
+    private CourseBundleLoader loader;
+
+    /**
+     * Fausse source : compte les lectures de chaque partie et peut différer les réponses
+     */
+    private static class FakeSource implements CourseBundleLoader.Source {
+        final Map<String, Course> courses = new HashMap<>();
+        final Map<String, List<CourseSection>> sections = new HashMap<>();
+        CourseBundle.Progress progress = CourseBundle.Progress.NONE;
+        String sectionsError;
+        String progressError;
+        int courseFetches;
+        int sectionFetches;
+        int progressFetches;
+        boolean defer;
+        final List<Runnable> deferred = new ArrayList<>();
+
+        @Override
+        public void fetchCourse(String courseId, CourseCache.RemoteCallback<Course> callback) {
+            courseFetches++;
+            answer(() -> {
+                Course course = courses.get(courseId);
+                if (course != null) {
+                    callback.onLoaded(new Course(course));
+                } else {
+                    callback.onError("Cours non trouvé");
+                }
+            });
+        }
+
+        @Override
+        public void fetchSections(String courseId, CourseCache.RemoteCallback<List<CourseSection>> callback) {
+            sectionFetches++;
+            answer(() -> {
+                if (sectionsError != null) {
+                    callback.onError(sectionsError);
+                } else {
+                    List<CourseSection> list = sections.get(courseId);
+                    callback.onLoaded(list != null ? new ArrayList<>(list) : new ArrayList<>());
+                }
+            });
+        }
+
+        @Override
+        public void fetchProgress(String userId, String courseId,
+                                  CourseCache.RemoteCallback<CourseBundle.Progress> callback) {
+            progressFetches++;
+            answer(() -> {
+                if (progressError != null) {
+                    callback.onError(progressError);
+                } else {
+                    callback.onLoaded(progress);
+                }
+            });
+        }
+
+        int fetches() {
+            return courseFetches + sectionFetches + progressFetches;
+        }
+
+        void release() {
+            List<Runnable> answers = new ArrayList<>(deferred);
+            deferred.clear();
+            for (Runnable answer : answers) {
+                answer.run();
+            }
+        }
+
+        private void answer(Runnable answer) {
+            if (defer) {
+                deferred.add(answer);
+            } else {
+                answer.run();
+            }
+        }
+    }
+
+    /**
+     * Callback qui enregistre les résultats
+     */
+    private static class Recorder implements CourseBundleLoader.Callback {
+        final List<CourseBundle> bundles = new ArrayList<>();
+        final List<String> errors = new ArrayList<>();
+
+        @Override
+        public void onBundleLoaded(CourseBundle bundle) {
+            bundles.add(bundle);
+        }
+
+        @Override
+        public void onError(String message) {
+            errors.add(message);
+        }
+    }
+
+    @Before
+    public void setUp() {
+        source = new FakeSource();
+        index = new HashMap<>();
+        loader = new CourseBundleLoader(source, index::get, DIRECT);
+
+        source.courses.put("c1", course("c1", 100L));
+        source.sections.put("c1", Arrays.asList(section("s3", 3), section("s1", 1), section("s2", 2)));
+    }
+
+    @Test
+    public void unknownCourseIsLoadedInParallelWithSortedSections() {
+        source.defer = true;
+        source.progress = new CourseBundle.Progress(33, new HashSet<>(Collections.singletonList("s1")));
+        Recorder recorder = new Recorder();
+
+        loader.load("c1", "u1", recorder);
+
+        // Les trois lectures sont lancées avant la première réponse
+        assertEquals(1, source.courseFetches);
+        assertEquals(1, source.sectionFetches);
+        assertEquals(1, source.progressFetches);
+        assertTrue(recorder.bundles.isEmpty());
+
+        source.release();
+
+        CourseBundle bundle = recorder.bundles.get(0);
+        assertEquals("s1", bundle.getSections().get(0).getSectionId());
+        assertEquals("s3", bundle.getSections().get(2).getSectionId());
+        assertEquals(3, bundle.getCourse().getSections().size());
+        assertNotNull(bundle.getSections().get(1).getQuiz());
+        assertEquals(33, bundle.getCourse().getUserProgress());
+        assertEquals(1, bundle.firstIncompleteSectionIndex());
+    }
+
+    @Test
+    public void indexedCourseWithCachedSectionsOnlyReadsProgress() {
+        loader.load("c1", "u1", new Recorder());
+        index.put("c1", course("c1", 100L));
+        int before = source.fetches();
+
+        Recorder recorder = new Recorder();
+        loader.load("c1", "u1", recorder);
+
+        assertEquals(before + 1, source.fetches());
+        assertEquals(2, source.progressFetches);
+        assertEquals(3, recorder.bundles.get(0).getSections().size());
+    }
+
+    @Test
+    public void anonymousOpenOfCachedCourseNeedsNoRead() {
+        loader.load("c1", null, new Recorder());
+        index.put("c1", course("c1", 100L));
+        int before = source.fetches();
+
+        Recorder recorder = new Recorder();
+        loader.load("c1", null, recorder);
+
+        assertEquals(before, source.fetches());
+        assertEquals(1, recorder.bundles.size());
+        assertEquals(0, recorder.bundles.get(0).getProgress().getPercentage());
+    }
+
+    @Test
+    public void newCourseVersionRefetchesSections() {
+        loader.load("c1", null, new Recorder());
+        index.put("c1", course("c1", 200L));
+        source.sections.put("c1", Collections.singletonList(section("s9", 1)));
+
+        Recorder recorder = new Recorder();
+        loader.load("c1", null, recorder);
+
+        assertEquals(2, source.sectionFetches);
+        assertEquals("s9", recorder.bundles.get(0).getSections().get(0).getSectionId());
+    }
+
+    @Test
+    public void concurrentLoadsShareReads() {
+        source.defer = true;
+        Recorder first = new Recorder();
+        Recorder second = new Recorder();
+
+        loader.load("c1", "u1", first);
+        loader.load("c1", "u1", second);
+        source.release();
+
+        assertEquals(3, source.fetches());
+        assertEquals(1, first.bundles.size());
+        assertEquals(1, second.bundles.size());
+        // Chaque appelant reçoit son propre cours
+        assertNotSame(first.bundles.get(0).getCourse(), second.bundles.get(0).getCourse());
+    }
+
+    @Test
+    public void progressFailureStillOpensCourse() {
+        source.progressError = "Permission refusée";
+        Recorder recorder = new Recorder();
+
+        loader.load("c1", "u1", recorder);
+
+        assertTrue(recorder.errors.isEmpty());
+        assertEquals(0, recorder.bundles.get(0).getProgress().getPercentage());
+    }
+
+    @Test
+    public void sectionsFailureFallsBackToPreviousVersion() {
+        loader.load("c1", null, new Recorder());
+        index.put("c1", course("c1", 200L));
+        source.sectionsError = "Hors ligne";
+
+        Recorder recorder = new Recorder();
+        loader.load("c1", null, recorder);
+
+        assertTrue(recorder.errors.isEmpty());
+        assertEquals(3, recorder.bundles.get(0).getSections().size());
+    }
+
+    @Test
+    public void missingCourseIsReportedOnce() {
+        Recorder recorder = new Recorder();
+
+        loader.load("inconnu", "u1", recorder);
+
+        assertTrue(recorder.bundles.isEmpty());
+        assertEquals(Collections.singletonList("Cours non trouvé"), recorder.errors);
+    }
+
+    @Test
+    public void invalidatedCourseIsReadAgain() {
+        loader.load("c1", null, new Recorder());
+        index.put("c1", course("c1", 100L));
+        loader.invalidate("c1");
+
+        loader.load("c1", null, new Recorder());
+
+        assertEquals(2, source.sectionFetches);
+    }
+
+    @Test
+    public void leastRecentlyUsedSectionsAreEvicted() {
+        for (int i = 0; i <= CourseBundleLoader.MAX_CACHED_COURSES; i++) {
+            String courseId = "c" + (i + 10);
+            source.courses.put(courseId, course(courseId, 1L));
+            index.put(courseId, course(courseId, 1L));
+            loader.load(courseId, null, new Recorder());
+        }
+        int before = source.sectionFetches;
+
+        loader.load("c10", null, new Recorder());
+        loader.load("c" + (10 + CourseBundleLoader.MAX_CACHED_COURSES), null, new Recorder());
+
+        assertEquals(before + 1, source.sectionFetches);
+    }
+
+    private static Course course(String courseId, long updatedAt) {
+        Course course = new Course();
+        course.setCourseId(courseId);
+        course.setTitle("Cours " + courseId);
+        course.setUpdatedAt(updatedAt);
+        return course;
+    }
+
+    private static CourseSection section(String sectionId, int orderIndex) {
+        CourseSection section = new CourseSection(sectionId, "c1", "Section " + sectionId, "");
+        section.setOrderIndex(orderIndex);
+        section.setQuiz(new Quiz("q-" + sectionId, "Quiz", new ArrayList<>(), 50, false));
+        return section;
+    }
+}
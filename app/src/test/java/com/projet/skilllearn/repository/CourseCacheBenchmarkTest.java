@@ -0,0 +1,113 @@
+package com.projet.skilllearn.repository;
+
+import com.projet.skilllearn.model.Course;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.*;
+
+/**
+ * Banc d'essai de la lecture du catalogue en cache sur 10 000 cours synthétiques : débit du
+ * décodage complet depuis le fichier projeté, et coût de la première page au démarrage
+ * (projection puis décodage de 20 cours seulement).
+ * Ignoré sauf avec -Pbenchmarks (voir Benchmarks).
+ */
+public class CourseCacheBenchmarkTest {
+
+    private static final int COURSE_COUNT = 10_000;
+    private static final int PAGE_SIZE = 20;
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int MEASURED_ROUNDS = 20;
+    private static final Executor DIRECT = Runnable::run;
+
+    private static final String[] CATEGORIES = {"Informatique", "Langues", "Musique", "Gestion", "Sciences"};
+    private static final String[] LEVELS = {"débutant", "intermédiaire", "avancé"};
+
+    private File directory;
+
+    @Before
+    public void setUp() throws IOException {
+        Benchmarks.assumeEnabled();
+        directory = Files.createTempDirectory("course_cache_bench").toFile();
+    }
+
+    @After
+    public void tearDown() {
+        if (directory == null) {
+            return;
+        }
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    @Test
+    public void firstPageIsReadWithoutDecodingTheCatalog() {
+        newCache().putCourses(syntheticCatalog(new Random(42)));
+
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            openAndReadFirstPage();
+            newCache().mapCatalog();
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            assertEquals(PAGE_SIZE, openAndReadFirstPage().getCourses().size());
+        }
+        double firstPageMillis = (System.nanoTime() - start) / 1e6 / MEASURED_ROUNDS;
+
+        start = System.nanoTime();
+        int decoded = 0;
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            CourseCache cache = newCache();
+            cache.mapCatalog();
+            decoded += cache.peekCatalog().toList().size();
+        }
+        double fullMillis = (System.nanoTime() - start) / 1e6 / MEASURED_ROUNDS;
+
+        assertEquals(COURSE_COUNT * MEASURED_ROUNDS, decoded);
+        assertTrue("Première page trop lente : " + firstPageMillis + " ms contre " + fullMillis
+                + " ms pour le catalogue complet", firstPageMillis * 10 < fullMillis);
+    }
+
+    private CoursePage openAndReadFirstPage() {
+        CourseCache cache = newCache();
+        cache.mapCatalog();
+        return cache.peekCatalog().page(CoursePage.Cursor.first(CoursePage.Order.POPULARITY), PAGE_SIZE);
+    }
+
+    private CourseCache newCache() {
+        return new CourseCache(directory, null, DIRECT, DIRECT, () -> 0L, CourseCache.DEFAULT_MAX_AGE_MS);
+    }
+
+    private static List<Course> syntheticCatalog(Random random) {
+        List<Course> courses = new ArrayList<>(COURSE_COUNT);
+        for (int i = 0; i < COURSE_COUNT; i++) {
+            Course course = new Course("course" + i, "Cours " + i, "Description du cours numéro " + i,
+                    CATEGORIES[random.nextInt(CATEGORIES.length)], LEVELS[random.nextInt(LEVELS.length)],
+                    10 + random.nextInt(300), "https://example.com/images/" + i + ".jpg", "author" + random.nextInt(500));
+            course.setAuthorName("Auteur " + random.nextInt(500));
+            course.setEnrolledCount(random.nextInt(100_000));
+            course.setTags(Arrays.asList("tag" + random.nextInt(200), "tag" + random.nextInt(200)));
+            course.setCreatedAt(1_600_000_000_000L + random.nextInt(1_000_000));
+            course.setUpdatedAt(course.getCreatedAt() + random.nextInt(1_000_000));
+            courses.add(course);
+        }
+        return courses;
+    }
+}
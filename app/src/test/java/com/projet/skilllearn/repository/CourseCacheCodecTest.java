@@ -0,0 +1,169 @@
+package com.projet.skilllearn.repository;
+
+import com.projet.skilllearn.model.Course;
+import com.projet.skilllearn.model.CourseSection;
+import com.projet.skilllearn.model.Quiz;
+import com.projet.skilllearn.model.QuizQuestion;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests de l'encodage compact du cache : aller-retour des cours et des sections,
+ * pagination dans le catalogue projeté, rejet des fichiers incohérents
+ */
+public class CourseCacheCodecTest {
+
+    @Test
+    public void courseRoundTripKeepsEveryCachedField() throws IOException {
+        Course course = new Course("c1", "Java", "Les bases ✓", "Informatique", "débutant", 90, "img", "a1");
+        course.setAuthorName("Ada");
+        course.setEnrolledCount(1_234_567);
+        course.setCounterShards(8);
+        course.setTags(Arrays.asList("java", "poo"));
+        course.setCreatedAt(Long.MIN_VALUE);
+        course.setUpdatedAt(Long.MAX_VALUE);
+
+        Course decoded = catalog(Collections.singletonList(course)).get(0);
+
+        assertEquals(ModelCodec.fromCourse(course), ModelCodec.fromCourse(decoded));
+    }
+
+    @Test
+    public void nullsAndNegativeValuesSurvive() throws IOException {
+        Course course = new Course("c1", null, null, null, null, -5, null, null);
+        course.setEnrolledCount(Integer.MIN_VALUE);
+        course.setCounterShards(-1);
+        course.setTags(new ArrayList<>(Arrays.asList("a", null)));
+
+        Course decoded = catalog(Collections.singletonList(course)).get(0);
+
+        assertNull(decoded.getTitle());
+        assertNull(decoded.getCategory());
+        assertEquals(-5, decoded.getDurationMinutes());
+        assertEquals(Integer.MIN_VALUE, decoded.getEnrolledCount());
+        assertEquals(Arrays.asList("a", null), decoded.getTags());
+
+        course.setTags(null);
+        assertNull(catalog(Collections.singletonList(course)).get(0).getTags());
+    }
+
+    @Test
+    public void categoriesAndLevelsAreStoredOnce() throws IOException {
+        List<Course> courses = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            courses.add(new Course("c" + i, "", "", "Informatique et programmation", "intermédiaire", 10, null, null));
+        }
+
+        byte[] body = CourseCacheCodec.encodeCatalog(courses);
+        CatalogSnapshot catalog = CourseCacheCodec.mapCatalog(ByteBuffer.wrap(body));
+
+        // Répétés, les deux libellés prendraient à eux seuls 43 octets par cours
+        assertTrue("Catalogue trop volumineux : " + body.length, body.length < 200 * 32);
+        assertSame(catalog.get(0).getCategory(), catalog.get(199).getCategory());
+    }
+
+    @Test
+    public void pagesMatchTheIndex() throws IOException {
+        Random random = new Random(3);
+        List<Course> courses = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            Course course = new Course("course" + random.nextInt(100_000), "", "", "Informatique", "débutant",
+                    10, null, null);
+            course.setEnrolledCount(random.nextInt(20));
+            courses.add(course);
+        }
+        CourseIndex index = new CourseIndex();
+        index.replaceAll(courses);
+        CatalogSnapshot catalog = catalog(courses);
+        assertEquals(index.size(), catalog.size());
+
+        for (CoursePage.Order order : CoursePage.Order.values()) {
+            CoursePage.Cursor cursor = CoursePage.Cursor.first(order);
+            while (cursor != null) {
+                CoursePage page = catalog.page(cursor, 37);
+                List<Course> expected = order == CoursePage.Order.POPULARITY
+                        ? index.pageByPopularity(cursor.getAfterEnrolledCount(), cursor.getAfterKey(), 37)
+                        : index.pageByKey(cursor.getAfterKey(), 37);
+                assertEquals(ids(expected), ids(page.getCourses()));
+                cursor = page.getNext();
+            }
+        }
+    }
+
+    @Test
+    public void sectionsRoundTripWithQuizzes() throws IOException {
+        CourseSection withQuiz = new CourseSection("s1", "c1", "Intro", "Description");
+        withQuiz.setContent("Contenu é");
+        withQuiz.setOrderIndex(-1);
+        QuizQuestion question = new QuizQuestion("q1", "2 + 2 ?", Arrays.asList("3", "4"), 1, null);
+        withQuiz.setQuiz(new Quiz("quiz1", "Quiz", Collections.singletonList(question), 70, true));
+        CourseSection withoutQuestions = new CourseSection("s2", "c1", "Suite", null);
+        withoutQuestions.setQuiz(new Quiz("quiz2", null, null, 0, false));
+        CourseSection plain = new CourseSection("s3", "c1", null, null);
+        List<CourseSection> sections = Arrays.asList(withQuiz, withoutQuestions, plain);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        CourseCacheCodec.writeSections(new DataOutputStream(bytes), sections);
+        List<CourseSection> decoded = CourseCacheCodec.readSections(ByteBuffer.wrap(bytes.toByteArray()));
+
+        assertEquals(3, decoded.size());
+        for (int i = 0; i < sections.size(); i++) {
+            assertEquals(ModelCodec.fromSection(sections.get(i)), ModelCodec.fromSection(decoded.get(i)));
+        }
+        assertNull(decoded.get(1).getQuiz().getQuestions());
+        assertNull(decoded.get(2).getQuiz());
+    }
+
+    @Test
+    public void truncatedCatalogIsRejected() throws IOException {
+        byte[] body = CourseCacheCodec.encodeCatalog(Arrays.asList(
+                new Course("c1", "Java", "", "Informatique", "débutant", 10, null, null),
+                new Course("c2", "Kotlin", "", "Informatique", "débutant", 10, null, null)));
+
+        try {
+            CourseCacheCodec.mapCatalog(ByteBuffer.wrap(Arrays.copyOf(body, body.length - 3)));
+            fail();
+        } catch (RuntimeException expected) {
+            // Enregistrements tronqués
+        }
+    }
+
+    @Test
+    public void truncatedSectionsAreRejected() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        CourseCacheCodec.writeSections(new DataOutputStream(bytes),
+                Collections.singletonList(new CourseSection("s1", "c1", "Intro", "Description")));
+        byte[] body = bytes.toByteArray();
+
+        try {
+            CourseCacheCodec.readSections(ByteBuffer.wrap(Arrays.copyOf(body, body.length - 2)));
+            fail();
+        } catch (RuntimeException expected) {
+            // Section tronquée
+        }
+    }
+
+    private static CatalogSnapshot catalog(List<Course> courses) throws IOException {
+        return CourseCacheCodec.mapCatalog(ByteBuffer.wrap(CourseCacheCodec.encodeCatalog(courses)));
+    }
+
+    private static List<String> ids(List<Course> courses) {
+        List<String> ids = new ArrayList<>();
+        for (Course course : courses) {
+            ids.add(course.getCourseId());
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,298 @@
+package com.projet.skilllearn.repository;
+
+import com.projet.skilllearn.model.Course;
+import com.projet.skilllearn.model.CourseSection;
+import com.projet.skilllearn.model.Quiz;
+import com.projet.skilllearn.model.QuizQuestion;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests du cache persistant des cours, avec une fausse source distante
+ * et des exécuteurs synchrones
+ */
+public class CourseCacheTest {
+
+    private static final long MAX_AGE = 60_000L;
+    private static final Executor DIRECT = Runnable::run;
+
+    private File directory;
+    private FakeRemote remote;
+    private long now;
+
+    /**
+     * Fausse source distante : compte les lectures et peut différer ou refuser les réponses
+     */
+    private static class FakeRemote implements CourseCache.Remote {
+        List<CourseSection> sections = new ArrayList<>();
+        String error;
+        int fetches;
+        final List<CourseCache.RemoteCallback<List<CourseSection>>> deferred = new ArrayList<>();
+        boolean defer;
+
+        @Override
+        public void fetchSections(String courseId, CourseCache.RemoteCallback<List<CourseSection>> callback) {
+            fetches++;
+            if (defer) {
+                deferred.add(callback);
+            } else {
+                answer(callback);
+            }
+        }
+
+        void releaseDeferred() {
+            for (CourseCache.RemoteCallback<List<CourseSection>> callback : deferred) {
+                answer(callback);
+            }
+            deferred.clear();
+        }
+
+        private void answer(CourseCache.RemoteCallback<List<CourseSection>> callback) {
+            if (error != null) {
+                callback.onError(error);
+            } else {
+                callback.onLoaded(new ArrayList<>(sections));
+            }
+        }
+    }
+
+    /**
+     * Écouteur qui enregistre toutes les livraisons
+     */
+    private static class Recorder<T> implements CourseCache.CacheListener<T> {
+        final List<T> data = new ArrayList<>();
+        final List<Boolean> fromCache = new ArrayList<>();
+        final List<String> errors = new ArrayList<>();
+
+        @Override
+        public void onData(T value, boolean cached) {
+            data.add(value);
+            fromCache.add(cached);
+        }
+
+        @Override
+        public void onError(String message) {
+            errors.add(message);
+        }
+    }
+
+    @Before
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("course_cache").toFile();
+        remote = new FakeRemote();
+        now = 1_000_000L;
+    }
+
+    @After
+    public void tearDown() {
+        deleteRecursively(directory);
+    }
+
+    @Test
+    public void missingSectionsAreFetchedThenServedFromDisk() {
+        remote.sections = Arrays.asList(section("s1", 1), section("s2", 2));
+
+        Recorder<List<CourseSection>> first = new Recorder<>();
+        newCache().getSections("c1", first);
+        assertEquals(Collections.singletonList(false), first.fromCache);
+        assertEquals(1, remote.fetches);
+
+        // Nouvelle instance (redémarrage de l'application) : lecture disque sans réseau
+        Recorder<List<CourseSection>> second = new Recorder<>();
+        CourseCache restarted = newCache();
+        restarted.getSections("c1", second);
+        assertEquals(Collections.singletonList(true), second.fromCache);
+        assertEquals(2, second.data.get(0).size());
+        assertEquals("s2", second.data.get(0).get(1).getSectionId());
+        assertEquals(1, remote.fetches);
+        assertEquals(CourseCache.Freshness.FRESH, restarted.getSectionsFreshness("c1"));
+    }
+
+    @Test
+    public void staleSectionsAreServedThenRevalidated() {
+        remote.sections = Collections.singletonList(section("s1", 1));
+        newCache().getSections("c1", new Recorder<>());
+
+        now += MAX_AGE + 1;
+        remote.sections = Arrays.asList(section("s1", 1), section("s3", 3));
+        CourseCache cache = newCache();
+        assertEquals(CourseCache.Freshness.STALE, cache.getSectionsFreshness("c1"));
+
+        Recorder<List<CourseSection>> recorder = new Recorder<>();
+        cache.getSections("c1", recorder);
+        assertEquals(Arrays.asList(true, false), recorder.fromCache);
+        assertEquals(1, recorder.data.get(0).size());
+        assertEquals(2, recorder.data.get(1).size());
+        assertEquals(CourseCache.Freshness.FRESH, cache.getSectionsFreshness("c1"));
+    }
+
+    @Test
+    public void failedRevalidationKeepsCachedCopyWithoutError() {
+        remote.sections = Collections.singletonList(section("s1", 1));
+        newCache().getSections("c1", new Recorder<>());
+
+        now += MAX_AGE + 1;
+        remote.error = "hors ligne";
+        Recorder<List<CourseSection>> recorder = new Recorder<>();
+        newCache().getSections("c1", recorder);
+        assertEquals(Collections.singletonList(true), recorder.fromCache);
+        assertTrue(recorder.errors.isEmpty());
+    }
+
+    @Test
+    public void errorIsReportedWhenNothingIsCached() {
+        remote.error = "hors ligne";
+        Recorder<List<CourseSection>> recorder = new Recorder<>();
+        newCache().getSections("c1", recorder);
+        assertTrue(recorder.data.isEmpty());
+        assertEquals(Collections.singletonList("hors ligne"), recorder.errors);
+        assertEquals(CourseCache.Freshness.MISSING, newCache().getSectionsFreshness("c1"));
+    }
+
+    @Test
+    public void concurrentRevalidationsShareOneFetch() {
+        remote.defer = true;
+        remote.sections = Collections.singletonList(section("s1", 1));
+        CourseCache cache = newCache();
+
+        Recorder<List<CourseSection>> first = new Recorder<>();
+        Recorder<List<CourseSection>> second = new Recorder<>();
+        cache.getSections("c1", first);
+        cache.getSections("c1", second);
+        remote.releaseDeferred();
+
+        assertEquals(1, remote.fetches);
+        assertEquals(1, first.data.size());
+        assertEquals(1, second.data.size());
+    }
+
+    @Test
+    public void coursesRoundTripThroughDisk() {
+        Course course = new Course("c1", "Java", "Bases", "Informatique", "débutant", 45, "img", "a1");
+        course.setTags(Arrays.asList("java", "programmation"));
+        course.setEnrolledCount(12);
+        course.setUserProgress(80);
+
+        CourseCache cache = newCache();
+        assertEquals(CourseCache.Freshness.MISSING, cache.getCoursesFreshness());
+        cache.putCourses(Collections.singletonList(course));
+
+        Recorder<List<Course>> recorder = new Recorder<>();
+        newCache().getCachedCourses(recorder);
+        Course cached = recorder.data.get(0).get(0);
+        assertEquals("Java", cached.getTitle());
+        assertEquals(45, cached.getDurationMinutes());
+        assertEquals(12, cached.getEnrolledCount());
+        assertEquals(Arrays.asList("java", "programmation"), cached.getTags());
+        // Les données propres à l'utilisateur ne sont pas mises en cache
+        assertEquals(0, cached.getUserProgress());
+        assertEquals(0, remote.fetches);
+    }
+
+    @Test
+    public void quizzesAndLongContentSurviveRoundTrip() {
+        CourseSection section = section("s1", 1);
+        char[] longContent = new char[100_000];
+        Arrays.fill(longContent, 'é');
+        section.setContent(new String(longContent));
+        QuizQuestion question = new QuizQuestion("q1", "2 + 2 ?", Arrays.asList("3", "4"), 1, null);
+        section.setQuiz(new Quiz("quiz1", "Quiz", Collections.singletonList(question), 70, true));
+        remote.sections = Collections.singletonList(section);
+        newCache().getSections("c1", new Recorder<>());
+
+        Recorder<List<CourseSection>> recorder = new Recorder<>();
+        newCache().getSections("c1", recorder);
+        CourseSection cached = recorder.data.get(0).get(0);
+        assertEquals(100_000, cached.getContent().length());
+        assertEquals("4", cached.getQuiz().getQuestions().get(0).getOptions().get(1));
+        assertTrue(cached.getQuiz().isRequired());
+        assertNull(cached.getQuiz().getQuestions().get(0).getExplanation());
+    }
+
+    @Test
+    public void corruptFileIsTreatedAsMissing() throws IOException {
+        Files.write(new File(directory, "courses.bin").toPath(), new byte[]{1, 2, 3});
+        Recorder<List<Course>> recorder = new Recorder<>();
+        newCache().getCachedCourses(recorder);
+        assertTrue(recorder.data.isEmpty());
+        assertEquals(1, recorder.errors.size());
+    }
+
+    @Test
+    public void mappedCatalogServesPagesBeforeAnyFullRead() {
+        List<Course> courses = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            Course course = new Course(String.format("c%02d", i), "Cours " + i, "", "Informatique", "débutant",
+                    30, null, null);
+            course.setEnrolledCount(i % 7);
+            courses.add(course);
+        }
+        newCache().putCourses(courses);
+
+        CourseCache cache = newCache();
+        assertNull(cache.peekCatalog());
+        cache.mapCatalog();
+        CatalogSnapshot catalog = cache.peekCatalog();
+
+        assertEquals(50, catalog.size());
+        CoursePage first = catalog.page(CoursePage.Cursor.first(CoursePage.Order.KEY), 20);
+        assertEquals("c00", first.getCourses().get(0).getCourseId());
+        CoursePage second = catalog.page(first.getNext(), 20);
+        assertEquals("c20", second.getCourses().get(0).getCourseId());
+        CoursePage popular = catalog.page(CoursePage.Cursor.first(CoursePage.Order.POPULARITY), 3);
+        assertEquals(6, popular.getCourses().get(0).getEnrolledCount());
+    }
+
+    @Test
+    public void previousFormatVersionIsTreatedAsMissing() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(0x534b4c43);
+        out.writeInt(2);
+        out.writeLong(now);
+        out.writeInt(0);
+        Files.write(new File(directory, "courses.bin").toPath(), bytes.toByteArray());
+
+        CourseCache cache = newCache();
+        Recorder<List<Course>> recorder = new Recorder<>();
+        cache.getCachedCourses(recorder);
+
+        assertEquals(1, recorder.errors.size());
+        assertEquals(CourseCache.Freshness.MISSING, cache.getCoursesFreshness());
+    }
+
+    private CourseCache newCache() {
+        return new CourseCache(directory, remote, DIRECT, DIRECT, () -> now, MAX_AGE);
+    }
+
+    private static CourseSection section(String id, int order) {
+        CourseSection section = new CourseSection(id, "c1", "Section " + order, "");
+        section.setOrderIndex(order);
+        return section;
+    }
+
+    private static void deleteRecursively(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                deleteRecursively(child);
+            }
+        }
+        file.delete();
+    }
+}
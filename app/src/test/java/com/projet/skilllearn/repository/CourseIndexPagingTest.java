@@ -0,0 +1,106 @@
+package com.projet.skilllearn.repository;
+
+import com.projet.skilllearn.model.Course;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests de la pagination par clé servie par l'index local
+ */
+public class CourseIndexPagingTest {
+
+    private static final int COURSE_COUNT = 95;
+    private static final int PAGE_SIZE = 20;
+
+    private CourseIndex index;
+
+    @Before
+    public void setUp() {
+        index = new CourseIndex();
+        for (int i = 0; i < COURSE_COUNT; i++) {
+            Course course = new Course(String.format("c%03d", i), "Cours " + i, "", "Informatique",
+                    "débutant", 30, null, null);
+            // Beaucoup d'égalités pour vérifier le départage par clé
+            course.setEnrolledCount(i % 7);
+            index.upsert(course);
+        }
+        index.markLoaded();
+    }
+
+    @Test
+    public void keyPagesCoverCatalogInKeyOrder() {
+        List<Course> all = readAll(CoursePage.Order.KEY);
+        assertEquals(COURSE_COUNT, all.size());
+        for (int i = 1; i < all.size(); i++) {
+            assertTrue(all.get(i - 1).getCourseId().compareTo(all.get(i).getCourseId()) < 0);
+        }
+    }
+
+    @Test
+    public void popularityPagesCoverCatalogWithoutDuplicates() {
+        List<Course> all = readAll(CoursePage.Order.POPULARITY);
+        assertEquals(COURSE_COUNT, all.size());
+
+        Set<String> ids = new HashSet<>();
+        for (int i = 0; i < all.size(); i++) {
+            assertTrue(ids.add(all.get(i).getCourseId()));
+            if (i > 0) {
+                Course previous = all.get(i - 1);
+                Course current = all.get(i);
+                assertTrue(previous.getEnrolledCount() > current.getEnrolledCount()
+                        || (previous.getEnrolledCount() == current.getEnrolledCount()
+                        && previous.getCourseId().compareTo(current.getCourseId()) > 0));
+            }
+        }
+    }
+
+    @Test
+    public void cursorSurvivesConcurrentInsertions() {
+        CoursePage first = page(CoursePage.Cursor.first(CoursePage.Order.KEY));
+        // Un cours ajouté avant le curseur n'apparaît pas dans les pages suivantes ni ne les décale
+        index.upsert(new Course("c000a", "Nouveau", "", "Art", "débutant", 10, null, null));
+        CoursePage second = page(first.getNext());
+        assertEquals("c020", second.getCourses().get(0).getCourseId());
+    }
+
+    @Test
+    public void lastPageHasNoCursor() {
+        CoursePage.Cursor cursor = CoursePage.Cursor.first(CoursePage.Order.KEY);
+        CoursePage page;
+        int pages = 0;
+        do {
+            page = page(cursor);
+            cursor = page.getNext();
+            pages++;
+        } while (!page.isLast());
+        assertEquals(5, pages);
+        assertEquals(COURSE_COUNT % PAGE_SIZE, page.getCourses().size());
+    }
+
+    private List<Course> readAll(CoursePage.Order order) {
+        List<Course> all = new ArrayList<>();
+        CoursePage.Cursor cursor = CoursePage.Cursor.first(order);
+        while (cursor != null) {
+            CoursePage page = page(cursor);
+            assertTrue(page.getCourses().size() <= PAGE_SIZE);
+            all.addAll(page.getCourses());
+            cursor = page.getNext();
+        }
+        return all;
+    }
+
+    private CoursePage page(CoursePage.Cursor cursor) {
+        List<Course> courses = cursor.getOrder() == CoursePage.Order.POPULARITY
+                ? index.pageByPopularity(cursor.getAfterEnrolledCount(), cursor.getAfterKey(), PAGE_SIZE)
+                : index.pageByKey(cursor.getAfterKey(), PAGE_SIZE);
+        return CoursePage.of(cursor.getOrder(), courses, PAGE_SIZE);
+    }
+}
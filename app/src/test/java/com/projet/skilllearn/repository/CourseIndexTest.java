@@ -0,0 +1,128 @@
+package com.projet.skilllearn.repository;
+
+import com.projet.skilllearn.model.Course;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests de la maintenance incrémentale de l'index et de l'isolation des cours retournés
+ */
+public class CourseIndexTest {
+
+    private CourseIndex index;
+
+    @Before
+    public void setUp() {
+        index = new CourseIndex();
+    }
+
+    @Test
+    public void upsertReplacesCourseInEveryGroup() {
+        index.upsert(course("c1", "Informatique", "débutant", 30, 5));
+        index.upsert(course("c1", "Langues", "avancé", 90, 5));
+
+        assertEquals(1, index.size());
+        assertTrue(index.findByCategory("Informatique").isEmpty());
+        assertTrue(index.findByLevel("débutant").isEmpty());
+        assertTrue(index.findByDurationRange(0, 60).isEmpty());
+        assertEquals(ids("c1"), ids(index.findByCategory("Langues")));
+        assertEquals(ids("c1"), ids(index.findByDurationRange(60, 120)));
+        assertEquals(ids("c1"), ids(index.pageByPopularity(0, null, 10)));
+    }
+
+    @Test
+    public void removeClearsCourseFromEveryGroup() {
+        index.upsert(course("c1", "Informatique", "débutant", 30, 5));
+        index.upsert(course("c2", "Informatique", "débutant", 30, 3));
+
+        index.remove("c1");
+        index.remove("absent");
+
+        assertNull(index.get("c1"));
+        assertEquals(ids("c2"), ids(index.findByCategory("Informatique")));
+        assertEquals(ids("c2"), ids(index.pageByKey(null, 10)));
+        assertEquals(ids("c2"), ids(index.pageByPopularity(0, null, 10)));
+    }
+
+    @Test
+    public void retainOnlyDropsCoursesDeletedOnServer() {
+        index.upsert(course("c1", "Informatique", "débutant", 30, 5));
+        index.upsert(course("c2", "Langues", "débutant", 30, 3));
+        index.upsert(course("c3", "Langues", "avancé", 30, 1));
+
+        index.retainOnly(new HashSet<>(Arrays.asList("c2", "c9")));
+
+        assertEquals(ids("c2"), ids(index.getAll()));
+        assertEquals(ids("c2"), ids(index.findByLevel("débutant")));
+        assertTrue(index.findByLevel("avancé").isEmpty());
+    }
+
+    @Test
+    public void warmUpKeepsCoursesAlreadyReceivedFromServer() {
+        index.upsert(course("c1", "Informatique", "débutant", 30, 50));
+
+        index.warmUp(Arrays.asList(
+                course("c1", "Informatique", "débutant", 30, 1),
+                course("c2", "Langues", "débutant", 45, 7),
+                null));
+
+        assertTrue(index.isLoaded());
+        assertEquals(50, index.get("c1").getEnrolledCount());
+        assertEquals(ids("c1", "c2"), ids(index.pageByPopularity(0, null, 10)));
+    }
+
+    @Test
+    public void returnedCoursesAreCopies() {
+        index.upsert(course("c1", "Informatique", "débutant", 30, 5));
+        index.upsert(course("c2", "Informatique", "débutant", 30, 3));
+
+        List<Course> returned = new ArrayList<>();
+        returned.addAll(index.getAll());
+        returned.addAll(index.findByCategory("Informatique"));
+        returned.addAll(index.findByLevel("débutant"));
+        returned.addAll(index.findByDurationRange(0, 60));
+        returned.addAll(index.pageByKey(null, 10));
+        returned.addAll(index.pageByPopularity(0, null, 10));
+        returned.addAll(index.page(CoursePage.Cursor.first(CoursePage.Order.POPULARITY), 10).getCourses());
+        returned.addAll(index.query(CourseQuery.all().withCategory("Informatique").withSort(CourseQuery.Sort.POPULARITY), 10));
+        for (Course course : returned) {
+            assertNotSame(index.get(course.getCourseId()), course);
+            course.setEnrolledCount(course.getEnrolledCount() + 100);
+            course.setCategory("Modifiée");
+        }
+
+        // Ordre de popularité et groupes inchangés
+        assertEquals(ids("c1", "c2"), ids(index.pageByPopularity(0, null, 10)));
+        assertEquals(ids("c2"), ids(index.pageByPopularity(5, "c1", 10)));
+        assertEquals(5, index.get("c1").getEnrolledCount());
+        assertEquals(2, index.findByCategory("Informatique").size());
+        index.remove("c1");
+        assertEquals(ids("c2"), ids(index.pageByPopularity(0, null, 10)));
+    }
+
+    private static Course course(String courseId, String category, String level, int duration, int enrolled) {
+        Course course = new Course(courseId, "Cours " + courseId, "", category, level, duration, null, null);
+        course.setEnrolledCount(enrolled);
+        return course;
+    }
+
+    private static List<String> ids(String... courseIds) {
+        return Arrays.asList(courseIds);
+    }
+
+    private static List<String> ids(List<Course> courses) {
+        List<String> result = new ArrayList<>();
+        for (Course course : courses) {
+            result.add(course.getCourseId());
+        }
+        return result;
+    }
+}
@@ -0,0 +1,103 @@
+package com.projet.skilllearn.repository;
+
+import com.projet.skilllearn.model.Course;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests des requêtes combinées évaluées sur l'index local
+ */
+public class CourseQueryTest {
+
+    private CourseIndex index;
+
+    @Before
+    public void setUp() {
+        index = new CourseIndex();
+        index.upsert(course("c1", "Java pour débutants", "Informatique", "débutant", 120, 40));
+        index.upsert(course("c2", "Java avancé", "Informatique", "expert", 300, 15));
+        index.upsert(course("c3", "Python pour débutants", "Informatique", "débutant", 90, 80));
+        index.upsert(course("c4", "Photographie", "Art", "débutant", 60, 5));
+        index.upsert(course("c5", "Aquarelle", "Art", "expert", 45, 60));
+        index.markLoaded();
+    }
+
+    @Test
+    public void categoryAndLevelCombine() {
+        CourseQuery query = CourseQuery.all().withCategory("Informatique").withLevel("débutant");
+        assertEquals(Arrays.asList("c1", "c3"), ids(query));
+
+        // Changer le niveau conserve la catégorie
+        assertEquals(Arrays.asList("c2"), ids(query.withLevel("expert")));
+        // Retirer la catégorie conserve le niveau
+        assertEquals(Arrays.asList("c1", "c3", "c4"), ids(query.withCategory(null)));
+    }
+
+    @Test
+    public void textCombinesWithFilters() {
+        CourseQuery query = CourseQuery.all().withText("java").withLevel("expert");
+        assertEquals(Arrays.asList("c2"), ids(query));
+        assertTrue(ids(query.withCategory("Art")).isEmpty());
+    }
+
+    @Test
+    public void sortAppliesToFilteredResults() {
+        CourseQuery query = CourseQuery.all().withLevel("débutant");
+        assertEquals(Arrays.asList("c4", "c3", "c1"), ids(query.withSort(CourseQuery.Sort.DURATION_ASC)));
+        assertEquals(Arrays.asList("c1", "c3", "c4"), ids(query.withSort(CourseQuery.Sort.DURATION_DESC)));
+        assertEquals(Arrays.asList("c3", "c1", "c4"), ids(query.withSort(CourseQuery.Sort.POPULARITY)));
+    }
+
+    @Test
+    public void defaultOrderIsStableAcrossUpdates() {
+        // Nouvelle inscription : le cours est réindexé mais garde sa place dans le catalogue
+        index.upsert(course("c2", "Java avancé", "Informatique", "expert", 300, 16));
+        index.upsert(course("c1", "Java pour débutants", "Informatique", "débutant", 120, 41));
+
+        assertEquals(Arrays.asList("c1", "c2", "c3", "c4", "c5"), ids(CourseQuery.all()));
+        assertEquals(Arrays.asList("c1", "c2", "c3"), ids(CourseQuery.all().withCategory("Informatique")));
+    }
+
+    @Test
+    public void pagesExtendTheLimit() {
+        CourseQuery firstPage = CourseQuery.all().withPageSize(2).withSort(CourseQuery.Sort.POPULARITY);
+        assertEquals(Arrays.asList("c3", "c5"), ids(firstPage));
+        assertEquals(Arrays.asList("c3", "c5", "c1", "c2"), ids(firstPage.nextPage()));
+    }
+
+    @Test
+    public void changingACriterionReturnsToFirstPage() {
+        CourseQuery query = CourseQuery.all().nextPage().withLevel("expert");
+        assertEquals(0, query.getPage());
+    }
+
+    @Test
+    public void emptyCriteriaMeanNoFilter() {
+        CourseQuery query = CourseQuery.all().withCategory("").withText("  ");
+        assertTrue(query.isUnfiltered());
+        assertEquals(CourseQuery.all(), query);
+        assertEquals(5, ids(query).size());
+    }
+
+    private List<String> ids(CourseQuery query) {
+        List<String> ids = new ArrayList<>();
+        for (Course course : index.query(query, query.getLimit())) {
+            ids.add(course.getCourseId());
+        }
+        return ids;
+    }
+
+    private static Course course(String id, String title, String category, String level,
+                                 int duration, int enrolled) {
+        Course course = new Course(id, title, "", category, level, duration, null, null);
+        course.setEnrolledCount(enrolled);
+        return course;
+    }
+}
@@ -0,0 +1,81 @@
+package com.projet.skilllearn.repository;
+
+import com.projet.skilllearn.model.Course;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Banc d'essai du moteur de recommandation : catalogue de 50 000 cours et
+ * utilisateurs ayant suivi jusqu'à 5 000 cours.
+ * Ignoré sauf avec -Pbenchmarks (voir Benchmarks).
+ */
+public class CourseRecommenderBenchmarkTest {
+
+    private static final int COURSE_COUNT = 50_000;
+    private static final int[] HISTORY_SIZES = {10, 500, 5_000};
+    private static final int WARMUP_ROUNDS = 20;
+    private static final int MEASURED_ROUNDS = 50;
+    private static final int LIMIT = 10;
+
+    private static final String[] CATEGORIES = {
+            "Informatique", "Langues", "Art", "Musique", "Sciences", "Business", "Cuisine", "Sport"
+    };
+    private static final String[] LEVELS = {"débutant", "intermédiaire", "expert"};
+    private static final int TAG_COUNT = 2_000;
+
+    @Before
+    public void setUp() {
+        Benchmarks.assumeEnabled();
+    }
+
+    @Test
+    public void recommendationStaysFastForLargeHistories() {
+        Random random = new Random(7);
+        List<Course> catalog = new ArrayList<>(COURSE_COUNT);
+        for (int i = 0; i < COURSE_COUNT; i++) {
+            catalog.add(randomCourse("course" + i, random));
+        }
+        CourseRecommender recommender = new CourseRecommender();
+
+        for (int historySize : HISTORY_SIZES) {
+            List<Course> history = new ArrayList<>(historySize);
+            for (int i = 0; i < historySize; i++) {
+                Course followed = new Course(catalog.get(random.nextInt(COURSE_COUNT)));
+                followed.setUserProgress(random.nextInt(101));
+                history.add(followed);
+            }
+
+            for (int i = 0; i < WARMUP_ROUNDS; i++) {
+                recommender.recommend(history, catalog, LIMIT);
+            }
+
+            long start = System.nanoTime();
+            int returned = 0;
+            for (int i = 0; i < MEASURED_ROUNDS; i++) {
+                returned += recommender.recommend(history, catalog, LIMIT).size();
+            }
+            double averageMillis = (System.nanoTime() - start) / 1e6 / MEASURED_ROUNDS;
+
+            assertEquals(LIMIT * MEASURED_ROUNDS, returned);
+            assertTrue("Recommandation trop lente pour un historique de " + historySize + " cours : "
+                    + averageMillis + " ms", averageMillis < 50.0);
+        }
+    }
+
+    private static Course randomCourse(String id, Random random) {
+        Course course = new Course(id, id, "", CATEGORIES[random.nextInt(CATEGORIES.length)],
+                LEVELS[random.nextInt(LEVELS.length)], 30, null, null);
+        course.setEnrolledCount(random.nextInt(10_000));
+        course.setTags(Arrays.asList("tag" + random.nextInt(TAG_COUNT), "tag" + random.nextInt(TAG_COUNT),
+                "tag" + random.nextInt(TAG_COUNT)));
+        return course;
+    }
+}
@@ -0,0 +1,105 @@
+package com.projet.skilllearn.repository;
+
+import com.projet.skilllearn.model.Course;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests du moteur de recommandation local
+ */
+public class CourseRecommenderTest {
+
+    private CourseRecommender recommender;
+    private List<Course> catalog;
+
+    @Before
+    public void setUp() {
+        recommender = new CourseRecommender();
+        catalog = new ArrayList<>();
+        catalog.add(course("java1", "Informatique", "débutant", 10, "java", "programmation"));
+        catalog.add(course("java2", "Informatique", "intermédiaire", 5, "java", "objet"));
+        catalog.add(course("python1", "Informatique", "débutant", 50, "python"));
+        catalog.add(course("photo1", "Art", "débutant", 500, "photographie"));
+        catalog.add(course("piano1", "Musique", "expert", 20, "piano"));
+    }
+
+    @Test
+    public void enrolledCoursesAreExcluded() {
+        List<Course> history = Collections.singletonList(followed("java1", 100));
+        List<String> ids = ids(recommender.recommend(history, catalog, 10));
+        assertFalse(ids.contains("java1"));
+        assertEquals(4, ids.size());
+    }
+
+    @Test
+    public void sharedCategoryAndTagsRankFirst() {
+        List<Course> history = Collections.singletonList(followed("java1", 100));
+        List<String> ids = ids(recommender.recommend(history, catalog, 10));
+        // java2 partage la catégorie et le tag "java", python1 seulement la catégorie
+        assertEquals("java2", ids.get(0));
+        assertEquals("python1", ids.get(1));
+    }
+
+    @Test
+    public void coursesSharingACategoryAreAllCounted() {
+        // Deux cours de la même catégorie : l'ancienne implémentation ne terminait jamais
+        List<Course> history = Arrays.asList(followed("java1", 20), followed("java2", 80));
+        List<String> ids = ids(recommender.recommend(history, catalog, 10));
+        assertEquals(Arrays.asList("python1", "photo1", "piano1"), ids);
+    }
+
+    @Test
+    public void progressWeightsInterests() {
+        List<Course> history = Arrays.asList(followed("photo1", 100), followed("piano1", 0));
+        catalog.add(course("photo2", "Art", "expert", 0, "photographie"));
+        catalog.add(course("piano2", "Musique", "expert", 0, "piano"));
+        List<String> ids = ids(recommender.recommend(history, catalog, 2));
+        assertEquals(Arrays.asList("photo2", "piano2"), ids);
+    }
+
+    @Test
+    public void withoutHistoryMostPopularComeFirst() {
+        List<String> ids = ids(recommender.recommend(new ArrayList<>(), catalog, 3));
+        assertEquals(Arrays.asList("photo1", "python1", "piano1"), ids);
+    }
+
+    @Test
+    public void limitIsRespected() {
+        assertEquals(2, recommender.recommend(null, catalog, 2).size());
+        assertTrue(recommender.recommend(null, catalog, 0).isEmpty());
+    }
+
+    private Course followed(String courseId, int progress) {
+        for (Course course : catalog) {
+            if (course.getCourseId().equals(courseId)) {
+                Course copy = new Course(course);
+                copy.setUserProgress(progress);
+                return copy;
+            }
+        }
+        throw new IllegalArgumentException(courseId);
+    }
+
+    private static Course course(String id, String category, String level, int enrolled, String... tags) {
+        Course course = new Course(id, id, "", category, level, 30, null, null);
+        course.setEnrolledCount(enrolled);
+        course.setTags(Arrays.asList(tags));
+        return course;
+    }
+
+    private static List<String> ids(List<Course> courses) {
+        List<String> ids = new ArrayList<>();
+        for (Course course : courses) {
+            ids.add(course.getCourseId());
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,108 @@
+package com.projet.skilllearn.repository;
+
+import com.projet.skilllearn.model.Course;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Banc d'essai du moteur de recherche sur un catalogue synthétique de 50 000 cours.
+ * Vérifie que la latence moyenne d'une requête reste sous la milliseconde.
+ * Ignoré sauf avec -Pbenchmarks (voir Benchmarks).
+ */
+public class CourseSearchBenchmarkTest {
+
+    private static final int COURSE_COUNT = 50_000;
+    private static final int WARMUP_ROUNDS = 2_000;
+    private static final int MEASURED_ROUNDS = 10_000;
+
+    private static final int VOCABULARY_SIZE = 5_000;
+    private static final String[] SYLLABLES = {
+            "ba", "ce", "di", "fo", "gu", "la", "me", "ni", "po", "ru", "sa", "té", "vi", "zo", "ré", "lu"
+    };
+    private static final String[] TOPICS = {
+            "java", "python", "kotlin", "android", "réseaux", "sécurité", "données", "algèbre",
+            "photographie", "cuisine", "musique", "guitare", "piano", "marketing", "finance",
+            "comptabilité", "anglais", "espagnol", "histoire", "géographie", "physique", "chimie",
+            "biologie", "dessin", "peinture", "écriture", "management", "statistiques", "design",
+            "débutant", "intermédiaire", "expert", "introduction", "avancé", "pratique", "projet"
+    };
+
+    private static final String[] QUERIES = {
+            "java", "debutant", "sécu", "python avancé", "photo", "marketing pratique", "chim",
+            "introduction statistiques", "guit", "données"
+    };
+
+    @Before
+    public void setUp() {
+        Benchmarks.assumeEnabled();
+    }
+
+    @Test
+    public void queryLatencyStaysSubMillisecondAt50kCourses() {
+        CourseSearchEngine engine = new CourseSearchEngine();
+        Random random = new Random(42);
+        String[] vocabulary = buildVocabulary(random);
+
+        for (int i = 0; i < COURSE_COUNT; i++) {
+            engine.index(randomCourse("course" + i, random, vocabulary));
+        }
+        assertEquals(COURSE_COUNT, engine.size());
+
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            engine.search(QUERIES[i % QUERIES.length], 20);
+        }
+
+        long start = System.nanoTime();
+        int hits = 0;
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            hits += engine.search(QUERIES[i % QUERIES.length], 20).size();
+        }
+        double averageMillis = (System.nanoTime() - start) / 1e6 / MEASURED_ROUNDS;
+
+        assertTrue(hits > 0);
+        assertTrue("Latence moyenne trop élevée : " + averageMillis + " ms", averageMillis < 1.0);
+    }
+
+    private static Course randomCourse(String id, Random random, String[] vocabulary) {
+        String title = pick(TOPICS, random) + " " + pickZipf(vocabulary, random) + " " + pickZipf(vocabulary, random);
+        StringBuilder description = new StringBuilder(pick(TOPICS, random));
+        for (int i = 0; i < 12; i++) {
+            description.append(' ').append(pickZipf(vocabulary, random));
+        }
+        Course course = new Course(id, title, description.toString(), "Informatique", "débutant", 30, null, null);
+        List<String> tags = new ArrayList<>(Arrays.asList(pick(TOPICS, random), pick(TOPICS, random)));
+        course.setTags(tags);
+        return course;
+    }
+
+    /**
+     * Vocabulaire synthétique de mots de trois syllabes
+     */
+    private static String[] buildVocabulary(Random random) {
+        String[] vocabulary = new String[VOCABULARY_SIZE];
+        for (int i = 0; i < VOCABULARY_SIZE; i++) {
+            vocabulary[i] = pick(SYLLABLES, random) + pick(SYLLABLES, random) + pick(SYLLABLES, random) + i;
+        }
+        return vocabulary;
+    }
+
+    private static String pick(String[] words, Random random) {
+        return words[random.nextInt(words.length)];
+    }
+
+    /**
+     * Tirage biaisé vers le début du vocabulaire (mots fréquents), à la manière d'une loi de Zipf
+     */
+    private static String pickZipf(String[] words, Random random) {
+        double r = random.nextDouble();
+        return words[(int) (words.length * r * r * r)];
+    }
+}
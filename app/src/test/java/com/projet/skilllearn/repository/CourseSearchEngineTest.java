@@ -0,0 +1,96 @@
+package com.projet.skilllearn.repository;
+
+import com.projet.skilllearn.model.Course;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests du moteur de recherche plein texte des cours
+ */
+public class CourseSearchEngineTest {
+
+    private CourseSearchEngine engine;
+
+    @Before
+    public void setUp() {
+        engine = new CourseSearchEngine();
+        engine.index(course("c1", "Java pour débutants", "Les bases du langage", "java", "programmation"));
+        engine.index(course("c2", "Photographie", "Cours de niveau débutant sur la lumière"));
+        engine.index(course("c3", "Python avancé", "Programmation orientée objet", "python"));
+    }
+
+    @Test
+    public void accentsAreFolded() {
+        List<String> results = engine.search("debutant", 0);
+        assertEquals(Arrays.asList("c1", "c2"), results);
+    }
+
+    @Test
+    public void prefixMatchesForTypeAhead() {
+        assertEquals(Arrays.asList("c3"), engine.search("pyth", 0));
+        assertEquals(Arrays.asList("c1"), engine.search("jav", 0));
+    }
+
+    @Test
+    public void shortPrefixReachesEveryMatchingToken() {
+        for (int i = 0; i < 200; i++) {
+            engine.index(course("x" + i, "Zeste" + i, ""));
+        }
+        assertEquals(200, engine.search("z", 0).size());
+        assertEquals(200, engine.search("ze", 0).size());
+    }
+
+    @Test
+    public void titleMatchRanksAboveDescriptionMatch() {
+        // "débutants" est dans le titre de c1, "débutant" dans la description de c2
+        List<String> results = engine.search("débutant", 0);
+        assertEquals("c1", results.get(0));
+    }
+
+    @Test
+    public void allTermsMustMatch() {
+        assertEquals(Arrays.asList("c3"), engine.search("programmation python", 0));
+        assertTrue(engine.search("java lumière", 0).isEmpty());
+    }
+
+    @Test
+    public void tagsAreSearchable() {
+        assertEquals(Arrays.asList("c1"), engine.search("java", 0));
+    }
+
+    @Test
+    public void updatesAreIncremental() {
+        engine.index(course("c2", "Dessin", "Croquis et perspective"));
+        assertEquals(Arrays.asList("c1"), engine.search("debutant", 0));
+        assertEquals(Arrays.asList("c2"), engine.search("croquis", 0));
+
+        engine.remove("c1");
+        assertTrue(engine.search("java", 0).isEmpty());
+        assertEquals(2, engine.size());
+    }
+
+    @Test
+    public void limitTruncatesResults() {
+        assertEquals(1, engine.search("debutant", 1).size());
+    }
+
+    @Test
+    public void emptyQueryReturnsNothing() {
+        assertTrue(engine.search("  ", 0).isEmpty());
+        assertTrue(engine.search(null, 0).isEmpty());
+    }
+
+    static Course course(String id, String title, String description, String... tags) {
+        Course course = new Course(id, title, description, "Informatique", "débutant", 30, null, null);
+        if (tags.length > 0) {
+            course.setTags(Arrays.asList(tags));
+        }
+        return course;
+    }
+}
@@ -0,0 +1,130 @@
+package com.projet.skilllearn.repository;
+
+import com.google.firebase.database.core.utilities.encoding.CustomClassMapper;
+import com.projet.skilllearn.model.Course;
+import com.projet.skilllearn.model.CourseSection;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Banc d'essai de la conversion écrite à la main face au mappeur par réflexion de Firebase
+ * (celui de DataSnapshot.getValue(Class)), sur les mêmes 10 000 cours et 10 000 sections avec quiz :
+ * temps et octets alloués par le thread (JVM HotSpot) pour chaque objet décodé.
+ * Les seuils sont des rapports entre les deux, mesurés sur la même machine au même moment.
+ * Ignoré sauf avec -Pbenchmarks (voir Benchmarks).
+ */
+public class ModelCodecBenchmarkTest {
+
+    private static final int COUNT = 10_000;
+    private static final int QUESTIONS_PER_QUIZ = 8;
+    private static final int WARMUP_ROUNDS = 3;
+    private static final int MEASURED_ROUNDS = 5;
+
+    // Gains minimaux sur la réflexion, larges : ils détectent une régression d'ordre de grandeur
+    // (retour à la réflexion, copie superflue), pas quelques pourcents
+    private static final double MIN_SPEEDUP = 2.0;
+    private static final double MIN_ALLOCATION_RATIO = 1.2;
+    // Un objet sur SAMPLE_STEP est comparé à celui du mappeur par réflexion
+    private static final int SAMPLE_STEP = 97;
+
+    private interface Decoder {
+        Object decode(Object value);
+    }
+
+    private static final class Result {
+        final double nanosPerItem;
+        final double bytesPerItem;
+
+        Result(double nanosPerItem, double bytesPerItem) {
+            this.nanosPerItem = nanosPerItem;
+            this.bytesPerItem = bytesPerItem;
+        }
+    }
+
+    @Before
+    public void setUp() {
+        Benchmarks.assumeEnabled();
+    }
+
+    @Test
+    public void handWrittenCodecBeatsReflectionOnCourses() {
+        List<Object> values = ModelCodecTest.courseValues(new Random(42), COUNT);
+        for (int i = 0; i < values.size(); i += SAMPLE_STEP) {
+            Course expected = CustomClassMapper.convertToCustomClass(values.get(i), Course.class);
+            assertEquals(ModelCodec.fromCourse(expected), ModelCodec.fromCourse(ModelCodec.toCourse(values.get(i))));
+        }
+
+        Result reflective = measure(values, value -> CustomClassMapper.convertToCustomClass(value, Course.class));
+        Result codec = measure(values, ModelCodec::toCourse);
+        assertBeatsReflection("cours", reflective, codec);
+    }
+
+    @Test
+    public void handWrittenCodecBeatsReflectionOnSectionsWithQuizzes() {
+        List<Object> values = ModelCodecTest.sectionValues(new Random(7), COUNT, QUESTIONS_PER_QUIZ);
+        for (int i = 0; i < values.size(); i += SAMPLE_STEP) {
+            CourseSection expected = CustomClassMapper.convertToCustomClass(values.get(i), CourseSection.class);
+            assertEquals(ModelCodec.fromSection(expected), ModelCodec.fromSection(ModelCodec.toSection(values.get(i))));
+        }
+
+        Result reflective = measure(values, value -> CustomClassMapper.convertToCustomClass(value, CourseSection.class));
+        Result codec = measure(values, ModelCodec::toSection);
+        assertBeatsReflection("sections", reflective, codec);
+    }
+
+    private static Result measure(List<Object> values, Decoder decoder) {
+        for (int round = 0; round < WARMUP_ROUNDS; round++) {
+            decodeAll(values, decoder);
+        }
+        long bytesBefore = allocatedBytes();
+        long start = System.nanoTime();
+        int decoded = 0;
+        for (int round = 0; round < MEASURED_ROUNDS; round++) {
+            decoded += decodeAll(values, decoder);
+        }
+        long elapsed = System.nanoTime() - start;
+        long bytes = allocatedBytes() - bytesBefore;
+        assertEquals(values.size() * MEASURED_ROUNDS, decoded);
+        return new Result((double) elapsed / decoded, bytesBefore < 0 ? -1 : (double) bytes / decoded);
+    }
+
+    private static int decodeAll(List<Object> values, Decoder decoder) {
+        int decoded = 0;
+        for (Object value : values) {
+            if (decoder.decode(value) != null) {
+                decoded++;
+            }
+        }
+        return decoded;
+    }
+
+    /**
+     * @return les octets alloués par le thread courant, ou une valeur négative hors HotSpot
+     */
+    private static long allocatedBytes() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+
+    private static void assertBeatsReflection(String label, Result reflective, Result codec) {
+        String measured = String.format("%s : réflexion %.0f ns et %.0f octets par objet, manuel %.0f ns et %.0f octets",
+                label, reflective.nanosPerItem, reflective.bytesPerItem, codec.nanosPerItem, codec.bytesPerItem);
+        assertTrue("Conversion manuelle pas assez rapide, " + measured,
+                codec.nanosPerItem * MIN_SPEEDUP < reflective.nanosPerItem);
+        if (reflective.bytesPerItem >= 0 && codec.bytesPerItem >= 0) {
+            assertTrue("Conversion manuelle trop gourmande en allocations, " + measured,
+                    codec.bytesPerItem * MIN_ALLOCATION_RATIO < reflective.bytesPerItem);
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package com.projet.skilllearn.repository;
+
+import com.projet.skilllearn.model.Achievement;
+import com.projet.skilllearn.model.Course;
+import com.projet.skilllearn.model.CourseSection;
+import com.projet.skilllearn.model.Note;
+import com.projet.skilllearn.model.Quiz;
+import com.projet.skilllearn.model.QuizQuestion;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests de la conversion écrite à la main entre les valeurs Firebase et le modèle
+ */
+public class ModelCodecTest {
+
+    @Test
+    public void courseRoundTrip() {
+        Course course = new Course("c1", "Java", "Les bases", "Informatique", "débutant", 90, "img", "a1");
+        course.setAuthorName("Ada");
+        course.setEnrolledCount(42);
+        course.setCounterShards(4);
+        course.setTags(Arrays.asList("java", "poo"));
+        course.setCreatedAt(1_700_000_000_000L);
+        course.setUpdatedAt(1_700_000_100_000L);
+        course.setEnrolled(true);
+        course.setSections(Collections.singletonList(section("s1", "c1", 2)));
+
+        Course decoded = ModelCodec.toCourse(firebaseValue(ModelCodec.fromCourse(course)));
+
+        assertEquals(ModelCodec.fromCourse(course), ModelCodec.fromCourse(decoded));
+        assertEquals("Ada", decoded.getAuthorName());
+        assertEquals(Arrays.asList("java", "poo"), decoded.getTags());
+        assertTrue(decoded.isEnrolled());
+        assertEquals(2, decoded.getSections().get(0).getQuiz().getQuestions().size());
+    }
+
+    @Test
+    public void sectionRoundTripKeepsQuestionOrder() {
+        CourseSection section = section("s1", "c1", 3);
+
+        CourseSection decoded = ModelCodec.toSection(firebaseValue(ModelCodec.fromSection(section)));
+
+        assertEquals(ModelCodec.fromSection(section), ModelCodec.fromSection(decoded));
+        List<QuizQuestion> questions = decoded.getQuiz().getQuestions();
+        assertEquals("q0", questions.get(0).getQuestionId());
+        assertEquals("q2", questions.get(2).getQuestionId());
+        assertEquals(Arrays.asList("a", "b", "c"), questions.get(1).getOptions());
+    }
+
+    @Test
+    public void sectionWithoutQuizHasNoQuizField() {
+        CourseSection section = new CourseSection("s1", "c1", "Intro", null);
+
+        Map<String, Object> fields = ModelCodec.fromSection(section);
+
+        assertFalse(fields.containsKey("quiz"));
+        assertNull(ModelCodec.toSection(firebaseValue(fields)).getQuiz());
+    }
+
+    @Test
+    public void sparseArrayIsReadInIndexOrder() {
+        // Tableau avec des trous : Firebase renvoie une Map indexée par des chaînes
+        Map<String, Object> options = new HashMap<>();
+        options.put("10", "k");
+        options.put("2", "c");
+        options.put("0", "a");
+        Map<String, Object> question = new HashMap<>();
+        question.put("options", options);
+
+        assertEquals(Arrays.asList("a", "c", "k"), ModelCodec.toQuestion(question).getOptions());
+    }
+
+    @Test
+    public void unexpectedValuesKeepDefaults() {
+        Map<String, Object> value = new HashMap<>();
+        value.put("title", 12L);
+        value.put("durationMinutes", "long");
+        value.put("tags", Arrays.asList("java", null, 3L));
+        value.put("inconnu", "ignoré");
+
+        Course course = ModelCodec.toCourse(value);
+
+        assertNull(course.getTitle());
+        assertEquals(0, course.getDurationMinutes());
+        assertEquals(Collections.singletonList("java"), course.getTags());
+        assertNull(ModelCodec.toCourse("pas un objet"));
+        assertNull(ModelCodec.toSection(null));
+    }
+
+    @Test
+    public void doubleValuesAreTruncatedLikeFirebase() {
+        Map<String, Object> value = new HashMap<>();
+        value.put("orderIndex", 3.0);
+        value.put("durationMinutes", 12.7);
+
+        CourseSection section = ModelCodec.toSection(value);
+
+        assertEquals(3, section.getOrderIndex());
+        assertEquals(12, section.getDurationMinutes());
+    }
+
+    @Test
+    public void noteRoundTripLeavesIdToTheKey() {
+        Note note = new Note("n1", "À revoir", 1234L);
+
+        Map<String, Object> fields = ModelCodec.fromNote(note);
+        Note decoded = ModelCodec.toNote(firebaseValue(fields));
+
+        assertFalse(fields.containsKey("id"));
+        assertNull(decoded.getId());
+        assertEquals("À revoir", decoded.getText());
+        assertEquals(1234L, decoded.getTimestamp());
+    }
+
+    @Test
+    public void achievementRoundTripKeepsEarnedAt() {
+        Achievement achievement = new Achievement("first_course", "Premier cours", "Bravo", "course", 5000L);
+        achievement.setIconUrl("icon");
+
+        Achievement decoded = ModelCodec.toAchievement(firebaseValue(ModelCodec.fromAchievement(achievement)));
+
+        assertEquals(ModelCodec.fromAchievement(achievement), ModelCodec.fromAchievement(decoded));
+        assertEquals(5000L, decoded.getEarnedAt());
+        assertTrue(decoded.isUnlocked());
+    }
+
+    @Test
+    public void generatedCatalogRoundTrips() {
+        for (Object value : courseValues(new Random(42), 500)) {
+            assertEquals(value, firebaseValue(ModelCodec.fromCourse(ModelCodec.toCourse(value))));
+        }
+        for (Object value : sectionValues(new Random(7), 500, 8)) {
+            assertEquals(value, firebaseValue(ModelCodec.fromSection(ModelCodec.toSection(value))));
+        }
+    }
+
+    /**
+     * Enfants du nœud "courses" tels que les renvoie DataSnapshot.getValue(), tous champs remplis
+     */
+    static List<Object> courseValues(Random random, int count) {
+        String[] categories = {"Informatique", "Langues", "Musique", "Gestion", "Sciences"};
+        String[] levels = {"débutant", "intermédiaire", "avancé"};
+        List<Object> values = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Course course = new Course("course" + i, "Cours " + i, "Description du cours " + i,
+                    categories[random.nextInt(categories.length)], levels[random.nextInt(levels.length)],
+                    10 + random.nextInt(300), "https://example.com/" + i + ".jpg", "author" + random.nextInt(500));
+            course.setAuthorName("Auteur " + random.nextInt(500));
+            course.setEnrolledCount(random.nextInt(100_000));
+            course.setCounterShards(random.nextBoolean() ? 1 : 8);
+            course.setTags(Arrays.asList("tag" + random.nextInt(200), "tag" + random.nextInt(200)));
+            course.setCreatedAt(1_600_000_000_000L + random.nextInt(1_000_000));
+            course.setUpdatedAt(course.getCreatedAt() + random.nextInt(1_000_000));
+            values.add(firebaseValue(ModelCodec.fromCourse(course)));
+        }
+        return values;
+    }
+
+    /**
+     * Enfants du nœud "sections", chacun avec un quiz de questionCount questions
+     */
+    static List<Object> sectionValues(Random random, int count, int questionCount) {
+        List<Object> values = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            CourseSection section = section("section" + i, "course" + random.nextInt(count), questionCount);
+            section.setOrderIndex(random.nextInt(20));
+            values.add(firebaseValue(ModelCodec.fromSection(section)));
+        }
+        return values;
+    }
+
+    static CourseSection section(String sectionId, String courseId, int questionCount) {
+        CourseSection section = new CourseSection(sectionId, courseId, "Titre " + sectionId, "Description");
+        section.setContent("Contenu");
+        section.setVideoUrl("https://example.com/" + sectionId + ".mp4");
+        section.setDurationMinutes(15);
+        section.setOrderIndex(1);
+        List<QuizQuestion> questions = new ArrayList<>();
+        for (int i = 0; i < questionCount; i++) {
+            questions.add(new QuizQuestion("q" + i, "Question " + i, Arrays.asList("a", "b", "c"), i % 3, "Parce que"));
+        }
+        section.setQuiz(new Quiz("quiz-" + sectionId, "Quiz", questions, 70, true));
+        return section;
+    }
+
+    /**
+     * Valeur telle que la renverrait DataSnapshot.getValue() : les entiers deviennent des Long
+     */
+    @SuppressWarnings("unchecked")
+    static Object firebaseValue(Object value) {
+        if (value instanceof Integer) {
+            return ((Integer) value).longValue();
+        }
+        if (value instanceof Map) {
+            Map<String, Object> converted = new HashMap<>();
+            for (Map.Entry<String, Object> entry : ((Map<String, Object>) value).entrySet()) {
+                if (entry.getValue() != null) {
+                    converted.put(entry.getKey(), firebaseValue(entry.getValue()));
+                }
+            }
+            return converted;
+        }
+        if (value instanceof List) {
+            List<Object> converted = new ArrayList<>();
+            for (Object element : (List<Object>) value) {
+                converted.add(firebaseValue(element));
+            }
+            return converted;
+        }
+        return value;
+    }
+}
@@ -0,0 +1,130 @@
+package com.projet.skilllearn.repository;
+
+import com.projet.skilllearn.model.Course;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests de la seconde livraison des premières pages servies depuis la copie disque
+ */
+public class PageRevalidationsTest {
+
+    private static final int PAGE_SIZE = 3;
+
+    private CourseIndex index;
+    private PageRevalidations revalidations;
+
+    /**
+     * Enregistre les pages reçues
+     */
+    private static class RecordingCallback implements CourseRepository.CoursePageCallback {
+        final List<CoursePage> pages = new ArrayList<>();
+
+        @Override
+        public void onPageLoaded(CoursePage page) {
+            pages.add(page);
+        }
+
+        @Override
+        public void onError(String message) {
+            fail(message);
+        }
+    }
+
+    @Before
+    public void setUp() {
+        index = new CourseIndex();
+        revalidations = new PageRevalidations();
+        List<Course> diskCopy = new ArrayList<>();
+        for (int i = 1; i <= 5; i++) {
+            diskCopy.add(course("c" + i, i));
+        }
+        index.warmUp(diskCopy);
+    }
+
+    private static Course course(String id, int enrolledCount) {
+        Course course = new Course(id, "Cours " + id, "", "Informatique", "débutant", 30, null, null);
+        course.setEnrolledCount(enrolledCount);
+        return course;
+    }
+
+    private static List<String> ids(CoursePage page) {
+        List<String> ids = new ArrayList<>();
+        for (Course course : page.getCourses()) {
+            ids.add(course.getCourseId());
+        }
+        return ids;
+    }
+
+    @Test
+    public void firstPageIsRedeliveredFromSyncedIndexOnce() {
+        RecordingCallback callback = new RecordingCallback();
+        assertTrue(revalidations.add(CoursePage.Cursor.first(CoursePage.Order.KEY), PAGE_SIZE, callback));
+
+        // Le serveur connaît un cours absent de la copie disque
+        index.upsert(course("c0", 9));
+        revalidations.markSynced(index);
+        revalidations.markSynced(index);
+
+        assertEquals(1, callback.pages.size());
+        assertEquals(Arrays.asList("c0", "c1", "c2"), ids(callback.pages.get(0)));
+        assertEquals("c2", callback.pages.get(0).getNext().getAfterKey());
+    }
+
+    @Test
+    public void popularityPageKeepsItsOrder() {
+        RecordingCallback callback = new RecordingCallback();
+        revalidations.add(CoursePage.Cursor.first(CoursePage.Order.POPULARITY), PAGE_SIZE, callback);
+
+        revalidations.markSynced(index);
+
+        assertEquals(Arrays.asList("c5", "c4", "c3"), ids(callback.pages.get(0)));
+    }
+
+    @Test
+    public void laterPagesAndPagesAfterSyncAreNotRedelivered() {
+        RecordingCallback callback = new RecordingCallback();
+        CoursePage firstPage = index.page(CoursePage.Cursor.first(CoursePage.Order.KEY), PAGE_SIZE);
+        assertFalse(revalidations.add(firstPage.getNext(), PAGE_SIZE, callback));
+
+        revalidations.markSynced(index);
+        assertTrue(revalidations.isSynced());
+        assertFalse(revalidations.add(CoursePage.Cursor.first(CoursePage.Order.KEY), PAGE_SIZE, callback));
+        revalidations.markSynced(index);
+
+        assertTrue(callback.pages.isEmpty());
+    }
+
+    @Test
+    public void removedCallbackIsReleasedAndNotCalled() {
+        RecordingCallback cleared = new RecordingCallback();
+        RecordingCallback alive = new RecordingCallback();
+        revalidations.add(CoursePage.Cursor.first(CoursePage.Order.KEY), PAGE_SIZE, cleared);
+        revalidations.add(CoursePage.Cursor.first(CoursePage.Order.KEY), PAGE_SIZE, alive);
+
+        revalidations.remove(cleared);
+        revalidations.markSynced(index);
+
+        assertTrue(cleared.pages.isEmpty());
+        assertEquals(1, alive.pages.size());
+    }
+
+    @Test
+    public void clearedRevalidationsAreDropped() {
+        RecordingCallback callback = new RecordingCallback();
+        revalidations.add(CoursePage.Cursor.first(CoursePage.Order.KEY), PAGE_SIZE, callback);
+
+        revalidations.clear();
+        assertFalse(revalidations.isSynced());
+        revalidations.markSynced(index);
+
+        assertTrue(callback.pages.isEmpty());
+    }
+}
@@ -0,0 +1,197 @@
+package com.projet.skilllearn.repository;
+
+import com.projet.skilllearn.model.CourseSection;
+import com.projet.skilllearn.model.Quiz;
+import com.projet.skilllearn.model.QuizQuestion;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests de l'index des sections par cours : écritures en éventail, vérification et réparation,
+ * appliquées à une représentation locale des deux nœuds
+ */
+public class SectionIndexTest {
+
+    private static final Long NOW = 1_000L;
+    private static final Long LATER = 2_000L;
+
+    private Map<String, CourseSection> sections;
+    private Map<String, Map<String, Long>> index;
+    // courses/{courseId}/updatedAt
+    private Map<String, Object> versions;
+
+    @Before
+    public void setUp() {
+        sections = new HashMap<>();
+        index = new HashMap<>();
+        versions = new HashMap<>();
+    }
+
+    @Test
+    public void putWritesSectionAndIndexEntryTogether() {
+        Map<String, Object> updates = SectionIndex.put(section("s1", "c1", 2), null, NOW);
+
+        assertEquals(3, updates.size());
+        assertEquals(2, updates.get("course_sections/c1/s1"));
+        assertEquals(NOW, updates.get("courses/c1/updatedAt"));
+        @SuppressWarnings("unchecked")
+        Map<String, Object> fields = (Map<String, Object>) updates.get("sections/s1");
+        assertEquals("c1", fields.get("courseId"));
+        assertEquals(2, fields.get("orderIndex"));
+    }
+
+    @Test
+    public void movingSectionRemovesPreviousEntry() {
+        apply(SectionIndex.put(section("s1", "c1", 1), null, NOW));
+        apply(SectionIndex.put(section("s1", "c2", 4), "c1", LATER));
+
+        assertFalse(index.get("c1").containsKey("s1"));
+        assertEquals(Long.valueOf(4), index.get("c2").get("s1"));
+        assertTrue(SectionIndex.check(sections, index).isConsistent());
+        // Les deux cours changent de version : leurs sections en cache sont périmées
+        assertEquals(LATER, versions.get("c1"));
+        assertEquals(LATER, versions.get("c2"));
+    }
+
+    @Test
+    public void removeDeletesSectionAndEntry() {
+        apply(SectionIndex.put(section("s1", "c1", 1), null, NOW));
+        apply(SectionIndex.remove("s1", "c1", LATER));
+
+        assertTrue(sections.isEmpty());
+        assertTrue(index.get("c1").isEmpty());
+        assertEquals(LATER, versions.get("c1"));
+    }
+
+    @Test
+    public void orderedIdsFollowOrderIndexThenId() {
+        Map<String, Long> entries = new HashMap<>();
+        entries.put("b", 2L);
+        entries.put("a", 2L);
+        entries.put("z", 0L);
+
+        assertEquals(Arrays.asList("z", "a", "b"), SectionIndex.orderedIds(entries));
+    }
+
+    @Test
+    public void checkReportsEachKindOfDrift() {
+        sections.put("s1", section("s1", "c1", 1));
+        sections.put("s2", section("s2", "c1", 2));
+        sections.put("s3", section("s3", "c2", 1));
+        index.put("c1", new HashMap<>());
+        index.get("c1").put("s1", 1L);
+        index.get("c1").put("s2", 5L);
+        index.get("c1").put("s3", 1L);
+        index.get("c1").put("ghost", 3L);
+
+        SectionIndex.Report report = SectionIndex.check(sections, index);
+
+        assertFalse(report.isConsistent());
+        assertEquals(Collections.singletonList("c2/s3"), report.getMissing());
+        assertEquals(2, report.getOrphaned().size());
+        assertTrue(report.getOrphaned().contains("c1/ghost"));
+        assertTrue(report.getOrphaned().contains("c1/s3"));
+        assertEquals(Collections.singletonList("c1/s2"), report.getMisordered());
+    }
+
+    @Test
+    public void repairsMakeIndexConsistent() {
+        sections.put("s1", section("s1", "c1", 1));
+        sections.put("s2", section("s2", "c1", 2));
+        sections.put("s3", section("s3", "c2", 1));
+        index.put("c1", new HashMap<>());
+        index.get("c1").put("s2", 7L);
+        index.get("c1").put("s3", 1L);
+        index.put("c9", new HashMap<>());
+        index.get("c9").put("deleted", 0L);
+
+        apply(SectionIndex.check(sections, index).getRepairs());
+
+        assertTrue(SectionIndex.check(sections, index).isConsistent());
+        assertEquals(Arrays.asList("s1", "s2"), SectionIndex.orderedIds(index.get("c1")));
+        assertEquals(Collections.singletonList("s3"), SectionIndex.orderedIds(index.get("c2")));
+    }
+
+    @Test
+    public void randomWritesKeepIndexConsistent() {
+        Random random = new Random(7);
+        String[] courses = {"c1", "c2", "c3"};
+
+        for (int i = 0; i < 500; i++) {
+            String sectionId = "s" + random.nextInt(40);
+            CourseSection existing = sections.get(sectionId);
+            if (existing != null && random.nextInt(4) == 0) {
+                apply(SectionIndex.remove(sectionId, existing.getCourseId(), (long) i));
+            } else {
+                CourseSection updated = section(sectionId, courses[random.nextInt(courses.length)],
+                        random.nextInt(10));
+                apply(SectionIndex.put(updated, existing != null ? existing.getCourseId() : null, (long) i));
+            }
+        }
+
+        assertTrue(SectionIndex.check(sections, index).isConsistent());
+    }
+
+    @Test
+    public void quizIsWrittenAsPlainValues() {
+        CourseSection section = section("s1", "c1", 0);
+        QuizQuestion question = new QuizQuestion("q1", "2 + 2 ?", Arrays.asList("3", "4"), 1, "Calcul");
+        section.setQuiz(new Quiz("quiz1", "Bases", Collections.singletonList(question), 50, true));
+
+        @SuppressWarnings("unchecked")
+        Map<String, Object> quiz = (Map<String, Object>) SectionIndex.fields(section).get("quiz");
+        @SuppressWarnings("unchecked")
+        Map<String, Object> first = (Map<String, Object>) ((List<Object>) quiz.get("questions")).get(0);
+
+        assertEquals(true, quiz.get("required"));
+        assertEquals(1, first.get("correctOptionIndex"));
+        assertEquals(Arrays.asList("3", "4"), first.get("options"));
+    }
+
+    /**
+     * Applique des écritures à la représentation locale des nœuds "sections", "course_sections"
+     * et des versions des cours
+     */
+    private void apply(Map<String, Object> updates) {
+        for (Map.Entry<String, Object> update : updates.entrySet()) {
+            String[] parts = update.getKey().split("/");
+            Object value = update.getValue();
+            if (parts[0].equals(SectionIndex.SECTIONS)) {
+                if (value == null) {
+                    sections.remove(parts[1]);
+                } else {
+                    @SuppressWarnings("unchecked")
+                    Map<String, Object> fields = (Map<String, Object>) value;
+                    sections.put(parts[1], section(parts[1], (String) fields.get("courseId"),
+                            (Integer) fields.get("orderIndex")));
+                }
+            } else if (parts[0].equals(SectionIndex.COURSES)) {
+                assertEquals(SectionIndex.UPDATED_AT, parts[2]);
+                versions.put(parts[1], value);
+            } else {
+                Map<String, Long> entries = index.computeIfAbsent(parts[1], key -> new HashMap<>());
+                if (value == null) {
+                    entries.remove(parts[2]);
+                } else {
+                    entries.put(parts[2], ((Number) value).longValue());
+                }
+            }
+        }
+    }
+
+    private static CourseSection section(String sectionId, String courseId, int orderIndex) {
+        CourseSection section = new CourseSection(sectionId, courseId, "Section " + sectionId, "");
+        section.setOrderIndex(orderIndex);
+        return section;
+    }
+}
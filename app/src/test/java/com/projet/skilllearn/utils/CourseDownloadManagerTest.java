@@ -0,0 +1,405 @@
+package com.projet.skilllearn.utils;
+
+import com.projet.skilllearn.model.CourseSection;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests des téléchargements de cours, avec un faux stockage des vidéos
+ * et un exécuteur manuel pour les téléchargements
+ */
+public class CourseDownloadManagerTest {
+
+    private File dir;
+    private File stateFile;
+    private FakeFetcher fetcher;
+    private boolean unmetered;
+    private List<Runnable> tasks;
+    private List<CourseDownloadManager.SectionDownload> events;
+
+    /**
+     * Faux stockage : chaque vidéo fait 1 Mo, sauf celles déclarées en échec définitif
+     * et celles commencées alors que le réseau est coupé
+     */
+    private static class FakeFetcher implements CourseDownloadManager.Fetcher {
+        final List<String> downloaded = new ArrayList<>();
+        final List<String> cancelled = new ArrayList<>();
+        final List<String> removed = new ArrayList<>();
+        final Set<String> stored = new HashSet<>();
+        final Map<String, String> failures = new HashMap<>();
+        // Annulations pas encore vues par le téléchargement concerné
+        final Set<String> interrupted = new HashSet<>();
+        boolean offline;
+
+        @Override
+        public boolean canDownload(String videoUrl) {
+            return !videoUrl.contains("youtube");
+        }
+
+        @Override
+        public void download(String videoUrl, CourseDownloadManager.ProgressListener listener) throws IOException {
+            downloaded.add(videoUrl);
+            if (interrupted.remove(videoUrl)) {
+                throw new InterruptedIOException();
+            }
+            String failure = failures.get(videoUrl);
+            if (failure != null) {
+                throw new CourseDownloadManager.PermanentFailure(failure);
+            }
+            for (long bytes = 128 * 1024; bytes <= 1024 * 1024; bytes += 128 * 1024) {
+                if (offline && bytes > 512 * 1024) {
+                    throw new IOException("Connexion perdue");
+                }
+                listener.onProgress(bytes);
+            }
+            stored.add(videoUrl);
+        }
+
+        @Override
+        public void cancel(String videoUrl) {
+            cancelled.add(videoUrl);
+            interrupted.add(videoUrl);
+        }
+
+        @Override
+        public boolean isStored(String videoUrl) {
+            return stored.contains(videoUrl);
+        }
+
+        @Override
+        public void remove(String videoUrl) {
+            removed.add(videoUrl);
+            stored.remove(videoUrl);
+        }
+    }
+
+    @Before
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("downloads").toFile();
+        stateFile = new File(dir, "downloads.state");
+        fetcher = new FakeFetcher();
+        unmetered = true;
+        tasks = new ArrayList<>();
+        events = new ArrayList<>();
+    }
+
+    @After
+    public void tearDown() {
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        dir.delete();
+    }
+
+    @Test
+    public void sectionsAreDownloadedOneByOneInOrder() {
+        CourseDownloadManager manager = newManager();
+
+        manager.downloadCourse("c1", sections(), false);
+        assertTrue(fetcher.downloaded.isEmpty());
+        assertEquals(CourseDownloadManager.State.DOWNLOADING, manager.getDownload("s1").getState());
+        assertEquals(CourseDownloadManager.State.QUEUED, manager.getDownload("s2").getState());
+
+        runTasks();
+
+        assertEquals(Arrays.asList("https://cdn/v1.mp4", "https://cdn/v2.mp4"), fetcher.downloaded);
+        CourseDownloadManager.CourseStatus status = manager.getCourseStatus("c1");
+        assertTrue(status.isComplete());
+        assertEquals(2 * 1024 * 1024, status.getBytes());
+        assertTrue(manager.isDownloaded("s2"));
+    }
+
+    @Test
+    public void youtubeAndTextSectionsAreSkipped() {
+        CourseDownloadManager manager = newManager();
+
+        manager.downloadCourse("c1", sections(), false);
+
+        assertEquals(2, manager.getCourseStatus("c1").getTotal());
+        assertNull(manager.getDownload("s3"));
+        assertNull(manager.getDownload("s4"));
+    }
+
+    @Test
+    public void progressNotificationsAreThrottled() {
+        CourseDownloadManager manager = newManager();
+        manager.addListener(events::add);
+
+        manager.downloadCourse("c1", sections().subList(0, 1), false);
+        runTasks();
+
+        // En file, en cours, 4 progressions (tous les 256 Ko sur 1 Mo), terminée
+        assertEquals(7, events.size());
+        assertEquals(CourseDownloadManager.State.COMPLETED, events.get(6).getState());
+    }
+
+    @Test
+    public void wifiOnlyCourseWaitsForUnmeteredNetwork() {
+        unmetered = false;
+        CourseDownloadManager manager = newManager();
+
+        manager.downloadCourse("c1", sections(), true);
+        runTasks();
+        assertTrue(fetcher.downloaded.isEmpty());
+        assertEquals(CourseDownloadManager.State.WAITING_FOR_WIFI, manager.getDownload("s1").getState());
+
+        unmetered = true;
+        manager.onNetworkChanged();
+        runTasks();
+
+        assertTrue(manager.getCourseStatus("c1").isComplete());
+    }
+
+    @Test
+    public void wifiOnlyDownloadStopsWhenNetworkBecomesMetered() {
+        CourseDownloadManager manager = newManager();
+        manager.downloadCourse("c1", sections(), true);
+        assertEquals(CourseDownloadManager.State.DOWNLOADING, manager.getDownload("s1").getState());
+
+        unmetered = false;
+        manager.onNetworkChanged();
+        runTasks();
+
+        assertEquals(Arrays.asList("https://cdn/v1.mp4"), fetcher.cancelled);
+        assertEquals(CourseDownloadManager.State.WAITING_FOR_WIFI, manager.getDownload("s1").getState());
+        assertEquals(CourseDownloadManager.State.WAITING_FOR_WIFI, manager.getDownload("s2").getState());
+        assertEquals(0, manager.getCourseStatus("c1").getFailed());
+
+        unmetered = true;
+        manager.onNetworkChanged();
+        runTasks();
+
+        assertTrue(manager.getCourseStatus("c1").isComplete());
+    }
+
+    @Test
+    public void failedSectionIsRetriedOnNextRequest() {
+        fetcher.failures.put("https://cdn/v1.mp4", "Vidéo introuvable");
+        CourseDownloadManager manager = newManager();
+
+        manager.downloadCourse("c1", sections(), false);
+        runTasks();
+
+        assertEquals(CourseDownloadManager.State.FAILED, manager.getDownload("s1").getState());
+        assertEquals("Vidéo introuvable", manager.getDownload("s1").getError());
+        assertEquals(1, manager.getCourseStatus("c1").getFailed());
+
+        fetcher.failures.clear();
+        manager.downloadCourse("c1", sections(), false);
+        runTasks();
+
+        assertTrue(manager.getCourseStatus("c1").isComplete());
+        // La section déjà téléchargée n'est pas refaite
+        assertEquals(Arrays.asList("https://cdn/v1.mp4", "https://cdn/v2.mp4", "https://cdn/v1.mp4"),
+                fetcher.downloaded);
+    }
+
+    @Test
+    public void networkDropSuspendsDownloadsUntilReconnection() {
+        CourseDownloadManager manager = newManager();
+        manager.downloadCourse("c1", sections(), false);
+
+        fetcher.offline = true;
+        runTasks();
+
+        // La section interrompue revient en file, la suivante n'est pas tentée
+        assertEquals(CourseDownloadManager.State.QUEUED, manager.getDownload("s1").getState());
+        assertEquals("Connexion perdue", manager.getDownload("s1").getError());
+        assertEquals(CourseDownloadManager.State.QUEUED, manager.getDownload("s2").getState());
+        assertEquals(0, manager.getCourseStatus("c1").getFailed());
+        assertEquals(Arrays.asList("https://cdn/v1.mp4"), fetcher.downloaded);
+
+        fetcher.offline = false;
+        manager.onNetworkChanged();
+        runTasks();
+
+        assertTrue(manager.getCourseStatus("c1").isComplete());
+        assertNull(manager.getDownload("s1").getError());
+    }
+
+    @Test
+    public void sectionsInterruptedByNetworkDropResumeAfterRestart() {
+        CourseDownloadManager manager = newManager();
+        manager.downloadCourse("c1", sections(), false);
+        fetcher.offline = true;
+        runTasks();
+
+        fetcher.offline = false;
+        CourseDownloadManager restarted = newManager();
+        runTasks();
+
+        assertTrue(restarted.getCourseStatus("c1").isComplete());
+    }
+
+    @Test
+    public void interruptedDownloadsResumeAfterRestart() {
+        CourseDownloadManager manager = newManager();
+        manager.downloadCourse("c1", sections(), false);
+        // Premier téléchargement terminé et enregistré, le second lancé puis l'application arrêtée
+        while (!manager.isDownloaded("s1")) {
+            tasks.remove(0).run();
+        }
+        tasks.remove(0).run();
+        tasks.clear();
+
+        CourseDownloadManager restarted = newManager();
+
+        assertEquals(CourseDownloadManager.State.COMPLETED, restarted.getDownload("s1").getState());
+        assertEquals(CourseDownloadManager.State.DOWNLOADING, restarted.getDownload("s2").getState());
+        runTasks();
+        assertTrue(restarted.getCourseStatus("c1").isComplete());
+    }
+
+    @Test
+    public void evictedVideosAreMarkedFailedOnStart() {
+        CourseDownloadManager manager = newManager();
+        manager.downloadCourse("c1", sections(), false);
+        runTasks();
+
+        fetcher.stored.remove("https://cdn/v2.mp4");
+        CourseDownloadManager restarted = newManager();
+
+        assertTrue(restarted.isDownloaded("s1"));
+        assertEquals(CourseDownloadManager.State.FAILED, restarted.getDownload("s2").getState());
+    }
+
+    @Test
+    public void removeCourseCancelsActiveDownloadAndDeletesVideos() {
+        CourseDownloadManager manager = newManager();
+        manager.downloadCourse("c1", sections(), false);
+
+        manager.removeCourse("c1");
+        runTasks();
+
+        assertEquals(Arrays.asList("https://cdn/v1.mp4"), fetcher.cancelled);
+        assertEquals(Arrays.asList("https://cdn/v1.mp4", "https://cdn/v2.mp4"), fetcher.removed);
+        assertNull(manager.getDownload("s1"));
+        assertEquals(0, manager.getCourseStatus("c1").getTotal());
+        assertNull(newManager().getDownload("s1"));
+    }
+
+    @Test
+    public void requeuedCourseRemovesVideosOfDroppedSections() {
+        CourseDownloadManager manager = newManager();
+        manager.downloadCourse("c1", sections(), false);
+        runTasks();
+        manager.downloadCourse("c2", Arrays.asList(section("s9", "https://cdn/v2.mp4")), false);
+        runTasks();
+
+        // s1 retirée du cours, vidéo de s2 remplacée ; l'ancienne vidéo de s2 sert encore au cours c2
+        manager.downloadCourse("c1", Arrays.asList(
+                section("s2", "https://cdn/v2-hd.mp4"),
+                section("s5", "https://cdn/v5.mp4")), false);
+        runTasks();
+
+        assertEquals(Arrays.asList("https://cdn/v1.mp4"), fetcher.removed);
+        assertTrue(fetcher.isStored("https://cdn/v2.mp4"));
+        assertNull(manager.getDownload("s1"));
+        assertTrue(manager.getCourseStatus("c1").isComplete());
+        assertEquals(2, manager.getCourseStatus("c1").getTotal());
+    }
+
+    @Test
+    public void droppedSectionBeingDownloadedIsCancelledAndRemoved() {
+        CourseDownloadManager manager = newManager();
+        manager.downloadCourse("c1", sections(), false);
+        assertEquals(CourseDownloadManager.State.DOWNLOADING, manager.getDownload("s1").getState());
+
+        manager.downloadCourse("c1", sections().subList(1, 2), false);
+        runTasks();
+
+        assertEquals(Arrays.asList("https://cdn/v1.mp4"), fetcher.cancelled);
+        assertEquals(Arrays.asList("https://cdn/v1.mp4"), fetcher.removed);
+        assertFalse(fetcher.isStored("https://cdn/v1.mp4"));
+        assertTrue(manager.getCourseStatus("c1").isComplete());
+    }
+
+    @Test
+    public void stateFileIsReadAndWrittenOnDownloadExecutor() {
+        CourseDownloadManager manager = newManager();
+        manager.downloadCourse("c1", sections(), false);
+        assertFalse(stateFile.exists());
+        runTasks();
+        assertTrue(stateFile.exists());
+
+        CourseDownloadManager restarted = new CourseDownloadManager(stateFile, fetcher, () -> unmetered,
+                tasks::add, Runnable::run);
+        assertNull(restarted.getDownload("s1"));
+        runTasks();
+        assertTrue(restarted.isDownloaded("s1"));
+    }
+
+    @Test
+    public void pendingSaveIsWrittenDuringLongDownload() {
+        CourseDownloadManager manager = newManager();
+        manager.downloadCourse("c1", sections(), false);
+        tasks.remove(0).run();
+
+        // Enregistrement planifié derrière le téléchargement de s1, écrit pendant celui-ci
+        manager.downloadCourse("c2", Arrays.asList(section("s9", "https://cdn/v9.mp4")), false);
+        tasks.remove(0).run();
+
+        assertNotNull(restoredManager().getDownload("s9"));
+    }
+
+    /**
+     * Crée le gestionnaire et exécute son démarrage (relecture de l'état, vérification des
+     * vidéos stockées), planifié en premier
+     */
+    private CourseDownloadManager newManager() {
+        CourseDownloadManager manager = new CourseDownloadManager(stateFile, fetcher, () -> unmetered,
+                tasks::add, Runnable::run);
+        tasks.remove(0).run();
+        return manager;
+    }
+
+    /**
+     * Relit l'état enregistré dans un gestionnaire à part, sans toucher aux tâches en attente
+     */
+    private CourseDownloadManager restoredManager() {
+        List<Runnable> ownTasks = new ArrayList<>();
+        CourseDownloadManager manager = new CourseDownloadManager(stateFile, new FakeFetcher(), () -> unmetered,
+                ownTasks::add, Runnable::run);
+        ownTasks.remove(0).run();
+        return manager;
+    }
+
+    private void runTasks() {
+        while (!tasks.isEmpty()) {
+            tasks.remove(0).run();
+        }
+    }
+
+    private static List<CourseSection> sections() {
+        return Arrays.asList(
+                section("s1", "https://cdn/v1.mp4"),
+                section("s2", "https://cdn/v2.mp4"),
+                section("s3", "https://www.youtube.com/watch?v=abcdefghijk"),
+                section("s4", null));
+    }
+
+    private static CourseSection section(String sectionId, String videoUrl) {
+        CourseSection section = new CourseSection(sectionId, "c1", sectionId, "");
+        section.setVideoUrl(videoUrl);
+        return section;
+    }
+}
@@ -0,0 +1,113 @@
+package com.projet.skilllearn.utils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Base locale remplaçant Firebase dans les tests de concurrence.
+ * Les valeurs sont stockées à plat par chemin ; updateChildren() applique une table
+ * multi-chemins de façon atomique, comme le serveur, et interprète les incréments ;
+ * transaction() exécute une modification d'un nœud sans entrelacement avec les autres écritures.
+ */
+class InMemoryDatabase {
+
+    private final Map<String, Object> values = new HashMap<>();
+
+    /**
+     * Équivalent local de ServerValue.increment()
+     */
+    static final class Increment {
+        final long delta;
+
+        Increment(long delta) {
+            this.delta = delta;
+        }
+    }
+
+    static Increment increment(long delta) {
+        return new Increment(delta);
+    }
+
+    /**
+     * Même incrément sous la forme d'une valeur serveur Firebase ({".sv": {"increment": n}})
+     */
+    static Map<String, Object> serverIncrement(long delta) {
+        Map<String, Object> increment = new HashMap<>();
+        increment.put("increment", delta);
+        Map<String, Object> serverValue = new HashMap<>();
+        serverValue.put(".sv", increment);
+        return serverValue;
+    }
+
+    synchronized boolean exists(String path) {
+        String prefix = path + "/";
+        for (String key : values.keySet()) {
+            if (key.equals(path) || key.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    synchronized void updateChildren(Map<String, Object> updates) {
+        for (Map.Entry<String, Object> entry : updates.entrySet()) {
+            Object value = entry.getValue();
+            if (value instanceof Increment) {
+                value = longAt(entry.getKey()) + ((Increment) value).delta;
+            } else if (value instanceof Map && ((Map<?, ?>) value).get(".sv") instanceof Map) {
+                // Forme sérialisée de ServerValue.increment(), telle que relue depuis un journal
+                Object delta = ((Map<?, ?>) ((Map<?, ?>) value).get(".sv")).get("increment");
+                value = longAt(entry.getKey()) + ((Number) delta).longValue();
+            }
+            values.put(entry.getKey(), value);
+        }
+    }
+
+    synchronized Object get(String path) {
+        return values.get(path);
+    }
+
+    synchronized void set(String path, Object value) {
+        values.put(path, value);
+    }
+
+    synchronized long longAt(String path) {
+        Object value = values.get(path);
+        return value instanceof Number ? ((Number) value).longValue() : 0L;
+    }
+
+    /**
+     * Exécute une transaction sur le nœud situé sous root
+     */
+    synchronized <T> T transaction(String root, Function<ProgressWrites.ProgressNode, T> update) {
+        return update.apply(new ProgressWrites.ProgressNode() {
+            @Override
+            public Object get(String path) {
+                return values.get(root + "/" + path);
+            }
+
+            @Override
+            public void set(String path, Object value) {
+                values.put(root + "/" + path, value);
+            }
+
+            @Override
+            public Iterable<String> childKeys(String path) {
+                String prefix = root + "/" + path + "/";
+                Set<String> keys = new LinkedHashSet<>();
+                for (String key : values.keySet()) {
+                    if (key.startsWith(prefix)) {
+                        String rest = key.substring(prefix.length());
+                        int slash = rest.indexOf('/');
+                        keys.add(slash < 0 ? rest : rest.substring(0, slash));
+                    }
+                }
+                return new ArrayList<>(keys);
+            }
+        });
+    }
+}
@@ -0,0 +1,520 @@
+package com.projet.skilllearn.utils;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests du journal des mutations contre une base locale et une destination instable simulée
+ */
+public class MutationJournalTest {
+
+    private static final Executor DIRECT = Runnable::run;
+
+    private File directory;
+    private File file;
+    private ManualScheduler scheduler;
+    private FlakyBackend backend;
+    private long now;
+
+    /**
+     * Exécute immédiatement les tâches (ou les garde jusqu'à runTasks() si holdTasks)
+     * et garde les tâches différées jusqu'à runDelayed()
+     */
+    private static class ManualScheduler implements WriteBehindQueue.Scheduler {
+        final List<Runnable> tasks = new ArrayList<>();
+        final List<Runnable> delayed = new ArrayList<>();
+        final List<Long> delays = new ArrayList<>();
+        boolean holdTasks;
+
+        @Override
+        public void execute(Runnable task) {
+            if (holdTasks) {
+                tasks.add(task);
+            } else {
+                task.run();
+            }
+        }
+
+        void runTasks() {
+            while (!tasks.isEmpty()) {
+                tasks.remove(0).run();
+            }
+        }
+
+        @Override
+        public void schedule(Runnable task, long delayMs) {
+            delayed.add(task);
+            delays.add(delayMs);
+        }
+
+        void runDelayed() {
+            List<Runnable> tasks = new ArrayList<>(delayed);
+            delayed.clear();
+            for (Runnable task : tasks) {
+                task.run();
+            }
+        }
+    }
+
+    /**
+     * Destination simulée : applique les mutations à une base locale et peut échouer,
+     * perdre la confirmation d'une écriture appliquée, ou garder la réponse en attente
+     */
+    private static class FlakyBackend implements MutationJournal.Backend {
+        final InMemoryDatabase database = new InMemoryDatabase();
+        final List<String> appliedKeys = new ArrayList<>();
+        final List<MutationJournal.Mutation> received = new ArrayList<>();
+        final List<MutationJournal.Result> unanswered = new ArrayList<>();
+        Random random;
+        double failureRate;
+        int failuresLeft;
+        boolean loseNextAck;
+        boolean deny;
+        boolean hold;
+        String invalidKey;
+
+        @Override
+        public void apply(MutationJournal.Mutation mutation, MutationJournal.Result result) {
+            received.add(mutation);
+            if (mutation.getKey().equals(invalidKey)) {
+                // Comme Firebase pour une clé contenant '.', '#', '$', '[' ou ']'
+                throw new IllegalArgumentException("Invalid Firebase Database path: " + mutation.getKey());
+            }
+            if (hold) {
+                unanswered.add(result);
+                return;
+            }
+            if (deny) {
+                result.onFailed("Permission denied", false);
+                return;
+            }
+            if (failuresLeft > 0 || (random != null && random.nextDouble() < failureRate)) {
+                failuresLeft = Math.max(0, failuresLeft - 1);
+                result.onFailed("Réseau indisponible", true);
+                return;
+            }
+            Object value = applyToDatabase(mutation);
+            if (loseNextAck) {
+                loseNextAck = false;
+                result.onFailed("Délai dépassé", true);
+                return;
+            }
+            result.onApplied(value);
+        }
+
+        private Object applyToDatabase(MutationJournal.Mutation mutation) {
+            switch (mutation.getType()) {
+                case UPDATE:
+                    if (mutation.isReplay() && mutation.getGuardPath() != null
+                            && database.exists(mutation.getGuardPath())) {
+                        return null;
+                    }
+                    database.updateChildren(mutation.getData());
+                    appliedKeys.add(mutation.getKey());
+                    return null;
+                case SECTION_COMPLETED:
+                    boolean changed = database.transaction(mutation.getPath(), node ->
+                            ProgressWrites.completeSection(node, mutation.getSectionId(),
+                                    mutation.getTotalSections(), mutation.getCompletedAt()));
+                    if (!changed) {
+                        return null;
+                    }
+                    appliedKeys.add(mutation.getKey());
+                    return database.get(mutation.getPath() + "/" + ProgressWrites.PERCENTAGE);
+                default:
+                    if (database.exists(mutation.getPath())) {
+                        return false;
+                    }
+                    database.set(mutation.getPath(), mutation.getValue());
+                    appliedKeys.add(mutation.getKey());
+                    return true;
+            }
+        }
+    }
+
+    /**
+     * Écouteur qui enregistre les résultats
+     */
+    private static class RecordingCallback implements MutationJournal.Callback {
+        final List<Object> applied = new ArrayList<>();
+        final List<String> dropped = new ArrayList<>();
+
+        @Override
+        public void onApplied(Object value) {
+            applied.add(value);
+        }
+
+        @Override
+        public void onDropped(String message) {
+            dropped.add(message);
+        }
+    }
+
+    @Before
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("mutations").toFile();
+        file = new File(directory, "mutations.journal");
+        scheduler = new ManualScheduler();
+        backend = new FlakyBackend();
+        now = 10_000L;
+    }
+
+    @After
+    public void tearDown() {
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File child : files) {
+                child.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    private MutationJournal newJournal() {
+        return new MutationJournal(file, backend, scheduler, DIRECT, () -> now);
+    }
+
+    private static MutationJournal.Mutation set(String key, String path, Object value) {
+        Map<String, Object> updates = new HashMap<>();
+        updates.put(path, value);
+        return MutationJournal.Mutation.update(key, updates, null);
+    }
+
+    @Test
+    public void mutationsAreAppliedInOrder() {
+        MutationJournal journal = newJournal();
+        RecordingCallback callback = new RecordingCallback();
+
+        journal.enqueue(set("m1", "notes/u/c/s/n1/text", "a"), null);
+        journal.enqueue(set("m2", "notes/u/c/s/n2/text", "b"), callback);
+
+        assertEquals(2, backend.appliedKeys.size());
+        assertEquals("m1", backend.appliedKeys.get(0));
+        assertEquals("m2", backend.appliedKeys.get(1));
+        assertEquals(1, callback.applied.size());
+        assertEquals(0, journal.getDepth());
+    }
+
+    @Test
+    public void enqueueWritesJournalOnSchedulerBeforeSending() {
+        MutationJournal journal = newJournal();
+        long headerLength = file.length();
+        scheduler.holdTasks = true;
+
+        journal.enqueue(set("m1", "notes/u/c/s/n1/text", "a"), null);
+
+        // Rien n'est écrit ni envoyé sur le thread appelant
+        assertEquals(headerLength, file.length());
+        assertTrue(backend.received.isEmpty());
+        assertEquals(1, journal.getDepth());
+
+        scheduler.runTasks();
+        assertEquals(1, backend.appliedKeys.size());
+        assertEquals(0, journal.getDepth());
+    }
+
+    @Test
+    public void failuresBackOffExponentiallyAndKeepOrder() {
+        MutationJournal journal = newJournal();
+        backend.failuresLeft = 4;
+
+        journal.enqueue(set("m1", "user_progress/u/c1/percentage", 10), null);
+        journal.enqueue(set("m2", "user_progress/u/c2/percentage", 20), null);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(backend.appliedKeys.isEmpty());
+            scheduler.runDelayed();
+        }
+
+        List<Long> expected = new ArrayList<>();
+        expected.add(MutationJournal.INITIAL_BACKOFF_MS);
+        expected.add(MutationJournal.INITIAL_BACKOFF_MS * 2);
+        expected.add(MutationJournal.INITIAL_BACKOFF_MS * 4);
+        expected.add(MutationJournal.INITIAL_BACKOFF_MS * 8);
+        assertEquals(expected, scheduler.delays);
+        assertEquals("m1", backend.appliedKeys.get(0));
+        assertEquals("m2", backend.appliedKeys.get(1));
+        assertEquals(4, journal.getMetrics().getRetries());
+    }
+
+    @Test
+    public void backoffIsCapped() {
+        MutationJournal journal = newJournal();
+        backend.failuresLeft = 20;
+
+        journal.enqueue(set("m1", "a", 1), null);
+        for (int i = 0; i < 20; i++) {
+            scheduler.runDelayed();
+        }
+
+        assertEquals(MutationJournal.MAX_BACKOFF_MS, (long) scheduler.delays.get(scheduler.delays.size() - 1));
+        assertEquals(1, backend.appliedKeys.size());
+    }
+
+    @Test
+    public void connectivityRestoredRetriesImmediately() {
+        MutationJournal journal = newJournal();
+        backend.failuresLeft = 1;
+
+        journal.enqueue(set("m1", "a", 1), null);
+        assertEquals(1, journal.getDepth());
+
+        journal.onConnectivityRestored();
+        assertEquals(0, journal.getDepth());
+        assertEquals(1, backend.appliedKeys.size());
+
+        // L'ancienne tentative planifiée ne renvoie rien
+        scheduler.runDelayed();
+        assertEquals(2, backend.received.size());
+    }
+
+    @Test
+    public void sameKeyIsQueuedOnce() {
+        MutationJournal journal = newJournal();
+        backend.hold = true;
+        RecordingCallback first = new RecordingCallback();
+        RecordingCallback second = new RecordingCallback();
+
+        journal.enqueue(set("m0", "a", 0), null);
+        journal.enqueue(set("achievement/u/first", "b", 1), first);
+        journal.enqueue(set("achievement/u/first", "b", 1), second);
+        assertEquals(2, journal.getDepth());
+
+        backend.hold = false;
+        backend.unanswered.remove(0).onApplied(null);
+
+        assertEquals(1, backend.appliedKeys.size());
+        assertEquals("achievement/u/first", backend.appliedKeys.get(0));
+        assertEquals(1, first.applied.size());
+        assertEquals(1, second.applied.size());
+    }
+
+    @Test
+    public void pendingMutationsAreReplayedAfterRestart() {
+        backend.hold = true;
+        MutationJournal before = newJournal();
+        before.enqueue(set("m1", "a", 1), null);
+        before.enqueue(set("m2", "b", 2), null);
+        before.enqueue(set("m3", "c", 3), null);
+        // m1 confirmée, m2 envoyée sans réponse, puis le processus est tué
+        backend.unanswered.remove(0).onApplied(null);
+        backend.received.clear();
+
+        newJournal();
+
+        assertEquals(1, backend.received.size());
+        MutationJournal.Mutation replayed = backend.received.get(0);
+        assertEquals("m2", replayed.getKey());
+        assertTrue(replayed.isReplay());
+        assertEquals(2, replayed.getData().get("b"));
+    }
+
+    @Test
+    public void replayAfterLostAckDoesNotCountIncrementTwice() {
+        MutationJournal journal = newJournal();
+        Map<String, Object> updates = ProgressWrites.enrollment("u", "c1", ShardedCounter.NO_SHARD, 5L,
+                InMemoryDatabase.serverIncrement(1));
+        backend.loseNextAck = true;
+
+        journal.enqueue(MutationJournal.Mutation.update("enroll/u/c1", updates,
+                "user_progress/u/c1/enrolledAt"), null);
+        scheduler.runDelayed();
+
+        assertEquals(2, backend.received.size());
+        assertEquals(1L, backend.database.longAt("courses/c1/enrolledCount"));
+        assertEquals(0, journal.getDepth());
+    }
+
+    @Test
+    public void incrementSurvivesJournalRoundTrip() {
+        backend.hold = true;
+        Map<String, Object> updates = ProgressWrites.enrollment("u", "c1", 2, 5L,
+                InMemoryDatabase.serverIncrement(1));
+        newJournal().enqueue(MutationJournal.Mutation.update("enroll/u/c1", updates,
+                "user_progress/u/c1/enrolledAt"), null);
+
+        backend.hold = false;
+        newJournal();
+
+        assertEquals(1L, backend.database.longAt("courses/c1/enrolledShards/2"));
+        assertEquals(5L, backend.database.get("user_progress/u/c1/enrolledAt"));
+    }
+
+    @Test
+    public void permanentFailureIsDroppedWithoutBlockingQueue() {
+        MutationJournal journal = newJournal();
+        RecordingCallback callback = new RecordingCallback();
+        backend.deny = true;
+        journal.enqueue(set("m1", "courses/c1", null), callback);
+        backend.deny = false;
+        journal.enqueue(set("m2", "a", 1), null);
+
+        assertEquals(1, callback.dropped.size());
+        assertEquals(1, journal.getMetrics().getDropped());
+        assertEquals("Permission denied", journal.getMetrics().getLastError());
+        assertEquals(1, backend.appliedKeys.size());
+        assertEquals(0, journal.getDepth());
+    }
+
+    @Test
+    public void mutationRejectedByBackendIsDroppedWithoutBlockingQueue() {
+        MutationJournal journal = newJournal();
+        RecordingCallback callback = new RecordingCallback();
+        backend.invalidKey = "m1";
+
+        journal.enqueue(set("m1", "notes/u/c1/s1/n.1", "a"), callback);
+        journal.enqueue(set("m2", "a", 1), null);
+
+        assertEquals(1, callback.dropped.size());
+        assertTrue(callback.dropped.get(0).contains("Invalid Firebase Database path"));
+        assertEquals(1, journal.getMetrics().getDropped());
+        assertEquals(1, backend.appliedKeys.size());
+        assertEquals("m2", backend.appliedKeys.get(0));
+        assertEquals(0, journal.getDepth());
+
+        // La mutation refusée n'est pas rejouée au redémarrage
+        backend.received.clear();
+        newJournal();
+        assertTrue(backend.received.isEmpty());
+    }
+
+    @Test
+    public void sectionCompletionAndAchievementAreIdempotent() {
+        MutationJournal journal = newJournal();
+        RecordingCallback section = new RecordingCallback();
+        Map<String, Object> achievement = new HashMap<>();
+        achievement.put("title", "Premier pas");
+
+        journal.enqueue(MutationJournal.Mutation.sectionCompleted("section/u/c1/s1",
+                "user_progress/u/c1", "s1", 4, 1L), section);
+        journal.enqueue(MutationJournal.Mutation.sectionCompleted("section/u/c1/s1",
+                "user_progress/u/c1", "s1", 4, 2L), section);
+        journal.enqueue(MutationJournal.Mutation.setIfAbsent("achievement/u/first",
+                "user_achievements/u/first", achievement), null);
+        journal.enqueue(MutationJournal.Mutation.setIfAbsent("achievement/u/first",
+                "user_achievements/u/first", achievement), null);
+
+        assertEquals(25, section.applied.get(0));
+        assertNull(section.applied.get(1));
+        assertEquals(1L, backend.database.get("user_progress/u/c1/completedSections"));
+        assertEquals(achievement, backend.database.get("user_achievements/u/first"));
+        assertEquals(2, backend.appliedKeys.size());
+    }
+
+    @Test
+    public void metricsReportDepthAndAge() {
+        MutationJournal journal = newJournal();
+        backend.hold = true;
+
+        assertEquals(0, journal.getMetrics().getDepth());
+        assertEquals(0, journal.getMetrics().getOldestAgeMs());
+
+        journal.enqueue(set("m1", "a", 1), null);
+        now += 3000;
+        journal.enqueue(set("m2", "b", 2), null);
+        now += 1000;
+
+        MutationJournal.Metrics metrics = journal.getMetrics();
+        assertEquals(2, metrics.getDepth());
+        assertEquals(4000, metrics.getOldestAgeMs());
+
+        backend.hold = false;
+        backend.unanswered.remove(0).onApplied(null);
+        assertEquals(0, journal.getMetrics().getDepth());
+    }
+
+    @Test
+    public void writeBehindBatchesAreHandedToJournal() {
+        MutationJournal journal = newJournal();
+        File queueFile = new File(directory, "pending.journal");
+        WriteBehindQueue queue = new WriteBehindQueue(queueFile, journal, scheduler, 1000L, 25);
+
+        queue.set("user_progress/u/c1/percentage", 40);
+        queue.set("user_progress/u/c1/percentage", 60);
+        scheduler.runDelayed();
+
+        assertEquals(0, queue.size());
+        assertEquals(1, backend.appliedKeys.size());
+        assertEquals(60, backend.database.get("user_progress/u/c1/percentage"));
+    }
+
+    @Test
+    public void writeBehindBatchIsJournaledOnlyByQueueUntilApplied() {
+        File queueFile = new File(directory, "pending.journal");
+        backend.hold = true;
+        MutationJournal journal = newJournal();
+        WriteBehindQueue queue = new WriteBehindQueue(queueFile, journal, scheduler, 1000L, 25);
+        queue.set("user_progress/u/c1/percentage", 40);
+        scheduler.runDelayed();
+        assertEquals(1, backend.received.size());
+        // Non confirmé : le lot reste dans la file
+        assertEquals(1, queue.size());
+        assertEquals(1, journal.getDepth());
+
+        // Processus tué : le journal des mutations ne rejoue rien, la file renvoie le lot une fois
+        backend.hold = false;
+        backend.received.clear();
+        scheduler.delayed.clear();
+        MutationJournal restarted = newJournal();
+        assertTrue(backend.received.isEmpty());
+        WriteBehindQueue restartedQueue = new WriteBehindQueue(queueFile, restarted, scheduler, 1000L, 25);
+        scheduler.runDelayed();
+
+        assertEquals(1, backend.received.size());
+        assertEquals(40, backend.database.get("user_progress/u/c1/percentage"));
+        assertEquals(0, restartedQueue.size());
+        assertEquals(0, restarted.getDepth());
+    }
+
+    @Test
+    public void rejectedWriteBehindBatchIsDiscarded() {
+        MutationJournal journal = newJournal();
+        WriteBehindQueue queue = new WriteBehindQueue(new File(directory, "pending.journal"),
+                journal, scheduler, 1000L, 25);
+        backend.deny = true;
+
+        queue.set("courses/c1/title", "Interdit");
+        scheduler.runDelayed();
+        backend.deny = false;
+        scheduler.runDelayed();
+
+        assertEquals(0, queue.size());
+        assertEquals(1, backend.received.size());
+        assertEquals(1, journal.getMetrics().getDropped());
+    }
+
+    @Test
+    public void flakyBackendEventuallyAppliesEverythingOnceInOrder() {
+        MutationJournal journal = newJournal();
+        backend.random = new Random(42);
+        backend.failureRate = 0.5;
+        int count = 200;
+
+        for (int i = 0; i < count; i++) {
+            journal.enqueue(set("m" + i, "user_progress/u/c" + i + "/percentage", i), null);
+        }
+        for (int round = 0; round < 10_000 && journal.getDepth() > 0; round++) {
+            scheduler.runDelayed();
+        }
+
+        assertEquals(0, journal.getDepth());
+        assertEquals(count, backend.appliedKeys.size());
+        for (int i = 0; i < count; i++) {
+            assertEquals("m" + i, backend.appliedKeys.get(i));
+            assertEquals(i, backend.database.get("user_progress/u/c" + i + "/percentage"));
+        }
+        assertTrue(journal.getMetrics().getRetries() > 0);
+    }
+}
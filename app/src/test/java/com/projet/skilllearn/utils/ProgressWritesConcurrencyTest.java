@@ -0,0 +1,148 @@
+package com.projet.skilllearn.utils;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Inscriptions simultanées contre une base locale : l'écriture multi-chemins avec incrément
+ * ne perd aucune inscription, contrairement à l'ancienne lecture suivie d'une écriture
+ */
+public class ProgressWritesConcurrencyTest {
+
+    private static final int ENROLLERS = 500;
+    private static final String COURSE_ID = "course1";
+    private static final String COUNT_PATH = "courses/" + COURSE_ID + "/enrolledCount";
+
+    @Test
+    public void enrollmentBuildsSingleMultiPathUpdate() {
+        Map<String, Object> updates = ProgressWrites.enrollment(
+                "user1", COURSE_ID, ShardedCounter.NO_SHARD, 42L, "inc");
+
+        assertEquals(3, updates.size());
+        assertEquals(0, updates.get("user_progress/user1/course1/percentage"));
+        assertEquals(42L, updates.get("user_progress/user1/course1/enrolledAt"));
+        assertEquals("inc", updates.get(COUNT_PATH));
+    }
+
+    @Test
+    public void parallelEnrollmentsLoseNoIncrement() throws Exception {
+        InMemoryDatabase database = new InMemoryDatabase();
+        database.set(COUNT_PATH, 7L);
+
+        runInParallel(ENROLLERS, i -> {
+            Object increment = InMemoryDatabase.increment(1);
+            Map<String, Object> updates = ProgressWrites.enrollment(
+                    "user" + i, COURSE_ID, ShardedCounter.NO_SHARD, i, increment);
+            assertOnlyIncrementsCounter(updates, increment, COUNT_PATH);
+            database.updateChildren(updates);
+        });
+
+        // Ce qui garantit l'absence de perte : aucune écriture ne contient de valeur lue
+        // dans la base, le compteur ne reçoit que l'incrément. La base locale confirme le total.
+        assertEquals(7L + ENROLLERS, database.longAt(COUNT_PATH));
+        for (int i = 0; i < ENROLLERS; i++) {
+            assertEquals(0, database.get("user_progress/user" + i + "/" + COURSE_ID + "/percentage"));
+        }
+    }
+
+    @Test
+    public void parallelShardedEnrollmentsRollUpToExactTotal() throws Exception {
+        InMemoryDatabase database = new InMemoryDatabase();
+        int shardCount = 8;
+        database.set(COUNT_PATH, 7L);
+
+        runInParallel(ENROLLERS, i -> {
+            int shard = ShardedCounter.pickShard(shardCount);
+            Object increment = InMemoryDatabase.increment(1);
+            Map<String, Object> updates = ProgressWrites.enrollment("user" + i, COURSE_ID, shard, i, increment);
+            assertOnlyIncrementsCounter(updates, increment, ShardedCounter.incrementPath(COURSE_ID, shard));
+            database.updateChildren(updates);
+        });
+
+        // Le socle n'est plus écrit, les inscriptions sont réparties sur les fragments
+        assertEquals(7L, database.longAt(COUNT_PATH));
+        List<Long> shards = new ArrayList<>();
+        int usedShards = 0;
+        for (int shard = 0; shard < shardCount; shard++) {
+            long value = database.longAt(ShardedCounter.incrementPath(COURSE_ID, shard));
+            shards.add(value);
+            if (value > 0) {
+                usedShards++;
+            }
+        }
+        assertTrue(usedShards > 1);
+        assertEquals(7 + ENROLLERS, ShardedCounter.rollup(database.longAt(COUNT_PATH), shards));
+    }
+
+    @Test
+    public void readThenWriteLosesConcurrentIncrements() throws Exception {
+        InMemoryDatabase database = new InMemoryDatabase();
+        int enrollers = 50;
+        CyclicBarrier allRead = new CyclicBarrier(enrollers);
+
+        // Ancien schéma : get() puis setValue(count + 1), toutes les lectures précédant les écritures
+        runInParallel(enrollers, i -> {
+            long current = database.longAt(COUNT_PATH);
+            allRead.await(10, TimeUnit.SECONDS);
+            database.set(COUNT_PATH, current + 1);
+        });
+
+        assertEquals(1L, database.longAt(COUNT_PATH));
+    }
+
+    /**
+     * Vérifie qu'une inscription n'écrit que le nœud de progression de l'utilisateur et
+     * l'incrément, sur le seul chemin du compteur : aucune valeur dérivée d'une lecture
+     */
+    private static void assertOnlyIncrementsCounter(Map<String, Object> updates, Object increment,
+                                                    String counterPath) {
+        int increments = 0;
+        for (Map.Entry<String, Object> entry : updates.entrySet()) {
+            if (entry.getValue() == increment) {
+                assertEquals(counterPath, entry.getKey());
+                increments++;
+            } else {
+                assertTrue("Écriture hors du nœud de progression : " + entry.getKey(),
+                        entry.getKey().startsWith(ProgressWrites.USER_PROGRESS + "/"));
+            }
+        }
+        assertEquals(1, increments);
+    }
+
+    private interface Enroller {
+        void enroll(int index) throws Exception;
+    }
+
+    private static void runInParallel(int count, Enroller enroller) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(count);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (int i = 0; i < count; i++) {
+                int index = i;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    enroller.enroll(index);
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.projet.skilllearn.utils;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Progression incrémentale des sections : compteur tenu à jour dans la transaction,
+ * sans recomptage ni double comptage
+ */
+public class SectionCompletionTest {
+
+    private static final String ROOT = "user_progress/user1/course1";
+
+    @Test
+    public void completionUpdatesCounterAndPercentage() {
+        InMemoryDatabase database = new InMemoryDatabase();
+
+        assertTrue(complete(database, "s1", 4));
+        assertEquals(1L, database.get(ROOT + "/completedSections"));
+        assertEquals(25, database.get(ROOT + "/percentage"));
+        assertEquals(true, database.get(ROOT + "/sections/s1/completed"));
+
+        assertTrue(complete(database, "s2", 4));
+        assertEquals(2L, database.get(ROOT + "/completedSections"));
+        assertEquals(50, database.get(ROOT + "/percentage"));
+    }
+
+    @Test
+    public void duplicateCompletionIsIgnored() {
+        InMemoryDatabase database = new InMemoryDatabase();
+
+        assertTrue(complete(database, "s1", 4));
+        assertFalse(complete(database, "s1", 4));
+
+        assertEquals(1L, database.get(ROOT + "/completedSections"));
+        assertEquals(25, database.get(ROOT + "/percentage"));
+    }
+
+    @Test
+    public void missingCounterIsRebuiltFromExistingSections() {
+        InMemoryDatabase database = new InMemoryDatabase();
+        database.set(ROOT + "/sections/s1/completed", true);
+        database.set(ROOT + "/sections/s1/completedAt", 1L);
+        database.set(ROOT + "/sections/s2/completed", false);
+        database.set(ROOT + "/sections/s3/completed", true);
+
+        assertTrue(complete(database, "s4", 4));
+
+        assertEquals(3L, database.get(ROOT + "/completedSections"));
+        assertEquals(75, database.get(ROOT + "/percentage"));
+    }
+
+    @Test
+    public void percentageIsClampedAndSafe() {
+        assertEquals(0, ProgressWrites.percentage(3, 0));
+        assertEquals(33, ProgressWrites.percentage(1, 3));
+        assertEquals(100, ProgressWrites.percentage(5, 3));
+    }
+
+    @Test
+    public void concurrentCompletionsCountEachSectionOnce() throws Exception {
+        InMemoryDatabase database = new InMemoryDatabase();
+        int sections = 50;
+        int eventsPerSection = 8;
+        AtomicInteger applied = new AtomicInteger();
+
+        ExecutorService executor = Executors.newFixedThreadPool(64);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (int i = 0; i < sections * eventsPerSection; i++) {
+                String sectionId = "s" + (i % sections);
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    if (complete(database, sectionId, sections)) {
+                        applied.incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(sections, applied.get());
+        assertEquals((long) sections, database.get(ROOT + "/completedSections"));
+        assertEquals(100, database.get(ROOT + "/percentage"));
+    }
+
+    private static boolean complete(InMemoryDatabase database, String sectionId, int totalSections) {
+        return database.transaction(ROOT, node ->
+                ProgressWrites.completeSection(node, sectionId, totalSections, 1000L));
+    }
+}
@@ -0,0 +1,173 @@
+package com.projet.skilllearn.utils;
+
+import com.projet.skilllearn.model.CourseSection;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests du préchargement de la section suivante, avec une fausse mise en cache vidéo
+ * et un exécuteur manuel pour les mises en forme
+ */
+public class SectionPrefetcherTest {
+
+    private FakeWarmer warmer;
+    private List<Runnable> renderQueue;
+    private List<String> rendered;
+    private SectionPrefetcher<String> prefetcher;
+
+    /**
+     * Fausse mise en cache : garde les tâches en cours jusqu'à finish()
+     */
+    private static class FakeWarmer implements SectionPrefetcher.VideoWarmer {
+        final List<String> started = new ArrayList<>();
+        final List<String> cancelled = new ArrayList<>();
+        final List<Runnable> pending = new ArrayList<>();
+
+        @Override
+        public SectionPrefetcher.Cancellable warm(String videoUrl, Runnable onDone) {
+            if (videoUrl.contains("youtube")) {
+                return null;
+            }
+            started.add(videoUrl);
+            pending.add(onDone);
+            return () -> cancelled.add(videoUrl);
+        }
+
+        void finish() {
+            pending.remove(0).run();
+        }
+    }
+
+    @Before
+    public void setUp() {
+        warmer = new FakeWarmer();
+        renderQueue = new ArrayList<>();
+        rendered = new ArrayList<>();
+        prefetcher = new SectionPrefetcher<>(warmer, html -> {
+            rendered.add(html);
+            return "<rendu>" + html;
+        }, renderQueue::add);
+    }
+
+    @Test
+    public void nextSectionVideoAndContentArePrepared() {
+        List<CourseSection> sections = sections();
+
+        prefetcher.onSectionShown(sections, 0);
+        assertEquals(Arrays.asList("https://cdn/v2.mp4"), warmer.started);
+        assertNull(prefetcher.getPreparedContent("<p>Deux</p>"));
+
+        runRenders();
+        assertEquals("<rendu><p>Deux</p>", prefetcher.getPreparedContent("<p>Deux</p>"));
+    }
+
+    @Test
+    public void lastSectionCancelsPendingPrefetch() {
+        List<CourseSection> sections = sections();
+
+        prefetcher.onSectionShown(sections, 0);
+        prefetcher.onSectionShown(sections, 2);
+
+        assertEquals(Arrays.asList("https://cdn/v2.mp4"), warmer.cancelled);
+    }
+
+    @Test
+    public void skippingAheadCancelsStaleVideo() {
+        List<CourseSection> sections = new ArrayList<>(sections());
+        sections.add(section("s4", "https://cdn/v4.mp4", "<p>Quatre</p>"));
+
+        prefetcher.onSectionShown(sections, 0);
+        prefetcher.onSectionShown(sections, 2);
+
+        assertEquals(Arrays.asList("https://cdn/v2.mp4", "https://cdn/v4.mp4"), warmer.started);
+        assertEquals(Arrays.asList("https://cdn/v2.mp4"), warmer.cancelled);
+    }
+
+    @Test
+    public void warmedVideoIsNotFetchedAgain() {
+        List<CourseSection> sections = sections();
+
+        prefetcher.onSectionShown(sections, 0);
+        prefetcher.onSectionShown(sections, 0);
+        assertEquals(1, warmer.started.size());
+
+        warmer.finish();
+        prefetcher.onSectionShown(sections, 2);
+        prefetcher.onSectionShown(sections, 0);
+        assertEquals(1, warmer.started.size());
+        assertTrue(warmer.cancelled.isEmpty());
+    }
+
+    @Test
+    public void contentIsRenderedOnce() {
+        List<CourseSection> sections = sections();
+
+        prefetcher.onSectionShown(sections, 0);
+        prefetcher.onSectionShown(sections, 0);
+        runRenders();
+        prefetcher.onSectionShown(sections, 0);
+        runRenders();
+
+        assertEquals(Arrays.asList("<p>Deux</p>"), rendered);
+    }
+
+    @Test
+    public void youtubeAndMissingVideosAreSkipped() {
+        List<CourseSection> sections = Arrays.asList(
+                section("s1", null, null),
+                section("s2", "https://www.youtube.com/watch?v=abcdefghijk", null),
+                section("s3", null, "<p>Trois</p>"));
+
+        prefetcher.onSectionShown(sections, 0);
+        prefetcher.onSectionShown(sections, 1);
+        runRenders();
+
+        assertTrue(warmer.started.isEmpty());
+        assertEquals(Arrays.asList("<p>Trois</p>"), rendered);
+    }
+
+    @Test
+    public void preparedContentsAreBounded() {
+        List<CourseSection> sections = new ArrayList<>();
+        for (int i = 0; i <= SectionPrefetcher.MAX_PREPARED_CONTENTS + 1; i++) {
+            sections.add(section("s" + i, null, "<p>" + i + "</p>"));
+        }
+
+        for (int i = 0; i < sections.size() - 1; i++) {
+            prefetcher.onSectionShown(sections, i);
+            runRenders();
+        }
+
+        assertNull(prefetcher.getPreparedContent("<p>1</p>"));
+        assertNotNull(prefetcher.getPreparedContent("<p>" + (sections.size() - 1) + "</p>"));
+    }
+
+    private void runRenders() {
+        List<Runnable> tasks = new ArrayList<>(renderQueue);
+        renderQueue.clear();
+        for (Runnable task : tasks) {
+            task.run();
+        }
+    }
+
+    private static List<CourseSection> sections() {
+        return Arrays.asList(
+                section("s1", "https://cdn/v1.mp4", "<p>Un</p>"),
+                section("s2", "https://cdn/v2.mp4", "<p>Deux</p>"),
+                section("s3", "https://cdn/v3.mp4", "<p>Trois</p>"));
+    }
+
+    private static CourseSection section(String sectionId, String videoUrl, String content) {
+        CourseSection section = new CourseSection(sectionId, "c1", sectionId, "");
+        section.setVideoUrl(videoUrl);
+        section.setContent(content);
+        return section;
+    }
+}
@@ -0,0 +1,49 @@
+package com.projet.skilllearn.utils;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests du choix des fragments et de l'agrégation du compteur d'inscrits
+ */
+public class ShardedCounterTest {
+
+    @Test
+    public void unshardedCourseIncrementsBaseCounter() {
+        assertEquals(ShardedCounter.NO_SHARD, ShardedCounter.pickShard(0));
+        assertEquals(ShardedCounter.NO_SHARD, ShardedCounter.pickShard(1));
+        assertEquals("courses/c1/enrolledCount",
+                ShardedCounter.incrementPath("c1", ShardedCounter.NO_SHARD));
+    }
+
+    @Test
+    public void shardedCourseSpreadsOverConfiguredShards() {
+        Set<Integer> picked = new HashSet<>();
+        for (int i = 0; i < 1000; i++) {
+            int shard = ShardedCounter.pickShard(4);
+            assertTrue(shard >= 0 && shard < 4);
+            picked.add(shard);
+        }
+        assertEquals(4, picked.size());
+        assertEquals("courses/c1/enrolledShards/3", ShardedCounter.incrementPath("c1", 3));
+    }
+
+    @Test
+    public void shardCountIsCapped() {
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(ShardedCounter.pickShard(10_000) < ShardedCounter.MAX_SHARDS);
+        }
+    }
+
+    @Test
+    public void rollupAddsBaseAndShards() {
+        assertEquals(15, ShardedCounter.rollup(5, Arrays.asList(4L, null, 6L)));
+        assertEquals(5, ShardedCounter.rollup(5, null));
+        assertEquals(Integer.MAX_VALUE, ShardedCounter.rollup(Integer.MAX_VALUE, Arrays.asList(1L)));
+    }
+}
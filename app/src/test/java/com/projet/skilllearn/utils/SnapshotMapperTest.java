@@ -0,0 +1,167 @@
+package com.projet.skilllearn.utils;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests de la conversion des instantanés hors du thread principal, avec des exécuteurs
+ * manuels pour les threads de conversion et le thread principal
+ */
+public class SnapshotMapperTest {
+
+    private List<Runnable> background;
+    private List<Runnable> main;
+    private List<String> delivered;
+    private SnapshotMapper mapper;
+
+    @Before
+    public void setUp() {
+        background = new ArrayList<>();
+        main = new ArrayList<>();
+        delivered = new ArrayList<>();
+        mapper = new SnapshotMapper(background::add, main::add);
+    }
+
+    @Test
+    public void mappingRunsInBackgroundAndResultIsDeliveredOnMain() {
+        mapper.map("notes", "a", String::toUpperCase, delivered::add);
+
+        assertTrue(main.isEmpty());
+        run(background);
+        assertTrue(delivered.isEmpty());
+        run(main);
+
+        assertEquals(Collections.singletonList("A"), delivered);
+        assertEquals(1, mapper.getMappedCount());
+    }
+
+    @Test
+    public void pendingSnapshotIsReplacedByNewerOne() {
+        mapper.map("notes", "a", String::toUpperCase, delivered::add);
+        mapper.map("notes", "b", String::toUpperCase, delivered::add);
+        mapper.map("notes", "c", String::toUpperCase, delivered::add);
+
+        assertEquals(1, background.size());
+        run(background);
+        run(main);
+
+        assertEquals(Collections.singletonList("C"), delivered);
+        assertEquals(1, mapper.getMappedCount());
+    }
+
+    @Test
+    public void staleResultIsNotDelivered() {
+        mapper.map("notes", "a", String::toUpperCase, delivered::add);
+        run(background);
+        // Nouvel instantané arrivé avant la livraison du premier résultat
+        mapper.map("notes", "b", String::toUpperCase, delivered::add);
+        run(background);
+        run(main);
+
+        assertEquals(Collections.singletonList("B"), delivered);
+    }
+
+    @Test
+    public void streamsAreIndependent() {
+        mapper.map("notes", "a", String::toUpperCase, delivered::add);
+        mapper.map("achievements", "b", String::toUpperCase, delivered::add);
+        run(background);
+        run(main);
+
+        assertEquals(Arrays.asList("A", "B"), delivered);
+    }
+
+    @Test
+    public void oneShotReadsAreNeverReplaced() {
+        mapper.mapOnce("a", String::toUpperCase, delivered::add);
+        mapper.mapOnce("b", String::toUpperCase, delivered::add);
+        run(background);
+        run(main);
+
+        assertEquals(Arrays.asList("A", "B"), delivered);
+        assertNotEquals(mapper.stream("notes"), mapper.stream("notes"));
+    }
+
+    @Test
+    public void mapAndPostDeliversOnMappingThread() {
+        mapper.mapAndPost("achievements", "a", String::toUpperCase, delivered::add);
+        run(background);
+
+        assertEquals(Collections.singletonList("A"), delivered);
+        assertTrue(main.isEmpty());
+    }
+
+    @Test
+    public void idleActionRunsAfterPendingDeliveries() {
+        mapper.map("course/1", "a", String::toUpperCase, delivered::add);
+        mapper.map("course/2", "b", String::toUpperCase, delivered::add);
+        mapper.whenIdle(() -> delivered.add("fin"));
+
+        assertTrue(main.isEmpty());
+        run(background);
+        run(main);
+
+        assertEquals(Arrays.asList("A", "B", "fin"), delivered);
+    }
+
+    @Test
+    public void idleActionRunsAtOnceWhenNothingIsPending() {
+        mapper.whenIdle(() -> delivered.add("fin"));
+        run(main);
+
+        assertEquals(Collections.singletonList("fin"), delivered);
+    }
+
+    @Test
+    public void failedMappingDoesNotBlockIdleActions() {
+        SnapshotMapper.Mapper<String, String> failing = snapshot -> {
+            throw new IllegalStateException("instantané illisible");
+        };
+        mapper.map("notes", "a", failing, delivered::add);
+        mapper.whenIdle(() -> delivered.add("fin"));
+
+        try {
+            run(background);
+            fail();
+        } catch (IllegalStateException expected) {
+            // L'exception atteint le thread de conversion
+        }
+        run(main);
+
+        assertEquals(Collections.singletonList("fin"), delivered);
+    }
+
+    @Test
+    public void frameStatsCountMissedVsyncs() {
+        long budget = 16_666_667L;
+        FrameStats stats = new FrameStats(budget);
+
+        stats.onFrame(0);
+        stats.onFrame(budget);
+        stats.onFrame(2 * budget);
+        // Image suivante trois budgets plus tard : deux synchronisations manquées
+        stats.onFrame(5 * budget);
+
+        assertEquals(3, stats.getFrames());
+        assertEquals(1, stats.getJankyFrames());
+        assertEquals(2, stats.getDroppedFrames());
+        assertEquals(3 * budget, stats.getWorstFrameNanos());
+
+        stats.reset();
+        stats.onFrame(10 * budget);
+        assertEquals(0, stats.getFrames());
+    }
+
+    private static void run(List<Runnable> tasks) {
+        while (!tasks.isEmpty()) {
+            tasks.remove(0).run();
+        }
+    }
+}
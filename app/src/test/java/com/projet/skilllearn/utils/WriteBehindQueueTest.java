@@ -0,0 +1,291 @@
+package com.projet.skilllearn.utils;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests de la file d'écritures différées, avec un planificateur manuel et une fausse destination
+ */
+public class WriteBehindQueueTest {
+
+    private static final long DELAY = 1000L;
+    private static final int MAX_BATCH = 5;
+
+    private File directory;
+    private File journal;
+    private ManualScheduler scheduler;
+    private RecordingSink sink;
+
+    /**
+     * Exécute immédiatement les tâches (ou les garde jusqu'à runTasks() si holdTasks)
+     * et garde les tâches différées jusqu'à runDelayed()
+     */
+    private static class ManualScheduler implements WriteBehindQueue.Scheduler {
+        final List<Runnable> tasks = new ArrayList<>();
+        final List<Runnable> delayed = new ArrayList<>();
+        final List<Long> delays = new ArrayList<>();
+        boolean holdTasks;
+
+        @Override
+        public void execute(Runnable task) {
+            if (holdTasks) {
+                tasks.add(task);
+            } else {
+                task.run();
+            }
+        }
+
+        void runTasks() {
+            while (!tasks.isEmpty()) {
+                tasks.remove(0).run();
+            }
+        }
+
+        @Override
+        public void schedule(Runnable task, long delayMs) {
+            delayed.add(task);
+            delays.add(delayMs);
+        }
+
+        void runDelayed() {
+            List<Runnable> tasks = new ArrayList<>(delayed);
+            delayed.clear();
+            for (Runnable task : tasks) {
+                task.run();
+            }
+        }
+    }
+
+    /**
+     * Enregistre les lots reçus ; peut refuser ou garder la réponse en attente
+     */
+    private static class RecordingSink implements WriteBehindQueue.Sink {
+        final List<Map<String, Object>> batches = new ArrayList<>();
+        final List<WriteBehindQueue.SinkCallback> unanswered = new ArrayList<>();
+        boolean fail;
+        boolean hold;
+
+        @Override
+        public void write(Map<String, Object> updates, WriteBehindQueue.SinkCallback callback) {
+            batches.add(new HashMap<>(updates));
+            if (hold) {
+                unanswered.add(callback);
+            } else if (fail) {
+                callback.onError("hors ligne");
+            } else {
+                callback.onSuccess();
+            }
+        }
+    }
+
+    @Before
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("write_behind").toFile();
+        journal = new File(directory, "pending.journal");
+        scheduler = new ManualScheduler();
+        sink = new RecordingSink();
+    }
+
+    @After
+    public void tearDown() {
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    private WriteBehindQueue newQueue() {
+        return new WriteBehindQueue(journal, sink, scheduler, DELAY, MAX_BATCH);
+    }
+
+    @Test
+    public void writesToSamePathAreCoalescedIntoOneBatch() {
+        WriteBehindQueue queue = newQueue();
+
+        queue.set("user_progress/u/c1/percentage", 10);
+        queue.set("user_progress/u/c1/percentage", 20);
+        queue.set("user_progress/u/c1/percentage", 30);
+        queue.set("quiz_results/u/c1/q1/score", 4);
+        assertTrue(sink.batches.isEmpty());
+
+        scheduler.runDelayed();
+
+        assertEquals(1, sink.batches.size());
+        Map<String, Object> batch = sink.batches.get(0);
+        assertEquals(2, batch.size());
+        assertEquals(30, batch.get("user_progress/u/c1/percentage"));
+        assertEquals(4, batch.get("quiz_results/u/c1/q1/score"));
+        assertEquals(0, queue.size());
+    }
+
+    @Test
+    public void fullBatchIsSentWithoutWaiting() {
+        WriteBehindQueue queue = newQueue();
+
+        for (int i = 0; i < MAX_BATCH; i++) {
+            queue.set("notes/u/c1/s1/n" + i, "note " + i);
+        }
+
+        assertEquals(1, sink.batches.size());
+        assertEquals(MAX_BATCH, sink.batches.get(0).size());
+    }
+
+    @Test
+    public void multiPathUpdateIsNeverSplitAcrossBatches() {
+        WriteBehindQueue queue = newQueue();
+        for (int i = 0; i < MAX_BATCH - 1; i++) {
+            queue.set("notes/u/c1/s1/n" + i, "note " + i);
+        }
+        Map<String, Object> progress = new HashMap<>();
+        progress.put("user_progress/u/c1/percentage", 60);
+        progress.put("user_progress/u/c1/lastUpdated", 5L);
+
+        queue.setAll(progress);
+
+        assertEquals(1, sink.batches.size());
+        Map<String, Object> batch = sink.batches.get(0);
+        assertEquals(MAX_BATCH + 1, batch.size());
+        assertEquals(60, batch.get("user_progress/u/c1/percentage"));
+        assertEquals(5L, batch.get("user_progress/u/c1/lastUpdated"));
+    }
+
+    @Test
+    public void nestedPathsAreMergedIntoAncestorWrite() {
+        WriteBehindQueue queue = newQueue();
+        Map<String, Object> result = new HashMap<>();
+        result.put("score", 3);
+        result.put("percentage", 60.0);
+
+        queue.set("quiz_results/u/c1/q1/score", 1);
+        queue.set("quiz_results/u/c1/q1", result);
+        queue.set("quiz_results/u/c1/q1/percentage", 80.0);
+        scheduler.runDelayed();
+
+        Map<String, Object> batch = sink.batches.get(0);
+        assertEquals(1, batch.size());
+        @SuppressWarnings("unchecked")
+        Map<String, Object> merged = (Map<String, Object>) batch.get("quiz_results/u/c1/q1");
+        assertEquals(3, merged.get("score"));
+        assertEquals(80.0, merged.get("percentage"));
+        // La valeur passée par l'appelant n'est pas modifiée
+        assertEquals(60.0, result.get("percentage"));
+    }
+
+    @Test
+    public void failedBatchIsRetriedWithBackoffKeepingNewerValues() {
+        WriteBehindQueue queue = newQueue();
+        sink.hold = true;
+
+        queue.set("user_progress/u/c1/percentage", 10);
+        queue.set("user_progress/u/c1/lastUpdated", 1L);
+        scheduler.runDelayed();
+        queue.set("user_progress/u/c1/percentage", 50);
+        assertEquals(3, queue.size());
+
+        sink.hold = false;
+        sink.fail = true;
+        scheduler.delays.clear();
+        sink.unanswered.remove(0).onError("hors ligne");
+
+        assertEquals(2, queue.size());
+        assertTrue(scheduler.delays.get(scheduler.delays.size() - 1) > DELAY);
+
+        sink.fail = false;
+        scheduler.runDelayed();
+        Map<String, Object> retried = sink.batches.get(sink.batches.size() - 1);
+        assertEquals(50, retried.get("user_progress/u/c1/percentage"));
+        assertEquals(1L, retried.get("user_progress/u/c1/lastUpdated"));
+        assertEquals(0, queue.size());
+    }
+
+    @Test
+    public void pendingWritesSurviveProcessDeath() {
+        Map<String, Object> note = new HashMap<>();
+        note.put("text", "À revoir");
+        note.put("timestamp", 42L);
+
+        WriteBehindQueue before = newQueue();
+        before.set("user_progress/u/c1/percentage", 70);
+        before.set("notes/u/c1/s1/n1", note);
+        // Le processus est tué avant l'envoi : le minuteur n'est jamais exécuté
+        scheduler.delayed.clear();
+
+        WriteBehindQueue after = newQueue();
+        assertEquals(2, after.size());
+        scheduler.runDelayed();
+
+        Map<String, Object> batch = sink.batches.get(0);
+        assertEquals(70, batch.get("user_progress/u/c1/percentage"));
+        assertEquals(note, batch.get("notes/u/c1/s1/n1"));
+    }
+
+    @Test
+    public void journalIsWrittenOnSchedulerThread() {
+        WriteBehindQueue queue = newQueue();
+        long headerLength = journal.length();
+        scheduler.holdTasks = true;
+
+        queue.set("user_progress/u/c1/percentage", 70);
+
+        // Aucune écriture disque sur le thread appelant
+        assertEquals(headerLength, journal.length());
+        assertEquals(1, queue.size());
+
+        scheduler.runTasks();
+        assertTrue(journal.length() > headerLength);
+        scheduler.delayed.clear();
+        scheduler.holdTasks = false;
+        assertEquals(1, newQueue().size());
+    }
+
+    @Test
+    public void confirmedWritesAreRemovedFromJournal() {
+        WriteBehindQueue queue = newQueue();
+        queue.set("user_progress/u/c1/percentage", 70);
+        scheduler.runDelayed();
+        assertEquals(1, sink.batches.size());
+
+        WriteBehindQueue restarted = newQueue();
+        assertEquals(0, restarted.size());
+        scheduler.runDelayed();
+        assertEquals(1, sink.batches.size());
+    }
+
+    @Test
+    public void truncatedJournalKeepsCompleteRecords() throws IOException {
+        WriteBehindQueue queue = newQueue();
+        queue.set("user_progress/u/c1/percentage", 70);
+        queue.set("user_progress/u/c2/percentage", 30);
+        scheduler.delayed.clear();
+
+        // Processus tué au milieu de l'ajout du dernier enregistrement
+        try (RandomAccessFile file = new RandomAccessFile(journal, "rw")) {
+            file.setLength(file.length() - 2);
+        }
+
+        WriteBehindQueue restarted = newQueue();
+        assertEquals(1, restarted.size());
+        scheduler.runDelayed();
+        assertEquals(70, sink.batches.get(0).get("user_progress/u/c1/percentage"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unsupportedValuesAreRejected() {
+        newQueue().set("notes/u/c1/s1/n1", new Object());
+    }
+}